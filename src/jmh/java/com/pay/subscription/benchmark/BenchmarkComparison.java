@@ -0,0 +1,53 @@
+package com.pay.subscription.benchmark;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+public final class BenchmarkComparison {
+
+    private BenchmarkComparison() {}
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("Usage: BenchmarkComparison <baseline.json> <current.json> [threshold]");
+            System.exit(2);
+        }
+        double threshold = args.length > 2 ? Double.parseDouble(args[2]) : 0.10;
+        Map<String, JsonNode> baseline = index(args[0]);
+        Map<String, JsonNode> current = index(args[1]);
+        int regressions = 0;
+        for (Map.Entry<String, JsonNode> entry : current.entrySet()) {
+            JsonNode before = baseline.get(entry.getKey());
+            if (before == null) {
+                System.out.printf("%-100s %s%n", entry.getKey(), "NEW");
+                continue;
+            }
+            double beforeScore = before.path("primaryMetric").path("score").asDouble();
+            double afterScore = entry.getValue().path("primaryMetric").path("score").asDouble();
+            double change = (afterScore - beforeScore) / beforeScore;
+            // Throughput regresses when it drops, average time when it grows.
+            boolean regression = "thrpt".equals(entry.getValue().path("mode").asText())
+                    ? change < -threshold
+                    : change > threshold;
+            if (regression) {
+                regressions++;
+            }
+            System.out.printf("%-100s %+8.1f%% %s%n", entry.getKey(), change * 100, regression ? "REGRESSION" : "");
+        }
+        System.exit(regressions == 0 ? 0 : 1);
+    }
+
+    private static Map<String, JsonNode> index(String path) throws IOException {
+        Map<String, JsonNode> results = new LinkedHashMap<>();
+        for (JsonNode result : new ObjectMapper().readTree(new File(path))) {
+            String key = result.path("benchmark").asText() + " " + result.path("mode").asText() + " " + result.path("params");
+            results.put(key, result);
+        }
+        return results;
+    }
+}
@@ -0,0 +1,124 @@
+package com.pay.subscription.benchmark;
+
+import com.pay.subscription.cache.ScheduleCache;
+import com.pay.subscription.enums.BusinessDayAdjustment;
+import com.pay.subscription.enums.SubscriptionType;
+import com.pay.subscription.metrics.SubscriptionMetrics;
+import com.pay.subscription.request.SubscriptionRequest;
+import com.pay.subscription.service.SubscriptionLimits;
+import com.pay.subscription.service.SubscriptionService;
+import com.pay.subscription.util.AdjustedInvoiceDates;
+import com.pay.subscription.util.CalendarTable;
+import com.pay.subscription.util.DateCodec;
+import com.pay.subscription.util.DateUtil;
+import com.pay.subscription.util.HolidayCalendar;
+import com.pay.subscription.util.InvoiceDates;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.PrimitiveIterator;
+import java.util.concurrent.TimeUnit;
+
+// Cost of moving a DAILY schedule onto business days, against the plain schedule.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BusinessDayBenchmark {
+
+    @Param({"3", "36"})
+    private int durationMonths;
+
+    private HolidayCalendar holidayCalendar;
+
+    private long startEpochDay;
+
+    private long endEpochDay;
+
+    private final SubscriptionService subscriptionService = new SubscriptionService(
+            ScheduleCache.disabled(),
+            SubscriptionMetrics.NOOP,
+            new SubscriptionLimits(36, 1, 1, SubscriptionLimits.DEFAULT.getMaxInterval())
+    );
+
+    private SubscriptionRequest request;
+
+    @Setup
+    public void setUp() {
+        LocalDate startDate = LocalDate.of(2021, 1, 15);
+        CalendarTable calendarTable = CalendarTable.DEFAULT;
+        long[] holidays = new long[10 * (calendarTable.getLastYear() - calendarTable.getFirstYear() + 1)];
+        for (int index = 0; index < holidays.length; index++) {
+            holidays[index] = LocalDate.of(calendarTable.getFirstYear() + index / 10, 1 + index % 10, 1 + index % 28).toEpochDay();
+        }
+        this.holidayCalendar = new HolidayCalendar(
+                "BENCH",
+                LocalDate.of(calendarTable.getFirstYear(), 1, 1).toEpochDay(),
+                LocalDate.of(calendarTable.getLastYear(), 12, 31).toEpochDay(),
+                holidays
+        );
+        this.startEpochDay = startDate.toEpochDay();
+        this.endEpochDay = startDate.plusMonths(this.durationMonths).toEpochDay();
+        this.request = new SubscriptionRequest(
+                BigDecimal.TEN,
+                SubscriptionType.DAILY,
+                DateCodec.format(this.startEpochDay),
+                DateCodec.format(this.endEpochDay),
+                null,
+                null
+        );
+    }
+
+    @Benchmark
+    public long unadjusted() {
+        return sum(DateUtil.datesFromStartToEnd(this.startEpochDay, this.endEpochDay, 1));
+    }
+
+    @Benchmark
+    public long following() {
+        return sum(new AdjustedInvoiceDates(
+                DateUtil.datesFromStartToEnd(this.startEpochDay, this.endEpochDay, 1),
+                this.holidayCalendar,
+                BusinessDayAdjustment.FOLLOWING
+        ));
+    }
+
+    @Benchmark
+    public long modifiedFollowing() {
+        return sum(new AdjustedInvoiceDates(
+                DateUtil.datesFromStartToEnd(this.startEpochDay, this.endEpochDay, 1),
+                this.holidayCalendar,
+                BusinessDayAdjustment.MODIFIED_FOLLOWING
+        ));
+    }
+
+    @Benchmark
+    public void subscribeUnadjusted(Blackhole blackhole) {
+        this.subscribe(null, blackhole);
+    }
+
+    @Benchmark
+    public void subscribeFollowing(Blackhole blackhole) {
+        this.subscribe(BusinessDayAdjustment.FOLLOWING, blackhole);
+    }
+
+    private void subscribe(BusinessDayAdjustment adjustment, Blackhole blackhole) {
+        this.request.setBusinessDayAdjustment(adjustment);
+        for (String invoiceDate : this.subscriptionService.subscribe(this.request).getInvoiceDates()) {
+            blackhole.consume(invoiceDate);
+        }
+    }
+
+    private static long sum(InvoiceDates invoiceDates) {
+        long sum = 0;
+        PrimitiveIterator.OfLong epochDays = invoiceDates.epochDayIterator();
+        while (epochDays.hasNext()) {
+            sum += epochDays.nextLong();
+        }
+        return sum;
+    }
+}
@@ -0,0 +1,75 @@
+package com.pay.subscription.benchmark;
+
+import com.pay.subscription.enums.Day;
+import com.pay.subscription.util.DateUtil;
+import com.pay.subscription.util.InvoiceDates;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.time.LocalDate;
+import java.util.PrimitiveIterator;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DateUtilBenchmark {
+
+    @Param({"1", "3"})
+    private int durationMonths;
+
+    private final String dateString = "23/12/2021";
+
+    private final LocalDate date = LocalDate.of(2021, 12, 23);
+
+    private LocalDate startDate;
+
+    private LocalDate endDate;
+
+    @Setup
+    public void setUp() {
+        this.startDate = LocalDate.of(2021, 1, 15);
+        this.endDate = this.startDate.plusMonths(this.durationMonths);
+    }
+
+    @Benchmark
+    public LocalDate stringToDate() {
+        return DateUtil.stringToDate(this.dateString);
+    }
+
+    @Benchmark
+    public String dateToString() {
+        return DateUtil.dateToString(this.date);
+    }
+
+    @Benchmark
+    public LocalDate closestDateForDayOfWeek() {
+        return DateUtil.closestDateForDayOfWeek(this.date, Day.SUNDAY);
+    }
+
+    @Benchmark
+    public void datesFromStartToEndAsStrings(Blackhole blackhole) {
+        for (String invoiceDate : DateUtil.datesFromStartToEnd(this.startDate, this.endDate, 1)) {
+            blackhole.consume(invoiceDate);
+        }
+    }
+
+    @Benchmark
+    public void datesFromStartToEndAsEpochDays(Blackhole blackhole) {
+        PrimitiveIterator.OfLong epochDays = ((InvoiceDates) DateUtil.datesFromStartToEnd(this.startDate, this.endDate, 1))
+                .epochDayIterator();
+        while (epochDays.hasNext()) {
+            blackhole.consume(epochDays.nextLong());
+        }
+    }
+
+    @Benchmark
+    public void datesWithSameDayFromStartToEnd(Blackhole blackhole) {
+        for (String invoiceDate : DateUtil.datesWithSameDayFromStartToEnd(this.startDate, this.endDate, 31)) {
+            blackhole.consume(invoiceDate);
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package com.pay.subscription.benchmark;
+
+import com.pay.subscription.enums.Day;
+import com.pay.subscription.enums.SubscriptionType;
+import com.pay.subscription.request.SubscriptionRequest;
+import com.pay.subscription.service.SubscriptionService;
+import com.pay.subscription.store.DueInvoice;
+import com.pay.subscription.store.SubscriptionStore;
+import com.pay.subscription.util.DateCodec;
+import org.openjdk.jmh.annotations.*;
+
+import java.math.BigDecimal;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgs = "-Xmx4g")
+public class InvoiceRunBenchmark {
+
+    @Param({"1000000"})
+    private int subscriptions;
+
+    @Param({"1", "4"})
+    private int parallelism;
+
+    private SubscriptionStore store;
+
+    private ExecutorService executor;
+
+    private long runDay;
+
+    @Setup
+    public void setUp() {
+        SubscriptionService subscriptionService = new SubscriptionService();
+        Random random = new Random(42);
+        long firstDay = DateCodec.parseEpochDay("01/01/2024");
+        this.store = SubscriptionStore.inMemory();
+        for (int index = 0; index < this.subscriptions; index++) {
+            long startDay = firstDay + random.nextInt(365);
+            SubscriptionType type = SubscriptionType.values()[random.nextInt(3)];
+            SubscriptionRequest request = new SubscriptionRequest(
+                    BigDecimal.TEN,
+                    type,
+                    DateCodec.format(startDay),
+                    DateCodec.format(startDay + 35 + random.nextInt(50)),
+                    1 + random.nextInt(31),
+                    Day.values()[random.nextInt(7)]
+            );
+            subscriptionService.subscribe(request);
+            this.store.add(request);
+        }
+        this.executor = Executors.newFixedThreadPool(this.parallelism);
+        this.runDay = DateCodec.parseEpochDay("30/06/2024");
+    }
+
+    @TearDown
+    public void tearDown() {
+        this.executor.shutdown();
+    }
+
+    @Benchmark
+    public long dueOn() {
+        long count = 0;
+        Iterator<List<DueInvoice>> chunks = this.store.dueOn(this.runDay, this.executor, this.parallelism);
+        while (chunks.hasNext()) {
+            count += chunks.next().size();
+        }
+        return count;
+    }
+}
@@ -0,0 +1,86 @@
+package com.pay.subscription.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.pay.subscription.enums.SubscriptionType;
+import com.pay.subscription.request.SubscriptionRequest;
+import com.pay.subscription.store.SubscriptionJournal;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Durable appends from 16 concurrent writers. commitPerAppend serializes every
+// append with its own fsync, the other benchmark shares fsyncs between the
+// writers arriving within the commit window.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 3)
+@Threads(16)
+@Fork(1)
+public class JournalBenchmark {
+
+    @Param({"0", "500", "2000", "5000"})
+    private long commitWindowMicros;
+
+    private final Object appendLock = new Object();
+
+    private final AtomicLong ids = new AtomicLong();
+
+    private final SubscriptionRequest request = new SubscriptionRequest(
+            BigDecimal.TEN,
+            SubscriptionType.MONTHLY,
+            "01/01/2021",
+            "31/03/2021",
+            31,
+            null
+    );
+
+    private Path directory;
+
+    private SubscriptionJournal journal;
+
+    @Setup
+    public void setUp() throws IOException {
+        this.directory = Files.createTempDirectory("journal-benchmark");
+        this.journal = new SubscriptionJournal(
+                this.directory.resolve("subscriptions.log"),
+                new ObjectMapper(),
+                true,
+                Duration.ofNanos(TimeUnit.MICROSECONDS.toNanos(this.commitWindowMicros))
+        );
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        this.journal.close();
+        Files.delete(this.directory.resolve("subscriptions.log"));
+        Files.delete(this.directory);
+    }
+
+    @Benchmark
+    public long groupCommit() {
+        long offset = this.journal.append(this.entry());
+        this.journal.awaitDurable(offset);
+        return offset;
+    }
+
+    @Benchmark
+    public long commitPerAppend() {
+        synchronized (this.appendLock) {
+            long offset = this.journal.append(this.entry());
+            this.journal.awaitDurable(offset);
+            return offset;
+        }
+    }
+
+    private SubscriptionJournal.Entry entry() {
+        return new SubscriptionJournal.Entry(SubscriptionJournal.PUT, this.ids.incrementAndGet(), this.request);
+    }
+}
@@ -0,0 +1,100 @@
+package com.pay.subscription.benchmark;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Closed-loop load driver for comparing the servlet and reactive modes. Each virtual
+// user keeps exactly one request in flight, so concurrency maps to open connections.
+public final class LoadComparison {
+
+    private static final String BODY = "{\"amount\":10,\"type\":\"MONTHLY\",\"startDate\":\"01/01/2021\","
+            + "\"endDate\":\"31/03/2021\",\"monthlyInvoiceDay\":31}";
+
+    private LoadComparison() {}
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 1) {
+            System.err.println("Usage: LoadComparison <url> [concurrency] [seconds] [warmupSeconds]");
+            System.exit(2);
+        }
+        URI uri = URI.create(args[0]);
+        int concurrency = args.length > 1 ? Integer.parseInt(args[1]) : 64;
+        int seconds = args.length > 2 ? Integer.parseInt(args[2]) : 20;
+        int warmupSeconds = args.length > 3 ? Integer.parseInt(args[3]) : 10;
+        HttpClient client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(10))
+                .build();
+        HttpRequest request = HttpRequest.newBuilder(uri)
+                .header("Content-Type", "application/json")
+                .timeout(Duration.ofSeconds(30))
+                .POST(HttpRequest.BodyPublishers.ofString(BODY))
+                .build();
+        run(client, request, concurrency, warmupSeconds, false);
+        run(client, request, concurrency, seconds, true);
+    }
+
+    private static void run(HttpClient client, HttpRequest request, int concurrency, int seconds, boolean report)
+            throws Exception {
+        long deadline = System.nanoTime() + Duration.ofSeconds(seconds).toNanos();
+        ConcurrentLinkedQueue<Long> latencies = new ConcurrentLinkedQueue<>();
+        AtomicLong errors = new AtomicLong();
+        CompletableFuture<?>[] users = new CompletableFuture<?>[concurrency];
+        for (int user = 0; user < concurrency; user++) {
+            users[user] = loop(client, request, deadline, latencies, errors);
+        }
+        CompletableFuture.allOf(users).join();
+        if (!report) {
+            return;
+        }
+        long[] sorted = latencies.stream().mapToLong(Long::longValue).sorted().toArray();
+        System.out.printf(
+                "%s concurrency=%d requests=%d errors=%d throughput=%.0f/s p50=%.2fms p99=%.2fms max=%.2fms%n",
+                request.uri(),
+                concurrency,
+                sorted.length,
+                errors.get(),
+                sorted.length / (double) seconds,
+                percentile(sorted, 0.50),
+                percentile(sorted, 0.99),
+                percentile(sorted, 1.0)
+        );
+    }
+
+    private static CompletableFuture<Void> loop(
+            HttpClient client,
+            HttpRequest request,
+            long deadline,
+            ConcurrentLinkedQueue<Long> latencies,
+            AtomicLong errors
+    ) {
+        if (System.nanoTime() >= deadline) {
+            return CompletableFuture.completedFuture(null);
+        }
+        long start = System.nanoTime();
+        return client.sendAsync(request, HttpResponse.BodyHandlers.discarding())
+                .handle((response, throwable) -> {
+                    if (throwable != null || response.statusCode() != 200) {
+                        errors.incrementAndGet();
+                    } else {
+                        latencies.add(System.nanoTime() - start);
+                    }
+                    return null;
+                })
+                .thenCompose(ignored -> loop(client, request, deadline, latencies, errors));
+    }
+
+    private static double percentile(long[] sorted, double percentile) {
+        if (sorted.length == 0) {
+            return Double.NaN;
+        }
+        int index = (int) Math.ceil(percentile * sorted.length) - 1;
+        return sorted[Math.max(0, index)] / 1_000_000.0;
+    }
+}
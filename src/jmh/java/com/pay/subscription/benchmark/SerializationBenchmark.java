@@ -0,0 +1,73 @@
+package com.pay.subscription.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.pay.subscription.enums.SubscriptionType;
+import com.pay.subscription.response.SubscriptionResponse;
+import com.pay.subscription.serializer.PreSerializedInvoiceDates;
+import com.pay.subscription.util.DateUtil;
+import com.pay.subscription.util.InvoiceDates;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SerializationBenchmark {
+
+    @Param({"1", "3"})
+    private int durationMonths;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private SubscriptionResponse materialized;
+
+    private SubscriptionResponse lazy;
+
+    private SubscriptionResponse preSerialized;
+
+    @Setup
+    public void setUp() throws Exception {
+        LocalDate startDate = LocalDate.of(2021, 1, 15);
+        InvoiceDates invoiceDates = (InvoiceDates) DateUtil.datesFromStartToEnd(
+                startDate,
+                startDate.plusMonths(this.durationMonths),
+                1
+        );
+        this.materialized = new SubscriptionResponse(
+                BigDecimal.TEN,
+                SubscriptionType.DAILY,
+                new LinkedHashSet<>(new ArrayList<>(invoiceDates))
+        );
+        this.lazy = new SubscriptionResponse(BigDecimal.TEN, SubscriptionType.DAILY, invoiceDates);
+        this.preSerialized = new SubscriptionResponse(
+                BigDecimal.TEN,
+                SubscriptionType.DAILY,
+                new PreSerializedInvoiceDates(invoiceDates)
+        );
+        this.objectMapper.writeValue(OutputStream.nullOutputStream(), this.preSerialized);
+    }
+
+    @Benchmark
+    public void materializedSet() throws Exception {
+        this.objectMapper.writeValue(OutputStream.nullOutputStream(), this.materialized);
+    }
+
+    @Benchmark
+    public void lazyInvoiceDates() throws Exception {
+        this.objectMapper.writeValue(OutputStream.nullOutputStream(), this.lazy);
+    }
+
+    @Benchmark
+    public void preSerializedInvoiceDates() throws Exception {
+        this.objectMapper.writeValue(OutputStream.nullOutputStream(), this.preSerialized);
+    }
+}
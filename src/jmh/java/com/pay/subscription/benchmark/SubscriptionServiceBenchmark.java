@@ -0,0 +1,63 @@
+package com.pay.subscription.benchmark;
+
+import com.pay.subscription.enums.Day;
+import com.pay.subscription.enums.SubscriptionType;
+import com.pay.subscription.request.SubscriptionRequest;
+import com.pay.subscription.response.SubscriptionResponse;
+import com.pay.subscription.service.SubscriptionService;
+import com.pay.subscription.util.DateUtil;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SubscriptionServiceBenchmark {
+
+    @Param({"DAILY", "WEEKLY", "MONTHLY"})
+    private SubscriptionType type;
+
+    @Param({"1", "3"})
+    private int durationMonths;
+
+    // Day of month for MONTHLY, ordinal of Day for WEEKLY.
+    @Param({"1", "6", "31"})
+    private int invoiceDay;
+
+    private final SubscriptionService subscriptionService = new SubscriptionService();
+
+    private SubscriptionRequest request;
+
+    @Setup
+    public void setUp() {
+        LocalDate startDate = LocalDate.of(2021, 1, 15);
+        this.request = new SubscriptionRequest(
+                BigDecimal.TEN,
+                this.type,
+                DateUtil.dateToString(startDate),
+                DateUtil.dateToString(startDate.plusMonths(this.durationMonths)),
+                this.invoiceDay,
+                Day.values()[this.invoiceDay % Day.values().length]
+        );
+    }
+
+    @Benchmark
+    public Object checkDates() {
+        return this.subscriptionService.parse(this.request);
+    }
+
+    @Benchmark
+    public void subscribe(Blackhole blackhole) {
+        SubscriptionResponse response = this.subscriptionService.subscribe(this.request);
+        for (String invoiceDate : response.getInvoiceDates()) {
+            blackhole.consume(invoiceDate);
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package com.pay.subscription.benchmark;
+
+import com.pay.subscription.enums.SubscriptionType;
+import com.pay.subscription.request.SubscriptionRequest;
+import com.pay.subscription.response.SubscriptionResponse;
+import com.pay.subscription.service.SubscriptionService;
+import com.pay.subscription.util.DateCodec;
+import com.pay.subscription.validation.ValidationResult;
+import org.openjdk.jmh.annotations.*;
+
+import java.math.BigDecimal;
+import java.time.format.DateTimeParseException;
+import java.util.concurrent.TimeUnit;
+
+// Rejecting invalid requests through the validation result, against throwing the first error.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ValidationBenchmark {
+
+    @Param({"dateFormat", "typeMissing"})
+    private String invalidity;
+
+    private final SubscriptionService subscriptionService = new SubscriptionService();
+
+    private SubscriptionRequest request;
+
+    @Setup
+    public void setUp() {
+        this.request = new SubscriptionRequest(
+                BigDecimal.TEN,
+                SubscriptionType.DAILY,
+                "01/01/2021",
+                "31/01/2021",
+                null,
+                null
+        );
+        if (this.invalidity.equals("dateFormat")) {
+            this.request.setStartDate("2021-01-01");
+        } else {
+            this.request.setType(null);
+        }
+    }
+
+    @Benchmark
+    public String throwing() {
+        try {
+            return this.subscriptionService.subscribe(this.request).toString();
+        } catch (IllegalArgumentException illegalArgumentException) {
+            return illegalArgumentException.getMessage();
+        }
+    }
+
+    @Benchmark
+    public String result() {
+        ValidationResult<SubscriptionResponse> result = this.subscriptionService.trySubscribe(this.request);
+        return result.isValid() ? result.getValue().toString() : result.getFirstError().getMessage();
+    }
+
+    @Benchmark
+    public long parseDateThrowing() {
+        try {
+            return DateCodec.parseEpochDay(this.request.getStartDate());
+        } catch (DateTimeParseException dateTimeParseException) {
+            return DateCodec.INVALID_EPOCH_DAY;
+        }
+    }
+
+    @Benchmark
+    public long parseDateResult() {
+        return DateCodec.tryParseEpochDay(this.request.getStartDate());
+    }
+}
@@ -0,0 +1,74 @@
+package com.pay.subscription.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import com.fasterxml.jackson.dataformat.smile.databind.SmileMapper;
+import com.pay.subscription.enums.SubscriptionType;
+import com.pay.subscription.response.SubscriptionResponse;
+import com.pay.subscription.util.DateUtil;
+import com.pay.subscription.util.InvoiceDates;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+
+// Writing one response as JSON with dd/MM/yyyy strings, against CBOR and Smile with
+// epoch days. Payload sizes are printed once per trial.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class WireFormatBenchmark {
+
+    @Param({"DAILY", "MONTHLY"})
+    private SubscriptionType type;
+
+    @Param({"12", "120"})
+    private int durationMonths;
+
+    private final ObjectMapper jsonMapper = new ObjectMapper();
+
+    private final ObjectMapper cborMapper = new CBORMapper();
+
+    private final ObjectMapper smileMapper = new SmileMapper();
+
+    private SubscriptionResponse response;
+
+    @Setup
+    public void setUp() throws Exception {
+        LocalDate startDate = LocalDate.of(2021, 1, 15);
+        long startEpochDay = startDate.toEpochDay();
+        long endEpochDay = startDate.plusMonths(this.durationMonths).toEpochDay();
+        InvoiceDates invoiceDates = this.type == SubscriptionType.DAILY
+                ? DateUtil.datesFromStartToEnd(startEpochDay, endEpochDay, 1)
+                : DateUtil.datesWithSameDayFromStartToEnd(startEpochDay, endEpochDay, 31);
+        this.response = new SubscriptionResponse(BigDecimal.TEN, this.type, invoiceDates);
+        System.out.printf(
+                "%s %d months: json %d bytes, cbor %d bytes, smile %d bytes%n",
+                this.type,
+                this.durationMonths,
+                this.jsonMapper.writeValueAsBytes(this.response).length,
+                this.cborMapper.writeValueAsBytes(this.response).length,
+                this.smileMapper.writeValueAsBytes(this.response).length
+        );
+    }
+
+    @Benchmark
+    public void json() throws Exception {
+        this.jsonMapper.writeValue(OutputStream.nullOutputStream(), this.response);
+    }
+
+    @Benchmark
+    public void cbor() throws Exception {
+        this.cborMapper.writeValue(OutputStream.nullOutputStream(), this.response);
+    }
+
+    @Benchmark
+    public void smile() throws Exception {
+        this.smileMapper.writeValue(OutputStream.nullOutputStream(), this.response);
+    }
+}
@@ -0,0 +1,83 @@
+package com.pay.subscription.benchmark;
+
+import com.pay.subscription.util.DateUtil;
+import com.pay.subscription.util.InvoiceDates;
+import com.pay.subscription.util.ZoneTransitions;
+import com.pay.subscription.util.ZonedInvoiceInstants;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.concurrent.TimeUnit;
+
+// Resolving a DAILY schedule into zoned instants through the cached transitions,
+// against a ZonedDateTime per date.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ZonedInstantsBenchmark {
+
+    @Param({"12", "120"})
+    private int durationMonths;
+
+    @Param({"Europe/Paris", "Asia/Kolkata"})
+    private String zoneId;
+
+    private final LocalTime invoiceTime = LocalTime.of(9, 30);
+
+    private InvoiceDates invoiceDates;
+
+    @Setup
+    public void setUp() {
+        LocalDate startDate = LocalDate.of(2021, 1, 15);
+        this.invoiceDates = DateUtil.datesFromStartToEnd(
+                startDate.toEpochDay(),
+                startDate.plusMonths(this.durationMonths).toEpochDay(),
+                1
+        );
+    }
+
+    @Benchmark
+    public long zonedDateTimeInstants() {
+        ZoneId zone = ZoneId.of(this.zoneId);
+        long sum = 0;
+        for (int index = 0; index < this.invoiceDates.size(); index++) {
+            sum += ZonedDateTime.of(LocalDate.ofEpochDay(this.invoiceDates.epochDayAt(index)), this.invoiceTime, zone).toEpochSecond();
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public long cachedTransitionInstants() {
+        ZonedInvoiceInstants instants = new ZonedInvoiceInstants(this.invoiceDates, ZoneTransitions.of(this.zoneId), this.invoiceTime);
+        long sum = 0;
+        for (int index = 0; index < instants.size(); index++) {
+            sum += instants.epochSecondAt(index);
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public void zonedDateTimeFormatted(Blackhole blackhole) {
+        ZoneId zone = ZoneId.of(this.zoneId);
+        for (int index = 0; index < this.invoiceDates.size(); index++) {
+            blackhole.consume(DateTimeFormatter.ISO_OFFSET_DATE_TIME.format(
+                    ZonedDateTime.of(LocalDate.ofEpochDay(this.invoiceDates.epochDayAt(index)), this.invoiceTime, zone)
+            ));
+        }
+    }
+
+    @Benchmark
+    public void cachedTransitionFormatted(Blackhole blackhole) {
+        for (String instant : new ZonedInvoiceInstants(this.invoiceDates, ZoneTransitions.of(this.zoneId), this.invoiceTime)) {
+            blackhole.consume(instant);
+        }
+    }
+}
@@ -0,0 +1,202 @@
+package com.pay.subscription.cache;
+
+import com.pay.subscription.exception.IdempotencyKeyReusedException;
+
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+// Results by Idempotency-Key, so a retried request gets the result of the first one
+// instead of being executed again. A duplicate that arrives while the first is still
+// running waits for it and shares its result (single-flight). A computation that throws
+// is forgotten, and every request waiting for it gets the exception.
+//
+// Segments keep their keys in insertion order and every key lives for the same ttl, so
+// expired keys are always at the head and are dropped as new keys come in. A key evicted
+// for size while it is running still completes for the requests already waiting on it.
+public class IdempotencyTable<V> {
+
+    private static final int SEGMENTS = 16;
+
+    private final Segment[] segments;
+
+    private final LongSupplier nanoTime;
+
+    private final LongAdder executions = new LongAdder();
+
+    private final LongAdder collapsed = new LongAdder();
+
+    private final LongAdder replayed = new LongAdder();
+
+    private final LongAdder evictions = new LongAdder();
+
+    public IdempotencyTable(int maxSize, Duration ttl) {
+        this(maxSize, ttl, System::nanoTime);
+    }
+
+    public IdempotencyTable(int maxSize, Duration ttl, LongSupplier nanoTime) {
+        int segmentCount = maxSize <= 0 ? 0 : Math.min(SEGMENTS, maxSize);
+        this.segments = new Segment[segmentCount];
+        for (int index = 0; index < segmentCount; index++) {
+            int segmentSize = maxSize / segmentCount + (index < maxSize % segmentCount ? 1 : 0);
+            this.segments[index] = new Segment(segmentSize, ttl.toNanos(), this.evictions);
+        }
+        this.nanoTime = nanoTime;
+    }
+
+    public static <V> IdempotencyTable<V> disabled() {
+        return new IdempotencyTable<>(0, Duration.ZERO);
+    }
+
+    public boolean isEnabled() {
+        return this.segments.length > 0;
+    }
+
+    // Runs the computation once per key and request. Throws IdempotencyKeyReusedException
+    // when the key was used for a different request.
+    public V execute(String key, Object request, Supplier<V> computation) {
+        if (!this.isEnabled() || key == null) {
+            return computation.get();
+        }
+        Segment segment = this.segmentFor(key);
+        Execution<V> entry;
+        boolean owner = false;
+        synchronized (segment) {
+            long now = this.nanoTime.getAsLong();
+            segment.expire(now);
+            @SuppressWarnings("unchecked")
+            Execution<V> existing = (Execution<V>) segment.get(key);
+            if (existing == null) {
+                entry = new Execution<>(request, now);
+                segment.put(key, entry);
+                owner = true;
+            } else {
+                entry = existing;
+            }
+        }
+        if (!entry.request.equals(request)) {
+            throw new IdempotencyKeyReusedException(key);
+        }
+        if (owner) {
+            return this.run(segment, key, entry, computation);
+        }
+        if (entry.result.isDone()) {
+            this.replayed.increment();
+        } else {
+            this.collapsed.increment();
+        }
+        try {
+            return entry.result.join();
+        } catch (CompletionException completionException) {
+            Throwable cause = completionException.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw completionException;
+        }
+    }
+
+    public int size() {
+        int size = 0;
+        for (Segment segment : this.segments) {
+            synchronized (segment) {
+                size += segment.size();
+            }
+        }
+        return size;
+    }
+
+    public long getExecutions() {
+        return this.executions.sum();
+    }
+
+    // Duplicates that waited for the first request while it was running.
+    public long getCollapsed() {
+        return this.collapsed.sum();
+    }
+
+    // Duplicates answered with the result of a request that had already completed.
+    public long getReplayed() {
+        return this.replayed.sum();
+    }
+
+    public long getEvictions() {
+        return this.evictions.sum();
+    }
+
+    private V run(Segment segment, String key, Execution<V> entry, Supplier<V> computation) {
+        this.executions.increment();
+        V value;
+        try {
+            value = computation.get();
+        } catch (RuntimeException | Error exception) {
+            synchronized (segment) {
+                segment.remove(key, entry);
+            }
+            entry.result.completeExceptionally(exception);
+            throw exception;
+        }
+        entry.result.complete(value);
+        return value;
+    }
+
+    private Segment segmentFor(String key) {
+        int hash = key.hashCode();
+        return this.segments[Math.floorMod(hash ^ (hash >>> 16), this.segments.length)];
+    }
+
+    private static final class Execution<V> {
+
+        private final Object request;
+
+        private final long createdAtNanos;
+
+        private final CompletableFuture<V> result = new CompletableFuture<>();
+
+        private Execution(Object request, long createdAtNanos) {
+            this.request = request;
+            this.createdAtNanos = createdAtNanos;
+        }
+    }
+
+    private static final class Segment extends LinkedHashMap<String, Execution<?>> {
+
+        private final int maxSize;
+
+        private final long ttlNanos;
+
+        private final LongAdder evictions;
+
+        private Segment(int maxSize, long ttlNanos, LongAdder evictions) {
+            this.maxSize = maxSize;
+            this.ttlNanos = ttlNanos;
+            this.evictions = evictions;
+        }
+
+        private void expire(long now) {
+            Iterator<Execution<?>> entries = this.values().iterator();
+            while (entries.hasNext() && now - entries.next().createdAtNanos >= this.ttlNanos) {
+                entries.remove();
+                this.evictions.increment();
+            }
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Execution<?>> eldest) {
+            if (this.size() > this.maxSize) {
+                this.evictions.increment();
+                return true;
+            }
+            return false;
+        }
+    }
+}
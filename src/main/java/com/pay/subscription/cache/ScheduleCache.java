@@ -0,0 +1,139 @@
+package com.pay.subscription.cache;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+public class ScheduleCache {
+
+    private static final int SEGMENTS = 16;
+
+    private final Segment[] segments;
+
+    private final long ttlNanos;
+
+    private final LongSupplier nanoTime;
+
+    private final LongAdder hits = new LongAdder();
+
+    private final LongAdder misses = new LongAdder();
+
+    private final LongAdder evictions = new LongAdder();
+
+    public ScheduleCache(int maxSize, Duration ttl) {
+        this(maxSize, ttl, System::nanoTime);
+    }
+
+    public ScheduleCache(int maxSize, Duration ttl, LongSupplier nanoTime) {
+        int segmentCount = maxSize <= 0 ? 0 : Math.min(SEGMENTS, maxSize);
+        this.segments = new Segment[segmentCount];
+        for (int index = 0; index < segmentCount; index++) {
+            int segmentSize = maxSize / segmentCount + (index < maxSize % segmentCount ? 1 : 0);
+            this.segments[index] = new Segment(segmentSize);
+        }
+        this.ttlNanos = ttl.toNanos();
+        this.nanoTime = nanoTime;
+    }
+
+    public static ScheduleCache disabled() {
+        return new ScheduleCache(0, Duration.ZERO);
+    }
+
+    public boolean isEnabled() {
+        return this.segments.length > 0;
+    }
+
+    public Set<String> get(ScheduleKey key) {
+        if (!this.isEnabled()) {
+            return null;
+        }
+        Segment segment = this.segmentFor(key);
+        CachedSchedule entry;
+        synchronized (segment) {
+            entry = segment.get(key);
+            if (entry != null && this.nanoTime.getAsLong() - entry.createdAtNanos >= this.ttlNanos) {
+                segment.remove(key);
+                this.evictions.increment();
+                entry = null;
+            }
+        }
+        if (entry == null) {
+            this.misses.increment();
+            return null;
+        }
+        this.hits.increment();
+        return entry.invoiceDates;
+    }
+
+    public void put(ScheduleKey key, Set<String> invoiceDates) {
+        if (!this.isEnabled()) {
+            return;
+        }
+        Segment segment = this.segmentFor(key);
+        CachedSchedule entry = new CachedSchedule(invoiceDates, this.nanoTime.getAsLong());
+        synchronized (segment) {
+            segment.put(key, entry);
+        }
+    }
+
+    public int size() {
+        int size = 0;
+        for (Segment segment : this.segments) {
+            synchronized (segment) {
+                size += segment.size();
+            }
+        }
+        return size;
+    }
+
+    public long getHits() {
+        return this.hits.sum();
+    }
+
+    public long getMisses() {
+        return this.misses.sum();
+    }
+
+    public long getEvictions() {
+        return this.evictions.sum();
+    }
+
+    private Segment segmentFor(ScheduleKey key) {
+        int hash = key.hashCode();
+        return this.segments[Math.floorMod(hash ^ (hash >>> 16), this.segments.length)];
+    }
+
+    private static final class CachedSchedule {
+
+        private final Set<String> invoiceDates;
+
+        private final long createdAtNanos;
+
+        private CachedSchedule(Set<String> invoiceDates, long createdAtNanos) {
+            this.invoiceDates = invoiceDates;
+            this.createdAtNanos = createdAtNanos;
+        }
+    }
+
+    private final class Segment extends LinkedHashMap<ScheduleKey, CachedSchedule> {
+
+        private final int maxSize;
+
+        private Segment(int maxSize) {
+            super(16, 0.75f, true);
+            this.maxSize = maxSize;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<ScheduleKey, CachedSchedule> eldest) {
+            if (this.size() > this.maxSize) {
+                evictions.increment();
+                return true;
+            }
+            return false;
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package com.pay.subscription.cache;
+
+import com.pay.subscription.enums.BusinessDayAdjustment;
+import com.pay.subscription.enums.Day;
+import com.pay.subscription.enums.SubscriptionType;
+import com.pay.subscription.request.RecurrenceRequest;
+import com.pay.subscription.request.SubscriptionRequest;
+import lombok.*;
+
+@Getter
+@ToString
+@EqualsAndHashCode
+@AllArgsConstructor
+public class ScheduleKey {
+    private final SubscriptionType type;
+    private final String startDate;
+    private final String endDate;
+    private final Integer monthlyInvoiceDay;
+    private final Day weeklyInvoiceDay;
+    private final RecurrenceRequest recurrence;
+    private final String holidayCalendar;
+    private final BusinessDayAdjustment businessDayAdjustment;
+
+    // Only the invoice day that belongs to the requested type affects the schedule.
+    public static ScheduleKey of(SubscriptionRequest request) {
+        return new ScheduleKey(
+                request.getType(),
+                request.getStartDate(),
+                request.getEndDate(),
+                request.getType() == SubscriptionType.MONTHLY ? request.getMonthlyInvoiceDay() : null,
+                request.getType() == SubscriptionType.WEEKLY ? request.getWeeklyInvoiceDay() : null,
+                request.getRecurrence(),
+                request.getHolidayCalendar(),
+                request.getBusinessDayAdjustment()
+        );
+    }
+}
@@ -0,0 +1,19 @@
+package com.pay.subscription.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Setter
+@Getter
+@ConfigurationProperties(prefix = "subscription.async")
+public class AsyncProperties {
+    // Threads writing streamed responses such as the invoice run, in the servlet mode.
+    private Integer poolSize = 8;
+    // Responses waiting for a thread; once it is full new ones fail instead of piling up.
+    private Integer queueCapacity = 100;
+    // Streamed responses still running after this long are ended with 503.
+    private Duration requestTimeout = Duration.ofMinutes(10);
+}
@@ -0,0 +1,26 @@
+package com.pay.subscription.config;
+
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+@Configuration
+@EnableConfigurationProperties(BatchProperties.class)
+public class BatchConfig {
+
+    @Bean(destroyMethod = "shutdown")
+    public ExecutorService subscriptionBatchExecutor(BatchProperties batchProperties) {
+        AtomicInteger threadNumber = new AtomicInteger(1);
+        ThreadFactory threadFactory = runnable -> {
+            Thread thread = new Thread(runnable, "subscription-batch-" + threadNumber.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        };
+        return Executors.newFixedThreadPool(Math.max(1, batchProperties.getParallelism()), threadFactory);
+    }
+}
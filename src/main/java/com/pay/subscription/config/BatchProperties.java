@@ -0,0 +1,15 @@
+package com.pay.subscription.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Setter
+@Getter
+@ConfigurationProperties(prefix = "subscription.batch")
+public class BatchProperties {
+    private Integer maxSize = 50000;
+    private Integer parallelism = Runtime.getRuntime().availableProcessors();
+    // Longer lines of a stream are answered with an error instead of being read into memory.
+    private Integer maxLineLength = 65536;
+}
@@ -0,0 +1,33 @@
+package com.pay.subscription.config;
+
+import com.pay.subscription.util.CalendarTable;
+import com.pay.subscription.util.HolidayCalendars;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+@Slf4j
+@Configuration
+@EnableConfigurationProperties(HolidayProperties.class)
+public class HolidayConfig {
+
+    // Holidays are kept for the years of the calendar table, outside them only weekends are skipped.
+    @Bean
+    public HolidayCalendars holidayCalendars(HolidayProperties holidayProperties) throws IOException {
+        String directory = holidayProperties.getDirectory();
+        if (directory == null || directory.trim().isEmpty() || !Files.isDirectory(Paths.get(directory))) {
+            log.info("No holiday calendar directory, business days only skip weekends.");
+            return HolidayCalendars.NONE;
+        }
+        Path path = Paths.get(directory);
+        HolidayCalendars holidayCalendars = HolidayCalendars.load(path, CalendarTable.DEFAULT);
+        log.info("Loaded {} holiday calendars from {}", holidayCalendars.size() - 1, path);
+        return holidayCalendars;
+    }
+}
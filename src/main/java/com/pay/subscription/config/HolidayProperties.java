@@ -0,0 +1,13 @@
+package com.pay.subscription.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Setter
+@Getter
+@ConfigurationProperties(prefix = "subscription.holidays")
+public class HolidayProperties {
+    // Directory of <region>.txt holiday files, no regional calendars when it does not exist.
+    private String directory = "";
+}
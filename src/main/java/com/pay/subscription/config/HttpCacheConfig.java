@@ -0,0 +1,16 @@
+package com.pay.subscription.config;
+
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.CacheControl;
+
+@Configuration
+@EnableConfigurationProperties(HttpCacheProperties.class)
+public class HttpCacheConfig {
+
+    @Bean
+    public CacheControl storedSubscriptionCacheControl(HttpCacheProperties httpCacheProperties) {
+        return CacheControl.maxAge(httpCacheProperties.getStoredMaxAge()).cachePrivate();
+    }
+}
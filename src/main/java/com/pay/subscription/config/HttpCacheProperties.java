@@ -0,0 +1,16 @@
+package com.pay.subscription.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Setter
+@Getter
+@ConfigurationProperties(prefix = "subscription.http-cache")
+public class HttpCacheProperties {
+    // How long clients may reuse a stored subscription before revalidating it with its ETag.
+    // Stored subscriptions never change, but they can be deleted.
+    private Duration storedMaxAge = Duration.ofMinutes(1);
+}
@@ -0,0 +1,50 @@
+package com.pay.subscription.config;
+
+import com.pay.subscription.cache.IdempotencyTable;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.ResponseEntity;
+
+@Configuration
+@EnableConfigurationProperties(IdempotencyProperties.class)
+public class IdempotencyConfig {
+
+    @Bean
+    public IdempotencyTable<ResponseEntity<Object>> idempotencyTable(IdempotencyProperties idempotencyProperties) {
+        if (!idempotencyProperties.getEnabled()) {
+            return IdempotencyTable.disabled();
+        }
+        return new IdempotencyTable<>(idempotencyProperties.getMaxSize(), idempotencyProperties.getTtl());
+    }
+
+    // Bound to the meter registry by Spring Boot, like any other MeterBinder bean.
+    @Bean
+    public MeterBinder idempotencyMeters(
+            MetricsProperties metricsProperties,
+            IdempotencyTable<ResponseEntity<Object>> idempotencyTable
+    ) {
+        return meterRegistry -> {
+            if (!metricsProperties.getEnabled()) {
+                return;
+            }
+            Gauge.builder("subscription.idempotency.size", idempotencyTable, IdempotencyTable::size)
+                    .description("Idempotency keys held with their response")
+                    .register(meterRegistry);
+            FunctionCounter.builder("subscription.idempotency.executions", idempotencyTable, IdempotencyTable::getExecutions)
+                    .description("Requests with an Idempotency-Key that were executed")
+                    .register(meterRegistry);
+            FunctionCounter.builder("subscription.idempotency.collapsed", idempotencyTable, IdempotencyTable::getCollapsed)
+                    .description("Duplicates that waited for the request in flight with their key")
+                    .register(meterRegistry);
+            FunctionCounter.builder("subscription.idempotency.replayed", idempotencyTable, IdempotencyTable::getReplayed)
+                    .description("Duplicates answered with the stored response of their key")
+                    .register(meterRegistry);
+            FunctionCounter.builder("subscription.idempotency.evictions", idempotencyTable, IdempotencyTable::getEvictions)
+                    .register(meterRegistry);
+        };
+    }
+}
@@ -0,0 +1,17 @@
+package com.pay.subscription.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Setter
+@Getter
+@ConfigurationProperties(prefix = "subscription.idempotency")
+public class IdempotencyProperties {
+    private Boolean enabled = true;
+    private Integer maxSize = 100000;
+    // How long a retry with the same Idempotency-Key gets the first response back.
+    private Duration ttl = Duration.ofHours(1);
+}
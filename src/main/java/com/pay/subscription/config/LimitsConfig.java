@@ -0,0 +1,21 @@
+package com.pay.subscription.config;
+
+import com.pay.subscription.service.SubscriptionLimits;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@EnableConfigurationProperties(LimitsProperties.class)
+public class LimitsConfig {
+
+    @Bean
+    public SubscriptionLimits subscriptionLimits(LimitsProperties limitsProperties) {
+        return new SubscriptionLimits(
+                limitsProperties.getMaxMonths(),
+                limitsProperties.getWeeklyMinWeeks(),
+                limitsProperties.getMonthlyMinMonths(),
+                limitsProperties.getMaxInterval()
+        );
+    }
+}
@@ -0,0 +1,16 @@
+package com.pay.subscription.config;
+
+import com.pay.subscription.service.SubscriptionLimits;
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Setter
+@Getter
+@ConfigurationProperties(prefix = "subscription.limits")
+public class LimitsProperties {
+    private Integer maxMonths = SubscriptionLimits.DEFAULT.getMaxMonths();
+    private Integer weeklyMinWeeks = SubscriptionLimits.DEFAULT.getWeeklyMinWeeks();
+    private Integer monthlyMinMonths = SubscriptionLimits.DEFAULT.getMonthlyMinMonths();
+    private Integer maxInterval = SubscriptionLimits.DEFAULT.getMaxInterval();
+}
@@ -0,0 +1,47 @@
+package com.pay.subscription.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.pay.subscription.cache.ScheduleCache;
+import com.pay.subscription.metrics.SubscriptionMetrics;
+import com.pay.subscription.metrics.TimedMappingJackson2HttpMessageConverter;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+
+@Configuration
+@EnableConfigurationProperties(MetricsProperties.class)
+public class MetricsConfig {
+
+    @Bean
+    public SubscriptionMetrics subscriptionMetrics(
+            MetricsProperties metricsProperties,
+            MeterRegistry meterRegistry,
+            ScheduleCache scheduleCache
+    ) {
+        if (!metricsProperties.getEnabled()) {
+            return SubscriptionMetrics.NOOP;
+        }
+        Gauge.builder("subscription.cache.size", scheduleCache, ScheduleCache::size)
+                .description("Schedules held in the schedule cache")
+                .register(meterRegistry);
+        FunctionCounter.builder("subscription.cache.hits", scheduleCache, ScheduleCache::getHits)
+                .register(meterRegistry);
+        FunctionCounter.builder("subscription.cache.misses", scheduleCache, ScheduleCache::getMisses)
+                .register(meterRegistry);
+        FunctionCounter.builder("subscription.cache.evictions", scheduleCache, ScheduleCache::getEvictions)
+                .register(meterRegistry);
+        return new SubscriptionMetrics(meterRegistry);
+    }
+
+    @Bean
+    public MappingJackson2HttpMessageConverter mappingJackson2HttpMessageConverter(
+            ObjectMapper objectMapper,
+            SubscriptionMetrics subscriptionMetrics
+    ) {
+        return new TimedMappingJackson2HttpMessageConverter(objectMapper, subscriptionMetrics);
+    }
+}
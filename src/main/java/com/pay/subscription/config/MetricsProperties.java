@@ -0,0 +1,12 @@
+package com.pay.subscription.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Setter
+@Getter
+@ConfigurationProperties(prefix = "subscription.metrics")
+public class MetricsProperties {
+    private Boolean enabled = true;
+}
@@ -0,0 +1,41 @@
+package com.pay.subscription.config;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+// The batch executor is an Executor bean, so Spring Boot does not create its task executor
+// and Spring MVC would start a new thread for every streamed response. The batch executor
+// itself is not reused: the invoice run waits on it while writing, which could deadlock.
+@Configuration
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+@EnableConfigurationProperties(AsyncProperties.class)
+public class MvcConfig implements WebMvcConfigurer {
+
+    private final AsyncProperties asyncProperties;
+
+    public MvcConfig(AsyncProperties asyncProperties) {
+        this.asyncProperties = asyncProperties;
+    }
+
+    @Bean
+    public ThreadPoolTaskExecutor subscriptionAsyncExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(Math.max(1, this.asyncProperties.getPoolSize()));
+        executor.setMaxPoolSize(Math.max(1, this.asyncProperties.getPoolSize()));
+        executor.setQueueCapacity(Math.max(0, this.asyncProperties.getQueueCapacity()));
+        executor.setThreadNamePrefix("subscription-async-");
+        executor.setDaemon(true);
+        return executor;
+    }
+
+    @Override
+    public void configureAsyncSupport(AsyncSupportConfigurer configurer) {
+        configurer.setTaskExecutor(this.subscriptionAsyncExecutor());
+        configurer.setDefaultTimeout(this.asyncProperties.getRequestTimeout().toMillis());
+    }
+}
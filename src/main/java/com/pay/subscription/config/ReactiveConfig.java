@@ -0,0 +1,96 @@
+package com.pay.subscription.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.reactivestreams.Publisher;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.web.codec.CodecCustomizer;
+import org.springframework.boot.web.embedded.netty.NettyReactiveWebServerFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.ResolvableType;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferFactory;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.cbor.Jackson2CborDecoder;
+import org.springframework.http.codec.cbor.Jackson2CborEncoder;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.util.MimeType;
+import org.springframework.web.reactive.accept.HeaderContentTypeResolver;
+import org.springframework.web.reactive.accept.RequestedContentTypeResolver;
+import org.springframework.web.reactive.accept.RequestedContentTypeResolverBuilder;
+import org.springframework.web.reactive.config.WebFluxConfigurer;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+
+// Tomcat stays on the classpath for the servlet mode, and Spring Boot would otherwise
+// prefer it over Netty when the application runs reactive.
+@Configuration
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveConfig implements WebFluxConfigurer {
+
+    private static final List<MediaType> JSON_FIRST = List.of(MediaType.APPLICATION_JSON, MediaType.ALL);
+
+    @Bean
+    public NettyReactiveWebServerFactory nettyReactiveWebServerFactory() {
+        return new NettyReactiveWebServerFactory();
+    }
+
+    // Batches run on the executor sized by subscription.batch.*, like in the servlet mode.
+    @Bean
+    public Scheduler subscriptionBatchScheduler(ExecutorService subscriptionBatchExecutor) {
+        return Schedulers.fromExecutor(subscriptionBatchExecutor);
+    }
+
+    // WebFlux registers Smile by default but not CBOR, the servlet stack has both. The
+    // codecs are given the media type, they would otherwise claim the JSON ones.
+    @Bean
+    public CodecCustomizer cborCodecCustomizer() {
+        ObjectMapper cborMapper = Jackson2ObjectMapperBuilder.cbor().build();
+        return configurer -> {
+            configurer.customCodecs().register(new SingleValueCborEncoder(cborMapper));
+            configurer.customCodecs().register(new Jackson2CborDecoder(cborMapper, MediaType.APPLICATION_CBOR));
+        };
+    }
+
+    // Custom codecs are asked before the default JSON one, so a request that accepts
+    // anything would be answered in CBOR. Such requests keep getting JSON.
+    @Override
+    public void configureContentTypeResolver(RequestedContentTypeResolverBuilder builder) {
+        HeaderContentTypeResolver headerResolver = new HeaderContentTypeResolver();
+        builder.resolver(exchange -> {
+            List<MediaType> mediaTypes = headerResolver.resolveMediaTypes(exchange);
+            return RequestedContentTypeResolver.MEDIA_TYPE_ALL_LIST.equals(mediaTypes) ? JSON_FIRST : mediaTypes;
+        });
+    }
+
+    // The CBOR encoder only writes single values but rejects them when they come as a
+    // Mono, which is how every response body reaches it.
+    private static final class SingleValueCborEncoder extends Jackson2CborEncoder {
+
+        private SingleValueCborEncoder(ObjectMapper cborMapper) {
+            super(cborMapper, MediaType.APPLICATION_CBOR);
+        }
+
+        @Override
+        public Flux<DataBuffer> encode(
+                Publisher<?> inputStream,
+                DataBufferFactory bufferFactory,
+                ResolvableType elementType,
+                MimeType mimeType,
+                Map<String, Object> hints
+        ) {
+            if (!(inputStream instanceof Mono)) {
+                return super.encode(inputStream, bufferFactory, elementType, mimeType, hints);
+            }
+            return Mono.from(inputStream)
+                    .map(value -> this.encodeValue(value, bufferFactory, elementType, mimeType, hints))
+                    .flux();
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package com.pay.subscription.config;
+
+import com.pay.subscription.cache.ScheduleCache;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@EnableConfigurationProperties(ScheduleCacheProperties.class)
+public class ScheduleCacheConfig {
+
+    @Bean
+    public ScheduleCache scheduleCache(ScheduleCacheProperties scheduleCacheProperties) {
+        if (!scheduleCacheProperties.getEnabled()) {
+            return ScheduleCache.disabled();
+        }
+        return new ScheduleCache(scheduleCacheProperties.getMaxSize(), scheduleCacheProperties.getTtl());
+    }
+}
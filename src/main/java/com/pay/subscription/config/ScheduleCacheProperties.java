@@ -0,0 +1,16 @@
+package com.pay.subscription.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Setter
+@Getter
+@ConfigurationProperties(prefix = "subscription.cache")
+public class ScheduleCacheProperties {
+    private Boolean enabled = true;
+    private Integer maxSize = 10000;
+    private Duration ttl = Duration.ofMinutes(10);
+}
@@ -0,0 +1,73 @@
+package com.pay.subscription.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.pay.subscription.store.SubscriptionJournal;
+import com.pay.subscription.store.SubscriptionStore;
+import com.pay.subscription.util.HolidayCalendars;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+@Slf4j
+@Configuration
+@EnableConfigurationProperties(StoreProperties.class)
+public class StoreConfig {
+
+    // Stored rows refer to holiday calendars by index, so the store is opened with them.
+    @Bean(destroyMethod = "close")
+    public SubscriptionStore subscriptionStore(
+            StoreProperties storeProperties,
+            ObjectMapper objectMapper,
+            HolidayCalendars holidayCalendars
+    ) throws IOException {
+        if (isBlank(storeProperties.getPath())) {
+            return SubscriptionStore.inMemory(holidayCalendars);
+        }
+        Path snapshotPath = isBlank(storeProperties.getSnapshotPath()) ? null : Paths.get(storeProperties.getSnapshotPath());
+        return SubscriptionStore.open(
+                new SubscriptionJournal(
+                        Paths.get(storeProperties.getPath()),
+                        objectMapper,
+                        storeProperties.isFsync(),
+                        storeProperties.getCommitWindow()
+                ),
+                snapshotPath,
+                holidayCalendars
+        );
+    }
+
+    @Bean(destroyMethod = "shutdown")
+    public ScheduledExecutorService subscriptionSnapshotScheduler(
+            StoreProperties storeProperties,
+            SubscriptionStore subscriptionStore
+    ) {
+        ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "subscription-snapshot");
+            thread.setDaemon(true);
+            return thread;
+        });
+        if (!isBlank(storeProperties.getPath()) && !isBlank(storeProperties.getSnapshotPath())) {
+            long interval = storeProperties.getSnapshotInterval().toMillis();
+            scheduler.scheduleWithFixedDelay(() -> {
+                try {
+                    subscriptionStore.writeSnapshot();
+                } catch (IOException | RuntimeException exception) {
+                    log.warn("Could not write subscription snapshot", exception);
+                }
+            }, interval, interval, TimeUnit.MILLISECONDS);
+        }
+        return scheduler;
+    }
+
+    private static boolean isBlank(String value) {
+        return value == null || value.isBlank();
+    }
+}
@@ -0,0 +1,24 @@
+package com.pay.subscription.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Setter
+@Getter
+@ConfigurationProperties(prefix = "subscription.store")
+public class StoreProperties {
+    // Journal file of the subscription store. Left empty, subscriptions are only kept in memory.
+    private String path = "";
+    // Snapshot file loaded on startup instead of replaying the whole journal. Every snapshot
+    // compacts the journal to the entries after it, so the journal alone no longer rebuilds
+    // the store. Left empty, no snapshots are taken and the journal keeps every entry.
+    private String snapshotPath = "";
+    private Duration snapshotInterval = Duration.ofMinutes(5);
+    // Writes return once their journal entry is forced to the disk. Writers queued behind
+    // a running fsync always share the next one; a commit window waits for more of them.
+    private boolean fsync = true;
+    private Duration commitWindow = Duration.ZERO;
+}
@@ -0,0 +1,167 @@
+package com.pay.subscription.controller;
+
+import com.pay.subscription.cache.IdempotencyTable;
+import com.pay.subscription.cache.ScheduleCache;
+import com.pay.subscription.config.BatchProperties;
+import com.pay.subscription.request.SubscriptionRequest;
+import com.pay.subscription.response.InvoiceDueResponse;
+import com.pay.subscription.response.SubscriptionBatchItemResponse;
+import com.pay.subscription.service.InvoiceRunService;
+import com.pay.subscription.service.SubscriptionBatchService;
+import com.pay.subscription.service.SubscriptionService;
+import com.pay.subscription.service.SubscriptionStoreService;
+import com.pay.subscription.service.SubscriptionStreamService;
+import com.pay.subscription.util.ErrorUtil;
+import lombok.AllArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.format.DateTimeParseException;
+import java.util.List;
+
+@RestController
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+@RequestMapping(path = "api/v1/subscription")
+@AllArgsConstructor
+public class ReactiveSubscriptionController {
+
+    private final SubscriptionService subscriptionService;
+
+    private final SubscriptionStoreService subscriptionStoreService;
+
+    private final SubscriptionBatchService subscriptionBatchService;
+
+    private final InvoiceRunService invoiceRunService;
+
+    private final SubscriptionStreamService subscriptionStreamService;
+
+    private final BatchProperties batchProperties;
+
+    private final ScheduleCache scheduleCache;
+
+    private final CacheControl storedSubscriptionCacheControl;
+
+    private final IdempotencyTable<ResponseEntity<Object>> idempotencyTable;
+
+    private final Scheduler subscriptionBatchScheduler;
+
+    // Lookups are answered on the event loop. Storing waits for the journal commit or for a
+    // duplicate in flight, so only that is moved off it.
+    @PostMapping
+    public Mono<ResponseEntity<Object>> subscribe(
+            @RequestBody Mono<SubscriptionRequest> request,
+            @RequestParam(required = false, defaultValue = "false") boolean countOnly,
+            @RequestParam(required = false) String nextInvoiceAfter,
+            @RequestParam(required = false, defaultValue = "false") boolean descriptor,
+            @RequestParam(required = false) Integer offset,
+            @RequestParam(required = false) Integer limit,
+            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+            @RequestHeader(value = SubscriptionResponses.IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey
+    ) {
+        boolean stores = SubscriptionResponses.stores(countOnly, nextInvoiceAfter, descriptor, offset, limit);
+        return request.flatMap(subscriptionRequest -> {
+            Mono<ResponseEntity<Object>> response = Mono.fromSupplier(() -> SubscriptionResponses.subscribe(
+                    this.subscriptionService,
+                    this.subscriptionStoreService,
+                    this.idempotencyTable,
+                    subscriptionRequest,
+                    countOnly,
+                    nextInvoiceAfter,
+                    descriptor,
+                    offset,
+                    limit,
+                    accept,
+                    ifNoneMatch,
+                    idempotencyKey
+            ));
+            return stores ? response.subscribeOn(Schedulers.boundedElastic()) : response;
+        });
+    }
+
+    @PostMapping(path = "batch")
+    public Mono<ResponseEntity<Object>> subscribeBatch(@RequestBody Mono<List<SubscriptionRequest>> requests) {
+        return requests.flatMap(subscriptionRequests -> {
+            try {
+                this.subscriptionBatchService.checkBatch(subscriptionRequests);
+            } catch (IllegalArgumentException illegalArgumentException) {
+                return Mono.just(SubscriptionResponses.badRequest(illegalArgumentException));
+            }
+            return this.subscribeAll(subscriptionRequests)
+                    .collectList()
+                    .map(responses -> new ResponseEntity<>(responses, HttpStatus.OK));
+        });
+    }
+
+    @PostMapping(
+            path = "stream",
+            consumes = MediaType.APPLICATION_NDJSON_VALUE,
+            produces = MediaType.APPLICATION_NDJSON_VALUE
+    )
+    public Flux<SubscriptionBatchItemResponse> subscribeStream(ServerHttpRequest request) {
+        return this.subscriptionStreamService.subscribeStream(request.getBody());
+    }
+
+    @GetMapping(path = "{id:\\d+}")
+    public ResponseEntity<Object> find(
+            @PathVariable long id,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch
+    ) {
+        return SubscriptionResponses.find(this.subscriptionStoreService, this.storedSubscriptionCacheControl, id, ifNoneMatch);
+    }
+
+    @DeleteMapping(path = "{id:\\d+}")
+    public Mono<ResponseEntity<Object>> delete(@PathVariable long id) {
+        return Mono.fromCallable(() -> SubscriptionResponses.delete(this.subscriptionStoreService, id))
+                .subscribeOn(Schedulers.boundedElastic());
+    }
+
+    @GetMapping(path = "invoices")
+    public ResponseEntity<Object> invoicesDue(
+            @RequestParam(required = false) String date,
+            @RequestParam(required = false) String from,
+            @RequestParam(required = false) String to
+    ) {
+        return SubscriptionResponses.invoicesDue(this.subscriptionStoreService, date, from, to);
+    }
+
+    @GetMapping(path = "invoice-run", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<Object> invoiceRun(@RequestParam(required = false) String date) {
+        long epochDay;
+        try {
+            epochDay = this.invoiceRunService.runDate(date);
+        } catch (DateTimeParseException dateTimeParseException) {
+            return new ResponseEntity<>(ErrorUtil.messageOf(dateTimeParseException), HttpStatus.BAD_REQUEST);
+        }
+        // The run waits on the batch executor, so it is kept off the event loop. Its chunks
+        // are built on demand, so a slow client does not pile them up.
+        Flux<InvoiceDueResponse> body = Flux.fromIterable(() -> this.invoiceRunService.run(epochDay))
+                .subscribeOn(Schedulers.boundedElastic())
+                .concatMapIterable(chunk -> chunk);
+        return new ResponseEntity<>(body, HttpStatus.OK);
+    }
+
+    @GetMapping(path = "cache/stats")
+    public ResponseEntity<Object> cacheStats() {
+        return SubscriptionResponses.cacheStats(this.scheduleCache);
+    }
+
+    private Flux<SubscriptionBatchItemResponse> subscribeAll(List<SubscriptionRequest> requests) {
+        int parallelism = Math.max(1, this.batchProperties.getParallelism());
+        int chunkSize = (requests.size() + parallelism - 1) / parallelism;
+        return Flux.range(0, (requests.size() + chunkSize - 1) / chunkSize)
+                .flatMapSequential(chunk -> Flux.range(chunk * chunkSize, Math.min(chunkSize, requests.size() - chunk * chunkSize))
+                        .map(index -> this.subscriptionBatchService.subscribeOne(index, requests.get(index)))
+                        .subscribeOn(this.subscriptionBatchScheduler), parallelism);
+    }
+}
@@ -1,37 +1,142 @@
 package com.pay.subscription.controller;
 
+import com.pay.subscription.cache.IdempotencyTable;
+import com.pay.subscription.cache.ScheduleCache;
 import com.pay.subscription.request.SubscriptionRequest;
-import com.pay.subscription.response.SubscriptionResponse;
+import com.pay.subscription.response.SubscriptionBatchItemResponse;
+import com.pay.subscription.service.InvoiceRunService;
+import com.pay.subscription.service.SubscriptionBatchService;
 import com.pay.subscription.service.SubscriptionService;
+import com.pay.subscription.service.SubscriptionStoreService;
+import com.pay.subscription.service.SubscriptionStreamService;
+import com.pay.subscription.util.ErrorUtil;
 import lombok.AllArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.time.format.DateTimeParseException;
+import java.util.List;
 
 @RestController
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 @RequestMapping(path = "api/v1/subscription")
 @AllArgsConstructor
 public class SubscriptionController {
 
     private final SubscriptionService subscriptionService;
 
+    private final SubscriptionStoreService subscriptionStoreService;
+
+    private final SubscriptionBatchService subscriptionBatchService;
+
+    private final InvoiceRunService invoiceRunService;
+
+    private final SubscriptionStreamService subscriptionStreamService;
+
+    private final ScheduleCache scheduleCache;
+
+    private final CacheControl storedSubscriptionCacheControl;
+
+    private final IdempotencyTable<ResponseEntity<Object>> idempotencyTable;
+
     @PostMapping
-    public ResponseEntity subscribe(@RequestBody SubscriptionRequest request) {
+    public ResponseEntity subscribe(
+            @RequestBody SubscriptionRequest request,
+            @RequestParam(required = false, defaultValue = "false") boolean countOnly,
+            @RequestParam(required = false) String nextInvoiceAfter,
+            @RequestParam(required = false, defaultValue = "false") boolean descriptor,
+            @RequestParam(required = false) Integer offset,
+            @RequestParam(required = false) Integer limit,
+            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+            @RequestHeader(value = SubscriptionResponses.IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey
+    ) {
+        return SubscriptionResponses.subscribe(
+                this.subscriptionService,
+                this.subscriptionStoreService,
+                this.idempotencyTable,
+                request,
+                countOnly,
+                nextInvoiceAfter,
+                descriptor,
+                offset,
+                limit,
+                accept,
+                ifNoneMatch,
+                idempotencyKey
+        );
+    }
+
+    @PostMapping(path = "batch")
+    public ResponseEntity subscribeBatch(@RequestBody List<SubscriptionRequest> requests) {
         try {
-            SubscriptionResponse response = this.subscriptionService.subscribe(request);
-            return new ResponseEntity<>(response, HttpStatus.OK);
+            List<SubscriptionBatchItemResponse> responses = this.subscriptionBatchService.subscribeAll(requests);
+            return new ResponseEntity<>(responses, HttpStatus.OK);
         } catch (IllegalArgumentException illegalArgumentException) {
-            return new ResponseEntity<>(
-                    illegalArgumentException.getMessage(),
-                    HttpStatus.BAD_REQUEST
-            );
+            return SubscriptionResponses.badRequest(illegalArgumentException);
+        }
+    }
+
+    @PostMapping(
+            path = "stream",
+            consumes = MediaType.APPLICATION_NDJSON_VALUE,
+            produces = MediaType.APPLICATION_NDJSON_VALUE
+    )
+    public void subscribeStream(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        response.setStatus(HttpStatus.OK.value());
+        response.setContentType(MediaType.APPLICATION_NDJSON_VALUE);
+        response.setCharacterEncoding("UTF-8");
+        this.subscriptionStreamService.subscribeStream(request.getInputStream(), response.getOutputStream());
+    }
+
+    @GetMapping(path = "{id:\\d+}")
+    public ResponseEntity find(
+            @PathVariable long id,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch
+    ) {
+        return SubscriptionResponses.find(this.subscriptionStoreService, this.storedSubscriptionCacheControl, id, ifNoneMatch);
+    }
+
+    @DeleteMapping(path = "{id:\\d+}")
+    public ResponseEntity delete(@PathVariable long id) {
+        return SubscriptionResponses.delete(this.subscriptionStoreService, id);
+    }
+
+    @GetMapping(path = "invoices")
+    public ResponseEntity invoicesDue(
+            @RequestParam(required = false) String date,
+            @RequestParam(required = false) String from,
+            @RequestParam(required = false) String to
+    ) {
+        return SubscriptionResponses.invoicesDue(this.subscriptionStoreService, date, from, to);
+    }
+
+    @GetMapping(path = "invoice-run", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> invoiceRun(@RequestParam(required = false) String date) {
+        long epochDay;
+        try {
+            epochDay = this.invoiceRunService.runDate(date);
         } catch (DateTimeParseException dateTimeParseException) {
-            return new ResponseEntity<>(
-                    dateTimeParseException.getParsedString() + " does not have dd/MM/yyyy format.",
-                    HttpStatus.BAD_REQUEST
-            );
+            byte[] message = ErrorUtil.messageOf(dateTimeParseException).getBytes(StandardCharsets.UTF_8);
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .contentType(MediaType.TEXT_PLAIN)
+                    .body(outputStream -> outputStream.write(message));
         }
+        return new ResponseEntity<>(outputStream -> this.invoiceRunService.run(epochDay, outputStream), HttpStatus.OK);
+    }
+
+    @GetMapping(path = "cache/stats")
+    public ResponseEntity cacheStats() {
+        return SubscriptionResponses.cacheStats(this.scheduleCache);
     }
 }
@@ -0,0 +1,294 @@
+package com.pay.subscription.controller;
+
+import com.pay.subscription.cache.IdempotencyTable;
+import com.pay.subscription.cache.ScheduleCache;
+import com.pay.subscription.exception.IdempotencyKeyReusedException;
+import com.pay.subscription.request.SubscriptionRequest;
+import com.pay.subscription.response.ScheduleCacheStatsResponse;
+import com.pay.subscription.response.StoredSubscriptionResponse;
+import com.pay.subscription.response.SubscriptionResponse;
+import com.pay.subscription.response.ValidationProblemResponse;
+import com.pay.subscription.service.SubscriptionService;
+import com.pay.subscription.service.SubscriptionStoreService;
+import com.pay.subscription.util.ErrorUtil;
+import com.pay.subscription.util.InvoiceDates;
+import com.pay.subscription.validation.ValidationResult;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+
+import java.time.format.DateTimeParseException;
+import java.util.List;
+
+// Shared by the servlet and reactive controllers so both serve the same contract.
+final class SubscriptionResponses {
+
+    static final String TOTAL_COUNT_HEADER = "X-Total-Count";
+
+    static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
+
+    private static final List<String> VARY = List.of(HttpHeaders.ACCEPT);
+
+    private SubscriptionResponses() {}
+
+    static ResponseEntity<Object> subscribe(
+            SubscriptionService subscriptionService,
+            SubscriptionStoreService subscriptionStoreService,
+            IdempotencyTable<ResponseEntity<Object>> idempotencyTable,
+            SubscriptionRequest request,
+            boolean countOnly,
+            String nextInvoiceAfter,
+            boolean descriptor,
+            Integer offset,
+            Integer limit,
+            String accept,
+            String ifNoneMatch,
+            String idempotencyKey
+    ) {
+        String view = lookupView(countOnly, nextInvoiceAfter, descriptor, offset, limit);
+        if (view != null) {
+            return lookup(
+                    subscriptionService,
+                    request,
+                    countOnly,
+                    nextInvoiceAfter,
+                    descriptor,
+                    offset,
+                    limit,
+                    accept,
+                    ifNoneMatch,
+                    view
+            );
+        }
+        // Only storing has an effect to repeat, a retry with the same key gets the first response.
+        try {
+            return idempotencyTable.execute(
+                    idempotencyKey,
+                    request,
+                    () -> store(subscriptionService, subscriptionStoreService, request, accept)
+            );
+        } catch (IdempotencyKeyReusedException idempotencyKeyReusedException) {
+            return new ResponseEntity<>(idempotencyKeyReusedException.getMessage(), HttpStatus.UNPROCESSABLE_ENTITY);
+        }
+    }
+
+    private static ResponseEntity<Object> store(
+            SubscriptionService subscriptionService,
+            SubscriptionStoreService subscriptionStoreService,
+            SubscriptionRequest request,
+            String accept
+    ) {
+        try {
+            ValidationResult<SubscriptionResponse> result = subscriptionService.trySubscribe(request);
+            if (!result.isValid()) {
+                return badRequest(result, accept);
+            }
+            return new ResponseEntity<>(subscriptionStoreService.create(request, result.getValue()), HttpStatus.OK);
+        } catch (IllegalArgumentException illegalArgumentException) {
+            return badRequest(illegalArgumentException);
+        } catch (DateTimeParseException dateTimeParseException) {
+            return new ResponseEntity<>(
+                    ErrorUtil.messageOf(dateTimeParseException),
+                    HttpStatus.BAD_REQUEST
+            );
+        }
+    }
+
+    private static ResponseEntity<Object> lookup(
+            SubscriptionService subscriptionService,
+            SubscriptionRequest request,
+            boolean countOnly,
+            String nextInvoiceAfter,
+            boolean descriptor,
+            Integer offset,
+            Integer limit,
+            String accept,
+            String ifNoneMatch,
+            String view
+    ) {
+        try {
+            HttpHeaders headers = new HttpHeaders();
+            headers.setETag(subscriptionService.lookupETag(request, view + "|" + accept));
+            headers.setVary(VARY);
+            if (matches(ifNoneMatch, headers.getETag())) {
+                return notModified(headers);
+            }
+            ValidationResult<SubscriptionResponse> result = subscriptionService.trySubscribe(request);
+            if (!result.isValid()) {
+                return badRequest(result, accept);
+            }
+            SubscriptionResponse response = result.getValue();
+            if (countOnly) {
+                return new ResponseEntity<>(subscriptionService.countInvoices(response), headers, HttpStatus.OK);
+            }
+            if (nextInvoiceAfter != null) {
+                return new ResponseEntity<>(
+                        subscriptionService.nextInvoiceAfter(response, nextInvoiceAfter),
+                        headers,
+                        HttpStatus.OK
+                );
+            }
+            // The descriptor stays small for any length, so it describes the whole schedule.
+            if (descriptor) {
+                return new ResponseEntity<>(subscriptionService.describeSchedule(response), headers, HttpStatus.OK);
+            }
+            InvoiceDates invoiceDates = InvoiceDates.of(response.getInvoiceDates());
+            response.setInvoiceDates(invoiceDates.slice(
+                    offset == null ? 0 : offset,
+                    limit == null ? Integer.MAX_VALUE : limit
+            ));
+            headers.set(TOTAL_COUNT_HEADER, String.valueOf(invoiceDates.size()));
+            return new ResponseEntity<>(response, headers, HttpStatus.OK);
+        } catch (IllegalArgumentException illegalArgumentException) {
+            return badRequest(illegalArgumentException);
+        } catch (DateTimeParseException dateTimeParseException) {
+            return new ResponseEntity<>(
+                    ErrorUtil.messageOf(dateTimeParseException),
+                    HttpStatus.BAD_REQUEST
+            );
+        }
+    }
+
+    static ResponseEntity<Object> find(
+            SubscriptionStoreService subscriptionStoreService,
+            CacheControl cacheControl,
+            long id,
+            String ifNoneMatch
+    ) {
+        String eTag = subscriptionStoreService.eTag(id);
+        if (eTag == null) {
+            return notFound(id);
+        }
+        HttpHeaders headers = new HttpHeaders();
+        headers.setETag(eTag);
+        headers.setCacheControl(cacheControl);
+        headers.setVary(VARY);
+        if (matches(ifNoneMatch, eTag)) {
+            return notModified(headers);
+        }
+        StoredSubscriptionResponse response = subscriptionStoreService.find(id);
+        if (response == null) {
+            return notFound(id);
+        }
+        return new ResponseEntity<>(response, headers, HttpStatus.OK);
+    }
+
+    // Only a request that stores the subscription blocks, on its journal commit or on a
+    // duplicate with the same Idempotency-Key.
+    static boolean stores(
+            boolean countOnly,
+            String nextInvoiceAfter,
+            boolean descriptor,
+            Integer offset,
+            Integer limit
+    ) {
+        return lookupView(countOnly, nextInvoiceAfter, descriptor, offset, limit) == null;
+    }
+
+    // Lookups only read, so unlike storing they answer a matching If-None-Match with 304
+    // even though they are POSTs. Null for a request that stores the subscription.
+    private static String lookupView(
+            boolean countOnly,
+            String nextInvoiceAfter,
+            boolean descriptor,
+            Integer offset,
+            Integer limit
+    ) {
+        if (countOnly) {
+            return "count";
+        }
+        if (nextInvoiceAfter != null) {
+            return "next|" + nextInvoiceAfter;
+        }
+        if (descriptor) {
+            return "descriptor";
+        }
+        if (offset != null || limit != null) {
+            return "page|" + offset + "|" + limit;
+        }
+        return null;
+    }
+
+    // True when the If-None-Match header lists the weak tag, with or without W/, or is *.
+    static boolean matches(String ifNoneMatch, String eTag) {
+        if (ifNoneMatch == null || eTag == null) {
+            return false;
+        }
+        String opaqueTag = eTag.startsWith("W/") ? eTag.substring(2) : eTag;
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = candidate.trim();
+            if (tag.equals("*") || tag.equals(eTag) || tag.equals(opaqueTag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static ResponseEntity<Object> notModified(HttpHeaders headers) {
+        return new ResponseEntity<>(headers, HttpStatus.NOT_MODIFIED);
+    }
+
+    static ResponseEntity<Object> delete(SubscriptionStoreService subscriptionStoreService, long id) {
+        if (!subscriptionStoreService.delete(id)) {
+            return notFound(id);
+        }
+        return new ResponseEntity<>(HttpStatus.NO_CONTENT);
+    }
+
+    static ResponseEntity<Object> invoicesDue(
+            SubscriptionStoreService subscriptionStoreService,
+            String date,
+            String from,
+            String to
+    ) {
+        try {
+            return new ResponseEntity<>(subscriptionStoreService.invoicesDue(date, from, to), HttpStatus.OK);
+        } catch (IllegalArgumentException illegalArgumentException) {
+            return badRequest(illegalArgumentException);
+        } catch (DateTimeParseException dateTimeParseException) {
+            return new ResponseEntity<>(
+                    ErrorUtil.messageOf(dateTimeParseException),
+                    HttpStatus.BAD_REQUEST
+            );
+        }
+    }
+
+    static ResponseEntity<Object> badRequest(IllegalArgumentException illegalArgumentException) {
+        return new ResponseEntity<>(
+                ErrorUtil.messageOf(illegalArgumentException),
+                HttpStatus.BAD_REQUEST
+        );
+    }
+
+    // Every error with its code and field as problem details when the client accepts them,
+    // otherwise the message of the first error as before.
+    static ResponseEntity<Object> badRequest(ValidationResult<?> result, String accept) {
+        if (accept != null && MediaType.parseMediaTypes(accept).stream()
+                .anyMatch(mediaType -> mediaType.equalsTypeAndSubtype(MediaType.APPLICATION_PROBLEM_JSON))) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .contentType(MediaType.APPLICATION_PROBLEM_JSON)
+                    .body(new ValidationProblemResponse(
+                            "Subscription request is invalid.",
+                            HttpStatus.BAD_REQUEST.value(),
+                            result.getErrors()
+                    ));
+        }
+        return new ResponseEntity<>(result.getFirstError().getMessage(), HttpStatus.BAD_REQUEST);
+    }
+
+    private static ResponseEntity<Object> notFound(long id) {
+        return new ResponseEntity<>("Subscription " + id + " does not exist.", HttpStatus.NOT_FOUND);
+    }
+
+    static ResponseEntity<Object> cacheStats(ScheduleCache scheduleCache) {
+        ScheduleCacheStatsResponse response = new ScheduleCacheStatsResponse(
+                scheduleCache.size(),
+                scheduleCache.getHits(),
+                scheduleCache.getMisses(),
+                scheduleCache.getEvictions()
+        );
+        return new ResponseEntity<>(response, HttpStatus.OK);
+    }
+}
@@ -0,0 +1,10 @@
+package com.pay.subscription.enums;
+
+public enum AmountMode {
+    // The amount is charged in full on every invoice.
+    PER_INVOICE,
+    // The amount is the total of the subscription, split across its invoices.
+    SPLIT,
+    // The amount is charged per full period, partial first and last periods pay by the day.
+    PRORATE;
+}
@@ -0,0 +1,10 @@
+package com.pay.subscription.enums;
+
+public enum BusinessDayAdjustment {
+    // The next business day.
+    FOLLOWING,
+    // The previous business day.
+    PRECEDING,
+    // The next business day, or the previous one when the next is in another month.
+    MODIFIED_FOLLOWING;
+}
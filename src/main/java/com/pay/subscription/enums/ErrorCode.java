@@ -0,0 +1,21 @@
+package com.pay.subscription.enums;
+
+public enum ErrorCode {
+    AMOUNT_REQUIRED,
+    DATES_REQUIRED,
+    INVALID_DATE_FORMAT,
+    START_DATE_AFTER_END_DATE,
+    WEEKLY_PERIOD_TOO_SHORT,
+    MONTHLY_PERIOD_TOO_SHORT,
+    PERIOD_TOO_LONG,
+    TYPE_REQUIRED,
+    WEEKLY_INVOICE_DAY_INVALID,
+    MONTHLY_INVOICE_DAY_INVALID,
+    ROUNDING_MODE_INVALID,
+    RECURRENCE_INVALID,
+    HOLIDAY_CALENDAR_UNKNOWN,
+    ZONE_ID_INVALID,
+    INVOICE_TIME_INVALID,
+    AMOUNT_NOT_STORABLE,
+    DATE_OUT_OF_RANGE;
+}
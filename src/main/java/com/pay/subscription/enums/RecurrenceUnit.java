@@ -0,0 +1,9 @@
+package com.pay.subscription.enums;
+
+public enum RecurrenceUnit {
+    DAY,
+    WEEK,
+    MONTH,
+    QUARTER,
+    YEAR;
+}
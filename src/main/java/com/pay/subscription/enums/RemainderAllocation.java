@@ -0,0 +1,8 @@
+package com.pay.subscription.enums;
+
+// Invoices receiving the minor units left over when a total is split.
+public enum RemainderAllocation {
+    FIRST,
+    LAST,
+    SPREAD;
+}
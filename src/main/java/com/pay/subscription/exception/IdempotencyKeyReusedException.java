@@ -0,0 +1,14 @@
+package com.pay.subscription.exception;
+
+import lombok.Getter;
+
+@Getter
+public class IdempotencyKeyReusedException extends RuntimeException {
+
+    private final String idempotencyKey;
+
+    public IdempotencyKeyReusedException(String idempotencyKey) {
+        super("Idempotency-Key " + idempotencyKey + " was already used for a different request.");
+        this.idempotencyKey = idempotencyKey;
+    }
+}
@@ -0,0 +1,15 @@
+package com.pay.subscription.exception;
+
+import com.pay.subscription.enums.ErrorCode;
+import lombok.Getter;
+
+@Getter
+public class SubscriptionValidationException extends IllegalArgumentException {
+
+    private final ErrorCode errorCode;
+
+    public SubscriptionValidationException(ErrorCode errorCode, String message) {
+        super(message);
+        this.errorCode = errorCode;
+    }
+}
@@ -0,0 +1,120 @@
+package com.pay.subscription.metrics;
+
+import com.pay.subscription.enums.ErrorCode;
+import com.pay.subscription.enums.SubscriptionType;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import java.util.concurrent.TimeUnit;
+
+public class SubscriptionMetrics {
+
+    public static final SubscriptionMetrics NOOP = new SubscriptionMetrics(null);
+
+    private static final String NO_TYPE = "NONE";
+
+    private static final double[] PERCENTILES = {0.5, 0.95, 0.99};
+
+    private final boolean enabled;
+
+    // Indexed by SubscriptionType ordinal, with one extra slot for requests without a type.
+    private final Timer[] requestTimers;
+
+    private final Timer[] validationTimers;
+
+    private final Timer[] generationTimers;
+
+    private final Timer[] serializationTimers;
+
+    private final DistributionSummary[] invoiceDateCounts;
+
+    private final Counter[][] errorCounters;
+
+    public SubscriptionMetrics(MeterRegistry meterRegistry) {
+        this.enabled = meterRegistry != null;
+        int slots = SubscriptionType.values().length + 1;
+        this.requestTimers = new Timer[slots];
+        this.validationTimers = new Timer[slots];
+        this.generationTimers = new Timer[slots];
+        this.serializationTimers = new Timer[slots];
+        this.invoiceDateCounts = new DistributionSummary[slots];
+        this.errorCounters = new Counter[slots][ErrorCode.values().length];
+        if (!this.enabled) {
+            return;
+        }
+        for (int slot = 0; slot < slots; slot++) {
+            String type = slot < SubscriptionType.values().length ? SubscriptionType.values()[slot].name() : NO_TYPE;
+            this.requestTimers[slot] = timer(meterRegistry, "subscription.requests", "Time to validate and generate a schedule", type);
+            this.validationTimers[slot] = timer(meterRegistry, "subscription.validation", "Time spent validating a request", type);
+            this.generationTimers[slot] = timer(meterRegistry, "subscription.generation", "Time spent generating a schedule", type);
+            this.serializationTimers[slot] = timer(meterRegistry, "subscription.serialization", "Time spent writing a schedule response", type);
+            this.invoiceDateCounts[slot] = DistributionSummary.builder("subscription.invoice.dates")
+                    .description("Number of invoice dates per schedule")
+                    .tag("type", type)
+                    .publishPercentiles(PERCENTILES)
+                    .publishPercentileHistogram()
+                    .register(meterRegistry);
+            for (ErrorCode errorCode : ErrorCode.values()) {
+                this.errorCounters[slot][errorCode.ordinal()] = Counter.builder("subscription.errors")
+                        .description("Rejected subscription requests")
+                        .tag("type", type)
+                        .tag("reason", errorCode.name())
+                        .register(meterRegistry);
+            }
+        }
+    }
+
+    public boolean isEnabled() {
+        return this.enabled;
+    }
+
+    public long startTimer() {
+        return this.enabled ? System.nanoTime() : 0L;
+    }
+
+    public void recordRequest(SubscriptionType type, long startNanos, int invoiceDates) {
+        if (this.enabled) {
+            this.requestTimers[slot(type)].record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+            this.invoiceDateCounts[slot(type)].record(invoiceDates);
+        }
+    }
+
+    public void recordValidation(SubscriptionType type, long startNanos) {
+        if (this.enabled) {
+            this.validationTimers[slot(type)].record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    public void recordGeneration(SubscriptionType type, long startNanos) {
+        if (this.enabled) {
+            this.generationTimers[slot(type)].record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    public void recordSerialization(SubscriptionType type, long startNanos) {
+        if (this.enabled) {
+            this.serializationTimers[slot(type)].record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    public void recordError(SubscriptionType type, ErrorCode errorCode) {
+        if (this.enabled) {
+            this.errorCounters[slot(type)][errorCode.ordinal()].increment();
+        }
+    }
+
+    private static int slot(SubscriptionType type) {
+        return type == null ? SubscriptionType.values().length : type.ordinal();
+    }
+
+    private static Timer timer(MeterRegistry meterRegistry, String name, String description, String type) {
+        return Timer.builder(name)
+                .description(description)
+                .tag("type", type)
+                .publishPercentiles(PERCENTILES)
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+}
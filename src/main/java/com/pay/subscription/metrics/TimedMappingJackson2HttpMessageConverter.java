@@ -0,0 +1,32 @@
+package com.pay.subscription.metrics;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.pay.subscription.response.SubscriptionResponse;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.converter.HttpMessageNotWritableException;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+
+public class TimedMappingJackson2HttpMessageConverter extends MappingJackson2HttpMessageConverter {
+
+    private final SubscriptionMetrics subscriptionMetrics;
+
+    public TimedMappingJackson2HttpMessageConverter(ObjectMapper objectMapper, SubscriptionMetrics subscriptionMetrics) {
+        super(objectMapper);
+        this.subscriptionMetrics = subscriptionMetrics;
+    }
+
+    @Override
+    protected void writeInternal(Object object, Type type, HttpOutputMessage outputMessage)
+            throws IOException, HttpMessageNotWritableException {
+        if (!this.subscriptionMetrics.isEnabled() || !(object instanceof SubscriptionResponse)) {
+            super.writeInternal(object, type, outputMessage);
+            return;
+        }
+        long startNanos = this.subscriptionMetrics.startTimer();
+        super.writeInternal(object, type, outputMessage);
+        this.subscriptionMetrics.recordSerialization(((SubscriptionResponse) object).getType(), startNanos);
+    }
+}
@@ -0,0 +1,35 @@
+package com.pay.subscription.recurrence;
+
+import com.pay.subscription.enums.SubscriptionType;
+import com.pay.subscription.util.InvoiceDates;
+import com.pay.subscription.util.SteppedInvoiceDates;
+
+// Every days days from the start date.
+final class DayStepRule implements RecurrenceRule {
+
+    private final int days;
+
+    DayStepRule(int days) {
+        this.days = days;
+    }
+
+    @Override
+    public SubscriptionType type() {
+        return SubscriptionType.DAILY;
+    }
+
+    @Override
+    public InvoiceDates invoiceDates(long startEpochDay, long endEpochDay) {
+        return new SteppedInvoiceDates(startEpochDay, endEpochDay, this.days);
+    }
+
+    @Override
+    public long previous(long startEpochDay, long invoiceEpochDay) {
+        return invoiceEpochDay - this.days;
+    }
+
+    @Override
+    public long next(long startEpochDay, long invoiceEpochDay) {
+        return invoiceEpochDay + this.days;
+    }
+}
@@ -0,0 +1,48 @@
+package com.pay.subscription.recurrence;
+
+import com.pay.subscription.enums.SubscriptionType;
+import com.pay.subscription.util.DateUtil;
+import com.pay.subscription.util.InvoiceDates;
+import com.pay.subscription.util.MonthlyInvoiceDates;
+
+// Every months months on a day of the month, or on its last business day.
+final class MonthStepRule implements RecurrenceRule {
+
+    private final int months;
+
+    private final int day;
+
+    private final boolean lastBusinessDay;
+
+    MonthStepRule(int months, int day, boolean lastBusinessDay) {
+        this.months = months;
+        this.day = day;
+        this.lastBusinessDay = lastBusinessDay;
+    }
+
+    @Override
+    public SubscriptionType type() {
+        return SubscriptionType.MONTHLY;
+    }
+
+    @Override
+    public InvoiceDates invoiceDates(long startEpochDay, long endEpochDay) {
+        return new MonthlyInvoiceDates(startEpochDay, endEpochDay, this.day, this.months, this.lastBusinessDay);
+    }
+
+    @Override
+    public long previous(long startEpochDay, long invoiceEpochDay) {
+        return this.epochDayOf(DateUtil.prolepticMonth(invoiceEpochDay) - this.months);
+    }
+
+    @Override
+    public long next(long startEpochDay, long invoiceEpochDay) {
+        return this.epochDayOf(DateUtil.prolepticMonth(invoiceEpochDay) + this.months);
+    }
+
+    private long epochDayOf(long prolepticMonth) {
+        return this.lastBusinessDay
+                ? DateUtil.lastBusinessDayOfMonth(prolepticMonth)
+                : DateUtil.epochDayOfMonthDay(prolepticMonth, this.day);
+    }
+}
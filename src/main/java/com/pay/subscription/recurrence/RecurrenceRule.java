@@ -0,0 +1,20 @@
+package com.pay.subscription.recurrence;
+
+import com.pay.subscription.enums.SubscriptionType;
+import com.pay.subscription.util.InvoiceDates;
+
+// A compiled recurrence. Rules that repeat within a cycle are anchored on the start
+// date, so every method takes the start date the schedule was generated from.
+public interface RecurrenceRule {
+
+    // Type the rule is reported and stored as.
+    SubscriptionType type();
+
+    InvoiceDates invoiceDates(long startEpochDay, long endEpochDay);
+
+    // Regular invoice dates before and after one of the generated dates, even when
+    // they fall outside of the subscription. Partial periods are measured against them.
+    long previous(long startEpochDay, long invoiceEpochDay);
+
+    long next(long startEpochDay, long invoiceEpochDay);
+}
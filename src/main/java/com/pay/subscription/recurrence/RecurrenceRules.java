@@ -0,0 +1,191 @@
+package com.pay.subscription.recurrence;
+
+import com.pay.subscription.enums.Day;
+import com.pay.subscription.enums.ErrorCode;
+import com.pay.subscription.enums.RecurrenceUnit;
+import com.pay.subscription.enums.SubscriptionType;
+import com.pay.subscription.exception.SubscriptionValidationException;
+import com.pay.subscription.request.RecurrenceRequest;
+import com.pay.subscription.validation.ValidationError;
+import com.pay.subscription.validation.ValidationResult;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Compiles recurrences into rules. The DAILY, WEEKLY and MONTHLY types are the
+// recurrences every day, every week on weeklyInvoiceDay and every month on
+// monthlyInvoiceDay, and their rules are compiled once up front.
+//
+// A recurrence also packs into an int for the store: unit ordinal + 1 in bits 0-2,
+// last business day in bit 3, the weekdays in bits 4-10, the day of the month in
+// bits 11-15 and the interval in bits 16-31. 0 stands for no recurrence.
+public final class RecurrenceRules {
+
+    public static final int MAX_INTERVAL = 0xFFFF;
+
+    private static final RecurrenceRule DAILY = new DayStepRule(1);
+
+    private static final RecurrenceRule[] WEEKLY = new RecurrenceRule[Day.values().length];
+
+    private static final RecurrenceRule[] MONTHLY = new RecurrenceRule[32];
+
+    // Stored recurrences by code, so rows sharing a recurrence share its rule.
+    private static final Map<Integer, RecurrenceRule> DECODED = new ConcurrentHashMap<>();
+
+    static {
+        for (Day day : Day.values()) {
+            WEEKLY[day.ordinal()] = new WeekdayRule(1, new int[]{day.ordinal()});
+        }
+        for (int day = 1; day < MONTHLY.length; day++) {
+            MONTHLY[day] = new MonthStepRule(1, day, false);
+        }
+    }
+
+    private RecurrenceRules() {}
+
+    public static RecurrenceRule of(SubscriptionType type, Integer monthlyInvoiceDay, Day weeklyInvoiceDay) {
+        if (type == SubscriptionType.DAILY) {
+            return DAILY;
+        } else if (type == SubscriptionType.WEEKLY) {
+            if (weeklyInvoiceDay == null) {
+                throw new SubscriptionValidationException(ErrorCode.WEEKLY_INVOICE_DAY_INVALID, "Please input a valid value for weeklyInvoiceDay, e.g. MONDAY or TUESDAY.");
+            }
+            return WEEKLY[weeklyInvoiceDay.ordinal()];
+        } else if (type == SubscriptionType.MONTHLY) {
+            if (monthlyInvoiceDay == null || monthlyInvoiceDay > 31 || monthlyInvoiceDay < 1) {
+                throw new SubscriptionValidationException(ErrorCode.MONTHLY_INVOICE_DAY_INVALID, "Please input a proper value for the monthlyInvoiceDay field (1 to 31).");
+            }
+            return MONTHLY[monthlyInvoiceDay];
+        } else {
+            throw new SubscriptionValidationException(ErrorCode.TYPE_REQUIRED, "Subscription type is mandatory - DAILY, WEEKLY or MONTHLY.");
+        }
+    }
+
+    public static SubscriptionType typeOf(RecurrenceUnit unit) {
+        if (unit == null) {
+            return null;
+        }
+        switch (unit) {
+            case DAY:
+                return SubscriptionType.DAILY;
+            case WEEK:
+                return SubscriptionType.WEEKLY;
+            default:
+                return SubscriptionType.MONTHLY;
+        }
+    }
+
+    // Rule of the recurrence, or the first problem of it.
+    public static ValidationResult<RecurrenceRule> compile(RecurrenceRequest recurrence, int maxInterval) {
+        ValidationError error = validate(recurrence, maxInterval);
+        if (error != null) {
+            return ValidationResult.invalid(Collections.singletonList(error));
+        }
+        return ValidationResult.valid(build(recurrence));
+    }
+
+    private static RecurrenceRule build(RecurrenceRequest recurrence) {
+        int interval = recurrence.getInterval() == null ? 1 : recurrence.getInterval();
+        boolean lastBusinessDay = Boolean.TRUE.equals(recurrence.getLastBusinessDay());
+        int monthDay = lastBusinessDay ? 0 : recurrence.getMonthDay() == null ? 0 : recurrence.getMonthDay();
+        switch (recurrence.getUnit()) {
+            case DAY:
+                return new DayStepRule(interval);
+            case WEEK:
+                return new WeekdayRule(interval, recurrence.getWeekdays().stream().mapToInt(Day::ordinal).distinct().sorted().toArray());
+            case MONTH:
+                return monthStepRule(interval, monthDay, lastBusinessDay);
+            case QUARTER:
+                return monthStepRule(interval * 3, monthDay, lastBusinessDay);
+            default:
+                return monthStepRule(interval * 12, monthDay, lastBusinessDay);
+        }
+    }
+
+    // First problem of the recurrence, or null when compile accepts it.
+    public static ValidationError validate(RecurrenceRequest recurrence, int maxInterval) {
+        if (recurrence.getUnit() == null) {
+            return invalid("recurrence.unit", "Please input recurrence.unit - DAY, WEEK, MONTH, QUARTER or YEAR.");
+        }
+        int interval = recurrence.getInterval() == null ? 1 : recurrence.getInterval();
+        if (interval < 1 || interval > Math.min(maxInterval, MAX_INTERVAL)) {
+            return invalid("recurrence.interval", "recurrence.interval must be within 1 and " + Math.min(maxInterval, MAX_INTERVAL) + ".");
+        }
+        if (recurrence.getUnit() == RecurrenceUnit.DAY) {
+            return null;
+        }
+        if (recurrence.getUnit() == RecurrenceUnit.WEEK) {
+            List<Day> weekdays = recurrence.getWeekdays();
+            if (weekdays == null || weekdays.isEmpty() || weekdays.contains(null)) {
+                return invalid("recurrence.weekdays", "Please input recurrence.weekdays for a WEEK recurrence, e.g. [\"MONDAY\", \"THURSDAY\"].");
+            }
+            return null;
+        }
+        Integer monthDay = recurrence.getMonthDay();
+        if (Boolean.TRUE.equals(recurrence.getLastBusinessDay()) == (monthDay != null)) {
+            return invalid("recurrence.monthDay", "Please input either recurrence.monthDay (1 to 31) or recurrence.lastBusinessDay.");
+        }
+        if (monthDay != null && (monthDay < 1 || monthDay > 31)) {
+            return invalid("recurrence.monthDay", "recurrence.monthDay must be within 1 and 31.");
+        }
+        return null;
+    }
+
+    // Rule of a code returned by encode, which is expected to have been compiled before.
+    // Valid codes are bounded by the interval limit, so the rules cached here are too.
+    public static RecurrenceRule ofCode(int code) {
+        return DECODED.computeIfAbsent(code, key -> build(decode(key)));
+    }
+
+    public static int encode(RecurrenceRequest recurrence) {
+        if (recurrence == null) {
+            return 0;
+        }
+        int weekdays = 0;
+        if (recurrence.getWeekdays() != null) {
+            for (Day day : recurrence.getWeekdays()) {
+                weekdays |= 1 << day.ordinal();
+            }
+        }
+        return recurrence.getUnit().ordinal() + 1
+                | (Boolean.TRUE.equals(recurrence.getLastBusinessDay()) ? 1 << 3 : 0)
+                | weekdays << 4
+                | (recurrence.getMonthDay() == null ? 0 : recurrence.getMonthDay()) << 11
+                | (recurrence.getInterval() == null ? 1 : recurrence.getInterval()) << 16;
+    }
+
+    public static RecurrenceRequest decode(int code) {
+        if (code == 0) {
+            return null;
+        }
+        List<Day> weekdays = null;
+        int weekdayBits = code >>> 4 & 0x7F;
+        if (weekdayBits != 0) {
+            weekdays = new ArrayList<>();
+            for (Day day : Day.values()) {
+                if ((weekdayBits & 1 << day.ordinal()) != 0) {
+                    weekdays.add(day);
+                }
+            }
+        }
+        int monthDay = code >>> 11 & 0x1F;
+        return new RecurrenceRequest(
+                RecurrenceUnit.values()[(code & 0x7) - 1],
+                code >>> 16,
+                weekdays,
+                monthDay == 0 ? null : monthDay,
+                (code & 1 << 3) != 0 ? Boolean.TRUE : null
+        );
+    }
+
+    private static RecurrenceRule monthStepRule(int months, int monthDay, boolean lastBusinessDay) {
+        return !lastBusinessDay && months == 1 ? MONTHLY[monthDay] : new MonthStepRule(months, monthDay, lastBusinessDay);
+    }
+
+    private static ValidationError invalid(String field, String message) {
+        return new ValidationError(ErrorCode.RECURRENCE_INVALID, field, message);
+    }
+}
@@ -0,0 +1,68 @@
+package com.pay.subscription.recurrence;
+
+import com.pay.subscription.enums.SubscriptionType;
+import com.pay.subscription.util.CyclicInvoiceDates;
+import com.pay.subscription.util.DateUtil;
+import com.pay.subscription.util.InvoiceDates;
+import com.pay.subscription.util.SteppedInvoiceDates;
+
+import java.util.Arrays;
+
+// Every weeks weeks on a set of days of the week. The plan is a cycle of 7 * weeks
+// days starting on a Monday, with the day ordinals as offsets. The first cycle is
+// the week of the first of those days on or after the start date.
+final class WeekdayRule implements RecurrenceRule {
+
+    private final int cycleDays;
+
+    // Ascending Day ordinals, 0 is Monday.
+    private final int[] offsets;
+
+    WeekdayRule(int weeks, int[] offsets) {
+        this.cycleDays = 7 * weeks;
+        this.offsets = offsets;
+    }
+
+    @Override
+    public SubscriptionType type() {
+        return SubscriptionType.WEEKLY;
+    }
+
+    @Override
+    public InvoiceDates invoiceDates(long startEpochDay, long endEpochDay) {
+        long anchorEpochDay = this.anchorEpochDay(startEpochDay);
+        if (this.offsets.length == 1) {
+            return new SteppedInvoiceDates(anchorEpochDay + this.offsets[0], endEpochDay, this.cycleDays);
+        }
+        return new CyclicInvoiceDates(anchorEpochDay, this.cycleDays, this.offsets, startEpochDay, endEpochDay);
+    }
+
+    @Override
+    public long previous(long startEpochDay, long invoiceEpochDay) {
+        long cycleStart = this.cycleStart(startEpochDay, invoiceEpochDay);
+        int offset = Arrays.binarySearch(this.offsets, (int) (invoiceEpochDay - cycleStart));
+        return offset > 0
+                ? cycleStart + this.offsets[offset - 1]
+                : cycleStart - this.cycleDays + this.offsets[this.offsets.length - 1];
+    }
+
+    @Override
+    public long next(long startEpochDay, long invoiceEpochDay) {
+        long cycleStart = this.cycleStart(startEpochDay, invoiceEpochDay);
+        int offset = Arrays.binarySearch(this.offsets, (int) (invoiceEpochDay - cycleStart));
+        return offset < this.offsets.length - 1
+                ? cycleStart + this.offsets[offset + 1]
+                : cycleStart + this.cycleDays + this.offsets[0];
+    }
+
+    private long anchorEpochDay(long startEpochDay) {
+        int dayOfWeek = DateUtil.dayOfWeek(startEpochDay);
+        long monday = startEpochDay - dayOfWeek;
+        return this.offsets[this.offsets.length - 1] < dayOfWeek ? monday + 7 : monday;
+    }
+
+    private long cycleStart(long startEpochDay, long invoiceEpochDay) {
+        long anchorEpochDay = this.anchorEpochDay(startEpochDay);
+        return anchorEpochDay + Math.floorDiv(invoiceEpochDay - anchorEpochDay, this.cycleDays) * this.cycleDays;
+    }
+}
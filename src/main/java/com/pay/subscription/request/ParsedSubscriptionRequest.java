@@ -0,0 +1,29 @@
+package com.pay.subscription.request;
+
+import com.pay.subscription.enums.BusinessDayAdjustment;
+import com.pay.subscription.enums.Day;
+import com.pay.subscription.enums.SubscriptionType;
+import com.pay.subscription.recurrence.RecurrenceRule;
+import com.pay.subscription.util.HolidayCalendar;
+import lombok.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+@Getter
+@ToString
+@EqualsAndHashCode
+@AllArgsConstructor
+public class ParsedSubscriptionRequest {
+    private final BigDecimal amount;
+    private final SubscriptionType type;
+    private final LocalDate startDate;
+    private final LocalDate endDate;
+    private final Integer monthlyInvoiceDay;
+    private final Day weeklyInvoiceDay;
+    // Compiled recurrence, null when the schedule follows the type and invoice day.
+    private final RecurrenceRule recurrenceRule;
+    // Null when invoices are not moved onto business days.
+    private final HolidayCalendar holidayCalendar;
+    private final BusinessDayAdjustment businessDayAdjustment;
+}
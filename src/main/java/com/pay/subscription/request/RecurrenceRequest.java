@@ -0,0 +1,24 @@
+package com.pay.subscription.request;
+
+import com.pay.subscription.enums.Day;
+import com.pay.subscription.enums.RecurrenceUnit;
+import lombok.*;
+
+import java.util.List;
+
+@Setter
+@Getter
+@ToString
+@EqualsAndHashCode
+@NoArgsConstructor
+@AllArgsConstructor
+public class RecurrenceRequest {
+    private RecurrenceUnit unit;
+    // Number of units between invoices, 1 when left out.
+    private Integer interval;
+    // WEEK only, the days of the week to invoice on.
+    private List<Day> weekdays;
+    // MONTH, QUARTER and YEAR, either a day of the month or the last business day.
+    private Integer monthDay;
+    private Boolean lastBusinessDay;
+}
@@ -1,15 +1,20 @@
 package com.pay.subscription.request;
 
+import com.pay.subscription.enums.AmountMode;
+import com.pay.subscription.enums.BusinessDayAdjustment;
 import com.pay.subscription.enums.Day;
+import com.pay.subscription.enums.RemainderAllocation;
 import com.pay.subscription.enums.SubscriptionType;
 import lombok.*;
 
 import java.math.BigDecimal;
+import java.math.RoundingMode;
 
 @Setter
 @Getter
 @ToString
 @EqualsAndHashCode
+@NoArgsConstructor
 @AllArgsConstructor
 public class SubscriptionRequest {
     private BigDecimal amount;
@@ -18,4 +23,29 @@ public class SubscriptionRequest {
     private String endDate;
     private Integer monthlyInvoiceDay;
     private Day weeklyInvoiceDay;
+    // Optional, without them the amount is charged in full on every invoice.
+    private AmountMode amountMode;
+    private RoundingMode roundingMode;
+    private RemainderAllocation remainderAllocation;
+    // Optional, replaces the schedule of type. type can then be left out.
+    private RecurrenceRequest recurrence;
+    // Optional, moves invoices off weekends and the holidays of the region.
+    // A region without an adjustment follows to the next business day.
+    private String holidayCalendar;
+    private BusinessDayAdjustment businessDayAdjustment;
+    // Optional, invoices are then also returned as instants at invoiceTime (HH:mm, midnight
+    // by default) in zoneId (UTC by default).
+    private String zoneId;
+    private String invoiceTime;
+
+    public SubscriptionRequest(
+            BigDecimal amount,
+            SubscriptionType type,
+            String startDate,
+            String endDate,
+            Integer monthlyInvoiceDay,
+            Day weeklyInvoiceDay
+    ) {
+        this(amount, type, startDate, endDate, monthlyInvoiceDay, weeklyInvoiceDay, null, null, null, null, null, null, null, null);
+    }
 }
@@ -0,0 +1,18 @@
+package com.pay.subscription.response;
+
+import com.pay.subscription.enums.SubscriptionType;
+import lombok.*;
+
+import java.math.BigDecimal;
+
+@Setter
+@Getter
+@ToString
+@EqualsAndHashCode
+@AllArgsConstructor
+public class InvoiceDueResponse {
+    private Long subscriptionId;
+    private BigDecimal amountPerInvoice;
+    private SubscriptionType type;
+    private String invoiceDate;
+}
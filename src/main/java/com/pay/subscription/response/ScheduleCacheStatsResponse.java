@@ -0,0 +1,15 @@
+package com.pay.subscription.response;
+
+import lombok.*;
+
+@Setter
+@Getter
+@ToString
+@EqualsAndHashCode
+@AllArgsConstructor
+public class ScheduleCacheStatsResponse {
+    private Integer size;
+    private Long hits;
+    private Long misses;
+    private Long evictions;
+}
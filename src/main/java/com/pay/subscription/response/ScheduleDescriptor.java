@@ -0,0 +1,27 @@
+package com.pay.subscription.response;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.*;
+
+import java.util.List;
+
+// Invoice dates as a rule instead of a list. Either stepDays, or stepMonths with dayOfMonth,
+// where exceptions are the dates clamped to the end of a shorter month. A schedule with no
+// such rule lists its dates. lastDate is the date the expansion must end on.
+@Setter
+@Getter
+@ToString
+@EqualsAndHashCode
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class ScheduleDescriptor {
+    private String firstDate;
+    private String lastDate;
+    private Integer count;
+    private Integer stepDays;
+    private Integer stepMonths;
+    private Integer dayOfMonth;
+    private List<String> exceptions;
+    private List<String> dates;
+}
@@ -0,0 +1,22 @@
+package com.pay.subscription.response;
+
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+import com.pay.subscription.enums.SubscriptionType;
+import lombok.*;
+
+import java.math.BigDecimal;
+import java.util.Set;
+
+@Setter
+@Getter
+@ToString(callSuper = true)
+@EqualsAndHashCode(callSuper = true)
+@JsonPropertyOrder({"id", "amountPerInvoice", "type", "invoiceDates", "invoiceAmounts", "invoiceInstants"})
+public class StoredSubscriptionResponse extends SubscriptionResponse {
+    private Long id;
+
+    public StoredSubscriptionResponse(Long id, BigDecimal amountPerInvoice, SubscriptionType type, Set<String> invoiceDates) {
+        super(amountPerInvoice, type, invoiceDates);
+        this.id = id;
+    }
+}
@@ -0,0 +1,25 @@
+package com.pay.subscription.response;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.pay.subscription.validation.ValidationError;
+import lombok.*;
+
+import java.util.List;
+
+@Setter
+@Getter
+@ToString
+@EqualsAndHashCode
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class SubscriptionBatchItemResponse {
+    private Long index;
+    private SubscriptionResponse response;
+    private String error;
+    // Every error of an invalid request, error holds the message of the first.
+    private List<ValidationError> errors;
+
+    public SubscriptionBatchItemResponse(Long index, SubscriptionResponse response, String error) {
+        this(index, response, error, null);
+    }
+}
@@ -0,0 +1,17 @@
+package com.pay.subscription.response;
+
+import com.pay.subscription.enums.SubscriptionType;
+import lombok.*;
+
+import java.math.BigDecimal;
+
+@Setter
+@Getter
+@ToString
+@EqualsAndHashCode
+@AllArgsConstructor
+public class SubscriptionCountResponse {
+    private BigDecimal amountPerInvoice;
+    private SubscriptionType type;
+    private Integer invoiceCount;
+}
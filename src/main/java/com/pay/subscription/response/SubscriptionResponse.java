@@ -1,9 +1,13 @@
 package com.pay.subscription.response;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
 import com.pay.subscription.enums.SubscriptionType;
+import com.pay.subscription.serializer.InvoiceDatesSerializer;
 import lombok.*;
 
 import java.math.BigDecimal;
+import java.util.List;
 import java.util.Set;
 
 @Setter
@@ -14,5 +18,16 @@ import java.util.Set;
 public class SubscriptionResponse {
     private BigDecimal amountPerInvoice;
     private SubscriptionType type;
+    @JsonSerialize(using = InvoiceDatesSerializer.class)
     private Set<String> invoiceDates;
+    // Amount of each invoice in date order, only when the request asks for split or prorated amounts.
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private List<BigDecimal> invoiceAmounts;
+    // Instant of each invoice in date order, only when the request has a zoneId or an invoiceTime.
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private List<String> invoiceInstants;
+
+    public SubscriptionResponse(BigDecimal amountPerInvoice, SubscriptionType type, Set<String> invoiceDates) {
+        this(amountPerInvoice, type, invoiceDates, null, null);
+    }
 }
@@ -0,0 +1,23 @@
+package com.pay.subscription.response;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.pay.subscription.enums.SubscriptionType;
+import lombok.*;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+@Setter
+@Getter
+@ToString
+@EqualsAndHashCode
+@AllArgsConstructor
+public class SubscriptionScheduleResponse {
+    private BigDecimal amountPerInvoice;
+    private SubscriptionType type;
+    private ScheduleDescriptor schedule;
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private List<BigDecimal> invoiceAmounts;
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private List<String> invoiceInstants;
+}
@@ -0,0 +1,18 @@
+package com.pay.subscription.response;
+
+import com.pay.subscription.validation.ValidationError;
+import lombok.*;
+
+import java.util.List;
+
+// application/problem+json body for a rejected request.
+@Setter
+@Getter
+@ToString
+@EqualsAndHashCode
+@AllArgsConstructor
+public class ValidationProblemResponse {
+    private String title;
+    private Integer status;
+    private List<ValidationError> errors;
+}
@@ -0,0 +1,70 @@
+package com.pay.subscription.serializer;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+import com.fasterxml.jackson.dataformat.cbor.CBORGenerator;
+import com.fasterxml.jackson.dataformat.smile.SmileGenerator;
+import com.pay.subscription.util.DateCodec;
+import com.pay.subscription.util.InvoiceDates;
+import com.pay.subscription.util.SteppedInvoiceDates;
+
+import java.io.IOException;
+import java.util.PrimitiveIterator;
+import java.util.Set;
+
+public class InvoiceDatesSerializer extends StdSerializer<Set<String>> {
+
+    @SuppressWarnings("unchecked")
+    public InvoiceDatesSerializer() {
+        super((Class<Set<String>>) (Class<?>) Set.class);
+    }
+
+    @Override
+    public void serialize(Set<String> invoiceDates, JsonGenerator generator, SerializerProvider provider) throws IOException {
+        if (generator instanceof CBORGenerator || generator instanceof SmileGenerator) {
+            serializeCompact(InvoiceDates.of(invoiceDates), generator);
+            return;
+        }
+        if (invoiceDates instanceof PreSerializedInvoiceDates) {
+            generator.writeRawValue(((PreSerializedInvoiceDates) invoiceDates).fragment());
+            return;
+        }
+        generator.writeStartArray(invoiceDates, invoiceDates.size());
+        if (invoiceDates instanceof InvoiceDates) {
+            char[] buffer = new char[DateCodec.MAX_FORMATTED_LENGTH];
+            PrimitiveIterator.OfLong epochDays = ((InvoiceDates) invoiceDates).epochDayIterator();
+            while (epochDays.hasNext()) {
+                generator.writeString(buffer, 0, DateCodec.formatTo(epochDays.nextLong(), buffer, 0));
+            }
+        } else {
+            for (String invoiceDate : invoiceDates) {
+                generator.writeString(invoiceDate);
+            }
+        }
+        generator.writeEndArray();
+    }
+
+    // Binary formats carry the dates as epoch days: evenly stepped dates as
+    // {"start": first epoch day, "step": days, "count": dates}, any other as an int array.
+    private static void serializeCompact(InvoiceDates invoiceDates, JsonGenerator generator) throws IOException {
+        if (invoiceDates instanceof PreSerializedInvoiceDates) {
+            invoiceDates = ((PreSerializedInvoiceDates) invoiceDates).getInvoiceDates();
+        }
+        if (invoiceDates instanceof SteppedInvoiceDates) {
+            SteppedInvoiceDates steppedInvoiceDates = (SteppedInvoiceDates) invoiceDates;
+            generator.writeStartObject(steppedInvoiceDates, 3);
+            generator.writeNumberField("start", steppedInvoiceDates.getFirstEpochDay());
+            generator.writeNumberField("step", steppedInvoiceDates.getStep());
+            generator.writeNumberField("count", steppedInvoiceDates.size());
+            generator.writeEndObject();
+            return;
+        }
+        generator.writeStartArray(invoiceDates, invoiceDates.size());
+        PrimitiveIterator.OfLong epochDays = invoiceDates.epochDayIterator();
+        while (epochDays.hasNext()) {
+            generator.writeNumber(epochDays.nextLong());
+        }
+        generator.writeEndArray();
+    }
+}
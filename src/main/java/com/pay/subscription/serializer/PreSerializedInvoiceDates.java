@@ -0,0 +1,82 @@
+package com.pay.subscription.serializer;
+
+import com.pay.subscription.util.CalendarTable;
+import com.pay.subscription.util.DateCodec;
+import com.pay.subscription.util.InvoiceDates;
+
+import java.util.Arrays;
+import java.util.PrimitiveIterator;
+
+public final class PreSerializedInvoiceDates extends InvoiceDates {
+
+    private final InvoiceDates invoiceDates;
+
+    // Built on first serialization; a racing rebuild produces identical bytes.
+    private volatile RawJsonFragment fragment;
+
+    public PreSerializedInvoiceDates(InvoiceDates invoiceDates) {
+        this.invoiceDates = invoiceDates;
+    }
+
+    public InvoiceDates getInvoiceDates() {
+        return this.invoiceDates;
+    }
+
+    @Override
+    public int size() {
+        return this.invoiceDates.size();
+    }
+
+    @Override
+    public long epochDayAt(int index) {
+        return this.invoiceDates.epochDayAt(index);
+    }
+
+    @Override
+    public int indexOfFirstOnOrAfter(long epochDay) {
+        return this.invoiceDates.indexOfFirstOnOrAfter(epochDay);
+    }
+
+    public RawJsonFragment fragment() {
+        RawJsonFragment fragment = this.fragment;
+        if (fragment == null) {
+            fragment = new RawJsonFragment(this.toJsonArray());
+            this.fragment = fragment;
+        }
+        return fragment;
+    }
+
+    private byte[] toJsonArray() {
+        CalendarTable calendarTable = CalendarTable.DEFAULT;
+        int size = this.invoiceDates.size();
+        byte[] json = new byte[2 + size * (DateCodec.FORMATTED_LENGTH + 3)];
+        char[] chars = new char[DateCodec.MAX_FORMATTED_LENGTH];
+        int position = 0;
+        json[position++] = '[';
+        PrimitiveIterator.OfLong epochDays = this.invoiceDates.epochDayIterator();
+        while (epochDays.hasNext()) {
+            long epochDay = epochDays.nextLong();
+            if (position > 1) {
+                json[position++] = ',';
+            }
+            if (calendarTable.covers(epochDay)) {
+                json[position++] = '"';
+                calendarTable.writeFormatted(epochDay, json, position);
+                position += DateCodec.FORMATTED_LENGTH;
+                json[position++] = '"';
+            } else {
+                int length = DateCodec.formatTo(epochDay, chars, 0);
+                if (position + length + 3 > json.length) {
+                    json = Arrays.copyOf(json, json.length + length + DateCodec.MAX_FORMATTED_LENGTH);
+                }
+                json[position++] = '"';
+                for (int index = 0; index < length; index++) {
+                    json[position++] = (byte) chars[index];
+                }
+                json[position++] = '"';
+            }
+        }
+        json[position++] = ']';
+        return position == json.length ? json : Arrays.copyOf(json, position);
+    }
+}
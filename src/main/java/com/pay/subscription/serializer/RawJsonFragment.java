@@ -0,0 +1,127 @@
+package com.pay.subscription.serializer;
+
+import com.fasterxml.jackson.core.SerializableString;
+import com.fasterxml.jackson.core.io.JsonStringEncoder;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+// UTF-8 JSON written as is. Jackson writes a fragment larger than its buffer straight from
+// asUnquotedUTF8(), so that returns the backing array and callers must not modify it.
+// Quoting, for a fragment used as a string value, is rare and encodes on each call.
+public final class RawJsonFragment implements SerializableString {
+
+    private final byte[] utf8;
+
+    // Decoded on first use; a racing decode produces an equal string.
+    private String value;
+
+    public RawJsonFragment(byte[] utf8) {
+        this.utf8 = utf8;
+    }
+
+    public int length() {
+        return this.utf8.length;
+    }
+
+    @Override
+    public String getValue() {
+        String value = this.value;
+        if (value == null) {
+            value = new String(this.utf8, StandardCharsets.UTF_8);
+            this.value = value;
+        }
+        return value;
+    }
+
+    @Override
+    public int charLength() {
+        return this.getValue().length();
+    }
+
+    @Override
+    public char[] asQuotedChars() {
+        return JsonStringEncoder.getInstance().quoteAsString(this.getValue());
+    }
+
+    @Override
+    public byte[] asUnquotedUTF8() {
+        return this.utf8;
+    }
+
+    @Override
+    public byte[] asQuotedUTF8() {
+        return JsonStringEncoder.getInstance().quoteAsUTF8(this.getValue());
+    }
+
+    @Override
+    public int appendQuotedUTF8(byte[] buffer, int offset) {
+        return append(this.asQuotedUTF8(), buffer, offset);
+    }
+
+    @Override
+    public int appendQuoted(char[] buffer, int offset) {
+        char[] quoted = this.asQuotedChars();
+        if (offset + quoted.length > buffer.length) {
+            return -1;
+        }
+        System.arraycopy(quoted, 0, buffer, offset, quoted.length);
+        return quoted.length;
+    }
+
+    @Override
+    public int appendUnquotedUTF8(byte[] buffer, int offset) {
+        return append(this.utf8, buffer, offset);
+    }
+
+    @Override
+    public int appendUnquoted(char[] buffer, int offset) {
+        String value = this.getValue();
+        if (offset + value.length() > buffer.length) {
+            return -1;
+        }
+        value.getChars(0, value.length(), buffer, offset);
+        return value.length();
+    }
+
+    @Override
+    public int writeQuotedUTF8(OutputStream outputStream) throws IOException {
+        byte[] quoted = this.asQuotedUTF8();
+        outputStream.write(quoted);
+        return quoted.length;
+    }
+
+    @Override
+    public int writeUnquotedUTF8(OutputStream outputStream) throws IOException {
+        outputStream.write(this.utf8);
+        return this.utf8.length;
+    }
+
+    @Override
+    public int putQuotedUTF8(ByteBuffer buffer) {
+        return put(this.asQuotedUTF8(), buffer);
+    }
+
+    @Override
+    public int putUnquotedUTF8(ByteBuffer buffer) {
+        return put(this.utf8, buffer);
+    }
+
+    private static int append(byte[] bytes, byte[] buffer, int offset) {
+        if (offset + bytes.length > buffer.length) {
+            return -1;
+        }
+        System.arraycopy(bytes, 0, buffer, offset, bytes.length);
+        return bytes.length;
+    }
+
+    private static int put(byte[] bytes, ByteBuffer buffer) {
+        if (bytes.length > buffer.remaining()) {
+            return -1;
+        }
+        buffer.put(bytes);
+        return bytes.length;
+    }
+}
@@ -0,0 +1,102 @@
+package com.pay.subscription.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.pay.subscription.config.BatchProperties;
+import com.pay.subscription.response.InvoiceDueResponse;
+import com.pay.subscription.store.DueInvoice;
+import com.pay.subscription.store.SubscriptionStore;
+import com.pay.subscription.util.DateCodec;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+
+@Service
+public class InvoiceRunService {
+
+    private final SubscriptionStore subscriptionStore;
+
+    private final BatchProperties batchProperties;
+
+    private final ExecutorService subscriptionBatchExecutor;
+
+    private final ObjectMapper objectMapper;
+
+    private final ObjectWriter responseWriter;
+
+    public InvoiceRunService(
+            SubscriptionStore subscriptionStore,
+            BatchProperties batchProperties,
+            ExecutorService subscriptionBatchExecutor,
+            ObjectMapper objectMapper
+    ) {
+        this.subscriptionStore = subscriptionStore;
+        this.batchProperties = batchProperties;
+        this.subscriptionBatchExecutor = subscriptionBatchExecutor;
+        this.objectMapper = objectMapper;
+        this.responseWriter = objectMapper.writerFor(InvoiceDueResponse.class)
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+    }
+
+    // Defaults to today, which is what the daily job asks for.
+    public long runDate(String date) {
+        return date == null ? LocalDate.now().toEpochDay() : DateCodec.parseEpochDay(date);
+    }
+
+    // The invoices due on the date chunk by chunk, each chunk is built when it is read.
+    public Iterator<List<InvoiceDueResponse>> run(long epochDay) {
+        Iterator<List<DueInvoice>> chunks = this.subscriptionStore.dueOn(
+                epochDay,
+                this.subscriptionBatchExecutor,
+                Math.max(1, this.batchProperties.getParallelism())
+        );
+        String invoiceDate = DateCodec.format(epochDay);
+        return new Iterator<>() {
+            @Override
+            public boolean hasNext() {
+                return chunks.hasNext();
+            }
+
+            @Override
+            public List<InvoiceDueResponse> next() {
+                List<DueInvoice> chunk = chunks.next();
+                List<InvoiceDueResponse> responses = new ArrayList<>(chunk.size());
+                for (DueInvoice dueInvoice : chunk) {
+                    responses.add(new InvoiceDueResponse(
+                            dueInvoice.getSubscriptionId(),
+                            dueInvoice.getAmount(),
+                            dueInvoice.getType(),
+                            invoiceDate
+                    ));
+                }
+                return responses;
+            }
+        };
+    }
+
+    // Writes one invoice per line and flushes after every chunk, before the next is built.
+    public long run(long epochDay, OutputStream outputStream) throws IOException {
+        long count = 0;
+        try (JsonGenerator generator = this.objectMapper.getFactory().createGenerator(outputStream)) {
+            generator.setRootValueSeparator(null);
+            Iterator<List<InvoiceDueResponse>> chunks = this.run(epochDay);
+            while (chunks.hasNext()) {
+                for (InvoiceDueResponse response : chunks.next()) {
+                    this.responseWriter.writeValue(generator, response);
+                    generator.writeRaw('\n');
+                    count++;
+                }
+                generator.flush();
+            }
+        }
+        return count;
+    }
+}
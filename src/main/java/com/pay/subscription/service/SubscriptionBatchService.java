@@ -0,0 +1,97 @@
+package com.pay.subscription.service;
+
+import com.pay.subscription.config.BatchProperties;
+import com.pay.subscription.request.SubscriptionRequest;
+import com.pay.subscription.response.SubscriptionBatchItemResponse;
+import com.pay.subscription.response.SubscriptionResponse;
+import com.pay.subscription.util.ErrorUtil;
+import com.pay.subscription.validation.ValidationResult;
+import lombok.AllArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+@Slf4j
+@Service
+@AllArgsConstructor
+public class SubscriptionBatchService {
+
+    private final SubscriptionService subscriptionService;
+
+    private final BatchProperties batchProperties;
+
+    private final ExecutorService subscriptionBatchExecutor;
+
+    public List<SubscriptionBatchItemResponse> subscribeAll(List<SubscriptionRequest> requests) {
+        this.checkBatch(requests);
+        SubscriptionBatchItemResponse[] results = new SubscriptionBatchItemResponse[requests.size()];
+        int parallelism = Math.max(1, this.batchProperties.getParallelism());
+        int chunkSize = (requests.size() + parallelism - 1) / parallelism;
+        List<Callable<Void>> tasks = new ArrayList<>(parallelism);
+        for (int from = 0; from < requests.size(); from += chunkSize) {
+            int start = from;
+            int end = Math.min(from + chunkSize, requests.size());
+            tasks.add(() -> {
+                for (int index = start; index < end; index++) {
+                    results[index] = this.subscribeOne(index, requests.get(index));
+                }
+                return null;
+            });
+        }
+        this.runAll(tasks);
+        return Arrays.asList(results);
+    }
+
+    public void checkBatch(List<SubscriptionRequest> requests) {
+        if (requests == null || requests.isEmpty()) {
+            throw new IllegalArgumentException("Please input at least one subscription request.");
+        }
+        if (requests.size() > this.batchProperties.getMaxSize()) {
+            throw new IllegalArgumentException(
+                    "Batch size cannot be more than " + this.batchProperties.getMaxSize() + " requests."
+            );
+        }
+    }
+
+    public SubscriptionBatchItemResponse subscribeOne(long index, SubscriptionRequest request) {
+        try {
+            if (request == null) {
+                throw new IllegalArgumentException("Subscription request cannot be empty.");
+            }
+            ValidationResult<SubscriptionResponse> result = this.subscriptionService.trySubscribe(request);
+            if (!result.isValid()) {
+                return new SubscriptionBatchItemResponse(index, null, result.getFirstError().getMessage(), result.getErrors());
+            }
+            return new SubscriptionBatchItemResponse(index, result.getValue(), null);
+        } catch (IllegalArgumentException illegalArgumentException) {
+            return new SubscriptionBatchItemResponse(index, null, ErrorUtil.messageOf(illegalArgumentException));
+        } catch (DateTimeParseException dateTimeParseException) {
+            return new SubscriptionBatchItemResponse(index, null, ErrorUtil.messageOf(dateTimeParseException));
+        } catch (RuntimeException runtimeException) {
+            // Not a problem with the request, so it is logged instead of lost in the item.
+            log.error("Could not process subscription request {} of the batch", index, runtimeException);
+            return new SubscriptionBatchItemResponse(index, null, "Unable to process subscription request.");
+        }
+    }
+
+    private void runAll(List<Callable<Void>> tasks) {
+        try {
+            for (Future<Void> future : this.subscriptionBatchExecutor.invokeAll(tasks)) {
+                future.get();
+            }
+        } catch (InterruptedException interruptedException) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Batch subscription was interrupted.", interruptedException);
+        } catch (ExecutionException executionException) {
+            throw new IllegalStateException("Batch subscription failed.", executionException.getCause());
+        }
+    }
+}
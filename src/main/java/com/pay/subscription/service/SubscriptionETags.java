@@ -0,0 +1,59 @@
+package com.pay.subscription.service;
+
+import com.pay.subscription.cache.ScheduleKey;
+import com.pay.subscription.request.SubscriptionRequest;
+import com.pay.subscription.util.DateCodec;
+import com.pay.subscription.util.HolidayCalendars;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Base64;
+
+// Weak ETags hashed from the inputs of a response instead of its bytes, so a repeat
+// request can be answered before its schedule is generated. Dates are hashed as epoch
+// days and only the invoice day of the type counts, like for the schedule cache. The
+// holiday calendars are part of every tag, a reload changes adjusted schedules.
+final class SubscriptionETags {
+
+    private static final int HASH_BYTES = 15;
+
+    private SubscriptionETags() {}
+
+    static String of(SubscriptionRequest request, HolidayCalendars holidayCalendars, CharSequence context) {
+        ScheduleKey key = ScheduleKey.of(request);
+        StringBuilder inputs = new StringBuilder(256)
+                .append(request.getAmount()).append('|')
+                .append(key.getType()).append('|')
+                .append(epochDayOrText(key.getStartDate())).append('|')
+                .append(epochDayOrText(key.getEndDate())).append('|')
+                .append(key.getMonthlyInvoiceDay()).append('|')
+                .append(key.getWeeklyInvoiceDay()).append('|')
+                .append(key.getRecurrence()).append('|')
+                .append(key.getHolidayCalendar()).append('|')
+                .append(key.getBusinessDayAdjustment()).append('|')
+                .append(request.getAmountMode()).append('|')
+                .append(request.getRoundingMode()).append('|')
+                .append(request.getRemainderAllocation()).append('|')
+                .append(request.getZoneId()).append('|')
+                .append(request.getInvoiceTime()).append('|')
+                .append(holidayCalendars.fingerprint()).append('|')
+                .append(context);
+        return "W/\"" + hash(inputs) + "\"";
+    }
+
+    private static Object epochDayOrText(String date) {
+        long epochDay = date == null ? DateCodec.INVALID_EPOCH_DAY : DateCodec.tryParseEpochDay(date);
+        return epochDay == DateCodec.INVALID_EPOCH_DAY ? date : epochDay;
+    }
+
+    private static String hash(CharSequence inputs) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(inputs.toString().getBytes(StandardCharsets.UTF_8));
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(Arrays.copyOf(digest, HASH_BYTES));
+        } catch (NoSuchAlgorithmException noSuchAlgorithmException) {
+            throw new IllegalStateException(noSuchAlgorithmException);
+        }
+    }
+}
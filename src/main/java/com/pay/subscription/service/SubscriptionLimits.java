@@ -0,0 +1,18 @@
+package com.pay.subscription.service;
+
+import lombok.*;
+
+@Getter
+@ToString
+@EqualsAndHashCode
+@AllArgsConstructor
+public class SubscriptionLimits {
+
+    public static final SubscriptionLimits DEFAULT = new SubscriptionLimits(3, 1, 1, 52);
+
+    private final int maxMonths;
+    private final int weeklyMinWeeks;
+    private final int monthlyMinMonths;
+    // Largest recurrence.interval, in units of the recurrence.
+    private final int maxInterval;
+}
@@ -1,109 +1,329 @@
 package com.pay.subscription.service;
 
+import com.pay.subscription.cache.ScheduleCache;
+import com.pay.subscription.cache.ScheduleKey;
+import com.pay.subscription.enums.AmountMode;
 import com.pay.subscription.enums.SubscriptionType;
+import com.pay.subscription.metrics.SubscriptionMetrics;
+import com.pay.subscription.recurrence.RecurrenceRule;
+import com.pay.subscription.recurrence.RecurrenceRules;
+import com.pay.subscription.request.ParsedSubscriptionRequest;
 import com.pay.subscription.request.SubscriptionRequest;
+import com.pay.subscription.response.SubscriptionCountResponse;
+import com.pay.subscription.response.SubscriptionNextInvoiceResponse;
 import com.pay.subscription.response.SubscriptionResponse;
+import com.pay.subscription.response.SubscriptionScheduleResponse;
+import com.pay.subscription.serializer.PreSerializedInvoiceDates;
+import com.pay.subscription.util.AdjustedInvoiceDates;
+import com.pay.subscription.util.DateCodec;
 import com.pay.subscription.util.DateUtil;
-import org.apache.logging.log4j.util.Strings;
+import com.pay.subscription.util.HolidayCalendars;
+import com.pay.subscription.util.InvoiceAmounts;
+import com.pay.subscription.util.InvoiceDates;
+import com.pay.subscription.util.ScheduleDescriptors;
+import com.pay.subscription.util.ZoneTransitions;
+import com.pay.subscription.util.ZonedInvoiceInstants;
+import com.pay.subscription.validation.ValidationResult;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
+import java.math.BigDecimal;
+import java.math.RoundingMode;
 import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.Collections;
+import java.util.List;
+import java.util.OptionalLong;
 import java.util.Set;
 
 @Service
 public class SubscriptionService {
 
-    private Long maxDuration = 3L;
+    private final ScheduleCache scheduleCache;
 
-    private Long weeklyMinDuration = 1L;
+    private final SubscriptionMetrics subscriptionMetrics;
 
-    private Long monthlyMinDuration = 1L;
+    private final SubscriptionLimits subscriptionLimits;
 
-    private void checkDates(String startDate, String endDate, SubscriptionType type) {
-        if (Strings.isEmpty(startDate) || Strings.isEmpty(endDate)) {
-            throw new IllegalArgumentException("Please fill in startDate and endDate fields.");
+    private final SubscriptionValidator subscriptionValidator;
+
+    private final HolidayCalendars holidayCalendars;
+
+    public SubscriptionService() {
+        this(ScheduleCache.disabled());
+    }
+
+    public SubscriptionService(ScheduleCache scheduleCache) {
+        this(scheduleCache, SubscriptionMetrics.NOOP);
+    }
+
+    public SubscriptionService(ScheduleCache scheduleCache, SubscriptionMetrics subscriptionMetrics) {
+        this(scheduleCache, subscriptionMetrics, SubscriptionLimits.DEFAULT);
+    }
+
+    public SubscriptionService(
+            ScheduleCache scheduleCache,
+            SubscriptionMetrics subscriptionMetrics,
+            SubscriptionLimits subscriptionLimits
+    ) {
+        this(scheduleCache, subscriptionMetrics, subscriptionLimits, HolidayCalendars.NONE);
+    }
+
+    @Autowired
+    public SubscriptionService(
+            ScheduleCache scheduleCache,
+            SubscriptionMetrics subscriptionMetrics,
+            SubscriptionLimits subscriptionLimits,
+            HolidayCalendars holidayCalendars
+    ) {
+        this.scheduleCache = scheduleCache;
+        this.subscriptionMetrics = subscriptionMetrics;
+        this.subscriptionLimits = subscriptionLimits;
+        this.subscriptionValidator = new SubscriptionValidator(subscriptionLimits, holidayCalendars);
+        this.holidayCalendars = holidayCalendars;
+    }
+
+    // Never throws for an invalid request, see SubscriptionValidator.
+    public ValidationResult<ParsedSubscriptionRequest> validate(SubscriptionRequest request) {
+        return this.subscriptionValidator.validate(request);
+    }
+
+    public ParsedSubscriptionRequest parse(SubscriptionRequest request) {
+        return this.validate(request).orElseThrow();
+    }
+
+    // Rule of a validated request. A custom recurrence is compiled once per distinct
+    // recurrence and shared from then on, the types have precompiled rules.
+    public RecurrenceRule recurrenceRule(SubscriptionRequest request) {
+        if (request.getRecurrence() != null) {
+            return RecurrenceRules.ofCode(RecurrenceRules.encode(request.getRecurrence()));
+        }
+        return RecurrenceRules.of(request.getType(), request.getMonthlyInvoiceDay(), request.getWeeklyInvoiceDay());
+    }
+
+    public SubscriptionResponse subscribe(SubscriptionRequest request) {
+        return this.trySubscribe(request).orElseThrow();
+    }
+
+    // Like subscribe, but returns every error of an invalid request instead of throwing the first.
+    public ValidationResult<SubscriptionResponse> trySubscribe(SubscriptionRequest request) {
+        long startNanos = this.subscriptionMetrics.startTimer();
+        ValidationResult<SubscriptionResponse> result = this.subscribeCached(request);
+        if (!result.isValid()) {
+            this.subscriptionMetrics.recordError(request.getType(), result.getFirstError().getCode());
+            return result;
         }
-        if (DateUtil.startDateIsAfterEndDate(DateUtil.stringToDate(startDate), DateUtil.stringToDate(endDate))) {
-            throw new IllegalArgumentException("startDate cannot be after endDate.");
+        SubscriptionResponse response = result.getValue();
+        InvoiceDates invoiceDates = InvoiceDates.of(response.getInvoiceDates());
+        response.setInvoiceAmounts(this.invoiceAmounts(request, invoiceDates));
+        response.setInvoiceInstants(this.invoiceInstants(request, invoiceDates));
+        if (this.subscriptionMetrics.isEnabled()) {
+            this.subscriptionMetrics.recordRequest(response.getType(), startNanos, response.getInvoiceDates().size());
         }
-        Long numberOfMonths = DateUtil.numberOfMonthsBetween(startDate, endDate);
-        if (type == SubscriptionType.WEEKLY) {
-            Long numberOfWeeks = DateUtil.numberOfWeeksBetween(startDate, endDate);
-            if (numberOfWeeks < this.weeklyMinDuration) {
-                throw new IllegalArgumentException(
-                        "Weekly subscription period must be at least " + this.weeklyMinDuration + " week(s)."
-                );
-            }
+        return result;
+    }
+
+    // Amount of every invoice of a validated request, or null when the request charges the amount
+    // in full on every invoice. Invoices moved onto the same business day are charged the amounts
+    // of all of them.
+    public List<BigDecimal> invoiceAmounts(SubscriptionRequest request, InvoiceDates invoiceDates) {
+        if (request.getAmountMode() == null || request.getAmountMode() == AmountMode.PER_INVOICE) {
+            return null;
         }
-        if (type == SubscriptionType.MONTHLY) {
-            if (numberOfMonths < this.monthlyMinDuration) {
-                throw new IllegalArgumentException(
-                        "Monthly subscription period must be at least " + this.monthlyMinDuration + " month(s)."
-                );
-            }
+        RoundingMode roundingMode = request.getRoundingMode() == null ? InvoiceAmounts.DEFAULT_ROUNDING_MODE : request.getRoundingMode();
+        if (invoiceDates instanceof PreSerializedInvoiceDates) {
+            invoiceDates = ((PreSerializedInvoiceDates) invoiceDates).getInvoiceDates();
         }
-        if (numberOfMonths > this.maxDuration) {
-            throw new IllegalArgumentException(
-                    "Subscription period cannot be more than " + this.maxDuration + " months."
-            );
+        if (invoiceDates instanceof AdjustedInvoiceDates) {
+            AdjustedInvoiceDates adjustedInvoiceDates = (AdjustedInvoiceDates) invoiceDates;
+            return adjustedInvoiceDates.mergeAmounts(this.invoiceAmounts(request, roundingMode, adjustedInvoiceDates.getSource()));
         }
+        return this.invoiceAmounts(request, roundingMode, invoiceDates);
     }
 
-    public SubscriptionResponse subscribe(SubscriptionRequest request) {
-        if (request.getAmount() == null) {
-            throw new IllegalArgumentException("Please input amount field.");
+    // Invoice dates at the invoice time in the zone of a validated request, or null when it has neither.
+    public List<String> invoiceInstants(SubscriptionRequest request, InvoiceDates invoiceDates) {
+        if (request.getZoneId() == null && request.getInvoiceTime() == null) {
+            return null;
+        }
+        ZoneTransitions zoneTransitions = request.getZoneId() == null
+                ? ZoneTransitions.UTC
+                : ZoneTransitions.find(request.getZoneId());
+        LocalTime invoiceTime = request.getInvoiceTime() == null
+                ? LocalTime.MIDNIGHT
+                : ZonedInvoiceInstants.parseInvoiceTime(request.getInvoiceTime());
+        return new ZonedInvoiceInstants(invoiceDates, zoneTransitions, invoiceTime);
+    }
+
+    private List<BigDecimal> invoiceAmounts(SubscriptionRequest request, RoundingMode roundingMode, InvoiceDates invoiceDates) {
+        return InvoiceAmounts.of(
+                request.getAmountMode(),
+                roundingMode,
+                request.getRemainderAllocation() == null ? InvoiceAmounts.DEFAULT_REMAINDER_ALLOCATION : request.getRemainderAllocation(),
+                request.getAmount(),
+                request.getAmountMode() == AmountMode.PRORATE ? this.recurrenceRule(request) : null,
+                DateCodec.parseEpochDay(request.getStartDate()),
+                DateCodec.parseEpochDay(request.getEndDate()),
+                invoiceDates
+        );
+    }
+
+    private ValidationResult<SubscriptionResponse> subscribeCached(SubscriptionRequest request) {
+        if (!this.scheduleCache.isEnabled()) {
+            return this.generate(request);
+        }
+        ScheduleKey key = ScheduleKey.of(request);
+        Set<String> invoiceDates = this.scheduleCache.get(key);
+        if (invoiceDates != null) {
+            // The schedule was valid when it was cached, only the remaining fields need checking.
+            SubscriptionType type = request.getRecurrence() != null
+                    ? RecurrenceRules.typeOf(request.getRecurrence().getUnit())
+                    : request.getType();
+            return this.subscriptionValidator.validateWithoutSchedule(request)
+                    .map(validRequest -> new SubscriptionResponse(validRequest.getAmount(), type, invoiceDates));
+        }
+        ValidationResult<SubscriptionResponse> result = this.generate(request);
+        if (!result.isValid()) {
+            return result;
+        }
+        SubscriptionResponse response = result.getValue();
+        if (response.getInvoiceDates() instanceof InvoiceDates) {
+            response.setInvoiceDates(new PreSerializedInvoiceDates((InvoiceDates) response.getInvoiceDates()));
+        } else {
+            response.setInvoiceDates(Collections.unmodifiableSet(response.getInvoiceDates()));
         }
-        this.checkDates(request.getStartDate(), request.getEndDate(), request.getType());
-        if (request.getType() == SubscriptionType.DAILY) {
+        this.scheduleCache.put(key, response.getInvoiceDates());
+        return result;
+    }
+
+    private ValidationResult<SubscriptionResponse> generate(SubscriptionRequest request) {
+        long validationStartNanos = this.subscriptionMetrics.startTimer();
+        ValidationResult<ParsedSubscriptionRequest> validation = this.validate(request);
+        this.subscriptionMetrics.recordValidation(request.getType(), validationStartNanos);
+        return validation.map(parsedRequest -> {
+            long generationStartNanos = this.subscriptionMetrics.startTimer();
+            SubscriptionResponse response = this.subscribe(parsedRequest);
+            this.subscriptionMetrics.recordGeneration(request.getType(), generationStartNanos);
+            return response;
+        });
+    }
+
+    public SubscriptionResponse subscribe(ParsedSubscriptionRequest request) {
+        SubscriptionResponse response = this.schedule(request);
+        if (request.getBusinessDayAdjustment() != null) {
+            response.setInvoiceDates(new AdjustedInvoiceDates(
+                    InvoiceDates.of(response.getInvoiceDates()),
+                    request.getHolidayCalendar(),
+                    request.getBusinessDayAdjustment()
+            ));
+        }
+        return response;
+    }
+
+    // SubscriptionValidator is the only source of parsed requests, so the type and
+    // invoice day have been checked already and are not checked again here.
+    private SubscriptionResponse schedule(ParsedSubscriptionRequest request) {
+        if (request.getRecurrenceRule() != null) {
+            return this.handleRecurrence(request);
+        } else if (request.getType() == SubscriptionType.DAILY) {
             return this.handleDailySubscription(request);
         } else if (request.getType() == SubscriptionType.WEEKLY) {
             return this.handleWeeklySubscription(request);
-        } else if (request.getType() == SubscriptionType.MONTHLY) {
-            return this.handleMonthlySubscription(request);
         } else {
-            throw new IllegalArgumentException("Subscription type is mandatory - DAILY, WEEKLY or MONTHLY.");
+            return this.handleMonthlySubscription(request);
+        }
+    }
+
+    public SubscriptionCountResponse countInvoices(SubscriptionRequest request) {
+        return this.countInvoices(this.subscribe(request));
+    }
+
+    public SubscriptionCountResponse countInvoices(SubscriptionResponse response) {
+        return new SubscriptionCountResponse(
+                response.getAmountPerInvoice(),
+                response.getType(),
+                InvoiceDates.of(response.getInvoiceDates()).size()
+        );
+    }
+
+    public SubscriptionNextInvoiceResponse nextInvoiceAfter(SubscriptionRequest request, String date) {
+        return this.nextInvoiceAfter(this.subscribe(request), date);
+    }
+
+    public SubscriptionNextInvoiceResponse nextInvoiceAfter(SubscriptionResponse response, String date) {
+        OptionalLong nextInvoiceDate = InvoiceDates.of(response.getInvoiceDates())
+                .nextEpochDayAfter(DateCodec.parseEpochDay(date));
+        return new SubscriptionNextInvoiceResponse(
+                response.getAmountPerInvoice(),
+                response.getType(),
+                nextInvoiceDate.isPresent() ? DateCodec.format(nextInvoiceDate.getAsLong()) : null
+        );
+    }
+
+    // ETag of what a lookup returns for the request, view names the lookup and its format.
+    // The limits are part of it, a request they reject must not be answered from a cache.
+    public String lookupETag(SubscriptionRequest request, String view) {
+        return this.eTag(request, this.subscriptionLimits + "|" + view);
+    }
+
+    String eTag(SubscriptionRequest request, CharSequence context) {
+        return SubscriptionETags.of(request, this.holidayCalendars, context);
+    }
+
+    public SubscriptionScheduleResponse describeSchedule(SubscriptionResponse response) {
+        InvoiceDates invoiceDates = InvoiceDates.of(response.getInvoiceDates());
+        if (invoiceDates instanceof PreSerializedInvoiceDates) {
+            invoiceDates = ((PreSerializedInvoiceDates) invoiceDates).getInvoiceDates();
         }
+        return new SubscriptionScheduleResponse(
+                response.getAmountPerInvoice(),
+                response.getType(),
+                ScheduleDescriptors.describe(invoiceDates),
+                response.getInvoiceAmounts(),
+                response.getInvoiceInstants()
+        );
     }
 
-    private SubscriptionResponse handleDailySubscription(SubscriptionRequest request) {
+    private SubscriptionResponse handleDailySubscription(ParsedSubscriptionRequest request) {
         Set<String> invoiceDates = DateUtil.datesFromStartToEnd(
-                DateUtil.stringToDate(request.getStartDate()),
-                DateUtil.stringToDate(request.getEndDate()),
+                request.getStartDate(),
+                request.getEndDate(),
                 1
         );
         SubscriptionResponse response = new SubscriptionResponse(request.getAmount(), request.getType(), invoiceDates);
         return response;
     }
 
-    private SubscriptionResponse handleWeeklySubscription(SubscriptionRequest request) {
-        if (request.getWeeklyInvoiceDay() == null) {
-            throw new IllegalArgumentException("Please input a valid value for weeklyInvoiceDay, e.g. MONDAY or TUESDAY.");
-        }
+    private SubscriptionResponse handleWeeklySubscription(ParsedSubscriptionRequest request) {
         LocalDate firstInvoiceDate = DateUtil.closestDateForDayOfWeek(
-                DateUtil.stringToDate(request.getStartDate()),
+                request.getStartDate(),
                 request.getWeeklyInvoiceDay()
         );
         Set<String> invoiceDates = DateUtil.datesFromStartToEnd(
                 firstInvoiceDate,
-                DateUtil.stringToDate(request.getEndDate()),
+                request.getEndDate(),
                 7
         );
         SubscriptionResponse response = new SubscriptionResponse(request.getAmount(), request.getType(), invoiceDates);
         return response;
     }
 
-    private SubscriptionResponse handleMonthlySubscription(SubscriptionRequest request) {
-        if (request.getMonthlyInvoiceDay() == null ||
-            request.getMonthlyInvoiceDay() > 31 ||
-            request.getMonthlyInvoiceDay() < 1) {
-            throw new IllegalArgumentException("Please input a proper value for the monthlyInvoiceDay field (1 to 31).");
-        }
+    private SubscriptionResponse handleMonthlySubscription(ParsedSubscriptionRequest request) {
         Set<String> invoiceDates = DateUtil.datesWithSameDayFromStartToEnd(
-                DateUtil.stringToDate(request.getStartDate()),
-                DateUtil.stringToDate(request.getEndDate()),
+                request.getStartDate(),
+                request.getEndDate(),
                 request.getMonthlyInvoiceDay()
         );
         SubscriptionResponse response = new SubscriptionResponse(request.getAmount(), request.getType(), invoiceDates);
         return response;
     }
+
+    private SubscriptionResponse handleRecurrence(ParsedSubscriptionRequest request) {
+        RecurrenceRule recurrenceRule = request.getRecurrenceRule();
+        Set<String> invoiceDates = recurrenceRule.invoiceDates(
+                request.getStartDate().toEpochDay(),
+                request.getEndDate().toEpochDay()
+        );
+        return new SubscriptionResponse(request.getAmount(), recurrenceRule.type(), invoiceDates);
+    }
 }
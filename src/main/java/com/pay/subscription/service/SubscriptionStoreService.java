@@ -0,0 +1,95 @@
+package com.pay.subscription.service;
+
+import com.pay.subscription.request.SubscriptionRequest;
+import com.pay.subscription.response.InvoiceDueResponse;
+import com.pay.subscription.response.StoredSubscriptionResponse;
+import com.pay.subscription.response.SubscriptionResponse;
+import com.pay.subscription.store.DueInvoice;
+import com.pay.subscription.store.StoredSubscription;
+import com.pay.subscription.store.SubscriptionStore;
+import com.pay.subscription.util.DateCodec;
+import com.pay.subscription.util.InvoiceDates;
+import lombok.AllArgsConstructor;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Service
+@AllArgsConstructor
+public class SubscriptionStoreService {
+
+    private final SubscriptionService subscriptionService;
+
+    private final SubscriptionStore subscriptionStore;
+
+    public StoredSubscriptionResponse create(SubscriptionRequest request) {
+        return this.create(request, this.subscriptionService.subscribe(request));
+    }
+
+    // Stores a request that subscribe already accepted with the given response.
+    public StoredSubscriptionResponse create(SubscriptionRequest request, SubscriptionResponse subscribed) {
+        StoredSubscriptionResponse response = this.toResponse(this.subscriptionStore.add(request));
+        response.setInvoiceInstants(subscribed.getInvoiceInstants());
+        return response;
+    }
+
+    public StoredSubscriptionResponse find(long id) {
+        StoredSubscription subscription = this.subscriptionStore.get(id);
+        return subscription == null ? null : this.toResponse(subscription);
+    }
+
+    // ETag of a stored subscription, or null when there is none. The request is hashed with
+    // the id, an in-memory store hands the same ids out again after a restart.
+    public String eTag(long id) {
+        StoredSubscription subscription = this.subscriptionStore.get(id);
+        return subscription == null ? null : this.subscriptionService.eTag(subscription.getRequest(), "stored|" + id);
+    }
+
+    public boolean delete(long id) {
+        return this.subscriptionStore.remove(id);
+    }
+
+    public List<InvoiceDueResponse> invoicesDue(String date, String from, String to) {
+        if (date != null) {
+            long epochDay = DateCodec.parseEpochDay(date);
+            return this.invoicesDueBetween(epochDay, epochDay);
+        }
+        if (from == null || to == null) {
+            throw new IllegalArgumentException("Please input date, or both from and to.");
+        }
+        long fromEpochDay = DateCodec.parseEpochDay(from);
+        long toEpochDay = DateCodec.parseEpochDay(to);
+        if (fromEpochDay > toEpochDay) {
+            throw new IllegalArgumentException("From date cannot be after to date.");
+        }
+        return this.invoicesDueBetween(fromEpochDay, toEpochDay);
+    }
+
+    private List<InvoiceDueResponse> invoicesDueBetween(long fromEpochDay, long toEpochDay) {
+        List<DueInvoice> dueInvoices = this.subscriptionStore.dueBetween(fromEpochDay, toEpochDay);
+        List<InvoiceDueResponse> responses = new ArrayList<>(dueInvoices.size());
+        for (DueInvoice dueInvoice : dueInvoices) {
+            responses.add(new InvoiceDueResponse(
+                    dueInvoice.getSubscriptionId(),
+                    dueInvoice.getAmount(),
+                    dueInvoice.getType(),
+                    DateCodec.format(dueInvoice.getEpochDay())
+            ));
+        }
+        return responses;
+    }
+
+    private StoredSubscriptionResponse toResponse(StoredSubscription subscription) {
+        StoredSubscriptionResponse response = new StoredSubscriptionResponse(
+                subscription.getId(),
+                subscription.getRequest().getAmount(),
+                subscription.getRequest().getType(),
+                subscription.getInvoiceDates()
+        );
+        InvoiceDates invoiceDates = InvoiceDates.of(subscription.getInvoiceDates());
+        response.setInvoiceAmounts(this.subscriptionService.invoiceAmounts(subscription.getRequest(), invoiceDates));
+        response.setInvoiceInstants(this.subscriptionService.invoiceInstants(subscription.getRequest(), invoiceDates));
+        return response;
+    }
+}
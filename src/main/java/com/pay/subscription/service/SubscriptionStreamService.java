@@ -0,0 +1,258 @@
+package com.pay.subscription.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.pay.subscription.config.BatchProperties;
+import com.pay.subscription.request.SubscriptionRequest;
+import com.pay.subscription.response.SubscriptionBatchItemResponse;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+@Service
+public class SubscriptionStreamService {
+
+    private final SubscriptionBatchService subscriptionBatchService;
+
+    private final ObjectMapper objectMapper;
+
+    private final int maxLineLength;
+
+    private final ObjectReader requestReader;
+
+    private final ObjectWriter responseWriter;
+
+    public SubscriptionStreamService(
+            SubscriptionBatchService subscriptionBatchService,
+            ObjectMapper objectMapper,
+            BatchProperties batchProperties
+    ) {
+        this.subscriptionBatchService = subscriptionBatchService;
+        this.objectMapper = objectMapper;
+        this.maxLineLength = batchProperties.getMaxLineLength();
+        this.requestReader = objectMapper.readerFor(SubscriptionRequest.class);
+        this.responseWriter = objectMapper.writerFor(SubscriptionBatchItemResponse.class)
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+    }
+
+    public long subscribeStream(InputStream inputStream, OutputStream outputStream) throws IOException {
+        LineReader reader = new LineReader(new InputStreamReader(inputStream, StandardCharsets.UTF_8));
+        StringBuilder line = new StringBuilder();
+        long count = 0;
+        long lineNumber = 0;
+        try (JsonGenerator generator = this.objectMapper.getFactory().createGenerator(outputStream)) {
+            generator.setRootValueSeparator(null);
+            long length;
+            while ((length = reader.readLine(line, this.maxLineLength)) != -1) {
+                lineNumber++;
+                SubscriptionBatchItemResponse response;
+                if (length > this.maxLineLength) {
+                    response = this.lineTooLong(count, lineNumber);
+                } else if (isBlank(line)) {
+                    continue;
+                } else {
+                    response = this.subscribeLine(count, lineNumber, line.toString());
+                }
+                this.responseWriter.writeValue(generator, response);
+                generator.writeRaw('\n');
+                count++;
+                // Only flush when the next line is not already buffered, so bursts are written in one go.
+                if (!reader.ready()) {
+                    generator.flush();
+                }
+            }
+        }
+        return count;
+    }
+
+    // The same items as subscribeStream, for a reactive request body.
+    public Flux<SubscriptionBatchItemResponse> subscribeStream(Flux<DataBuffer> body) {
+        return Flux.defer(() -> {
+            LineSplitter splitter = new LineSplitter(this.maxLineLength);
+            return body.concatMapIterable(splitter::split)
+                    .concatWith(Flux.defer(() -> Flux.fromIterable(splitter.finish())))
+                    .index()
+                    .filter(line -> !line.getT2().isBlank())
+                    .index()
+                    .map(line -> {
+                        long index = line.getT1();
+                        long lineNumber = line.getT2().getT1() + 1;
+                        String text = line.getT2().getT2().text;
+                        return text == null ? this.lineTooLong(index, lineNumber) : this.subscribeLine(index, lineNumber, text);
+                    });
+        });
+    }
+
+    public SubscriptionBatchItemResponse subscribeLine(long index, long lineNumber, String line) {
+        SubscriptionRequest request;
+        try {
+            request = this.requestReader.readValue(line);
+        } catch (JsonProcessingException jsonProcessingException) {
+            return new SubscriptionBatchItemResponse(index, null, "Line " + lineNumber + " is not a valid subscription request.");
+        }
+        return this.subscriptionBatchService.subscribeOne(index, request);
+    }
+
+    private SubscriptionBatchItemResponse lineTooLong(long index, long lineNumber) {
+        return new SubscriptionBatchItemResponse(
+                index,
+                null,
+                "Line " + lineNumber + " is longer than " + this.maxLineLength + " characters."
+        );
+    }
+
+    private static boolean isBlank(CharSequence line) {
+        for (int index = 0; index < line.length(); index++) {
+            if (!Character.isWhitespace(line.charAt(index))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Reads lines like BufferedReader, but keeps at most maxLength characters of a line, so a
+    // single huge line cannot grow the heap.
+    private static final class LineReader {
+
+        private final Reader reader;
+
+        private final char[] buffer = new char[8192];
+
+        private int position;
+
+        private int limit;
+
+        private LineReader(Reader reader) {
+            this.reader = reader;
+        }
+
+        // Returns the full length of the next line without its terminator, or -1 at the end of
+        // the stream. Only the first maxLength characters are kept in line.
+        private long readLine(StringBuilder line, int maxLength) throws IOException {
+            line.setLength(0);
+            long length = 0;
+            boolean carriageReturn = false;
+            while (true) {
+                if (this.position == this.limit) {
+                    this.limit = this.reader.read(this.buffer, 0, this.buffer.length);
+                    this.position = 0;
+                    if (this.limit <= 0) {
+                        this.limit = 0;
+                        return length == 0 && !carriageReturn ? -1 : length;
+                    }
+                }
+                char next = this.buffer[this.position];
+                if (carriageReturn) {
+                    if (next == '\n') {
+                        this.position++;
+                    }
+                    return length;
+                }
+                this.position++;
+                if (next == '\n') {
+                    return length;
+                }
+                if (next == '\r') {
+                    carriageReturn = true;
+                    continue;
+                }
+                if (length < maxLength) {
+                    line.append(next);
+                }
+                length++;
+            }
+        }
+
+        private boolean ready() throws IOException {
+            return this.position < this.limit || this.reader.ready();
+        }
+    }
+
+    // A line of a reactive body, text is null when the line is longer than allowed.
+    private static final class Line {
+
+        private final String text;
+
+        private Line(String text) {
+            this.text = text;
+        }
+
+        private boolean isBlank() {
+            return this.text != null && SubscriptionStreamService.isBlank(this.text);
+        }
+    }
+
+    // Splits UTF-8 buffers at \n like LineReader, dropping a \r before it. A character takes
+    // at most three bytes, so a line is only kept while it can still be short enough, which
+    // bounds the memory a single huge line takes.
+    private static final class LineSplitter {
+
+        private final int maxLength;
+
+        private final int maxBytes;
+
+        private byte[] bytes = new byte[256];
+
+        private int length;
+
+        private boolean tooLong;
+
+        private LineSplitter(int maxLength) {
+            this.maxLength = maxLength;
+            this.maxBytes = maxLength * 3 + 1;
+        }
+
+        private List<Line> split(DataBuffer buffer) {
+            try {
+                List<Line> lines = new ArrayList<>();
+                ByteBuffer input = buffer.asByteBuffer();
+                while (input.hasRemaining()) {
+                    byte next = input.get();
+                    if (next == '\n') {
+                        lines.add(this.take());
+                    } else if (this.length == this.maxBytes) {
+                        this.tooLong = true;
+                    } else if (!this.tooLong) {
+                        if (this.length == this.bytes.length) {
+                            this.bytes = Arrays.copyOf(this.bytes, Math.min(this.bytes.length * 2, this.maxBytes));
+                        }
+                        this.bytes[this.length++] = next;
+                    }
+                }
+                return lines;
+            } finally {
+                DataBufferUtils.release(buffer);
+            }
+        }
+
+        // The last line, when the body does not end with a line break.
+        private List<Line> finish() {
+            return this.length == 0 && !this.tooLong ? Collections.emptyList() : Collections.singletonList(this.take());
+        }
+
+        private Line take() {
+            int end = this.length > 0 && this.bytes[this.length - 1] == '\r' ? this.length - 1 : this.length;
+            String text = this.tooLong ? null : new String(this.bytes, 0, end, StandardCharsets.UTF_8);
+            this.length = 0;
+            this.tooLong = false;
+            return new Line(text == null || text.length() > this.maxLength ? null : text);
+        }
+    }
+}
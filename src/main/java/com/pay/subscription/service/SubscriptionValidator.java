@@ -0,0 +1,234 @@
+package com.pay.subscription.service;
+
+import com.pay.subscription.enums.AmountMode;
+import com.pay.subscription.enums.BusinessDayAdjustment;
+import com.pay.subscription.enums.ErrorCode;
+import com.pay.subscription.enums.SubscriptionType;
+import com.pay.subscription.recurrence.RecurrenceRule;
+import com.pay.subscription.recurrence.RecurrenceRules;
+import com.pay.subscription.request.ParsedSubscriptionRequest;
+import com.pay.subscription.request.SubscriptionRequest;
+import com.pay.subscription.store.SubscriptionColumns;
+import com.pay.subscription.util.DateCodec;
+import com.pay.subscription.util.DateUtil;
+import com.pay.subscription.util.HolidayCalendar;
+import com.pay.subscription.util.HolidayCalendars;
+import com.pay.subscription.util.ZoneTransitions;
+import com.pay.subscription.util.ZonedInvoiceInstants;
+import com.pay.subscription.validation.ValidationError;
+import com.pay.subscription.validation.ValidationResult;
+import org.apache.logging.log4j.util.Strings;
+
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+// Checks a request in one pass and collects every error, in the order the checks used to
+// throw, so the first error is the one callers got before. Nothing here throws for an
+// invalid request, which keeps rejected traffic free of stack traces.
+public class SubscriptionValidator {
+
+    private final SubscriptionLimits subscriptionLimits;
+
+    private final HolidayCalendars holidayCalendars;
+
+    public SubscriptionValidator(SubscriptionLimits subscriptionLimits, HolidayCalendars holidayCalendars) {
+        this.subscriptionLimits = subscriptionLimits;
+        this.holidayCalendars = holidayCalendars;
+    }
+
+    public ValidationResult<ParsedSubscriptionRequest> validate(SubscriptionRequest request) {
+        Errors errors = new Errors();
+        checkAmount(request, errors);
+        ParsedSubscriptionRequest parsedRequest = this.checkSchedule(request, errors);
+        checkOptions(request, errors);
+        return errors.list == null ? ValidationResult.valid(parsedRequest) : ValidationResult.invalid(errors.list);
+    }
+
+    // Checks only the fields that do not change the invoice dates, for a schedule known to be valid.
+    public ValidationResult<SubscriptionRequest> validateWithoutSchedule(SubscriptionRequest request) {
+        Errors errors = new Errors();
+        checkAmount(request, errors);
+        checkOptions(request, errors);
+        return errors.list == null ? ValidationResult.valid(request) : ValidationResult.invalid(errors.list);
+    }
+
+    private static void checkAmount(SubscriptionRequest request, Errors errors) {
+        if (request.getAmount() == null) {
+            errors.add(ErrorCode.AMOUNT_REQUIRED, "amount", "Please input amount field.");
+            return;
+        }
+        String amountError = SubscriptionColumns.amountError(request.getAmount());
+        if (amountError != null) {
+            errors.add(ErrorCode.AMOUNT_NOT_STORABLE, "amount", amountError);
+        }
+    }
+
+    private ParsedSubscriptionRequest checkSchedule(SubscriptionRequest request, Errors errors) {
+        int errorCount = errors.size();
+        long startEpochDay = checkDate(request.getStartDate(), "startDate", errors);
+        long endEpochDay = checkDate(request.getEndDate(), "endDate", errors);
+        SubscriptionType type = request.getType();
+        if (request.getRecurrence() != null && request.getRecurrence().getUnit() != null) {
+            type = RecurrenceRules.typeOf(request.getRecurrence().getUnit());
+            if (request.getType() != null && request.getType() != type) {
+                errors.add(
+                        ErrorCode.RECURRENCE_INVALID,
+                        "type",
+                        "type must be " + type + " for a " + request.getRecurrence().getUnit() + " recurrence, or left out."
+                );
+            }
+        }
+        LocalDate startDate = null;
+        LocalDate endDate = null;
+        if (startEpochDay != DateCodec.INVALID_EPOCH_DAY && endEpochDay != DateCodec.INVALID_EPOCH_DAY) {
+            startDate = LocalDate.ofEpochDay(startEpochDay);
+            endDate = LocalDate.ofEpochDay(endEpochDay);
+            this.checkPeriod(startDate, endDate, type, errors);
+        }
+        BusinessDayAdjustment businessDayAdjustment = request.getBusinessDayAdjustment();
+        HolidayCalendar holidayCalendar = null;
+        if (request.getHolidayCalendar() != null) {
+            holidayCalendar = this.holidayCalendars.get(request.getHolidayCalendar());
+            if (holidayCalendar == null) {
+                errors.add(
+                        ErrorCode.HOLIDAY_CALENDAR_UNKNOWN,
+                        "holidayCalendar",
+                        "There is no holiday calendar for " + request.getHolidayCalendar() + "."
+                );
+            }
+            if (businessDayAdjustment == null) {
+                businessDayAdjustment = BusinessDayAdjustment.FOLLOWING;
+            }
+        } else if (businessDayAdjustment != null) {
+            holidayCalendar = HolidayCalendar.WEEKENDS;
+        }
+        RecurrenceRule recurrenceRule = null;
+        if (request.getRecurrence() != null) {
+            ValidationResult<RecurrenceRule> compiled = RecurrenceRules.compile(request.getRecurrence(), this.subscriptionLimits.getMaxInterval());
+            if (compiled.isValid()) {
+                recurrenceRule = compiled.getValue();
+            } else {
+                errors.add(compiled.getFirstError());
+            }
+        } else {
+            checkInvoiceDay(request, errors);
+        }
+        if (errors.size() > errorCount) {
+            return null;
+        }
+        return new ParsedSubscriptionRequest(
+                request.getAmount(),
+                type,
+                startDate,
+                endDate,
+                request.getMonthlyInvoiceDay(),
+                request.getWeeklyInvoiceDay(),
+                recurrenceRule,
+                holidayCalendar,
+                businessDayAdjustment
+        );
+    }
+
+    private static long checkDate(String date, String field, Errors errors) {
+        if (Strings.isEmpty(date)) {
+            errors.add(ErrorCode.DATES_REQUIRED, field, "Please fill in startDate and endDate fields.");
+            return DateCodec.INVALID_EPOCH_DAY;
+        }
+        long epochDay = DateCodec.tryParseEpochDay(date);
+        if (epochDay == DateCodec.INVALID_EPOCH_DAY) {
+            errors.add(ErrorCode.INVALID_DATE_FORMAT, field, date + " does not have dd/MM/yyyy format.");
+        } else if (!SubscriptionColumns.isStorableEpochDay(epochDay)) {
+            errors.add(ErrorCode.DATE_OUT_OF_RANGE, field, date + " is outside the range of dates that can be stored.");
+            return DateCodec.INVALID_EPOCH_DAY;
+        }
+        return epochDay;
+    }
+
+    private void checkPeriod(LocalDate startDate, LocalDate endDate, SubscriptionType type, Errors errors) {
+        if (DateUtil.startDateIsAfterEndDate(startDate, endDate)) {
+            errors.add(ErrorCode.START_DATE_AFTER_END_DATE, "startDate", "startDate cannot be after endDate.");
+            return;
+        }
+        long numberOfMonths = DateUtil.numberOfMonthsBetween(startDate, endDate);
+        if (type == SubscriptionType.WEEKLY && DateUtil.numberOfWeeksBetween(startDate, endDate) < this.subscriptionLimits.getWeeklyMinWeeks()) {
+            errors.add(
+                    ErrorCode.WEEKLY_PERIOD_TOO_SHORT,
+                    "endDate",
+                    "Weekly subscription period must be at least " + this.subscriptionLimits.getWeeklyMinWeeks() + " week(s)."
+            );
+        }
+        if (type == SubscriptionType.MONTHLY && numberOfMonths < this.subscriptionLimits.getMonthlyMinMonths()) {
+            errors.add(
+                    ErrorCode.MONTHLY_PERIOD_TOO_SHORT,
+                    "endDate",
+                    "Monthly subscription period must be at least " + this.subscriptionLimits.getMonthlyMinMonths() + " month(s)."
+            );
+        }
+        if (numberOfMonths > this.subscriptionLimits.getMaxMonths()) {
+            errors.add(
+                    ErrorCode.PERIOD_TOO_LONG,
+                    "endDate",
+                    "Subscription period cannot be more than " + this.subscriptionLimits.getMaxMonths() + " months."
+            );
+        }
+    }
+
+    private static void checkInvoiceDay(SubscriptionRequest request, Errors errors) {
+        if (request.getType() == null) {
+            errors.add(ErrorCode.TYPE_REQUIRED, "type", "Subscription type is mandatory - DAILY, WEEKLY or MONTHLY.");
+        } else if (request.getType() == SubscriptionType.WEEKLY && request.getWeeklyInvoiceDay() == null) {
+            errors.add(
+                    ErrorCode.WEEKLY_INVOICE_DAY_INVALID,
+                    "weeklyInvoiceDay",
+                    "Please input a valid value for weeklyInvoiceDay, e.g. MONDAY or TUESDAY."
+            );
+        } else if (request.getType() == SubscriptionType.MONTHLY && (request.getMonthlyInvoiceDay() == null
+                || request.getMonthlyInvoiceDay() > 31 || request.getMonthlyInvoiceDay() < 1)) {
+            errors.add(
+                    ErrorCode.MONTHLY_INVOICE_DAY_INVALID,
+                    "monthlyInvoiceDay",
+                    "Please input a proper value for the monthlyInvoiceDay field (1 to 31)."
+            );
+        }
+    }
+
+    private static void checkOptions(SubscriptionRequest request, Errors errors) {
+        if (request.getAmountMode() != null && request.getAmountMode() != AmountMode.PER_INVOICE
+                && request.getRoundingMode() == RoundingMode.UNNECESSARY) {
+            errors.add(
+                    ErrorCode.ROUNDING_MODE_INVALID,
+                    "roundingMode",
+                    "roundingMode cannot be UNNECESSARY, invoice amounts may need rounding."
+            );
+        }
+        if (request.getZoneId() != null && ZoneTransitions.find(request.getZoneId()) == null) {
+            errors.add(ErrorCode.ZONE_ID_INVALID, "zoneId", "Please input a valid zoneId, e.g. Europe/Paris or +02:00.");
+        }
+        if (request.getInvoiceTime() != null && ZonedInvoiceInstants.parseInvoiceTime(request.getInvoiceTime()) == null) {
+            errors.add(ErrorCode.INVOICE_TIME_INVALID, "invoiceTime", "Please input invoiceTime as HH:mm, e.g. 09:30.");
+        }
+    }
+
+    // Allocates the list with the first error, valid requests never need one.
+    private static final class Errors {
+
+        private List<ValidationError> list;
+
+        void add(ErrorCode code, String field, String message) {
+            this.add(new ValidationError(code, field, message));
+        }
+
+        void add(ValidationError error) {
+            if (this.list == null) {
+                this.list = new ArrayList<>(4);
+            }
+            this.list.add(error);
+        }
+
+        int size() {
+            return this.list == null ? 0 : this.list.size();
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package com.pay.subscription.store;
+
+import java.util.Arrays;
+
+// Ascending rows invoiced on one day. Rows are appended in ID order, so adds
+// stay at the end and removals are found by binary search.
+final class DayRows {
+
+    private int[] rows;
+
+    private int size;
+
+    DayRows() {
+        this(new int[4], 0);
+    }
+
+    DayRows(int[] rows, int size) {
+        this.rows = rows;
+        this.size = size;
+    }
+
+    void add(int row) {
+        if (this.size > 0 && this.rows[this.size - 1] >= row) {
+            int position = Arrays.binarySearch(this.rows, 0, this.size, row);
+            if (position >= 0) {
+                return;
+            }
+            this.insert(-position - 1, row);
+            return;
+        }
+        this.insert(this.size, row);
+    }
+
+    void remove(int row) {
+        int position = Arrays.binarySearch(this.rows, 0, this.size, row);
+        if (position >= 0) {
+            System.arraycopy(this.rows, position + 1, this.rows, position, this.size - position - 1);
+            this.size--;
+        }
+    }
+
+    DayRows copy() {
+        return new DayRows(Arrays.copyOf(this.rows, this.size), this.size);
+    }
+
+    int size() {
+        return this.size;
+    }
+
+    int[] rows() {
+        return this.rows;
+    }
+
+    int get(int index) {
+        return this.rows[index];
+    }
+
+    private void insert(int position, int row) {
+        if (this.size == this.rows.length) {
+            this.rows = Arrays.copyOf(this.rows, Math.max(4, this.size * 2));
+        }
+        System.arraycopy(this.rows, position, this.rows, position + 1, this.size - position);
+        this.rows[position] = row;
+        this.size++;
+    }
+}
@@ -0,0 +1,17 @@
+package com.pay.subscription.store;
+
+import com.pay.subscription.enums.SubscriptionType;
+import lombok.*;
+
+import java.math.BigDecimal;
+
+@Getter
+@ToString
+@EqualsAndHashCode
+@AllArgsConstructor
+public class DueInvoice {
+    private final long epochDay;
+    private final long subscriptionId;
+    private final SubscriptionType type;
+    private final BigDecimal amount;
+}
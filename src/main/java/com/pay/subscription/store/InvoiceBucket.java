@@ -0,0 +1,106 @@
+package com.pay.subscription.store;
+
+import java.util.Arrays;
+
+// Rows sharing one invoice rule, with their first and last invoice days copied
+// next to them so that the active-range filter of an invoice run stays in two
+// primitive arrays. A row's slot in the bucket is kept in its columns.
+final class InvoiceBucket {
+
+    private static final int INITIAL_CAPACITY = 16;
+
+    private int[] rows;
+
+    private int[] firstEpochDays;
+
+    private int[] lastEpochDays;
+
+    private int size;
+
+    // Rows of different rules, whose invoice dates are checked one by one.
+    private final boolean irregular;
+
+    InvoiceBucket() {
+        this(false);
+    }
+
+    InvoiceBucket(boolean irregular) {
+        this(new int[INITIAL_CAPACITY], new int[INITIAL_CAPACITY], new int[INITIAL_CAPACITY], 0, irregular);
+    }
+
+    InvoiceBucket(int[] rows, int[] firstEpochDays, int[] lastEpochDays, int size, boolean irregular) {
+        this.irregular = irregular;
+        this.rows = rows;
+        this.firstEpochDays = firstEpochDays;
+        this.lastEpochDays = lastEpochDays;
+        this.size = size;
+    }
+
+    void add(SubscriptionColumns columns, int row, int firstEpochDay, int lastEpochDay) {
+        if (this.size == this.rows.length) {
+            int capacity = Math.max(INITIAL_CAPACITY, this.size * 2);
+            this.rows = Arrays.copyOf(this.rows, capacity);
+            this.firstEpochDays = Arrays.copyOf(this.firstEpochDays, capacity);
+            this.lastEpochDays = Arrays.copyOf(this.lastEpochDays, capacity);
+        }
+        this.rows[this.size] = row;
+        this.firstEpochDays[this.size] = firstEpochDay;
+        this.lastEpochDays[this.size] = lastEpochDay;
+        columns.bucketPosition(row, this.size);
+        this.size++;
+    }
+
+    // Moves the last entry into the freed slot, so the arrays stay dense.
+    void remove(SubscriptionColumns columns, int row) {
+        int position = columns.bucketPosition(row);
+        int last = --this.size;
+        if (position != last) {
+            this.rows[position] = this.rows[last];
+            this.firstEpochDays[position] = this.firstEpochDays[last];
+            this.lastEpochDays[position] = this.lastEpochDays[last];
+            columns.bucketPosition(this.rows[position], position);
+        }
+    }
+
+    int size() {
+        return this.size;
+    }
+
+    InvoiceBucket copy() {
+        return new InvoiceBucket(
+                Arrays.copyOf(this.rows, this.size),
+                Arrays.copyOf(this.firstEpochDays, this.size),
+                Arrays.copyOf(this.lastEpochDays, this.size),
+                this.size,
+                this.irregular
+        );
+    }
+
+    int[] rows() {
+        return this.rows;
+    }
+
+    int[] firstEpochDays() {
+        return this.firstEpochDays;
+    }
+
+    int[] lastEpochDays() {
+        return this.lastEpochDays;
+    }
+
+    // Rows of the slots from to to that are invoiced on the date.
+    int[] activeRows(SubscriptionColumns columns, long epochDay, int from, int to) {
+        int[] activeRows = new int[to - from];
+        int count = 0;
+        for (int index = from; index < to; index++) {
+            if (this.firstEpochDays[index] <= epochDay && epochDay <= this.lastEpochDays[index]) {
+                int row = this.rows[index];
+                if (this.irregular && !columns.invoiceDates(row).containsEpochDay(epochDay)) {
+                    continue;
+                }
+                activeRows[count++] = row;
+            }
+        }
+        return count == activeRows.length ? activeRows : Arrays.copyOf(activeRows, count);
+    }
+}
@@ -0,0 +1,120 @@
+package com.pay.subscription.store;
+
+import com.pay.subscription.util.DateUtil;
+import com.pay.subscription.util.InvoiceDates;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+// Groups subscriptions by type and invoice day. Whether a subscription is due on
+// a date then only depends on its bucket and on its first and last invoice dates.
+// Subscriptions with a custom recurrence or with invoices moved onto business days
+// share one irregular bucket that is scanned on every date and checked against
+// their invoice dates.
+final class InvoiceBuckets {
+
+    private static final int MAX_MONTHLY_INVOICE_DAY = 31;
+
+    // The irregular bucket comes last.
+    static final int BUCKET_COUNT = 1 + 7 + MAX_MONTHLY_INVOICE_DAY + 1;
+
+    private final InvoiceBucket daily;
+
+    // Indexed by Day ordinal, 0 is Monday.
+    private final InvoiceBucket[] weekly = new InvoiceBucket[7];
+
+    // Indexed by monthlyInvoiceDay.
+    private final InvoiceBucket[] monthly = new InvoiceBucket[MAX_MONTHLY_INVOICE_DAY + 1];
+
+    private final InvoiceBucket irregular;
+
+    InvoiceBuckets() {
+        this.daily = new InvoiceBucket();
+        this.irregular = new InvoiceBucket(true);
+        for (int day = 0; day < this.weekly.length; day++) {
+            this.weekly[day] = new InvoiceBucket();
+        }
+        for (int day = 1; day < this.monthly.length; day++) {
+            this.monthly[day] = new InvoiceBucket();
+        }
+    }
+
+    // Takes buckets in the order returned by all().
+    InvoiceBuckets(List<InvoiceBucket> buckets) {
+        this.daily = buckets.get(0);
+        for (int day = 0; day < this.weekly.length; day++) {
+            this.weekly[day] = buckets.get(1 + day);
+        }
+        for (int day = 1; day < this.monthly.length; day++) {
+            this.monthly[day] = buckets.get(this.weekly.length + day);
+        }
+        this.irregular = buckets.get(BUCKET_COUNT - 1);
+    }
+
+    InvoiceBuckets copy() {
+        List<InvoiceBucket> copies = new ArrayList<>(BUCKET_COUNT);
+        for (InvoiceBucket bucket : this.all()) {
+            copies.add(bucket.copy());
+        }
+        return new InvoiceBuckets(copies);
+    }
+
+    List<InvoiceBucket> all() {
+        List<InvoiceBucket> buckets = new ArrayList<>(BUCKET_COUNT);
+        buckets.add(this.daily);
+        buckets.addAll(Arrays.asList(this.weekly));
+        buckets.addAll(Arrays.asList(this.monthly).subList(1, this.monthly.length));
+        buckets.add(this.irregular);
+        return buckets;
+    }
+
+    void add(SubscriptionColumns columns, int row, InvoiceDates invoiceDates) {
+        if (invoiceDates.isEmpty()) {
+            return;
+        }
+        this.bucketOf(columns, row).add(
+                columns,
+                row,
+                (int) invoiceDates.epochDayAt(0),
+                (int) invoiceDates.epochDayAt(invoiceDates.size() - 1)
+        );
+    }
+
+    void remove(SubscriptionColumns columns, int row, InvoiceDates invoiceDates) {
+        if (!invoiceDates.isEmpty()) {
+            this.bucketOf(columns, row).remove(columns, row);
+        }
+    }
+
+    // A monthly invoice day past the end of the month is invoiced on its last day,
+    // so the last day of a month also pulls in every later invoice day.
+    List<InvoiceBucket> bucketsDueOn(long epochDay) {
+        List<InvoiceBucket> buckets = new ArrayList<>(3 + MAX_MONTHLY_INVOICE_DAY);
+        buckets.add(this.daily);
+        buckets.add(this.weekly[DateUtil.dayOfWeek(epochDay)]);
+        LocalDate date = LocalDate.ofEpochDay(epochDay);
+        int dayOfMonth = date.getDayOfMonth();
+        int lastMonthlyDay = dayOfMonth == date.lengthOfMonth() ? MAX_MONTHLY_INVOICE_DAY : dayOfMonth;
+        for (int day = dayOfMonth; day <= lastMonthlyDay; day++) {
+            buckets.add(this.monthly[day]);
+        }
+        buckets.add(this.irregular);
+        return buckets;
+    }
+
+    private InvoiceBucket bucketOf(SubscriptionColumns columns, int row) {
+        if (columns.recurrence(row) != 0 || columns.businessDays(row) != 0) {
+            return this.irregular;
+        }
+        switch (columns.type(row)) {
+            case DAILY:
+                return this.daily;
+            case WEEKLY:
+                return this.weekly[columns.invoiceDay(row)];
+            default:
+                return this.monthly[columns.invoiceDay(row)];
+        }
+    }
+}
@@ -0,0 +1,15 @@
+package com.pay.subscription.store;
+
+import com.pay.subscription.request.SubscriptionRequest;
+import com.pay.subscription.util.InvoiceDates;
+import lombok.*;
+
+@Getter
+@ToString
+@EqualsAndHashCode
+@AllArgsConstructor
+public class StoredSubscription {
+    private final long id;
+    private final SubscriptionRequest request;
+    private final InvoiceDates invoiceDates;
+}
@@ -0,0 +1,532 @@
+package com.pay.subscription.store;
+
+import com.pay.subscription.enums.AmountMode;
+import com.pay.subscription.enums.BusinessDayAdjustment;
+import com.pay.subscription.enums.Day;
+import com.pay.subscription.enums.RemainderAllocation;
+import com.pay.subscription.enums.SubscriptionType;
+import com.pay.subscription.recurrence.RecurrenceRule;
+import com.pay.subscription.recurrence.RecurrenceRules;
+import com.pay.subscription.util.AdjustedInvoiceDates;
+import com.pay.subscription.util.DateUtil;
+import com.pay.subscription.util.HolidayCalendar;
+import com.pay.subscription.util.HolidayCalendars;
+import com.pay.subscription.util.InvoiceAmounts;
+import com.pay.subscription.util.InvoiceDates;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.ByteBuffer;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.IntConsumer;
+import java.util.function.IntPredicate;
+
+// Subscriptions as fixed-width columns in direct buffers, one row per subscription
+// ID starting at row 0 for ID 1. Dates are epoch days, type and invoice day are byte
+// codes and the amount is its unscaled value plus scale, so an amount with two
+// decimals is stored in minor units. Deleted rows keep their slot with type code 0.
+// Amount mode, rounding mode and remainder allocation share one byte, each stored
+// as ordinal + 1 so that 0 keeps an option unset. A custom recurrence is kept as
+// its RecurrenceRules code, 0 for the rule of the type and invoice day. Business
+// day adjustment is its ordinal + 1 in the low 2 bits of a short, above them the
+// index of the holiday calendar in HolidayCalendars. A zone is its index + 1 in the
+// zones the columns have seen, kept next to them, and an invoice time is its second
+// of the day + 1, both 0 when the request has none.
+public final class SubscriptionColumns {
+
+    public static final byte DELETED = 0;
+
+    private static final int INITIAL_CAPACITY = 1024;
+
+    // Bytes per row of each buffer returned by buffers(), in the same order.
+    static final int[] COLUMN_WIDTHS = {
+            1, 1, 1, 1, Short.BYTES, Short.BYTES, Integer.BYTES, Integer.BYTES, Integer.BYTES, Integer.BYTES, Integer.BYTES, Long.BYTES
+    };
+
+    private static final int MAX_ZONES = 0xFFFF;
+
+    private static final AmountMode[] AMOUNT_MODES = AmountMode.values();
+
+    private static final RoundingMode[] ROUNDING_MODES = RoundingMode.values();
+
+    private static final RemainderAllocation[] REMAINDER_ALLOCATIONS = RemainderAllocation.values();
+
+    private static final int AMOUNT_MODE_MASK = 0x3;
+
+    private static final int ROUNDING_MODE_SHIFT = 2;
+
+    private static final int ROUNDING_MODE_MASK = 0xF;
+
+    private static final int REMAINDER_ALLOCATION_SHIFT = 6;
+
+    private static final int REMAINDER_ALLOCATION_MASK = 0x3;
+
+    private static final BusinessDayAdjustment[] BUSINESS_DAY_ADJUSTMENTS = BusinessDayAdjustment.values();
+
+    private static final int BUSINESS_DAY_ADJUSTMENT_MASK = 0x3;
+
+    private static final int HOLIDAY_CALENDAR_SHIFT = 2;
+
+    private int capacity;
+
+    private int rows;
+
+    private int liveRows;
+
+    private ByteBuffer types;
+
+    private ByteBuffer invoiceDays;
+
+    private ByteBuffer startEpochDays;
+
+    private ByteBuffer endEpochDays;
+
+    private ByteBuffer amountUnscaledValues;
+
+    private ByteBuffer amountScales;
+
+    private ByteBuffer amountOptions;
+
+    private ByteBuffer recurrences;
+
+    private ByteBuffer businessDays;
+
+    private ByteBuffer zones;
+
+    private ByteBuffer invoiceTimes;
+
+    // Position of the row inside its invoice bucket, owned by InvoiceBucket.
+    private ByteBuffer bucketPositions;
+
+    // Zone IDs as the requests spelled them, in the order they were first stored.
+    private final List<String> zoneIds;
+
+    private final Map<String, Integer> zoneCodes = new HashMap<>();
+
+    // The calendars the holiday calendar indexes of the rows refer to.
+    private final HolidayCalendars holidayCalendars;
+
+    public SubscriptionColumns() {
+        this(HolidayCalendars.NONE);
+    }
+
+    public SubscriptionColumns(HolidayCalendars holidayCalendars) {
+        this.zoneIds = new ArrayList<>();
+        this.holidayCalendars = holidayCalendars;
+        this.allocate(INITIAL_CAPACITY);
+    }
+
+    // Adopts column buffers, for example slices of a mapped snapshot, holding exactly rows entries each.
+    SubscriptionColumns(int rows, int liveRows, ByteBuffer[] buffers, List<String> zoneIds, HolidayCalendars holidayCalendars) {
+        this.rows = rows;
+        this.liveRows = liveRows;
+        this.capacity = rows;
+        this.types = buffers[0];
+        this.invoiceDays = buffers[1];
+        this.amountScales = buffers[2];
+        this.amountOptions = buffers[3];
+        this.businessDays = buffers[4];
+        this.zones = buffers[5];
+        this.startEpochDays = buffers[6];
+        this.endEpochDays = buffers[7];
+        this.bucketPositions = buffers[8];
+        this.recurrences = buffers[9];
+        this.invoiceTimes = buffers[10];
+        this.amountUnscaledValues = buffers[11];
+        this.zoneIds = new ArrayList<>(zoneIds);
+        for (int index = 0; index < this.zoneIds.size(); index++) {
+            this.zoneCodes.put(this.zoneIds.get(index), index + 1);
+        }
+        this.holidayCalendars = holidayCalendars;
+    }
+
+    private static int optionCode(Enum<?> option) {
+        return option == null ? 0 : option.ordinal() + 1;
+    }
+
+    private static <T> T option(T[] values, int options, int shift, int mask) {
+        int code = options >>> shift & mask;
+        return code == 0 ? null : values[code - 1];
+    }
+
+    public static byte typeCode(SubscriptionType type) {
+        return (byte) (type.ordinal() + 1);
+    }
+
+    public int append(SubscriptionType type, int invoiceDay, long startEpochDay, long endEpochDay, BigDecimal amount) {
+        return this.append(type, invoiceDay, startEpochDay, endEpochDay, amount, null, null, null);
+    }
+
+    public int append(
+            SubscriptionType type,
+            int invoiceDay,
+            long startEpochDay,
+            long endEpochDay,
+            BigDecimal amount,
+            AmountMode amountMode,
+            RoundingMode roundingMode,
+            RemainderAllocation remainderAllocation
+    ) {
+        return this.append(type, invoiceDay, 0, startEpochDay, endEpochDay, amount, amountMode, roundingMode, remainderAllocation, 0, null, 0);
+    }
+
+    public static int businessDaysCode(int holidayCalendar, BusinessDayAdjustment adjustment) {
+        if (holidayCalendar >= 1 << (Short.SIZE - HOLIDAY_CALENDAR_SHIFT)) {
+            throw new IllegalArgumentException("Too many holiday calendars to be stored.");
+        }
+        return adjustment == null ? 0 : optionCode(adjustment) | holidayCalendar << HOLIDAY_CALENDAR_SHIFT;
+    }
+
+    // Returns why the amount does not fit its column, or null when it does.
+    public static String amountError(BigDecimal amount) {
+        BigDecimal normalized = amount.scale() < 0 ? amount.setScale(0) : amount;
+        if (normalized.unscaledValue().bitLength() >= Long.SIZE) {
+            return "Amount is too large to be stored.";
+        }
+        if (normalized.scale() > Byte.MAX_VALUE) {
+            return "Amount has too many decimal places to be stored.";
+        }
+        return null;
+    }
+
+    public static boolean isStorableEpochDay(long epochDay) {
+        return epochDay >= Integer.MIN_VALUE && epochDay <= Integer.MAX_VALUE;
+    }
+
+    public static int invoiceTimeCode(LocalTime invoiceTime) {
+        return invoiceTime == null ? 0 : invoiceTime.toSecondOfDay() + 1;
+    }
+
+    public int append(
+            SubscriptionType type,
+            int invoiceDay,
+            int recurrence,
+            long startEpochDay,
+            long endEpochDay,
+            BigDecimal amount,
+            AmountMode amountMode,
+            RoundingMode roundingMode,
+            RemainderAllocation remainderAllocation,
+            int businessDays,
+            String zoneId,
+            int invoiceTime
+    ) {
+        String amountError = amountError(amount);
+        if (amountError != null) {
+            throw new IllegalArgumentException(amountError);
+        }
+        if (!isStorableEpochDay(startEpochDay) || !isStorableEpochDay(endEpochDay)) {
+            throw new IllegalArgumentException("Date is out of the range that can be stored.");
+        }
+        int zone = this.zoneCode(zoneId);
+        BigDecimal normalized = amount.scale() < 0 ? amount.setScale(0) : amount;
+        long unscaledValue = normalized.unscaledValue().longValue();
+        if (this.rows == this.capacity) {
+            this.allocate(Math.max(INITIAL_CAPACITY, this.capacity * 2));
+        }
+        int row = this.rows++;
+        this.types.put(row, typeCode(type));
+        this.invoiceDays.put(row, (byte) invoiceDay);
+        this.recurrences.putInt(row * Integer.BYTES, recurrence);
+        this.businessDays.putShort(row * Short.BYTES, (short) businessDays);
+        this.zones.putShort(row * Short.BYTES, (short) zone);
+        this.invoiceTimes.putInt(row * Integer.BYTES, invoiceTime);
+        this.startEpochDays.putInt(row * Integer.BYTES, (int) startEpochDay);
+        this.endEpochDays.putInt(row * Integer.BYTES, (int) endEpochDay);
+        this.amountUnscaledValues.putLong(row * Long.BYTES, unscaledValue);
+        this.amountScales.put(row, (byte) normalized.scale());
+        this.amountOptions.put(row, (byte) (optionCode(amountMode)
+                | optionCode(roundingMode) << ROUNDING_MODE_SHIFT
+                | optionCode(remainderAllocation) << REMAINDER_ALLOCATION_SHIFT));
+        this.liveRows++;
+        return row;
+    }
+
+    public void appendDeleted() {
+        if (this.rows == this.capacity) {
+            this.allocate(Math.max(INITIAL_CAPACITY, this.capacity * 2));
+        }
+        this.types.put(this.rows++, DELETED);
+    }
+
+    public void delete(int row) {
+        if (this.isLive(row)) {
+            this.ensureWritable();
+            this.types.put(row, DELETED);
+            this.liveRows--;
+        }
+    }
+
+    public int rows() {
+        return this.rows;
+    }
+
+    public int liveRows() {
+        return this.liveRows;
+    }
+
+    public boolean isLive(int row) {
+        return row >= 0 && row < this.rows && this.types.get(row) != DELETED;
+    }
+
+    public byte typeCode(int row) {
+        return this.types.get(row);
+    }
+
+    public SubscriptionType type(int row) {
+        return SubscriptionType.values()[this.types.get(row) - 1];
+    }
+
+    // Day of month for MONTHLY, Day ordinal for WEEKLY and 0 for DAILY.
+    public int invoiceDay(int row) {
+        return this.invoiceDays.get(row);
+    }
+
+    public int recurrence(int row) {
+        return this.recurrences.getInt(row * Integer.BYTES);
+    }
+
+    // The code returned by businessDaysCode, 0 when invoices are not adjusted.
+    public int businessDays(int row) {
+        return this.businessDays.getShort(row * Short.BYTES) & 0xFFFF;
+    }
+
+    public BusinessDayAdjustment businessDayAdjustment(int row) {
+        return option(BUSINESS_DAY_ADJUSTMENTS, this.businessDays(row), 0, BUSINESS_DAY_ADJUSTMENT_MASK);
+    }
+
+    public int holidayCalendar(int row) {
+        return this.businessDays(row) >>> HOLIDAY_CALENDAR_SHIFT;
+    }
+
+    public String zoneId(int row) {
+        int zone = this.zones.getShort(row * Short.BYTES) & 0xFFFF;
+        return zone == 0 ? null : this.zoneIds.get(zone - 1);
+    }
+
+    public LocalTime invoiceTime(int row) {
+        int invoiceTime = this.invoiceTimes.getInt(row * Integer.BYTES);
+        return invoiceTime == 0 ? null : LocalTime.ofSecondOfDay(invoiceTime - 1);
+    }
+
+    List<String> zoneIds() {
+        return this.zoneIds;
+    }
+
+    HolidayCalendars holidayCalendars() {
+        return this.holidayCalendars;
+    }
+
+    private int zoneCode(String zoneId) {
+        if (zoneId == null) {
+            return 0;
+        }
+        Integer zone = this.zoneCodes.get(zoneId);
+        if (zone != null) {
+            return zone;
+        }
+        if (this.zoneIds.size() == MAX_ZONES) {
+            throw new IllegalArgumentException("Too many zones to be stored.");
+        }
+        this.zoneIds.add(zoneId);
+        this.zoneCodes.put(zoneId, this.zoneIds.size());
+        return this.zoneIds.size();
+    }
+
+    public int startEpochDay(int row) {
+        return this.startEpochDays.getInt(row * Integer.BYTES);
+    }
+
+    public int endEpochDay(int row) {
+        return this.endEpochDays.getInt(row * Integer.BYTES);
+    }
+
+    public long amountUnscaledValue(int row) {
+        return this.amountUnscaledValues.getLong(row * Long.BYTES);
+    }
+
+    public int amountScale(int row) {
+        return this.amountScales.get(row);
+    }
+
+    public BigDecimal amount(int row) {
+        return BigDecimal.valueOf(this.amountUnscaledValue(row), this.amountScale(row));
+    }
+
+    public AmountMode amountMode(int row) {
+        return option(AMOUNT_MODES, this.amountOptions.get(row), 0, AMOUNT_MODE_MASK);
+    }
+
+    public RoundingMode roundingMode(int row) {
+        return option(ROUNDING_MODES, this.amountOptions.get(row), ROUNDING_MODE_SHIFT, ROUNDING_MODE_MASK);
+    }
+
+    public RemainderAllocation remainderAllocation(int row) {
+        return option(REMAINDER_ALLOCATIONS, this.amountOptions.get(row), REMAINDER_ALLOCATION_SHIFT, REMAINDER_ALLOCATION_MASK);
+    }
+
+    public InvoiceDates invoiceDates(int row) {
+        BusinessDayAdjustment adjustment = this.businessDayAdjustment(row);
+        InvoiceDates invoiceDates = this.scheduledInvoiceDates(row);
+        if (adjustment == null) {
+            return invoiceDates;
+        }
+        int holidayCalendar = this.holidayCalendar(row);
+        return new AdjustedInvoiceDates(
+                invoiceDates,
+                holidayCalendar < this.holidayCalendars.size() ? this.holidayCalendars.get(holidayCalendar) : HolidayCalendar.WEEKENDS,
+                adjustment
+        );
+    }
+
+    // Amount of the row's invoice on the epoch day, as SubscriptionService returns it in
+    // invoiceAmounts. Split and prorated rows compute the amounts of their whole schedule,
+    // which is bounded by the longest period a subscription may have.
+    public BigDecimal invoiceAmount(int row, long epochDay) {
+        AmountMode amountMode = this.amountMode(row);
+        if (amountMode == null || amountMode == AmountMode.PER_INVOICE) {
+            return this.amount(row);
+        }
+        InvoiceDates invoiceDates = this.invoiceDates(row);
+        int index = invoiceDates.indexOfFirstOnOrAfter(epochDay);
+        if (index >= invoiceDates.size() || invoiceDates.epochDayAt(index) != epochDay) {
+            throw new IllegalArgumentException("Row " + row + " has no invoice on epoch day " + epochDay + ".");
+        }
+        InvoiceDates scheduledInvoiceDates = invoiceDates instanceof AdjustedInvoiceDates
+                ? ((AdjustedInvoiceDates) invoiceDates).getSource()
+                : invoiceDates;
+        RoundingMode roundingMode = this.roundingMode(row);
+        RemainderAllocation remainderAllocation = this.remainderAllocation(row);
+        List<BigDecimal> amounts = InvoiceAmounts.of(
+                amountMode,
+                roundingMode == null ? InvoiceAmounts.DEFAULT_ROUNDING_MODE : roundingMode,
+                remainderAllocation == null ? InvoiceAmounts.DEFAULT_REMAINDER_ALLOCATION : remainderAllocation,
+                this.amount(row),
+                this.recurrenceRule(row),
+                this.startEpochDay(row),
+                this.endEpochDay(row),
+                scheduledInvoiceDates
+        );
+        if (invoiceDates instanceof AdjustedInvoiceDates) {
+            amounts = ((AdjustedInvoiceDates) invoiceDates).mergeAmounts(amounts);
+        }
+        return amounts.get(index);
+    }
+
+    private RecurrenceRule recurrenceRule(int row) {
+        int recurrence = this.recurrence(row);
+        if (recurrence != 0) {
+            return RecurrenceRules.ofCode(recurrence);
+        }
+        SubscriptionType type = this.type(row);
+        return RecurrenceRules.of(
+                type,
+                type == SubscriptionType.MONTHLY ? this.invoiceDay(row) : null,
+                type == SubscriptionType.WEEKLY ? Day.values()[this.invoiceDay(row)] : null
+        );
+    }
+
+    private InvoiceDates scheduledInvoiceDates(int row) {
+        int startEpochDay = this.startEpochDay(row);
+        int endEpochDay = this.endEpochDay(row);
+        int recurrence = this.recurrence(row);
+        if (recurrence != 0) {
+            return RecurrenceRules.ofCode(recurrence).invoiceDates(startEpochDay, endEpochDay);
+        }
+        switch (this.type(row)) {
+            case DAILY:
+                return DateUtil.datesFromStartToEnd(startEpochDay, endEpochDay, 1);
+            case WEEKLY:
+                Day day = Day.values()[this.invoiceDay(row)];
+                return DateUtil.datesFromStartToEnd(DateUtil.closestDateForDayOfWeek(startEpochDay, day), endEpochDay, 7);
+            default:
+                return DateUtil.datesWithSameDayFromStartToEnd(startEpochDay, endEpochDay, this.invoiceDay(row));
+        }
+    }
+
+    public void forEach(IntPredicate filter, IntConsumer action) {
+        for (int row = 0; row < this.rows; row++) {
+            if (this.types.get(row) != DELETED && filter.test(row)) {
+                action.accept(row);
+            }
+        }
+    }
+
+    public long offHeapBytes() {
+        return (long) this.capacity * (4 + Short.BYTES + 4 * Integer.BYTES + Long.BYTES);
+    }
+
+    // Copies the rows onto the heap, so that a snapshot can be written without holding the store lock.
+    SubscriptionColumns copy() {
+        ByteBuffer[] buffers = this.buffers();
+        ByteBuffer[] copies = new ByteBuffer[buffers.length];
+        for (int column = 0; column < buffers.length; column++) {
+            ByteBuffer source = buffers[column].duplicate();
+            source.clear().limit(this.rows * COLUMN_WIDTHS[column]);
+            copies[column] = ByteBuffer.allocate(source.remaining()).put(source).flip();
+        }
+        return new SubscriptionColumns(this.rows, this.liveRows, copies, this.zoneIds, this.holidayCalendars);
+    }
+
+    ByteBuffer[] buffers() {
+        return new ByteBuffer[]{
+                this.types,
+                this.invoiceDays,
+                this.amountScales,
+                this.amountOptions,
+                this.businessDays,
+                this.zones,
+                this.startEpochDays,
+                this.endEpochDays,
+                this.bucketPositions,
+                this.recurrences,
+                this.invoiceTimes,
+                this.amountUnscaledValues
+        };
+    }
+
+    int bucketPosition(int row) {
+        return this.bucketPositions.getInt(row * Integer.BYTES);
+    }
+
+    void bucketPosition(int row, int position) {
+        this.ensureWritable();
+        this.bucketPositions.putInt(row * Integer.BYTES, position);
+    }
+
+    // Adopted blocks of a snapshot are read-only until the first change copies them.
+    private void ensureWritable() {
+        if (this.types.isReadOnly()) {
+            this.allocate(this.capacity);
+        }
+    }
+
+    private void allocate(int newCapacity) {
+        this.types = grow(this.types, newCapacity);
+        this.invoiceDays = grow(this.invoiceDays, newCapacity);
+        this.amountScales = grow(this.amountScales, newCapacity);
+        this.amountOptions = grow(this.amountOptions, newCapacity);
+        this.businessDays = grow(this.businessDays, newCapacity * Short.BYTES);
+        this.zones = grow(this.zones, newCapacity * Short.BYTES);
+        this.startEpochDays = grow(this.startEpochDays, newCapacity * Integer.BYTES);
+        this.endEpochDays = grow(this.endEpochDays, newCapacity * Integer.BYTES);
+        this.bucketPositions = grow(this.bucketPositions, newCapacity * Integer.BYTES);
+        this.recurrences = grow(this.recurrences, newCapacity * Integer.BYTES);
+        this.invoiceTimes = grow(this.invoiceTimes, newCapacity * Integer.BYTES);
+        this.amountUnscaledValues = grow(this.amountUnscaledValues, newCapacity * Long.BYTES);
+        this.capacity = newCapacity;
+    }
+
+    private static ByteBuffer grow(ByteBuffer buffer, int bytes) {
+        ByteBuffer grown = ByteBuffer.allocateDirect(bytes);
+        if (buffer != null) {
+            grown.put(buffer.duplicate().clear().limit(Math.min(buffer.capacity(), bytes)));
+            grown.clear();
+        }
+        return grown;
+    }
+}
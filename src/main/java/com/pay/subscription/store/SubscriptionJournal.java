@@ -0,0 +1,392 @@
+package com.pay.subscription.store;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.pay.subscription.request.SubscriptionRequest;
+import lombok.*;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+
+// Append-only NDJSON log of store changes. Schedules are not written, they are
+// regenerated from the request when the log is replayed.
+//
+// Appends only hand the entry to the file. Callers then wait in awaitDurable,
+// where the first waiter becomes the leader, lets the commit window pass so
+// concurrent appends can join, and forces everything written so far with a
+// single fsync for the whole group.
+//
+// The first line names the journal with a random id and holds the offset of the
+// first entry. Offsets count every entry ever appended, so they stay valid when
+// compact drops the entries a snapshot already covers.
+public class SubscriptionJournal implements Closeable {
+
+    public static final String PUT = "PUT";
+
+    public static final String DELETE = "DELETE";
+
+    // Fixed width, so that offsets map to file positions without parsing the line.
+    private static final String HEADER_FORMAT = "{\"journal\":\"%016x\",\"start\":\"%019d\"}\n";
+
+    static final int HEADER_BYTES = String.format(HEADER_FORMAT, 0L, 0L).length();
+
+    private static final String HEADER_PREFIX = "{\"journal\":";
+
+    private static final int TAIL_SCAN_BYTES = 8192;
+
+    private final Path path;
+
+    private final ObjectMapper objectMapper;
+
+    private final ObjectReader entryReader;
+
+    private final ObjectWriter entryWriter;
+
+    private final long id;
+
+    private final boolean fsync;
+
+    private final long commitWindowNanos;
+
+    private final Object commitLock = new Object();
+
+    // Replaced by compact, which only runs between commits.
+    private FileChannel channel;
+
+    // Offset of the first entry in the file.
+    private long startOffset;
+
+    private long writtenOffset;
+
+    private long durableOffset;
+
+    private boolean committing;
+
+    private long commits;
+
+    // Set by the first failed fsync. The pages it did not write may already be dropped,
+    // so a later fsync could report success for entries that never reach the disk.
+    private IOException commitFailure;
+
+    public SubscriptionJournal(Path path, ObjectMapper objectMapper) throws IOException {
+        this(path, objectMapper, true, Duration.ZERO);
+    }
+
+    public SubscriptionJournal(Path path, ObjectMapper objectMapper, boolean fsync, Duration commitWindow) throws IOException {
+        this.path = path;
+        this.objectMapper = objectMapper;
+        this.entryReader = objectMapper.readerFor(Entry.class);
+        this.entryWriter = objectMapper.writerFor(Entry.class);
+        this.fsync = fsync;
+        this.commitWindowNanos = commitWindow.toNanos();
+        if (path.getParent() != null) {
+            Files.createDirectories(path.getParent());
+        }
+        truncateTornTail(path);
+        JsonNode header = this.readHeader();
+        if (header == null) {
+            // A new journal, or one written before journals had a header, which keeps every entry.
+            this.id = ThreadLocalRandom.current().nextLong();
+            this.startOffset = HEADER_BYTES;
+            this.rewrite(Files.exists(path) ? 0 : -1);
+        } else {
+            this.id = Long.parseUnsignedLong(header.path("journal").asText(), 16);
+            this.startOffset = Long.parseLong(header.path("start").asText());
+        }
+        this.channel = FileChannel.open(path, StandardOpenOption.APPEND);
+        this.writtenOffset = this.startOffset + this.channel.size() - HEADER_BYTES;
+        this.durableOffset = this.writtenOffset;
+    }
+
+    // Identifies the journal a snapshot was taken from, compact keeps it.
+    public long id() {
+        return this.id;
+    }
+
+    // Offset of the oldest entry still in the journal.
+    public long startOffset() {
+        synchronized (this.commitLock) {
+            return this.startOffset;
+        }
+    }
+
+    // Whether entries were dropped, so the journal alone no longer rebuilds the store.
+    public boolean isCompacted() {
+        return this.startOffset() > HEADER_BYTES;
+    }
+
+    // Hands the entries appended after the given offset, which must be at an entry
+    // start, to the consumer one at a time, so replay never holds the whole journal.
+    public void readFrom(long offset, Consumer<Entry> consumer) throws IOException {
+        long position;
+        synchronized (this.commitLock) {
+            if (offset < this.startOffset) {
+                throw new IOException("Journal entries before offset " + this.startOffset + " were compacted.");
+            }
+            position = offset - this.startOffset + HEADER_BYTES;
+        }
+        try (FileChannel channel = FileChannel.open(this.path, StandardOpenOption.READ);
+             BufferedReader reader = new BufferedReader(Channels.newReader(channel.position(position), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (!line.isBlank()) {
+                    consumer.accept(this.entryReader.readValue(line));
+                }
+            }
+        }
+    }
+
+    // Drops the entries before the offset, once a durable snapshot covers them. The entries
+    // after it are copied into a new file that replaces the journal. Appends wait for the
+    // copy, which stays short when snapshots are taken often enough.
+    public void compact(long offset) throws IOException {
+        synchronized (this.commitLock) {
+            while (this.committing) {
+                this.waitForCommit();
+            }
+            this.checkNotFailed();
+            if (offset <= this.startOffset) {
+                return;
+            }
+            if (offset > this.writtenOffset) {
+                throw new IllegalArgumentException("Offset " + offset + " is past the end of the journal.");
+            }
+            long position = offset - this.startOffset + HEADER_BYTES;
+            long startOffset = this.startOffset;
+            this.startOffset = offset;
+            try {
+                this.rewrite(position);
+            } catch (IOException ioException) {
+                this.startOffset = startOffset;
+                throw ioException;
+            }
+            try {
+                this.channel.close();
+                this.channel = FileChannel.open(this.path, StandardOpenOption.APPEND);
+            } catch (IOException ioException) {
+                this.commitFailure = ioException;
+                throw ioException;
+            }
+            // The new file was forced before it replaced the journal.
+            this.durableOffset = this.writtenOffset;
+        }
+    }
+
+    // Offset of the next entry, including entries that are not durable yet.
+    public long size() {
+        synchronized (this.commitLock) {
+            return this.writtenOffset;
+        }
+    }
+
+    // Number of fsyncs so far, every one of them covering a group of appends.
+    public long commits() {
+        synchronized (this.commitLock) {
+            return this.commits;
+        }
+    }
+
+    // Writes the entry and returns the offset it ends at, to be passed to awaitDurable.
+    public long append(Entry entry) {
+        try {
+            byte[] line = (this.entryWriter.writeValueAsString(entry) + '\n').getBytes(StandardCharsets.UTF_8);
+            synchronized (this.commitLock) {
+                this.checkNotFailed();
+                ByteBuffer buffer = ByteBuffer.wrap(line);
+                while (buffer.hasRemaining()) {
+                    this.channel.write(buffer);
+                }
+                this.writtenOffset += line.length;
+                return this.writtenOffset;
+            }
+        } catch (IOException ioException) {
+            throw new UncheckedIOException(ioException);
+        }
+    }
+
+    // Returns once everything up to the offset has been forced to the disk.
+    public void awaitDurable(long offset) {
+        if (!this.fsync) {
+            return;
+        }
+        synchronized (this.commitLock) {
+            while (this.durableOffset < offset) {
+                this.checkNotFailed();
+                if (!this.committing) {
+                    this.committing = true;
+                    break;
+                }
+                this.waitForCommit();
+            }
+            if (this.durableOffset >= offset) {
+                return;
+            }
+        }
+        long committedOffset = -1;
+        IOException failure = null;
+        try {
+            if (this.commitWindowNanos > 0) {
+                LockSupport.parkNanos(this.commitWindowNanos);
+            }
+            long writtenOffset;
+            FileChannel channel;
+            synchronized (this.commitLock) {
+                writtenOffset = this.writtenOffset;
+                channel = this.channel;
+            }
+            channel.force(false);
+            committedOffset = writtenOffset;
+        } catch (IOException ioException) {
+            failure = ioException;
+            throw new UncheckedIOException(ioException);
+        } finally {
+            synchronized (this.commitLock) {
+                if (committedOffset >= 0) {
+                    this.durableOffset = Math.max(this.durableOffset, committedOffset);
+                    this.commits++;
+                } else if (failure != null && this.commitFailure == null) {
+                    this.commitFailure = failure;
+                }
+                this.committing = false;
+                this.commitLock.notifyAll();
+            }
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        synchronized (this.commitLock) {
+            if (this.fsync) {
+                this.channel.force(false);
+            }
+            this.channel.close();
+        }
+    }
+
+    private void checkNotFailed() {
+        if (this.commitFailure != null) {
+            throw new UncheckedIOException("Journal stopped after a failed commit.", this.commitFailure);
+        }
+    }
+
+    private void waitForCommit() {
+        try {
+            this.commitLock.wait();
+        } catch (InterruptedException interruptedException) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for the journal commit.", interruptedException);
+        }
+    }
+
+    // The header of the journal file, or null when it has none.
+    private JsonNode readHeader() throws IOException {
+        if (!Files.exists(this.path) || Files.size(this.path) < HEADER_BYTES) {
+            return null;
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_BYTES);
+        try (FileChannel channel = FileChannel.open(this.path, StandardOpenOption.READ)) {
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer) < 0) {
+                    return null;
+                }
+            }
+        }
+        String line = new String(buffer.array(), StandardCharsets.UTF_8);
+        return line.startsWith(HEADER_PREFIX) ? this.objectMapper.readTree(line) : null;
+    }
+
+    // Replaces the journal file with the header followed by the file's bytes from the
+    // position on, or by nothing for a position of -1. The new file is forced before it
+    // replaces the old one, so a crash leaves one of the two complete.
+    private void rewrite(long position) throws IOException {
+        Path temporary = this.path.resolveSibling(this.path.getFileName() + ".tmp");
+        try (FileChannel target = FileChannel.open(
+                temporary,
+                StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.WRITE
+        )) {
+            ByteBuffer header = ByteBuffer.wrap(
+                    String.format(HEADER_FORMAT, this.id, this.startOffset).getBytes(StandardCharsets.UTF_8)
+            );
+            while (header.hasRemaining()) {
+                target.write(header);
+            }
+            if (position >= 0) {
+                try (FileChannel source = FileChannel.open(this.path, StandardOpenOption.READ)) {
+                    long size = source.size();
+                    while (position < size) {
+                        position += source.transferTo(position, size - position, target);
+                    }
+                }
+            }
+            target.force(true);
+        }
+        Files.move(temporary, this.path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        forceDirectory(this.path);
+    }
+
+    // Makes a rename in the file's directory durable. Some platforms cannot open a
+    // directory, there the rename reaches the disk when the file system decides.
+    static void forceDirectory(Path file) {
+        Path directory = file.toAbsolutePath().getParent();
+        try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (IOException ignored) {
+            // Nothing more can be done on this platform.
+        }
+    }
+
+    // An interrupted append leaves a last line without its newline. It is cut off
+    // so that the next entry starts on a line of its own.
+    private static void truncateTornTail(Path path) throws IOException {
+        if (!Files.exists(path)) {
+            return;
+        }
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            ByteBuffer buffer = ByteBuffer.allocate(TAIL_SCAN_BYTES);
+            long end = channel.size();
+            while (end > 0) {
+                int length = (int) Math.min(buffer.capacity(), end);
+                buffer.clear().limit(length);
+                channel.read(buffer, end - length);
+                for (int index = length - 1; index >= 0; index--) {
+                    if (buffer.get(index) == '\n') {
+                        channel.truncate(end - length + index + 1);
+                        return;
+                    }
+                }
+                end -= length;
+            }
+            channel.truncate(0);
+        }
+    }
+
+    @Setter
+    @Getter
+    @ToString
+    @EqualsAndHashCode
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Entry {
+        private String op;
+        private Long id;
+        private SubscriptionRequest request;
+    }
+}
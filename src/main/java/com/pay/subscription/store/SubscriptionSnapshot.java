@@ -0,0 +1,290 @@
+package com.pay.subscription.store;
+
+import com.pay.subscription.util.HolidayCalendars;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.zip.CRC32C;
+import java.util.zip.CheckedOutputStream;
+
+// Binary image of the store. The file is a fixed header followed by the raw
+// column bytes, the invoice buckets and the date index, all big-endian:
+//
+//   header  magic, version, rows, live rows, journal offset, body length, CRC32C of the body,
+//           fingerprint of the holiday calendars the rows refer to, id of the journal
+//   columns one block per column, rows * width bytes each
+//   zones   number of zone IDs, then length and UTF-8 bytes of every zone ID
+//   regions number of holiday calendar regions, then length and UTF-8 bytes of every
+//           region after calendar 0, in index order
+//   buckets size, rows, first invoice days, last invoice days, for every bucket
+//   index   number of days, then epoch day, size and rows for every day
+//
+// Loading maps the file read-only and adopts the column blocks as they are, so
+// only the index arrays are copied onto the heap. The columns copy their blocks
+// the first time a loaded row changes.
+final class SubscriptionSnapshot {
+
+    static final long MAGIC = 0x5355425353_4E4150L;
+
+    static final int VERSION = 7;
+
+    static final int HEADER_BYTES = 64;
+
+    private static final int COPY_BUFFER_BYTES = 64 * 1024;
+
+    private SubscriptionSnapshot() {}
+
+    static void write(
+            Path path,
+            SubscriptionColumns columns,
+            InvoiceBuckets invoiceBuckets,
+            NavigableMap<Integer, DayRows> invoiceIndex,
+            long journalOffset,
+            long journalId
+    ) throws IOException {
+        Path temporary = path.resolveSibling(path.getFileName() + ".tmp");
+        if (path.getParent() != null) {
+            Files.createDirectories(path.getParent());
+        }
+        try (FileChannel channel = FileChannel.open(
+                temporary,
+                StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.WRITE
+        )) {
+            channel.position(HEADER_BYTES);
+            CRC32C checksum = new CRC32C();
+            CheckedOutputStream checked = new CheckedOutputStream(Channels.newOutputStream(channel), checksum);
+            DataOutputStream output = new DataOutputStream(new BufferedOutputStream(checked, COPY_BUFFER_BYTES));
+            writeColumns(output, columns);
+            writeStrings(output, columns.zoneIds());
+            writeStrings(output, regions(columns.holidayCalendars()));
+            for (InvoiceBucket bucket : invoiceBuckets.all()) {
+                output.writeInt(bucket.size());
+                writeInts(output, bucket.rows(), bucket.size());
+                writeInts(output, bucket.firstEpochDays(), bucket.size());
+                writeInts(output, bucket.lastEpochDays(), bucket.size());
+            }
+            output.writeInt(invoiceIndex.size());
+            for (Map.Entry<Integer, DayRows> day : invoiceIndex.entrySet()) {
+                output.writeInt(day.getKey());
+                output.writeInt(day.getValue().size());
+                writeInts(output, day.getValue().rows(), day.getValue().size());
+            }
+            output.flush();
+
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+            header.putLong(MAGIC)
+                    .putInt(VERSION)
+                    .putInt(columns.rows())
+                    .putInt(columns.liveRows())
+                    .putLong(journalOffset)
+                    .putLong(channel.position() - HEADER_BYTES)
+                    .putLong(checksum.getValue())
+                    .putLong(columns.holidayCalendars().fingerprint())
+                    .putLong(journalId);
+            header.clear();
+            channel.write(header, 0);
+            channel.force(true);
+        }
+        Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        // The journal is compacted once the snapshot is written, so the rename has to be durable first.
+        SubscriptionJournal.forceDirectory(path);
+    }
+
+    // Throws when the snapshot cannot be used, so the caller can rebuild from the journal.
+    // A snapshot written with other holiday calendars is still read, see Loaded.
+    static Loaded read(Path path, SubscriptionJournal journal, HolidayCalendars holidayCalendars) throws IOException {
+        MappedByteBuffer mapped;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < HEADER_BYTES) {
+                throw new IOException("Snapshot is truncated.");
+            }
+            if (size > Integer.MAX_VALUE) {
+                throw new IOException("Snapshot is too large to map.");
+            }
+            mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+        }
+        if (mapped.getLong(0) != MAGIC) {
+            throw new IOException("Snapshot has an unknown format.");
+        }
+        if (mapped.getInt(8) != VERSION) {
+            throw new IOException("Snapshot version " + mapped.getInt(8) + " is not supported.");
+        }
+        int rows = mapped.getInt(12);
+        int liveRows = mapped.getInt(16);
+        long journalOffset = mapped.getLong(20);
+        long bodyLength = mapped.getLong(28);
+        if (bodyLength != mapped.capacity() - HEADER_BYTES) {
+            throw new IOException("Snapshot is truncated.");
+        }
+        if (mapped.getLong(52) != journal.id()) {
+            throw new IOException("Snapshot was taken from another journal.");
+        }
+        if (journalOffset > journal.size()) {
+            throw new IOException("Snapshot is newer than the journal.");
+        }
+        if (journalOffset < journal.startOffset()) {
+            throw new IOException("Snapshot is older than the journal.");
+        }
+        CRC32C checksum = new CRC32C();
+        checksum.update(slice(mapped, HEADER_BYTES, (int) bodyLength));
+        if (checksum.getValue() != mapped.getLong(36)) {
+            throw new IOException("Snapshot checksum does not match.");
+        }
+
+        int position = HEADER_BYTES;
+        ByteBuffer[] buffers = new ByteBuffer[SubscriptionColumns.COLUMN_WIDTHS.length];
+        for (int column = 0; column < buffers.length; column++) {
+            int length = rows * SubscriptionColumns.COLUMN_WIDTHS[column];
+            buffers[column] = slice(mapped, position, length);
+            position += length;
+        }
+        List<String> zoneIds = new ArrayList<>();
+        position = readStrings(mapped, position, zoneIds);
+        List<String> regions = new ArrayList<>();
+        position = readStrings(mapped, position, regions);
+        List<InvoiceBucket> buckets = new ArrayList<>(InvoiceBuckets.BUCKET_COUNT);
+        for (int bucket = 0; bucket < InvoiceBuckets.BUCKET_COUNT; bucket++) {
+            int size = mapped.getInt(position);
+            position += Integer.BYTES;
+            int[] bucketRows = readInts(mapped, position, size);
+            position += size * Integer.BYTES;
+            int[] firstEpochDays = readInts(mapped, position, size);
+            position += size * Integer.BYTES;
+            int[] lastEpochDays = readInts(mapped, position, size);
+            position += size * Integer.BYTES;
+            buckets.add(new InvoiceBucket(bucketRows, firstEpochDays, lastEpochDays, size, bucket == InvoiceBuckets.BUCKET_COUNT - 1));
+        }
+        NavigableMap<Integer, DayRows> invoiceIndex = new TreeMap<>();
+        int days = mapped.getInt(position);
+        position += Integer.BYTES;
+        for (int day = 0; day < days; day++) {
+            int epochDay = mapped.getInt(position);
+            int size = mapped.getInt(position + Integer.BYTES);
+            position += 2 * Integer.BYTES;
+            invoiceIndex.put(epochDay, new DayRows(readInts(mapped, position, size), size));
+            position += size * Integer.BYTES;
+        }
+        return new Loaded(
+                new SubscriptionColumns(rows, liveRows, buffers, zoneIds, holidayCalendars),
+                new InvoiceBuckets(buckets),
+                invoiceIndex,
+                journalOffset,
+                mapped.getLong(44) == holidayCalendars.fingerprint() ? null : regions
+        );
+    }
+
+    private static List<String> regions(HolidayCalendars holidayCalendars) {
+        List<String> regions = new ArrayList<>(holidayCalendars.size() - 1);
+        for (int index = 1; index < holidayCalendars.size(); index++) {
+            regions.add(holidayCalendars.get(index).getRegion());
+        }
+        return regions;
+    }
+
+    private static void writeStrings(DataOutputStream output, List<String> values) throws IOException {
+        output.writeInt(values.size());
+        for (String value : values) {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            output.writeInt(bytes.length);
+            output.write(bytes);
+        }
+    }
+
+    // Adds the strings written by writeStrings at the position to values and returns the position after them.
+    private static int readStrings(ByteBuffer buffer, int position, List<String> values) {
+        int count = buffer.getInt(position);
+        position += Integer.BYTES;
+        for (int index = 0; index < count; index++) {
+            int length = buffer.getInt(position);
+            position += Integer.BYTES;
+            byte[] bytes = new byte[length];
+            slice(buffer, position, length).get(bytes);
+            values.add(new String(bytes, StandardCharsets.UTF_8));
+            position += length;
+        }
+        return position;
+    }
+
+    private static void writeColumns(DataOutputStream output, SubscriptionColumns columns) throws IOException {
+        byte[] copyBuffer = new byte[COPY_BUFFER_BYTES];
+        ByteBuffer[] buffers = columns.buffers();
+        for (int column = 0; column < buffers.length; column++) {
+            ByteBuffer source = buffers[column].duplicate();
+            source.clear().limit(columns.rows() * SubscriptionColumns.COLUMN_WIDTHS[column]);
+            while (source.hasRemaining()) {
+                int length = Math.min(copyBuffer.length, source.remaining());
+                source.get(copyBuffer, 0, length);
+                output.write(copyBuffer, 0, length);
+            }
+        }
+    }
+
+    private static void writeInts(DataOutputStream output, int[] values, int size) throws IOException {
+        for (int index = 0; index < size; index++) {
+            output.writeInt(values[index]);
+        }
+    }
+
+    private static int[] readInts(ByteBuffer buffer, int position, int size) {
+        // Keeps spare room like the growable arrays it replaces.
+        int[] values = new int[Math.max(4, size)];
+        IntBuffer ints = slice(buffer, position, size * Integer.BYTES).asIntBuffer();
+        ints.get(values, 0, size);
+        return values;
+    }
+
+    private static ByteBuffer slice(ByteBuffer buffer, int position, int length) {
+        ByteBuffer duplicate = buffer.duplicate();
+        duplicate.position(position).limit(position + length);
+        return duplicate.slice();
+    }
+
+    static final class Loaded {
+
+        final SubscriptionColumns columns;
+
+        final InvoiceBuckets invoiceBuckets;
+
+        final NavigableMap<Integer, DayRows> invoiceIndex;
+
+        final long journalOffset;
+
+        // Regions of the holiday calendars the snapshot was written with, when they are not
+        // the ones it was read with. The rows then have to be added again, their calendar
+        // indexes and adjusted invoice dates may have changed.
+        final List<String> otherRegions;
+
+        Loaded(
+                SubscriptionColumns columns,
+                InvoiceBuckets invoiceBuckets,
+                NavigableMap<Integer, DayRows> invoiceIndex,
+                long journalOffset,
+                List<String> otherRegions
+        ) {
+            this.columns = columns;
+            this.invoiceBuckets = invoiceBuckets;
+            this.invoiceIndex = invoiceIndex;
+            this.journalOffset = journalOffset;
+            this.otherRegions = otherRegions;
+        }
+    }
+}
@@ -0,0 +1,510 @@
+package com.pay.subscription.store;
+
+import com.pay.subscription.enums.BusinessDayAdjustment;
+import com.pay.subscription.enums.Day;
+import com.pay.subscription.enums.SubscriptionType;
+import com.pay.subscription.recurrence.RecurrenceRules;
+import com.pay.subscription.request.RecurrenceRequest;
+import com.pay.subscription.request.SubscriptionRequest;
+import com.pay.subscription.util.DateCodec;
+import com.pay.subscription.util.HolidayCalendars;
+import com.pay.subscription.util.InvoiceDates;
+import com.pay.subscription.util.ZonedInvoiceInstants;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.IntFunction;
+
+@Slf4j
+public class SubscriptionStore implements Closeable {
+
+    // Smaller buckets are not worth handing to another thread.
+    private static final int MIN_CHUNK_SIZE = 4096;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final SubscriptionColumns columns;
+
+    private final HolidayCalendars holidayCalendars;
+
+    // Epoch day to the rows invoiced on that day. Days without invoices have no
+    // entry, so range scans only visit days that produce results.
+    private final NavigableMap<Integer, DayRows> invoiceIndex;
+
+    private final InvoiceBuckets invoiceBuckets;
+
+    private final SubscriptionJournal journal;
+
+    private final Path snapshotPath;
+
+    // Keeps the scheduled snapshot and the one written on close from sharing the temporary file.
+    private final Object snapshotLock = new Object();
+
+    private SubscriptionStore(SubscriptionJournal journal, Path snapshotPath, HolidayCalendars holidayCalendars) {
+        this(new SubscriptionColumns(holidayCalendars), new TreeMap<>(), new InvoiceBuckets(), journal, snapshotPath);
+    }
+
+    private SubscriptionStore(
+            SubscriptionColumns columns,
+            NavigableMap<Integer, DayRows> invoiceIndex,
+            InvoiceBuckets invoiceBuckets,
+            SubscriptionJournal journal,
+            Path snapshotPath
+    ) {
+        this.columns = columns;
+        this.holidayCalendars = columns.holidayCalendars();
+        this.invoiceIndex = invoiceIndex;
+        this.invoiceBuckets = invoiceBuckets;
+        this.journal = journal;
+        this.snapshotPath = snapshotPath;
+    }
+
+    public static SubscriptionStore inMemory() {
+        return inMemory(HolidayCalendars.NONE);
+    }
+
+    public static SubscriptionStore inMemory(HolidayCalendars holidayCalendars) {
+        return new SubscriptionStore(null, null, holidayCalendars);
+    }
+
+    public static SubscriptionStore open(SubscriptionJournal journal) throws IOException {
+        return open(journal, null);
+    }
+
+    public static SubscriptionStore open(SubscriptionJournal journal, Path snapshotPath) throws IOException {
+        return open(journal, snapshotPath, HolidayCalendars.NONE);
+    }
+
+    // Starts from the snapshot when there is a usable one and replays the journal
+    // entries written after it. Otherwise the whole journal is replayed, which is only
+    // possible as long as no snapshot has compacted it.
+    public static SubscriptionStore open(
+            SubscriptionJournal journal,
+            Path snapshotPath,
+            HolidayCalendars holidayCalendars
+    ) throws IOException {
+        SubscriptionStore store = null;
+        long journalOffset = journal.startOffset();
+        if (snapshotPath != null && Files.exists(snapshotPath)) {
+            try {
+                SubscriptionSnapshot.Loaded loaded = SubscriptionSnapshot.read(snapshotPath, journal, holidayCalendars);
+                store = loaded.otherRegions == null
+                        ? new SubscriptionStore(loaded.columns, loaded.invoiceIndex, loaded.invoiceBuckets, journal, snapshotPath)
+                        : rebuild(loaded, journal, snapshotPath, holidayCalendars);
+                journalOffset = loaded.journalOffset;
+            } catch (IOException | RuntimeException exception) {
+                if (journal.isCompacted()) {
+                    throw new IOException(
+                            "Subscription snapshot " + snapshotPath + " is unusable and the journal no longer has the entries it covers.",
+                            exception
+                    );
+                }
+                log.warn("Ignoring subscription snapshot {}, rebuilding from the journal: {}", snapshotPath, exception.getMessage());
+            }
+        }
+        if (store == null) {
+            if (journal.isCompacted()) {
+                throw new IOException("The journal was compacted, but there is no subscription snapshot at " + snapshotPath + ".");
+            }
+            store = new SubscriptionStore(journal, snapshotPath, holidayCalendars);
+        }
+        journal.readFrom(journalOffset, store::replay);
+        return store;
+    }
+
+    // Adds the rows of a snapshot written with other holiday calendars again under the same
+    // ids, like a replay of the journal would. A region that is gone leaves only weekends to skip.
+    private static SubscriptionStore rebuild(
+            SubscriptionSnapshot.Loaded loaded,
+            SubscriptionJournal journal,
+            Path snapshotPath,
+            HolidayCalendars holidayCalendars
+    ) {
+        SubscriptionStore store = new SubscriptionStore(journal, snapshotPath, holidayCalendars);
+        List<String> regions = loaded.otherRegions;
+        for (int row = 0; row < loaded.columns.rows(); row++) {
+            if (loaded.columns.isLive(row)) {
+                store.insert(request(
+                        loaded.columns,
+                        row,
+                        holidayCalendar -> holidayCalendar <= regions.size() ? regions.get(holidayCalendar - 1) : null
+                ));
+            } else {
+                store.columns.appendDeleted();
+            }
+        }
+        return store;
+    }
+
+    // Copies the store under the read lock and writes the copy after releasing it,
+    // so writers only wait for the copy and not for the file to reach the disk.
+    // Once the snapshot is durable the journal drops the entries it covers.
+    public void writeSnapshot() throws IOException {
+        if (this.snapshotPath == null) {
+            return;
+        }
+        synchronized (this.snapshotLock) {
+            SubscriptionColumns columns;
+            InvoiceBuckets invoiceBuckets;
+            NavigableMap<Integer, DayRows> invoiceIndex = new TreeMap<>();
+            long journalOffset;
+            this.lock.readLock().lock();
+            try {
+                columns = this.columns.copy();
+                invoiceBuckets = this.invoiceBuckets.copy();
+                for (Map.Entry<Integer, DayRows> day : this.invoiceIndex.entrySet()) {
+                    invoiceIndex.put(day.getKey(), day.getValue().copy());
+                }
+                journalOffset = this.journal == null ? 0 : this.journal.size();
+            } finally {
+                this.lock.readLock().unlock();
+            }
+            SubscriptionSnapshot.write(
+                    this.snapshotPath,
+                    columns,
+                    invoiceBuckets,
+                    invoiceIndex,
+                    journalOffset,
+                    this.journal == null ? 0 : this.journal.id()
+            );
+            if (this.journal != null) {
+                this.journal.compact(journalOffset);
+            }
+        }
+    }
+
+    // An entry that cannot be applied any more is skipped, so one bad request does not
+    // keep the store from starting. A skipped PUT still takes its id, as a deleted row.
+    private void replay(SubscriptionJournal.Entry entry) {
+        try {
+            if (SubscriptionJournal.PUT.equals(entry.getOp())) {
+                while (this.columns.rows() < entry.getId() - 1) {
+                    this.columns.appendDeleted();
+                }
+                this.insert(entry.getRequest());
+            } else {
+                this.delete(entry.getId());
+            }
+        } catch (RuntimeException runtimeException) {
+            log.error("Skipping journal entry {} for subscription {}", entry.getOp(), entry.getId(), runtimeException);
+            if (SubscriptionJournal.PUT.equals(entry.getOp())) {
+                while (this.columns.rows() < entry.getId()) {
+                    this.columns.appendDeleted();
+                }
+            }
+        }
+    }
+
+    // The request is expected to have been validated by SubscriptionService.
+    // The row is encoded before the journal entry is written, so a request the
+    // columns reject never reaches the journal. Returns once the journal entry
+    // is durable. The wait happens outside the lock, so concurrent writers share
+    // a journal commit. When the commit fails the row is taken out again, and the
+    // journal refuses every later entry, so the store stops accepting changes.
+    public StoredSubscription add(SubscriptionRequest request) {
+        StoredSubscription subscription;
+        long journalOffset = -1;
+        this.lock.writeLock().lock();
+        try {
+            int row = this.insert(request);
+            long id = row + 1L;
+            if (this.journal != null) {
+                try {
+                    journalOffset = this.journal.append(new SubscriptionJournal.Entry(SubscriptionJournal.PUT, id, request));
+                } catch (RuntimeException runtimeException) {
+                    this.delete(id);
+                    throw runtimeException;
+                }
+            }
+            subscription = this.materialize(row);
+        } finally {
+            this.lock.writeLock().unlock();
+        }
+        if (journalOffset >= 0) {
+            try {
+                this.journal.awaitDurable(journalOffset);
+            } catch (RuntimeException runtimeException) {
+                this.lock.writeLock().lock();
+                try {
+                    this.delete(subscription.getId());
+                } finally {
+                    this.lock.writeLock().unlock();
+                }
+                throw runtimeException;
+            }
+        }
+        return subscription;
+    }
+
+    public StoredSubscription get(long id) {
+        this.lock.readLock().lock();
+        try {
+            int row = rowOf(id);
+            return this.columns.isLive(row) ? this.materialize(row) : null;
+        } finally {
+            this.lock.readLock().unlock();
+        }
+    }
+
+    // A failed commit leaves the row removed. The journal refuses every later
+    // entry, so no other change can be based on it.
+    public boolean remove(long id) {
+        long journalOffset = -1;
+        this.lock.writeLock().lock();
+        try {
+            if (!this.columns.isLive(rowOf(id))) {
+                return false;
+            }
+            if (this.journal != null) {
+                journalOffset = this.journal.append(new SubscriptionJournal.Entry(SubscriptionJournal.DELETE, id, null));
+            }
+            this.delete(id);
+        } finally {
+            this.lock.writeLock().unlock();
+        }
+        if (journalOffset >= 0) {
+            this.journal.awaitDurable(journalOffset);
+        }
+        return true;
+    }
+
+    public List<DueInvoice> dueBetween(long fromEpochDay, long toEpochDay) {
+        List<DueInvoice> dueInvoices = new ArrayList<>();
+        this.lock.readLock().lock();
+        try {
+            NavigableMap<Integer, DayRows> days = this.invoiceIndex.subMap(
+                    (int) Math.max(Integer.MIN_VALUE, fromEpochDay), true,
+                    (int) Math.min(Integer.MAX_VALUE, toEpochDay), true
+            );
+            for (Map.Entry<Integer, DayRows> day : days.entrySet()) {
+                DayRows rows = day.getValue();
+                for (int index = 0; index < rows.size(); index++) {
+                    int row = rows.get(index);
+                    dueInvoices.add(new DueInvoice(day.getKey(), row + 1L, this.columns.type(row), this.columns.invoiceAmount(row, day.getKey())));
+                }
+            }
+        } finally {
+            this.lock.readLock().unlock();
+        }
+        return dueInvoices;
+    }
+
+    // Finds the invoices due on a date, splitting each bucket into contiguous chunks
+    // scanned in parallel. The scan only keeps the due rows, the invoices of a chunk are
+    // built when it is read, in submission order, so a streamed run holds one chunk of
+    // them at a time. Subscriptions deleted in between are skipped.
+    public Iterator<List<DueInvoice>> dueOn(long epochDay, ExecutorService executor, int parallelism) {
+        this.lock.readLock().lock();
+        try {
+            List<Callable<int[]>> tasks = new ArrayList<>();
+            for (InvoiceBucket bucket : this.invoiceBuckets.bucketsDueOn(epochDay)) {
+                int chunkSize = Math.max(MIN_CHUNK_SIZE, (bucket.size() + parallelism - 1) / parallelism);
+                for (int from = 0; from < bucket.size(); from += chunkSize) {
+                    int start = from;
+                    int end = Math.min(from + chunkSize, bucket.size());
+                    tasks.add(() -> bucket.activeRows(this.columns, epochDay, start, end));
+                }
+            }
+            Deque<int[]> chunks = new ArrayDeque<>(tasks.size());
+            for (Future<int[]> future : executor.invokeAll(tasks)) {
+                chunks.add(future.get());
+            }
+            return new DueChunks(epochDay, chunks);
+        } catch (InterruptedException interruptedException) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Invoice run was interrupted.", interruptedException);
+        } catch (ExecutionException executionException) {
+            throw new IllegalStateException("Invoice run failed.", executionException.getCause());
+        } finally {
+            this.lock.readLock().unlock();
+        }
+    }
+
+    private final class DueChunks implements Iterator<List<DueInvoice>> {
+
+        private final long epochDay;
+
+        private final Deque<int[]> chunks;
+
+        private DueChunks(long epochDay, Deque<int[]> chunks) {
+            this.epochDay = epochDay;
+            this.chunks = chunks;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return !this.chunks.isEmpty();
+        }
+
+        @Override
+        public List<DueInvoice> next() {
+            int[] rows = this.chunks.poll();
+            if (rows == null) {
+                throw new NoSuchElementException();
+            }
+            List<DueInvoice> dueInvoices = new ArrayList<>(rows.length);
+            lock.readLock().lock();
+            try {
+                for (int row : rows) {
+                    if (columns.isLive(row)) {
+                        dueInvoices.add(new DueInvoice(this.epochDay, row + 1L, columns.type(row), columns.invoiceAmount(row, this.epochDay)));
+                    }
+                }
+            } finally {
+                lock.readLock().unlock();
+            }
+            return dueInvoices;
+        }
+    }
+
+    public int size() {
+        this.lock.readLock().lock();
+        try {
+            return this.columns.liveRows();
+        } finally {
+            this.lock.readLock().unlock();
+        }
+    }
+
+    public long offHeapBytes() {
+        this.lock.readLock().lock();
+        try {
+            return this.columns.offHeapBytes();
+        } finally {
+            this.lock.readLock().unlock();
+        }
+    }
+
+    // Leaves a fresh snapshot behind, so the next start has nothing to replay.
+    @Override
+    public void close() throws IOException {
+        try {
+            this.writeSnapshot();
+        } finally {
+            if (this.journal != null) {
+                this.journal.close();
+            }
+        }
+    }
+
+    private static int rowOf(long id) {
+        return id < 1 || id > Integer.MAX_VALUE ? -1 : (int) (id - 1);
+    }
+
+    private int insert(SubscriptionRequest request) {
+        SubscriptionType type = request.getType();
+        int invoiceDay = 0;
+        int recurrence = RecurrenceRules.encode(request.getRecurrence());
+        if (recurrence != 0) {
+            type = RecurrenceRules.typeOf(request.getRecurrence().getUnit());
+        } else if (type == SubscriptionType.WEEKLY) {
+            invoiceDay = request.getWeeklyInvoiceDay().ordinal();
+        } else if (type == SubscriptionType.MONTHLY) {
+            invoiceDay = request.getMonthlyInvoiceDay();
+        }
+        int row = this.columns.append(
+                type,
+                invoiceDay,
+                recurrence,
+                DateCodec.parseEpochDay(request.getStartDate()),
+                DateCodec.parseEpochDay(request.getEndDate()),
+                request.getAmount(),
+                request.getAmountMode(),
+                request.getRoundingMode(),
+                request.getRemainderAllocation(),
+                this.businessDaysCode(request),
+                request.getZoneId(),
+                SubscriptionColumns.invoiceTimeCode(ZonedInvoiceInstants.parseInvoiceTime(request.getInvoiceTime()))
+        );
+        InvoiceDates invoiceDates = this.columns.invoiceDates(row);
+        this.invoiceBuckets.add(this.columns, row, invoiceDates);
+        PrimitiveIterator.OfLong epochDays = invoiceDates.epochDayIterator();
+        while (epochDays.hasNext()) {
+            this.invoiceIndex.computeIfAbsent((int) epochDays.nextLong(), epochDay -> new DayRows()).add(row);
+        }
+        return row;
+    }
+
+    // A holiday calendar that is gone since the request was accepted leaves only weekends to skip.
+    private int businessDaysCode(SubscriptionRequest request) {
+        if (request.getHolidayCalendar() == null) {
+            return SubscriptionColumns.businessDaysCode(0, request.getBusinessDayAdjustment());
+        }
+        return SubscriptionColumns.businessDaysCode(
+                Math.max(0, this.holidayCalendars.indexOf(request.getHolidayCalendar())),
+                request.getBusinessDayAdjustment() == null ? BusinessDayAdjustment.FOLLOWING : request.getBusinessDayAdjustment()
+        );
+    }
+
+    private void delete(long id) {
+        int row = rowOf(id);
+        if (!this.columns.isLive(row)) {
+            return;
+        }
+        InvoiceDates invoiceDates = this.columns.invoiceDates(row);
+        this.invoiceBuckets.remove(this.columns, row, invoiceDates);
+        PrimitiveIterator.OfLong epochDays = invoiceDates.epochDayIterator();
+        while (epochDays.hasNext()) {
+            int epochDay = (int) epochDays.nextLong();
+            DayRows rows = this.invoiceIndex.get(epochDay);
+            rows.remove(row);
+            if (rows.size() == 0) {
+                this.invoiceIndex.remove(epochDay);
+            }
+        }
+        this.columns.delete(row);
+    }
+
+    private StoredSubscription materialize(int row) {
+        SubscriptionRequest request = request(
+                this.columns,
+                row,
+                holidayCalendar -> holidayCalendar < this.holidayCalendars.size() ? this.holidayCalendars.get(holidayCalendar).getRegion() : null
+        );
+        return new StoredSubscription(row + 1L, request, this.columns.invoiceDates(row));
+    }
+
+    // The request a row was stored from, regionOf names a holiday calendar index other than 0.
+    private static SubscriptionRequest request(SubscriptionColumns columns, int row, IntFunction<String> regionOf) {
+        SubscriptionType type = columns.type(row);
+        RecurrenceRequest recurrence = RecurrenceRules.decode(columns.recurrence(row));
+        int holidayCalendar = columns.holidayCalendar(row);
+        LocalTime invoiceTime = columns.invoiceTime(row);
+        return new SubscriptionRequest(
+                columns.amount(row),
+                type,
+                DateCodec.format(columns.startEpochDay(row)),
+                DateCodec.format(columns.endEpochDay(row)),
+                recurrence == null && type == SubscriptionType.MONTHLY ? columns.invoiceDay(row) : null,
+                recurrence == null && type == SubscriptionType.WEEKLY ? Day.values()[columns.invoiceDay(row)] : null,
+                columns.amountMode(row),
+                columns.roundingMode(row),
+                columns.remainderAllocation(row),
+                recurrence,
+                holidayCalendar == 0 ? null : regionOf.apply(holidayCalendar),
+                columns.businessDayAdjustment(row),
+                columns.zoneId(row),
+                invoiceTime == null ? null : invoiceTime.toString()
+        );
+    }
+}
@@ -0,0 +1,137 @@
+package com.pay.subscription.util;
+
+import com.pay.subscription.enums.BusinessDayAdjustment;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.PrimitiveIterator;
+
+// Invoice dates moved onto business days. Adjustment keeps the order of the dates,
+// but neighbouring dates can land on the same business day, for example a daily
+// schedule over a weekend, and are then one invoice. The adjusted dates are only
+// materialized when they are read by index.
+public final class AdjustedInvoiceDates extends InvoiceDates {
+
+    private final InvoiceDates source;
+
+    private final HolidayCalendar holidayCalendar;
+
+    private final BusinessDayAdjustment adjustment;
+
+    // Built on first use; a racing rebuild produces an identical array.
+    private volatile long[] epochDays;
+
+    public AdjustedInvoiceDates(InvoiceDates source, HolidayCalendar holidayCalendar, BusinessDayAdjustment adjustment) {
+        this.source = source;
+        this.holidayCalendar = holidayCalendar;
+        this.adjustment = adjustment;
+    }
+
+    public InvoiceDates getSource() {
+        return this.source;
+    }
+
+    // Adds up the amounts of the source dates that were merged into one invoice.
+    public List<BigDecimal> mergeAmounts(List<BigDecimal> sourceAmounts) {
+        long[] epochDays = this.materialize();
+        if (epochDays.length == sourceAmounts.size()) {
+            return sourceAmounts;
+        }
+        List<BigDecimal> amounts = new ArrayList<>(epochDays.length);
+        int adjusted = -1;
+        for (int index = 0; index < sourceAmounts.size(); index++) {
+            long epochDay = this.holidayCalendar.adjust(this.source.epochDayAt(index), this.adjustment);
+            if (adjusted >= 0 && epochDays[adjusted] == epochDay) {
+                amounts.set(adjusted, amounts.get(adjusted).add(sourceAmounts.get(index)));
+            } else {
+                amounts.add(sourceAmounts.get(index));
+                adjusted++;
+            }
+        }
+        return amounts;
+    }
+
+    @Override
+    public int size() {
+        return this.materialize().length;
+    }
+
+    @Override
+    public long epochDayAt(int index) {
+        return this.materialize()[index];
+    }
+
+    @Override
+    public int indexOfFirstOnOrAfter(long epochDay) {
+        long[] epochDays = this.materialize();
+        int low = 0;
+        int high = epochDays.length;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (epochDays[middle] < epochDay) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    @Override
+    public PrimitiveIterator.OfLong epochDayIterator() {
+        return Arrays.stream(this.materialize()).iterator();
+    }
+
+    // Only source dates between the business days around the given day can move onto
+    // it, so this stays a lookup in the source instead of materializing the dates.
+    @Override
+    public boolean containsEpochDay(long epochDay) {
+        if (!this.holidayCalendar.isBusinessDay(epochDay)) {
+            return false;
+        }
+        long from = epochDay - 1;
+        while (!this.holidayCalendar.isBusinessDay(from)) {
+            from--;
+        }
+        long to = epochDay + 1;
+        while (!this.holidayCalendar.isBusinessDay(to)) {
+            to++;
+        }
+        for (int index = this.source.indexOfFirstOnOrAfter(from + 1); index < this.source.size(); index++) {
+            long sourceEpochDay = this.source.epochDayAt(index);
+            if (sourceEpochDay >= to) {
+                return false;
+            }
+            if (this.holidayCalendar.adjust(sourceEpochDay, this.adjustment) == epochDay) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private long[] materialize() {
+        long[] epochDays = this.epochDays;
+        if (epochDays != null) {
+            return epochDays;
+        }
+        HolidayCalendar holidayCalendar = this.holidayCalendar;
+        int size = this.source.size();
+        epochDays = new long[size];
+        int adjusted = 0;
+        PrimitiveIterator.OfLong sourceEpochDays = this.source.epochDayIterator();
+        for (int index = 0; index < size; index++) {
+            long epochDay = sourceEpochDays.nextLong();
+            if (!holidayCalendar.isBusinessDay(epochDay)) {
+                epochDay = holidayCalendar.adjust(epochDay, this.adjustment);
+            }
+            if (adjusted == 0 || epochDays[adjusted - 1] != epochDay) {
+                epochDays[adjusted++] = epochDay;
+            }
+        }
+        epochDays = adjusted == size ? epochDays : Arrays.copyOf(epochDays, adjusted);
+        this.epochDays = epochDays;
+        return epochDays;
+    }
+}
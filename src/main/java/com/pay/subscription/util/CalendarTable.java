@@ -0,0 +1,132 @@
+package com.pay.subscription.util;
+
+import java.time.LocalDate;
+
+// Precomputed months and formatted dates for a range of years. Immutable. The date helpers,
+// serializers and holiday calendars all use DEFAULT, whose range of 1970 to 2099 is fixed.
+// Outside it the date helpers fall back to java.time, with the same results but slower,
+// and holiday calendars only skip weekends.
+public final class CalendarTable {
+
+    public static final int DEFAULT_FIRST_YEAR = 1970;
+
+    public static final int DEFAULT_LAST_YEAR = 2099;
+
+    public static final int MAX_YEARS = 400;
+
+    public static final CalendarTable DEFAULT = new CalendarTable(DEFAULT_FIRST_YEAR, DEFAULT_LAST_YEAR);
+
+    private final int firstYear;
+
+    private final int lastYear;
+
+    private final long firstEpochDay;
+
+    private final long lastEpochDay;
+
+    private final long firstMonth;
+
+    private final long lastMonth;
+
+    // Indexed by month number since January of firstYear.
+    private final int[] monthStartOffsets;
+
+    private final byte[] monthLengths;
+
+    // Indexed by day number since 1 January of firstYear.
+    private final short[] dayMonthIndexes;
+
+    private final byte[] formattedDates;
+
+    public CalendarTable(int firstYear, int lastYear) {
+        if (firstYear < 1000 || lastYear > 9999 || firstYear > lastYear) {
+            throw new IllegalArgumentException("Calendar table years must be within 1000 and 9999, in ascending order.");
+        }
+        if (lastYear - firstYear + 1 > MAX_YEARS) {
+            throw new IllegalArgumentException("Calendar table cannot cover more than " + MAX_YEARS + " years.");
+        }
+        this.firstYear = firstYear;
+        this.lastYear = lastYear;
+        this.firstEpochDay = LocalDate.of(firstYear, 1, 1).toEpochDay();
+        this.lastEpochDay = LocalDate.of(lastYear, 12, 31).toEpochDay();
+        this.firstMonth = firstYear * 12L;
+        this.lastMonth = lastYear * 12L + 11;
+        int months = (int) (this.lastMonth - this.firstMonth + 1);
+        int days = (int) (this.lastEpochDay - this.firstEpochDay + 1);
+        this.monthStartOffsets = new int[months];
+        this.monthLengths = new byte[months];
+        this.dayMonthIndexes = new short[days];
+        this.formattedDates = new byte[days * DateCodec.FORMATTED_LENGTH];
+        int offset = 0;
+        for (int monthIndex = 0; monthIndex < months; monthIndex++) {
+            int year = firstYear + monthIndex / 12;
+            int month = monthIndex % 12 + 1;
+            int length = DateCodec.lengthOfMonth(year, month);
+            this.monthStartOffsets[monthIndex] = offset;
+            this.monthLengths[monthIndex] = (byte) length;
+            for (int day = 1; day <= length; day++, offset++) {
+                this.dayMonthIndexes[offset] = (short) monthIndex;
+                writeAscii(this.formattedDates, offset * DateCodec.FORMATTED_LENGTH, day, month, year);
+            }
+        }
+    }
+
+    public int getFirstYear() {
+        return this.firstYear;
+    }
+
+    public int getLastYear() {
+        return this.lastYear;
+    }
+
+    public boolean covers(long epochDay) {
+        return epochDay >= this.firstEpochDay && epochDay <= this.lastEpochDay;
+    }
+
+    public boolean coversMonth(long prolepticMonth) {
+        return prolepticMonth >= this.firstMonth && prolepticMonth <= this.lastMonth;
+    }
+
+    public long prolepticMonth(long epochDay) {
+        return this.firstMonth + this.dayMonthIndexes[(int) (epochDay - this.firstEpochDay)];
+    }
+
+    public int lengthOfMonth(long prolepticMonth) {
+        return this.monthLengths[(int) (prolepticMonth - this.firstMonth)];
+    }
+
+    public long epochDayOfMonthDay(long prolepticMonth, int day) {
+        int monthIndex = (int) (prolepticMonth - this.firstMonth);
+        return this.firstEpochDay + this.monthStartOffsets[monthIndex] + Math.min(day, this.monthLengths[monthIndex]) - 1;
+    }
+
+    public void writeFormatted(long epochDay, byte[] buffer, int offset) {
+        System.arraycopy(
+                this.formattedDates,
+                (int) (epochDay - this.firstEpochDay) * DateCodec.FORMATTED_LENGTH,
+                buffer,
+                offset,
+                DateCodec.FORMATTED_LENGTH
+        );
+    }
+
+    public void writeFormatted(long epochDay, char[] buffer, int offset) {
+        int from = (int) (epochDay - this.firstEpochDay) * DateCodec.FORMATTED_LENGTH;
+        for (int index = 0; index < DateCodec.FORMATTED_LENGTH; index++) {
+            buffer[offset + index] = (char) this.formattedDates[from + index];
+        }
+    }
+
+    private static void writeAscii(byte[] buffer, int offset, int day, int month, int year) {
+        buffer[offset] = (byte) ('0' + day / 10);
+        buffer[offset + 1] = (byte) ('0' + day % 10);
+        buffer[offset + 2] = '/';
+        buffer[offset + 3] = (byte) ('0' + month / 10);
+        buffer[offset + 4] = (byte) ('0' + month % 10);
+        buffer[offset + 5] = '/';
+        buffer[offset + 6] = (byte) ('0' + year / 1000);
+        buffer[offset + 7] = (byte) ('0' + year / 100 % 10);
+        buffer[offset + 8] = (byte) ('0' + year / 10 % 10);
+        buffer[offset + 9] = (byte) ('0' + year % 10);
+    }
+}
@@ -0,0 +1,70 @@
+package com.pay.subscription.util;
+
+// Invoice dates repeating a fixed set of day offsets every cycle, counted from an
+// anchor day. Every two weeks on Monday and Thursday is a 14-day cycle with offsets
+// 0 and 3 from a Monday. Dates before the start date in the first cycle are skipped.
+public final class CyclicInvoiceDates extends InvoiceDates {
+
+    private final long anchorEpochDay;
+
+    private final long cycleDays;
+
+    private final int[] offsets;
+
+    // Position of the first invoice date in the plan of all cycles since the anchor.
+    private final long firstPlanIndex;
+
+    private final int size;
+
+    // offsets must be ascending and below cycleDays.
+    public CyclicInvoiceDates(long anchorEpochDay, long cycleDays, int[] offsets, long startEpochDay, long endEpochDay) {
+        if (offsets.length == 0 || cycleDays < 1) {
+            throw new IllegalArgumentException("A cycle needs a length and at least one offset.");
+        }
+        this.anchorEpochDay = anchorEpochDay;
+        this.cycleDays = cycleDays;
+        this.offsets = offsets;
+        this.firstPlanIndex = this.planIndexOnOrAfter(startEpochDay);
+        this.size = startEpochDay > endEpochDay
+                ? 0
+                : Math.toIntExact(Math.max(0, this.planIndexOnOrAfter(endEpochDay + 1) - this.firstPlanIndex));
+    }
+
+    @Override
+    public int size() {
+        return this.size;
+    }
+
+    @Override
+    public long epochDayAt(int index) {
+        if (index < 0 || index >= this.size) {
+            throw new IndexOutOfBoundsException(index);
+        }
+        return this.planEpochDay(this.firstPlanIndex + index);
+    }
+
+    @Override
+    public int indexOfFirstOnOrAfter(long epochDay) {
+        long index = this.planIndexOnOrAfter(epochDay) - this.firstPlanIndex;
+        return (int) Math.max(0, Math.min(index, this.size));
+    }
+
+    private long planEpochDay(long planIndex) {
+        return this.anchorEpochDay
+                + planIndex / this.offsets.length * this.cycleDays
+                + this.offsets[(int) (planIndex % this.offsets.length)];
+    }
+
+    private long planIndexOnOrAfter(long epochDay) {
+        if (epochDay <= this.anchorEpochDay) {
+            return 0;
+        }
+        long cycle = (epochDay - this.anchorEpochDay) / this.cycleDays;
+        long position = epochDay - this.anchorEpochDay - cycle * this.cycleDays;
+        int offset = 0;
+        while (offset < this.offsets.length && this.offsets[offset] < position) {
+            offset++;
+        }
+        return cycle * this.offsets.length + offset;
+    }
+}
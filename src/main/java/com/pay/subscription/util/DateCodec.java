@@ -0,0 +1,174 @@
+package com.pay.subscription.util;
+
+import java.text.ParsePosition;
+import java.time.LocalDate;
+import java.time.Month;
+import java.time.Year;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoField;
+import java.time.temporal.TemporalAccessor;
+
+public final class DateCodec {
+
+    private DateCodec() {}
+
+    public static final int FORMATTED_LENGTH = 10;
+
+    // Large enough for any year DateTimeFormatter can print with "yyyy".
+    public static final int MAX_FORMATTED_LENGTH = 16;
+
+    // Returned by tryParseEpochDay for text that parseEpochDay rejects.
+    public static final long INVALID_EPOCH_DAY = Long.MIN_VALUE;
+
+    private static final long DAYS_0000_TO_1970 = 719528L;
+
+    static final DateTimeFormatter FORMATTER = DateTimeFormatter.ofPattern("dd/MM/yyyy");
+
+    // Handles the canonical dd/MM/yyyy shape directly. Anything else, including
+    // day-of-month values that DateTimeFormatter would resolve leniently, is
+    // delegated to the formatter so that results and exceptions stay identical.
+    public static long parseEpochDay(CharSequence text) {
+        if (text != null && text.length() == FORMATTED_LENGTH && text.charAt(2) == '/' && text.charAt(5) == '/') {
+            int day = digits(text, 0, 2);
+            int month = digits(text, 3, 2);
+            int year = digits(text, 6, 4);
+            if (day >= 1 && month >= 1 && month <= 12 && year >= 1 && day <= lengthOfMonth(year, month)) {
+                return epochDay(year, month, day);
+            }
+        }
+        return LocalDate.parse(text, FORMATTER).toEpochDay();
+    }
+
+    // Same result as parseEpochDay, but rejects with INVALID_EPOCH_DAY instead of an exception.
+    // Fields are resolved like the formatter's SMART style does, which moves a day past the
+    // end of the month back onto its last day.
+    public static long tryParseEpochDay(CharSequence text) {
+        if (text == null) {
+            return INVALID_EPOCH_DAY;
+        }
+        if (text.length() == FORMATTED_LENGTH && text.charAt(2) == '/' && text.charAt(5) == '/') {
+            int day = digits(text, 0, 2);
+            int month = digits(text, 3, 2);
+            int year = digits(text, 6, 4);
+            if (day < 1 || day > 31 || month < 1 || month > 12 || year < 1) {
+                return INVALID_EPOCH_DAY;
+            }
+            return epochDay(year, month, Math.min(day, lengthOfMonth(year, month)));
+        }
+        ParsePosition position = new ParsePosition(0);
+        TemporalAccessor parsed = FORMATTER.parseUnresolved(text, position);
+        if (parsed == null || position.getErrorIndex() >= 0 || position.getIndex() != text.length()) {
+            return INVALID_EPOCH_DAY;
+        }
+        long day = parsed.getLong(ChronoField.DAY_OF_MONTH);
+        long month = parsed.getLong(ChronoField.MONTH_OF_YEAR);
+        long year = parsed.getLong(ChronoField.YEAR_OF_ERA);
+        if (day < 1 || day > 31 || month < 1 || month > 12 || year < 1 || year > Year.MAX_VALUE) {
+            return INVALID_EPOCH_DAY;
+        }
+        return epochDay(year, (int) month, (int) Math.min(day, Month.of((int) month).length(isLeapYear(year))));
+    }
+
+    public static LocalDate parse(CharSequence text) {
+        return LocalDate.ofEpochDay(parseEpochDay(text));
+    }
+
+    public static String format(long epochDay) {
+        char[] buffer = new char[MAX_FORMATTED_LENGTH];
+        return new String(buffer, 0, formatTo(epochDay, buffer, 0));
+    }
+
+    // Writes the date into the buffer and returns the number of characters written.
+    public static int formatTo(long epochDay, char[] buffer, int offset) {
+        CalendarTable calendarTable = CalendarTable.DEFAULT;
+        if (calendarTable.covers(epochDay)) {
+            calendarTable.writeFormatted(epochDay, buffer, offset);
+            return FORMATTED_LENGTH;
+        }
+        long zeroDay = epochDay + DAYS_0000_TO_1970 - 60;
+        if (zeroDay < 0) {
+            return formatWithFormatter(epochDay, buffer, offset);
+        }
+        long yearEstimate = (400 * zeroDay + 591) / 146097;
+        long dayOfYearEstimate = zeroDay - (365 * yearEstimate + yearEstimate / 4 - yearEstimate / 100 + yearEstimate / 400);
+        if (dayOfYearEstimate < 0) {
+            yearEstimate--;
+            dayOfYearEstimate = zeroDay - (365 * yearEstimate + yearEstimate / 4 - yearEstimate / 100 + yearEstimate / 400);
+        }
+        int marchDayOfYear = (int) dayOfYearEstimate;
+        int marchMonth = (marchDayOfYear * 5 + 2) / 153;
+        int month = (marchMonth + 2) % 12 + 1;
+        int day = marchDayOfYear - (marchMonth * 306 + 5) / 10 + 1;
+        long year = yearEstimate + marchMonth / 10;
+        if (year < 1000 || year > 9999) {
+            return formatWithFormatter(epochDay, buffer, offset);
+        }
+        writeDigits(buffer, offset, day, 2);
+        buffer[offset + 2] = '/';
+        writeDigits(buffer, offset + 3, month, 2);
+        buffer[offset + 5] = '/';
+        writeDigits(buffer, offset + 6, (int) year, 4);
+        return FORMATTED_LENGTH;
+    }
+
+    static int lengthOfMonth(int year, int month) {
+        switch (month) {
+            case 2:
+                return isLeapYear(year) ? 29 : 28;
+            case 4:
+            case 6:
+            case 9:
+            case 11:
+                return 30;
+            default:
+                return 31;
+        }
+    }
+
+    static boolean isLeapYear(long year) {
+        return (year & 3) == 0 && (year % 100 != 0 || year % 400 == 0);
+    }
+
+    static long epochDay(long year, int month, int day) {
+        long total = 365 * year;
+        if (year >= 0) {
+            total += (year + 3) / 4 - (year + 99) / 100 + (year + 399) / 400;
+        } else {
+            total -= year / -4 - year / -100 + year / -400;
+        }
+        total += (367 * month - 362) / 12;
+        total += day - 1;
+        if (month > 2) {
+            total--;
+            if (!isLeapYear(year)) {
+                total--;
+            }
+        }
+        return total - DAYS_0000_TO_1970;
+    }
+
+    private static int digits(CharSequence text, int from, int count) {
+        int value = 0;
+        for (int index = from; index < from + count; index++) {
+            int digit = text.charAt(index) - '0';
+            if (digit < 0 || digit > 9) {
+                return -1;
+            }
+            value = value * 10 + digit;
+        }
+        return value;
+    }
+
+    private static void writeDigits(char[] buffer, int offset, int value, int count) {
+        for (int index = offset + count - 1; index >= offset; index--) {
+            buffer[index] = (char) ('0' + value % 10);
+            value /= 10;
+        }
+    }
+
+    private static int formatWithFormatter(long epochDay, char[] buffer, int offset) {
+        String formatted = FORMATTER.format(LocalDate.ofEpochDay(epochDay));
+        formatted.getChars(0, formatted.length(), buffer, offset);
+        return formatted.length();
+    }
+}
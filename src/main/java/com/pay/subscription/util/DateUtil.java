@@ -2,26 +2,21 @@ package com.pay.subscription.util;
 
 import com.pay.subscription.enums.Day;
 
-import java.time.DateTimeException;
-import java.time.DayOfWeek;
 import java.time.LocalDate;
-import java.time.format.DateTimeFormatter;
+import java.time.YearMonth;
 import java.time.temporal.ChronoUnit;
-import java.util.LinkedHashSet;
 import java.util.Set;
 
 public final class DateUtil {
 
     private DateUtil() {}
 
-    private static DateTimeFormatter formatter = DateTimeFormatter.ofPattern("dd/MM/yyyy");
-
     public static LocalDate stringToDate(String dateString) {
-        return LocalDate.parse(dateString, formatter);
+        return DateCodec.parse(dateString);
     }
 
     public static String dateToString(LocalDate date) {
-        return formatter.format(date);
+        return DateCodec.format(date.toEpochDay());
     }
 
     public static Long numberOfMonthsBetween(String startDate, String endDate) {
@@ -32,27 +27,28 @@ public final class DateUtil {
         return ChronoUnit.WEEKS.between(stringToDate(startDate), stringToDate(endDate));
     }
 
+    public static long numberOfMonthsBetween(LocalDate startDate, LocalDate endDate) {
+        return ChronoUnit.MONTHS.between(startDate, endDate);
+    }
+
+    public static long numberOfWeeksBetween(LocalDate startDate, LocalDate endDate) {
+        return ChronoUnit.WEEKS.between(startDate, endDate);
+    }
+
     public static Set<String> datesFromStartToEnd(LocalDate startDate, LocalDate endDate, long differenceInDays) {
-        Set<String> dates = new LinkedHashSet<>();
-        while (!startDate.isAfter(endDate)) {
-            String dateString = dateToString(startDate);
-            dates.add(dateString);
-            startDate = startDate.plusDays(differenceInDays);
-        }
-        return dates;
+        return new SteppedInvoiceDates(startDate.toEpochDay(), endDate.toEpochDay(), differenceInDays);
     }
 
     public static Set<String> datesWithSameDayFromStartToEnd(LocalDate startDate, LocalDate endDate, Integer day) {
-        Set<String> dates = new LinkedHashSet<>();
-        LocalDate newDate = getDateWithSameDayOrGetLastDateOfMonth(startDate, day);
-        while (!newDate.isAfter(endDate)) {
-            String dateString = dateToString(newDate);
-            if (!newDate.isBefore(startDate)) {
-                dates.add(dateString);
-            }
-            newDate = getDateWithSameDayOrGetLastDateOfMonth(newDate.plusMonths(1), day);
-        }
-        return dates;
+        return new MonthlyInvoiceDates(startDate, endDate, day);
+    }
+
+    public static InvoiceDates datesFromStartToEnd(long startEpochDay, long endEpochDay, long differenceInDays) {
+        return new SteppedInvoiceDates(startEpochDay, endEpochDay, differenceInDays);
+    }
+
+    public static InvoiceDates datesWithSameDayFromStartToEnd(long startEpochDay, long endEpochDay, int day) {
+        return new MonthlyInvoiceDates(startEpochDay, endEpochDay, day);
     }
 
     public static boolean startDateIsAfterEndDate(LocalDate startDate, LocalDate endDate) {
@@ -60,22 +56,49 @@ public final class DateUtil {
     }
 
     public static LocalDate closestDateForDayOfWeek(LocalDate date, Day day) {
-        DayOfWeek dayOfWeek = date.getDayOfWeek();
-        while (!dayOfWeek.name().equals(day.name())) {
-            date = date.plusDays(1);
-            dayOfWeek = date.getDayOfWeek();
-        }
-        return date;
+        return date.plusDays(Math.floorMod(day.ordinal() - dayOfWeek(date.toEpochDay()), 7));
+    }
+
+    public static long closestDateForDayOfWeek(long epochDay, Day day) {
+        return epochDay + Math.floorMod(day.ordinal() - dayOfWeek(epochDay), 7);
     }
 
     public static LocalDate getDateWithSameDayOrGetLastDateOfMonth(LocalDate date, Integer day) {
-        LocalDate newDate = null;
-        try {
-            newDate = LocalDate.of(date.getYear(), date.getMonthValue(), day);
-        } catch (DateTimeException e) {
-            newDate = LocalDate.of(date.getYear(), date.getMonthValue(), date.lengthOfMonth());
-        } finally {
-            return newDate;
+        int lengthOfMonth = date.lengthOfMonth();
+        int dayOfMonth = day >= 1 && day <= lengthOfMonth ? day : lengthOfMonth;
+        return LocalDate.of(date.getYear(), date.getMonthValue(), dayOfMonth);
+    }
+
+    static long prolepticMonth(LocalDate date) {
+        return date.getYear() * 12L + date.getMonthValue() - 1;
+    }
+
+    public static long prolepticMonth(long epochDay) {
+        CalendarTable calendarTable = CalendarTable.DEFAULT;
+        if (calendarTable.covers(epochDay)) {
+            return calendarTable.prolepticMonth(epochDay);
+        }
+        return prolepticMonth(LocalDate.ofEpochDay(epochDay));
+    }
+
+    // Last Monday to Friday of the month.
+    public static long lastBusinessDayOfMonth(long prolepticMonth) {
+        long lastDay = epochDayOfMonthDay(prolepticMonth, 31);
+        int dayOfWeek = dayOfWeek(lastDay);
+        return dayOfWeek >= 5 ? lastDay - (dayOfWeek - 4) : lastDay;
+    }
+
+    // 0 is Monday, matching the ordinal of Day. The epoch day 0 was a Thursday.
+    public static int dayOfWeek(long epochDay) {
+        return Math.floorMod(epochDay + 3, 7);
+    }
+
+    public static long epochDayOfMonthDay(long prolepticMonth, int day) {
+        CalendarTable calendarTable = CalendarTable.DEFAULT;
+        if (calendarTable.coversMonth(prolepticMonth)) {
+            return calendarTable.epochDayOfMonthDay(prolepticMonth, day);
         }
+        YearMonth yearMonth = YearMonth.of((int) Math.floorDiv(prolepticMonth, 12), (int) Math.floorMod(prolepticMonth, 12) + 1);
+        return yearMonth.atDay(Math.min(day, yearMonth.lengthOfMonth())).toEpochDay();
     }
 }
@@ -0,0 +1,16 @@
+package com.pay.subscription.util;
+
+import java.time.format.DateTimeParseException;
+
+public final class ErrorUtil {
+
+    private ErrorUtil() {}
+
+    public static String messageOf(IllegalArgumentException illegalArgumentException) {
+        return illegalArgumentException.getMessage();
+    }
+
+    public static String messageOf(DateTimeParseException dateTimeParseException) {
+        return dateTimeParseException.getParsedString() + " does not have dd/MM/yyyy format.";
+    }
+}
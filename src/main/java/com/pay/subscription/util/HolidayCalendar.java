@@ -0,0 +1,102 @@
+package com.pay.subscription.util;
+
+import com.pay.subscription.enums.BusinessDayAdjustment;
+
+import java.util.Arrays;
+
+// Days without business for one region, as a bitset indexed by epoch day. Weekends
+// are set in the bitset too, so telling a business day is a single bit test. Days
+// outside of the covered range only skip weekends.
+public final class HolidayCalendar {
+
+    public static final HolidayCalendar WEEKENDS = new HolidayCalendar(null, 0, -1, new long[0]);
+
+    private final String region;
+
+    private final long firstEpochDay;
+
+    private final long lastEpochDay;
+
+    private final long[] closedDays;
+
+    private final long[] holidays;
+
+    // holidays are epoch days, those outside of the range are ignored.
+    public HolidayCalendar(String region, long firstEpochDay, long lastEpochDay, long[] holidays) {
+        this.region = region;
+        this.firstEpochDay = firstEpochDay;
+        this.lastEpochDay = lastEpochDay;
+        this.holidays = Arrays.stream(holidays)
+                .filter(this::covers)
+                .distinct()
+                .sorted()
+                .toArray();
+        int days = (int) Math.max(0, lastEpochDay - firstEpochDay + 1);
+        this.closedDays = new long[(days + Long.SIZE - 1) / Long.SIZE];
+        for (long epochDay = firstEpochDay; epochDay <= lastEpochDay; epochDay++) {
+            if (DateUtil.dayOfWeek(epochDay) >= 5) {
+                this.close(epochDay);
+            }
+        }
+        for (long holiday : this.holidays) {
+            this.close(holiday);
+        }
+    }
+
+    public String getRegion() {
+        return this.region;
+    }
+
+    // Ascending holidays within the covered range.
+    public long[] holidays() {
+        return this.holidays.clone();
+    }
+
+    public boolean isBusinessDay(long epochDay) {
+        if (!this.covers(epochDay)) {
+            return DateUtil.dayOfWeek(epochDay) < 5;
+        }
+        int day = (int) (epochDay - this.firstEpochDay);
+        return (this.closedDays[day >>> 6] & 1L << day) == 0;
+    }
+
+    public long following(long epochDay) {
+        while (!this.isBusinessDay(epochDay)) {
+            epochDay++;
+        }
+        return epochDay;
+    }
+
+    public long preceding(long epochDay) {
+        while (!this.isBusinessDay(epochDay)) {
+            epochDay--;
+        }
+        return epochDay;
+    }
+
+    public long adjust(long epochDay, BusinessDayAdjustment adjustment) {
+        if (this.isBusinessDay(epochDay)) {
+            return epochDay;
+        }
+        switch (adjustment) {
+            case FOLLOWING:
+                return this.following(epochDay);
+            case PRECEDING:
+                return this.preceding(epochDay);
+            default:
+                long following = this.following(epochDay);
+                return DateUtil.prolepticMonth(following) == DateUtil.prolepticMonth(epochDay)
+                        ? following
+                        : this.preceding(epochDay);
+        }
+    }
+
+    private boolean covers(long epochDay) {
+        return epochDay >= this.firstEpochDay && epochDay <= this.lastEpochDay;
+    }
+
+    private void close(long epochDay) {
+        int day = (int) (epochDay - this.firstEpochDay);
+        this.closedDays[day >>> 6] |= 1L << day;
+    }
+}
@@ -0,0 +1,119 @@
+package com.pay.subscription.util;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.zip.CRC32C;
+
+// The holiday calendars by region. Calendar 0 only skips weekends, the regions follow
+// in name order, so a calendar index stays the same for the same set of files.
+//
+// A directory holds one <region>.txt file per region with one dd/MM/yyyy holiday per
+// line. Blank lines and lines starting with # are skipped.
+public final class HolidayCalendars {
+
+    private static final String FILE_SUFFIX = ".txt";
+
+    // No regions, business days only skip weekends.
+    public static final HolidayCalendars NONE = new HolidayCalendars(Collections.emptyList());
+
+    private final List<HolidayCalendar> calendars;
+
+    private final Map<String, Integer> indexes = new HashMap<>();
+
+    private final long fingerprint;
+
+    public HolidayCalendars(List<HolidayCalendar> regions) {
+        TreeMap<String, HolidayCalendar> byRegion = new TreeMap<>();
+        for (HolidayCalendar calendar : regions) {
+            byRegion.put(normalize(calendar.getRegion()), calendar);
+        }
+        this.calendars = new ArrayList<>(byRegion.size() + 1);
+        this.calendars.add(HolidayCalendar.WEEKENDS);
+        CRC32C checksum = new CRC32C();
+        for (Map.Entry<String, HolidayCalendar> region : byRegion.entrySet()) {
+            this.indexes.put(region.getKey(), this.calendars.size());
+            this.calendars.add(region.getValue());
+            checksum.update(region.getKey().getBytes(StandardCharsets.UTF_8));
+            long[] holidays = region.getValue().holidays();
+            ByteBuffer bytes = ByteBuffer.allocate((holidays.length + 1) * Long.BYTES);
+            bytes.putLong(holidays.length).asLongBuffer().put(holidays);
+            checksum.update(bytes);
+        }
+        this.fingerprint = checksum.getValue();
+    }
+
+    // Loads every calendar file of the directory, covering the years of the calendar table.
+    public static HolidayCalendars load(Path directory, CalendarTable calendarTable) throws IOException {
+        long firstEpochDay = LocalDate.of(calendarTable.getFirstYear(), 1, 1).toEpochDay();
+        long lastEpochDay = LocalDate.of(calendarTable.getLastYear(), 12, 31).toEpochDay();
+        List<HolidayCalendar> regions = new ArrayList<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "*" + FILE_SUFFIX)) {
+            for (Path file : files) {
+                String fileName = file.getFileName().toString();
+                String region = fileName.substring(0, fileName.length() - FILE_SUFFIX.length());
+                regions.add(new HolidayCalendar(region, firstEpochDay, lastEpochDay, readHolidays(file)));
+            }
+        }
+        return new HolidayCalendars(regions);
+    }
+
+    private static long[] readHolidays(Path file) throws IOException {
+        List<String> lines = Files.readAllLines(file, StandardCharsets.UTF_8);
+        long[] holidays = new long[lines.size()];
+        int count = 0;
+        for (int line = 0; line < lines.size(); line++) {
+            String holiday = lines.get(line).trim();
+            if (holiday.isEmpty() || holiday.startsWith("#")) {
+                continue;
+            }
+            try {
+                holidays[count++] = DateCodec.parseEpochDay(holiday);
+            } catch (DateTimeParseException dateTimeParseException) {
+                throw new IOException(file + ":" + (line + 1) + " is not a dd/MM/yyyy date.", dateTimeParseException);
+            }
+        }
+        return Arrays.copyOf(holidays, count);
+    }
+
+    private static String normalize(String region) {
+        return region.toUpperCase(Locale.ROOT);
+    }
+
+    // The calendar of a region, or null if there is none.
+    public HolidayCalendar get(String region) {
+        Integer index = this.indexes.get(normalize(region));
+        return index == null ? null : this.calendars.get(index);
+    }
+
+    // Index of a region's calendar, or -1 if there is none.
+    public int indexOf(String region) {
+        return this.indexes.getOrDefault(normalize(region), -1);
+    }
+
+    public HolidayCalendar get(int index) {
+        return this.calendars.get(index);
+    }
+
+    public int size() {
+        return this.calendars.size();
+    }
+
+    // Checksum of the regions and their holidays, to tell whether stored indexes still apply.
+    public long fingerprint() {
+        return this.fingerprint;
+    }
+}
@@ -0,0 +1,225 @@
+package com.pay.subscription.util;
+
+import com.pay.subscription.enums.AmountMode;
+import com.pay.subscription.enums.RemainderAllocation;
+import com.pay.subscription.recurrence.RecurrenceRule;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+// Amount of every invoice of a schedule. Amounts are computed as unscaled longs at
+// the amount's scale, but at least in minor units, so no BigDecimal is allocated per
+// invoice until the result is handed out. When a long would overflow, the same
+// computation is done with BigDecimal instead.
+//
+// Proration bills every invoice for the period up to the next date of its recurrence.
+// Days between the start date and the first invoice are added to the first invoice,
+// and the last period is cut at the end date, both as a share of their full period.
+public final class InvoiceAmounts {
+
+    public static final int MIN_SCALE = 2;
+
+    public static final RoundingMode DEFAULT_ROUNDING_MODE = RoundingMode.HALF_EVEN;
+
+    public static final RemainderAllocation DEFAULT_REMAINDER_ALLOCATION = RemainderAllocation.LAST;
+
+    private InvoiceAmounts() {}
+
+    public static List<BigDecimal> of(
+            AmountMode mode,
+            RoundingMode roundingMode,
+            RemainderAllocation remainderAllocation,
+            BigDecimal amount,
+            RecurrenceRule recurrenceRule,
+            long startEpochDay,
+            long endEpochDay,
+            InvoiceDates invoiceDates
+    ) {
+        int invoices = invoiceDates.size();
+        if (invoices == 0) {
+            return Collections.emptyList();
+        }
+        int scale = Math.max(amount.scale(), MIN_SCALE);
+        BigDecimal scaledAmount = amount.setScale(scale);
+        switch (mode) {
+            case SPLIT:
+                return split(scaledAmount, invoices, roundingMode, remainderAllocation);
+            case PRORATE:
+                return prorate(scaledAmount, roundingMode, recurrenceRule, startEpochDay, endEpochDay, invoiceDates);
+            default:
+                return Collections.nCopies(invoices, scaledAmount);
+        }
+    }
+
+    // Splits the unscaled total into invoices parts that add up to it exactly. Every part
+    // is the rounded quotient, and the difference to the total is handed out one unit at a time.
+    // Throws ArithmeticException on overflow.
+    public static long[] split(long total, int invoices, RoundingMode roundingMode, RemainderAllocation remainderAllocation) {
+        long share = divide(total, invoices, roundingMode);
+        long remainder = Math.subtractExact(total, Math.multiplyExact(share, invoices));
+        long[] parts = new long[invoices];
+        int units = (int) Math.abs(remainder);
+        long unit = Long.signum(remainder);
+        for (int index = 0; index < invoices; index++) {
+            parts[index] = share + (receivesUnit(index, invoices, units, remainderAllocation) ? unit : 0);
+        }
+        return parts;
+    }
+
+    // Rounds amount * numerator / denominator on unscaled values, throws ArithmeticException on overflow.
+    public static long prorate(long amount, long numerator, long denominator, RoundingMode roundingMode) {
+        return divide(Math.multiplyExact(amount, numerator), denominator, roundingMode);
+    }
+
+    // Rounds dividend / divisor like BigDecimal.divide with scale 0 does, for a positive divisor.
+    public static long divide(long dividend, long divisor, RoundingMode roundingMode) {
+        long quotient = dividend / divisor;
+        long remainder = dividend % divisor;
+        if (remainder == 0) {
+            return quotient;
+        }
+        int signum = dividend < 0 ? -1 : 1;
+        long discarded = Math.abs(remainder);
+        int half = Long.compare(discarded, divisor - discarded);
+        boolean awayFromZero;
+        switch (roundingMode) {
+            case UP:
+                awayFromZero = true;
+                break;
+            case DOWN:
+                awayFromZero = false;
+                break;
+            case CEILING:
+                awayFromZero = signum > 0;
+                break;
+            case FLOOR:
+                awayFromZero = signum < 0;
+                break;
+            case HALF_UP:
+                awayFromZero = half >= 0;
+                break;
+            case HALF_DOWN:
+                awayFromZero = half > 0;
+                break;
+            case HALF_EVEN:
+                awayFromZero = half > 0 || half == 0 && (quotient & 1) != 0;
+                break;
+            default:
+                throw new ArithmeticException("Rounding necessary");
+        }
+        return awayFromZero ? quotient + signum : quotient;
+    }
+
+    static boolean receivesUnit(int index, int invoices, int units, RemainderAllocation remainderAllocation) {
+        switch (remainderAllocation) {
+            case FIRST:
+                return index < units;
+            case LAST:
+                return index >= invoices - units;
+            default:
+                // Evenly spaced, the invoice where the running share of the units crosses a whole unit.
+                return (long) (index + 1) * units / invoices > (long) index * units / invoices;
+        }
+    }
+
+    private static List<BigDecimal> split(
+            BigDecimal amount,
+            int invoices,
+            RoundingMode roundingMode,
+            RemainderAllocation remainderAllocation
+    ) {
+        try {
+            long total = amount.unscaledValue().longValueExact();
+            return toAmounts(split(total, invoices, roundingMode, remainderAllocation), amount.scale());
+        } catch (ArithmeticException arithmeticException) {
+            return splitExact(amount, invoices, roundingMode, remainderAllocation);
+        }
+    }
+
+    private static List<BigDecimal> splitExact(
+            BigDecimal amount,
+            int invoices,
+            RoundingMode roundingMode,
+            RemainderAllocation remainderAllocation
+    ) {
+        BigDecimal share = amount.divide(BigDecimal.valueOf(invoices), amount.scale(), roundingMode);
+        BigDecimal remainder = amount.subtract(share.multiply(BigDecimal.valueOf(invoices)));
+        int units = remainder.unscaledValue().abs().intValueExact();
+        BigDecimal unit = BigDecimal.valueOf(remainder.signum(), amount.scale());
+        List<BigDecimal> amounts = new ArrayList<>(invoices);
+        for (int index = 0; index < invoices; index++) {
+            amounts.add(receivesUnit(index, invoices, units, remainderAllocation) ? share.add(unit) : share);
+        }
+        return amounts;
+    }
+
+    private static List<BigDecimal> prorate(
+            BigDecimal amount,
+            RoundingMode roundingMode,
+            RecurrenceRule recurrenceRule,
+            long startEpochDay,
+            long endEpochDay,
+            InvoiceDates invoiceDates
+    ) {
+        int invoices = invoiceDates.size();
+        int last = invoices - 1;
+        long firstEpochDay = invoiceDates.epochDayAt(0);
+        long lastEpochDay = invoiceDates.epochDayAt(last);
+        long stubDays = firstEpochDay - startEpochDay;
+        long stubPeriodDays = firstEpochDay - recurrenceRule.previous(startEpochDay, firstEpochDay);
+        long lastPeriodDays = recurrenceRule.next(startEpochDay, lastEpochDay) - lastEpochDay;
+        long lastDays = Math.min(lastPeriodDays, endEpochDay + 1 - lastEpochDay);
+
+        long unscaledAmount;
+        boolean exact = false;
+        try {
+            unscaledAmount = amount.unscaledValue().longValueExact();
+        } catch (ArithmeticException arithmeticException) {
+            unscaledAmount = 0;
+            exact = true;
+        }
+        long[] parts = new long[invoices];
+        BigDecimal[] exactParts = new BigDecimal[invoices];
+        for (int index = 0; index < invoices; index++) {
+            // Share of a full period, all invoices between the first and the last are whole.
+            long numerator = 1;
+            long denominator = 1;
+            if (index == last) {
+                numerator = lastDays;
+                denominator = lastPeriodDays;
+            }
+            if (index == 0 && stubDays > 0) {
+                numerator = numerator * stubPeriodDays + stubDays * denominator;
+                denominator = denominator * stubPeriodDays;
+            }
+            if (!exact) {
+                try {
+                    parts[index] = numerator == denominator
+                            ? unscaledAmount
+                            : prorate(unscaledAmount, numerator, denominator, roundingMode);
+                    continue;
+                } catch (ArithmeticException arithmeticException) {
+                    // Overflow, computed with BigDecimal below.
+                }
+            }
+            exactParts[index] = amount.multiply(BigDecimal.valueOf(numerator))
+                    .divide(BigDecimal.valueOf(denominator), amount.scale(), roundingMode);
+        }
+        List<BigDecimal> amounts = new ArrayList<>(invoices);
+        for (int index = 0; index < invoices; index++) {
+            amounts.add(exactParts[index] != null ? exactParts[index] : BigDecimal.valueOf(parts[index], amount.scale()));
+        }
+        return amounts;
+    }
+
+    private static List<BigDecimal> toAmounts(long[] parts, int scale) {
+        List<BigDecimal> amounts = new ArrayList<>(parts.length);
+        for (long part : parts) {
+            amounts.add(BigDecimal.valueOf(part, scale));
+        }
+        return amounts;
+    }
+}
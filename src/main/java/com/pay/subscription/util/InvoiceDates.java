@@ -0,0 +1,175 @@
+package com.pay.subscription.util;
+
+import java.time.DateTimeException;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.OptionalLong;
+import java.util.PrimitiveIterator;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.LongStream;
+import java.util.stream.StreamSupport;
+
+public abstract class InvoiceDates extends AbstractSet<String> {
+
+    public abstract long epochDayAt(int index);
+
+    // Index of the first invoice date on or after the given epoch day, or size() if there is none.
+    public abstract int indexOfFirstOnOrAfter(long epochDay);
+
+    public static InvoiceDates of(Set<String> invoiceDates) {
+        if (invoiceDates instanceof InvoiceDates) {
+            return (InvoiceDates) invoiceDates;
+        }
+        long[] epochDays = new long[invoiceDates.size()];
+        int index = 0;
+        for (String invoiceDate : invoiceDates) {
+            epochDays[index++] = DateCodec.parseEpochDay(invoiceDate);
+        }
+        Arrays.sort(epochDays);
+        return new ExplicitInvoiceDates(epochDays);
+    }
+
+    public boolean containsEpochDay(long epochDay) {
+        int index = this.indexOfFirstOnOrAfter(epochDay);
+        return index < this.size() && this.epochDayAt(index) == epochDay;
+    }
+
+    public OptionalLong nextEpochDayAfter(long epochDay) {
+        int index = this.indexOfFirstOnOrAfter(epochDay + 1);
+        return index < this.size() ? OptionalLong.of(this.epochDayAt(index)) : OptionalLong.empty();
+    }
+
+    public InvoiceDates slice(int offset, int limit) {
+        if (offset < 0 || limit < 0) {
+            throw new IllegalArgumentException("offset and limit cannot be negative.");
+        }
+        int from = Math.min(offset, this.size());
+        int length = (int) Math.min((long) limit, this.size() - from);
+        return new SlicedInvoiceDates(this, from, length);
+    }
+
+    public PrimitiveIterator.OfLong epochDayIterator() {
+        return new PrimitiveIterator.OfLong() {
+            private final int size = size();
+
+            private int index = 0;
+
+            @Override
+            public boolean hasNext() {
+                return this.index < this.size;
+            }
+
+            @Override
+            public long nextLong() {
+                if (!this.hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                return epochDayAt(this.index++);
+            }
+        };
+    }
+
+    public Spliterator.OfLong epochDaySpliterator() {
+        return Spliterators.spliterator(
+                this.epochDayIterator(),
+                this.size(),
+                Spliterator.ORDERED | Spliterator.DISTINCT | Spliterator.SORTED |
+                Spliterator.NONNULL | Spliterator.IMMUTABLE
+        );
+    }
+
+    public LongStream epochDays() {
+        return StreamSupport.longStream(this.epochDaySpliterator(), false);
+    }
+
+    @Override
+    public boolean contains(Object object) {
+        if (!(object instanceof String)) {
+            return false;
+        }
+        try {
+            return this.containsEpochDay(DateCodec.parseEpochDay((String) object));
+        } catch (DateTimeException dateTimeException) {
+            return false;
+        }
+    }
+
+    @Override
+    public Iterator<String> iterator() {
+        PrimitiveIterator.OfLong epochDays = this.epochDayIterator();
+        return new Iterator<>() {
+            @Override
+            public boolean hasNext() {
+                return epochDays.hasNext();
+            }
+
+            @Override
+            public String next() {
+                return DateCodec.format(epochDays.nextLong());
+            }
+        };
+    }
+
+    private static final class SlicedInvoiceDates extends InvoiceDates {
+
+        private final InvoiceDates invoiceDates;
+
+        private final int offset;
+
+        private final int size;
+
+        private SlicedInvoiceDates(InvoiceDates invoiceDates, int offset, int size) {
+            this.invoiceDates = invoiceDates;
+            this.offset = offset;
+            this.size = size;
+        }
+
+        @Override
+        public int size() {
+            return this.size;
+        }
+
+        @Override
+        public long epochDayAt(int index) {
+            if (index < 0 || index >= this.size) {
+                throw new IndexOutOfBoundsException(index);
+            }
+            return this.invoiceDates.epochDayAt(this.offset + index);
+        }
+
+        @Override
+        public int indexOfFirstOnOrAfter(long epochDay) {
+            int index = this.invoiceDates.indexOfFirstOnOrAfter(epochDay) - this.offset;
+            return Math.max(0, Math.min(index, this.size));
+        }
+    }
+
+    private static final class ExplicitInvoiceDates extends InvoiceDates {
+
+        private final long[] epochDays;
+
+        private ExplicitInvoiceDates(long[] epochDays) {
+            this.epochDays = epochDays;
+        }
+
+        @Override
+        public int size() {
+            return this.epochDays.length;
+        }
+
+        @Override
+        public long epochDayAt(int index) {
+            return this.epochDays[index];
+        }
+
+        @Override
+        public int indexOfFirstOnOrAfter(long epochDay) {
+            int index = Arrays.binarySearch(this.epochDays, epochDay);
+            return index >= 0 ? index : -index - 1;
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package com.pay.subscription.util;
+
+import java.time.LocalDate;
+
+// One invoice every monthStep months, on a day of the month clamped to its last day,
+// or on the last business day of the month.
+public final class MonthlyInvoiceDates extends InvoiceDates {
+
+    private final long firstMonth;
+
+    private final int day;
+
+    private final int monthStep;
+
+    private final boolean lastBusinessDay;
+
+    private final int size;
+
+    public MonthlyInvoiceDates(LocalDate startDate, LocalDate endDate, int day) {
+        this(startDate.toEpochDay(), endDate.toEpochDay(), day);
+    }
+
+    public MonthlyInvoiceDates(long startEpochDay, long endEpochDay, int day) {
+        this(startEpochDay, endEpochDay, day, 1, false);
+    }
+
+    public MonthlyInvoiceDates(long startEpochDay, long endEpochDay, int day, int monthStep, boolean lastBusinessDay) {
+        if (monthStep < 1) {
+            throw new IllegalArgumentException("monthStep must be at least 1 month.");
+        }
+        this.day = day;
+        this.monthStep = monthStep;
+        this.lastBusinessDay = lastBusinessDay;
+        long startMonth = DateUtil.prolepticMonth(startEpochDay);
+        this.firstMonth = this.epochDayOf(startMonth) < startEpochDay
+                ? startMonth + 1
+                : startMonth;
+        long endMonth = DateUtil.prolepticMonth(endEpochDay);
+        long lastMonth = this.epochDayOf(endMonth) > endEpochDay
+                ? endMonth - 1
+                : endMonth;
+        this.size = lastMonth < this.firstMonth ? 0 : (int) ((lastMonth - this.firstMonth) / monthStep + 1);
+    }
+
+    public int getDay() {
+        return this.day;
+    }
+
+    public int getMonthStep() {
+        return this.monthStep;
+    }
+
+    public boolean isLastBusinessDay() {
+        return this.lastBusinessDay;
+    }
+
+    @Override
+    public int size() {
+        return this.size;
+    }
+
+    @Override
+    public long epochDayAt(int index) {
+        if (index < 0 || index >= this.size) {
+            throw new IndexOutOfBoundsException(index);
+        }
+        return this.epochDayOf(this.firstMonth + (long) index * this.monthStep);
+    }
+
+    @Override
+    public int indexOfFirstOnOrAfter(long epochDay) {
+        long month = DateUtil.prolepticMonth(epochDay);
+        if (this.epochDayOf(month) < epochDay) {
+            month++;
+        }
+        long months = Math.max(0, month - this.firstMonth);
+        return (int) Math.min((months + this.monthStep - 1) / this.monthStep, this.size);
+    }
+
+    private long epochDayOf(long prolepticMonth) {
+        return this.lastBusinessDay
+                ? DateUtil.lastBusinessDayOfMonth(prolepticMonth)
+                : DateUtil.epochDayOfMonthDay(prolepticMonth, this.day);
+    }
+}
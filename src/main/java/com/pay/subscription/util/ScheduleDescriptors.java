@@ -0,0 +1,98 @@
+package com.pay.subscription.util;
+
+import com.pay.subscription.response.ScheduleDescriptor;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.time.format.ResolverStyle;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.PrimitiveIterator;
+
+public final class ScheduleDescriptors {
+
+    private static final DateTimeFormatter FORMATTER = DateTimeFormatter.ofPattern("dd/MM/uuuu")
+            .withResolverStyle(ResolverStyle.STRICT);
+
+    private ScheduleDescriptors() {}
+
+    // Stepped and clamped monthly dates become a rule, any other dates are listed.
+    public static ScheduleDescriptor describe(InvoiceDates invoiceDates) {
+        int count = invoiceDates.size();
+        if (count == 0) {
+            return new ScheduleDescriptor(null, null, 0, null, null, null, null, Collections.emptyList());
+        }
+        String firstDate = DateCodec.format(invoiceDates.epochDayAt(0));
+        String lastDate = DateCodec.format(invoiceDates.epochDayAt(count - 1));
+        if (invoiceDates instanceof SteppedInvoiceDates) {
+            int stepDays = Math.toIntExact(((SteppedInvoiceDates) invoiceDates).getStep());
+            return new ScheduleDescriptor(firstDate, lastDate, count, stepDays, null, null, null, null);
+        }
+        if (invoiceDates instanceof MonthlyInvoiceDates && !((MonthlyInvoiceDates) invoiceDates).isLastBusinessDay()) {
+            MonthlyInvoiceDates monthlyInvoiceDates = (MonthlyInvoiceDates) invoiceDates;
+            int day = monthlyInvoiceDates.getDay();
+            List<String> exceptions = new ArrayList<>();
+            if (day > 28) {
+                PrimitiveIterator.OfLong epochDays = invoiceDates.epochDayIterator();
+                while (epochDays.hasNext()) {
+                    long epochDay = epochDays.nextLong();
+                    if (LocalDate.ofEpochDay(epochDay).getDayOfMonth() < day) {
+                        exceptions.add(DateCodec.format(epochDay));
+                    }
+                }
+            }
+            return new ScheduleDescriptor(firstDate, lastDate, count, null, monthlyInvoiceDates.getMonthStep(), day, exceptions, null);
+        }
+        return new ScheduleDescriptor(firstDate, lastDate, count, null, null, null, null, new ArrayList<>(invoiceDates));
+    }
+
+    // Expands a descriptor into its dd/MM/yyyy dates in order. Only needs java.time, so a
+    // client can take it without the rest of this service. Throws IllegalArgumentException
+    // when the descriptor does not add up.
+    public static List<String> expand(ScheduleDescriptor descriptor) {
+        if (descriptor.getDates() != null) {
+            return descriptor.getDates();
+        }
+        int count = descriptor.getCount();
+        List<String> dates = new ArrayList<>(count);
+        if (count == 0) {
+            return dates;
+        }
+        LocalDate firstDate = LocalDate.parse(descriptor.getFirstDate(), FORMATTER);
+        LocalDate date = firstDate;
+        if (descriptor.getStepDays() != null) {
+            for (int index = 0; index < count; index++) {
+                date = firstDate.plusDays((long) index * descriptor.getStepDays());
+                dates.add(date.format(FORMATTER));
+            }
+        } else if (descriptor.getStepMonths() != null && descriptor.getDayOfMonth() != null) {
+            List<String> exceptions = descriptor.getExceptions() == null ? Collections.emptyList() : descriptor.getExceptions();
+            Iterator<String> nextException = exceptions.iterator();
+            YearMonth firstMonth = YearMonth.from(firstDate);
+            for (int index = 0; index < count; index++) {
+                YearMonth month = firstMonth.plusMonths((long) index * descriptor.getStepMonths());
+                if (descriptor.getDayOfMonth() <= month.lengthOfMonth()) {
+                    date = month.atDay(descriptor.getDayOfMonth());
+                } else {
+                    if (!nextException.hasNext()) {
+                        throw new IllegalArgumentException("There is no exception for " + month + ".");
+                    }
+                    date = LocalDate.parse(nextException.next(), FORMATTER);
+                    if (!YearMonth.from(date).equals(month)) {
+                        throw new IllegalArgumentException("The exception " + date.format(FORMATTER) + " is not in " + month + ".");
+                    }
+                }
+                dates.add(date.format(FORMATTER));
+            }
+        } else {
+            throw new IllegalArgumentException("A schedule needs stepDays, stepMonths with dayOfMonth, or dates.");
+        }
+        if (!date.format(FORMATTER).equals(descriptor.getLastDate())) {
+            throw new IllegalArgumentException("The schedule ends on " + date.format(FORMATTER) + ", not " + descriptor.getLastDate() + ".");
+        }
+        return dates;
+    }
+}
@@ -0,0 +1,49 @@
+package com.pay.subscription.util;
+
+public final class SteppedInvoiceDates extends InvoiceDates {
+
+    private final long firstEpochDay;
+
+    private final long step;
+
+    private final int size;
+
+    public SteppedInvoiceDates(long firstEpochDay, long lastEpochDay, long step) {
+        if (step < 1) {
+            throw new IllegalArgumentException("step must be at least 1 day.");
+        }
+        this.firstEpochDay = firstEpochDay;
+        this.step = step;
+        this.size = firstEpochDay > lastEpochDay ? 0 : Math.toIntExact((lastEpochDay - firstEpochDay) / step + 1);
+    }
+
+    public long getFirstEpochDay() {
+        return this.firstEpochDay;
+    }
+
+    public long getStep() {
+        return this.step;
+    }
+
+    @Override
+    public int size() {
+        return this.size;
+    }
+
+    @Override
+    public long epochDayAt(int index) {
+        if (index < 0 || index >= this.size) {
+            throw new IndexOutOfBoundsException(index);
+        }
+        return this.firstEpochDay + index * this.step;
+    }
+
+    @Override
+    public int indexOfFirstOnOrAfter(long epochDay) {
+        if (epochDay <= this.firstEpochDay) {
+            return 0;
+        }
+        long index = (epochDay - this.firstEpochDay + this.step - 1) / this.step;
+        return (int) Math.min(index, this.size);
+    }
+}
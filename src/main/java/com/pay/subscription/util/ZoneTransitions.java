@@ -0,0 +1,137 @@
+package com.pay.subscription.util;
+
+import java.time.DateTimeException;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.zone.ZoneOffsetTransition;
+import java.time.zone.ZoneRules;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Offset changes of a zone up to END_EPOCH_SECOND, computed once per zone so that
+// resolving local invoice times does not go through ZoneRules for every date.
+//
+// Local times resolve like ZonedDateTime.of does: a time in a gap is moved forward by
+// the length of the gap, and a time in an overlap takes the earlier offset. Either way
+// the instant is the local time minus the offset in force before the transition, so a
+// transition is kept as the local second from which the offset after it applies.
+public final class ZoneTransitions {
+
+    public static final ZoneTransitions UTC = new ZoneTransitions(ZoneOffset.UTC);
+
+    // 1 January 2100, later local times are resolved by ZoneRules.
+    static final long END_EPOCH_SECOND = 4102444800L;
+
+    // By zone ID as requested, so repeated requests skip parsing it.
+    private static final Map<String, ZoneTransitions> CACHE = new ConcurrentHashMap<>();
+
+    private static final Set<String> REGION_IDS = ZoneId.getAvailableZoneIds();
+
+    private final ZoneId zone;
+
+    private final ZoneRules rules;
+
+    // Local second from which offsetSeconds[index + 1] applies.
+    private final long[] localBoundaries;
+
+    // Local second where a gap starts, equal to the boundary for an overlap.
+    private final long[] gapStarts;
+
+    private final int[] offsetSeconds;
+
+    private final long endLocalSecond;
+
+    private ZoneTransitions(ZoneId zone) {
+        this.zone = zone;
+        this.rules = zone.getRules();
+        List<ZoneOffsetTransition> transitions = new ArrayList<>();
+        ZoneOffsetTransition transition = this.rules.nextTransition(Instant.MIN);
+        while (transition != null && transition.toEpochSecond() < END_EPOCH_SECOND) {
+            transitions.add(transition);
+            transition = this.rules.nextTransition(transition.getInstant());
+        }
+        this.localBoundaries = new long[transitions.size()];
+        this.gapStarts = new long[transitions.size()];
+        this.offsetSeconds = new int[transitions.size() + 1];
+        this.offsetSeconds[0] = transitions.isEmpty()
+                ? this.rules.getOffset(Instant.EPOCH).getTotalSeconds()
+                : transitions.get(0).getOffsetBefore().getTotalSeconds();
+        for (int index = 0; index < transitions.size(); index++) {
+            ZoneOffsetTransition offsetTransition = transitions.get(index);
+            long localBefore = offsetTransition.toEpochSecond() + offsetTransition.getOffsetBefore().getTotalSeconds();
+            long localAfter = offsetTransition.toEpochSecond() + offsetTransition.getOffsetAfter().getTotalSeconds();
+            this.localBoundaries[index] = Math.max(localBefore, localAfter);
+            this.gapStarts[index] = localBefore;
+            this.offsetSeconds[index + 1] = offsetTransition.getOffsetAfter().getTotalSeconds();
+        }
+        this.endLocalSecond = END_EPOCH_SECOND + this.offsetSeconds[transitions.size()];
+    }
+
+    // Throws DateTimeException when the zone ID is malformed or unknown.
+    public static ZoneTransitions of(String zoneId) {
+        return CACHE.computeIfAbsent(zoneId, id -> new ZoneTransitions(ZoneId.of(id)));
+    }
+
+    // Like of, but returns null for a zone ID that is not valid. Region IDs are checked
+    // against the known regions, only offset-style IDs are left to ZoneId.of to reject.
+    public static ZoneTransitions find(String zoneId) {
+        ZoneTransitions zoneTransitions = CACHE.get(zoneId);
+        if (zoneTransitions != null) {
+            return zoneTransitions;
+        }
+        if (!REGION_IDS.contains(zoneId) && !isOffsetId(zoneId)) {
+            return null;
+        }
+        try {
+            return of(zoneId);
+        } catch (DateTimeException dateTimeException) {
+            return null;
+        }
+    }
+
+    public ZoneId getZone() {
+        return this.zone;
+    }
+
+    public int transitionCount() {
+        return this.localBoundaries.length;
+    }
+
+    // Index of the offset in force at the local second, for use as a cursor by resolve.
+    public int indexOf(long localSecond) {
+        int index = Arrays.binarySearch(this.localBoundaries, localSecond);
+        return index >= 0 ? index + 1 : -index - 1;
+    }
+
+    // Resolves the local second into the instant and the offset shown with it, starting
+    // from a cursor at or before its index. Returns the cursor for the next later local second.
+    public int resolve(long localSecond, int cursor, long[] epochSeconds, int[] offsets, int position) {
+        if (localSecond >= this.endLocalSecond) {
+            ZonedDateTime dateTime = ZonedDateTime.of(LocalDateTime.ofEpochSecond(localSecond, 0, ZoneOffset.UTC), this.zone);
+            epochSeconds[position] = dateTime.toEpochSecond();
+            offsets[position] = dateTime.getOffset().getTotalSeconds();
+            return cursor;
+        }
+        int index = cursor;
+        while (index < this.localBoundaries.length && this.localBoundaries[index] <= localSecond) {
+            index++;
+        }
+        int offset = this.offsetSeconds[index];
+        epochSeconds[position] = localSecond - offset;
+        boolean inGap = index < this.localBoundaries.length && localSecond >= this.gapStarts[index];
+        offsets[position] = inGap ? this.offsetSeconds[index + 1] : offset;
+        return index;
+    }
+
+    private static boolean isOffsetId(String zoneId) {
+        return zoneId.startsWith("+") || zoneId.startsWith("-") || zoneId.equals("Z")
+                || zoneId.startsWith("UTC") || zoneId.startsWith("GMT") || zoneId.startsWith("UT");
+    }
+}
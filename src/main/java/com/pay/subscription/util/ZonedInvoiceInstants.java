@@ -0,0 +1,121 @@
+package com.pay.subscription.util;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.AbstractList;
+import java.util.PrimitiveIterator;
+import java.util.RandomAccess;
+
+// Invoice dates at a local time of day in a zone, as ISO-8601 offset date-times. The
+// instants are resolved in one pass over the sorted dates, moving a cursor through the
+// zone's transitions, and only formatted when an element is read.
+public final class ZonedInvoiceInstants extends AbstractList<String> implements RandomAccess {
+
+    private static final int SECONDS_PER_DAY = 86400;
+
+    private final long[] epochSeconds;
+
+    private final int[] offsetSeconds;
+
+    public ZonedInvoiceInstants(InvoiceDates invoiceDates, ZoneTransitions zoneTransitions, LocalTime invoiceTime) {
+        int size = invoiceDates.size();
+        this.epochSeconds = new long[size];
+        this.offsetSeconds = new int[size];
+        if (size == 0) {
+            return;
+        }
+        long secondOfDay = invoiceTime.toSecondOfDay();
+        int cursor = zoneTransitions.indexOf(invoiceDates.epochDayAt(0) * SECONDS_PER_DAY + secondOfDay);
+        PrimitiveIterator.OfLong epochDays = invoiceDates.epochDayIterator();
+        for (int index = 0; index < size; index++) {
+            long localSecond = epochDays.nextLong() * SECONDS_PER_DAY + secondOfDay;
+            cursor = zoneTransitions.resolve(localSecond, cursor, this.epochSeconds, this.offsetSeconds, index);
+        }
+    }
+
+    // Parses HH:mm or HH:mm:ss, or returns null when the text is neither.
+    public static LocalTime parseInvoiceTime(CharSequence text) {
+        if (text == null || (text.length() != 5 && text.length() != 8) || text.charAt(2) != ':') {
+            return null;
+        }
+        int hour = digits(text, 0);
+        int minute = digits(text, 3);
+        int second = 0;
+        if (text.length() == 8) {
+            if (text.charAt(5) != ':') {
+                return null;
+            }
+            second = digits(text, 6);
+        }
+        if (hour < 0 || hour > 23 || minute < 0 || minute > 59 || second < 0 || second > 59) {
+            return null;
+        }
+        return LocalTime.of(hour, minute, second);
+    }
+
+    public long epochSecondAt(int index) {
+        return this.epochSeconds[index];
+    }
+
+    public int offsetSecondsAt(int index) {
+        return this.offsetSeconds[index];
+    }
+
+    @Override
+    public int size() {
+        return this.epochSeconds.length;
+    }
+
+    @Override
+    public String get(int index) {
+        int offset = this.offsetSeconds[index];
+        long localSecond = this.epochSeconds[index] + offset;
+        long localDay = Math.floorDiv(localSecond, SECONDS_PER_DAY);
+        LocalDate date = LocalDate.ofEpochDay(localDay);
+        if (date.getYear() < 1000 || date.getYear() > 9999 || offset % 60 != 0) {
+            return DateTimeFormatter.ISO_OFFSET_DATE_TIME.format(OffsetDateTime.of(
+                    date.atTime(LocalTime.ofSecondOfDay(localSecond - localDay * SECONDS_PER_DAY)),
+                    ZoneOffset.ofTotalSeconds(offset)
+            ));
+        }
+        int secondOfDay = (int) (localSecond - localDay * SECONDS_PER_DAY);
+        char[] buffer = new char[25];
+        writeDigits(buffer, 0, date.getYear(), 4);
+        buffer[4] = '-';
+        writeDigits(buffer, 5, date.getMonthValue(), 2);
+        buffer[7] = '-';
+        writeDigits(buffer, 8, date.getDayOfMonth(), 2);
+        buffer[10] = 'T';
+        writeDigits(buffer, 11, secondOfDay / 3600, 2);
+        buffer[13] = ':';
+        writeDigits(buffer, 14, secondOfDay / 60 % 60, 2);
+        buffer[16] = ':';
+        writeDigits(buffer, 17, secondOfDay % 60, 2);
+        if (offset == 0) {
+            buffer[19] = 'Z';
+            return new String(buffer, 0, 20);
+        }
+        int offsetMinutes = Math.abs(offset) / 60;
+        buffer[19] = offset < 0 ? '-' : '+';
+        writeDigits(buffer, 20, offsetMinutes / 60, 2);
+        buffer[22] = ':';
+        writeDigits(buffer, 23, offsetMinutes % 60, 2);
+        return new String(buffer);
+    }
+
+    private static int digits(CharSequence text, int from) {
+        int tens = text.charAt(from) - '0';
+        int units = text.charAt(from + 1) - '0';
+        return tens < 0 || tens > 9 || units < 0 || units > 9 ? -1 : tens * 10 + units;
+    }
+
+    private static void writeDigits(char[] buffer, int offset, int value, int digits) {
+        for (int index = offset + digits - 1; index >= offset; index--) {
+            buffer[index] = (char) ('0' + value % 10);
+            value /= 10;
+        }
+    }
+}
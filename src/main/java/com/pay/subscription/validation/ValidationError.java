@@ -0,0 +1,15 @@
+package com.pay.subscription.validation;
+
+import com.pay.subscription.enums.ErrorCode;
+import lombok.*;
+
+@Getter
+@ToString
+@EqualsAndHashCode
+@AllArgsConstructor
+public class ValidationError {
+    private final ErrorCode code;
+    // Path of the request field, e.g. startDate or recurrence.interval.
+    private final String field;
+    private final String message;
+}
@@ -0,0 +1,57 @@
+package com.pay.subscription.validation;
+
+import com.pay.subscription.exception.SubscriptionValidationException;
+import lombok.Getter;
+import lombok.ToString;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Function;
+
+// Either a value or every error found in a request, so rejecting one does not cost an exception.
+@Getter
+@ToString
+public final class ValidationResult<T> {
+
+    private final T value;
+
+    private final List<ValidationError> errors;
+
+    private ValidationResult(T value, List<ValidationError> errors) {
+        this.value = value;
+        this.errors = errors;
+    }
+
+    public static <T> ValidationResult<T> valid(T value) {
+        return new ValidationResult<>(value, Collections.emptyList());
+    }
+
+    public static <T> ValidationResult<T> invalid(List<ValidationError> errors) {
+        if (errors.isEmpty()) {
+            throw new IllegalArgumentException("An invalid result needs at least one error.");
+        }
+        return new ValidationResult<>(null, Collections.unmodifiableList(errors));
+    }
+
+    public boolean isValid() {
+        return this.errors.isEmpty();
+    }
+
+    public ValidationError getFirstError() {
+        return this.errors.isEmpty() ? null : this.errors.get(0);
+    }
+
+    @SuppressWarnings("unchecked")
+    public <U> ValidationResult<U> map(Function<T, U> function) {
+        return this.isValid() ? valid(function.apply(this.value)) : (ValidationResult<U>) this;
+    }
+
+    // For callers that report errors as exceptions, throws the first error.
+    public T orElseThrow() {
+        if (!this.isValid()) {
+            ValidationError error = this.errors.get(0);
+            throw new SubscriptionValidationException(error.getCode(), error.getMessage());
+        }
+        return this.value;
+    }
+}
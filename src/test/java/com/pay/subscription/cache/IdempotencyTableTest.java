@@ -0,0 +1,114 @@
+package com.pay.subscription.cache;
+
+import com.pay.subscription.exception.IdempotencyKeyReusedException;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class IdempotencyTableTest {
+
+    @Test
+    void itShouldShareTheFirstExecutionWithDuplicatesInFlight() throws Exception {
+        IdempotencyTable<Integer> table = new IdempotencyTable<>(10, Duration.ofMinutes(1));
+        AtomicInteger executions = new AtomicInteger();
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            Future<Integer> first = executor.submit(() -> table.execute("key", "request", () -> {
+                started.countDown();
+                await(release);
+                return executions.incrementAndGet();
+            }));
+            assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+            List<Future<Integer>> duplicates = new ArrayList<>();
+            for (int index = 0; index < 7; index++) {
+                duplicates.add(executor.submit(() -> table.execute("key", "request", executions::incrementAndGet)));
+            }
+            while (table.getCollapsed() < duplicates.size()) {
+                Thread.onSpinWait();
+            }
+            release.countDown();
+            assertThat(first.get(5, TimeUnit.SECONDS)).isEqualTo(1);
+            for (Future<Integer> duplicate : duplicates) {
+                assertThat(duplicate.get(5, TimeUnit.SECONDS)).isEqualTo(1);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        assertThat(executions.get()).isEqualTo(1);
+        assertThat(table.getExecutions()).isEqualTo(1);
+        assertThat(table.getCollapsed()).isEqualTo(7);
+        assertThat(table.execute("key", "request", executions::incrementAndGet)).isEqualTo(1);
+        assertThat(table.getReplayed()).isEqualTo(1);
+    }
+
+    @Test
+    void itShouldRejectAKeyReusedForADifferentRequest() {
+        IdempotencyTable<String> table = new IdempotencyTable<>(10, Duration.ofMinutes(1));
+        table.execute("key", "request", () -> "first");
+        assertThatThrownBy(() -> table.execute("key", "other request", () -> "second"))
+                .isInstanceOf(IdempotencyKeyReusedException.class)
+                .hasMessage("Idempotency-Key key was already used for a different request.");
+        assertThat(table.execute("other key", "other request", () -> "second")).isEqualTo("second");
+    }
+
+    @Test
+    void itShouldForgetExecutionsThatThrow() {
+        IdempotencyTable<String> table = new IdempotencyTable<>(10, Duration.ofMinutes(1));
+        assertThatThrownBy(() -> table.execute("key", "request", () -> {
+            throw new IllegalStateException("journal is closed");
+        })).isInstanceOf(IllegalStateException.class);
+        assertThat(table.size()).isZero();
+        assertThat(table.execute("key", "request", () -> "retried")).isEqualTo("retried");
+        assertThat(table.getExecutions()).isEqualTo(2);
+    }
+
+    @Test
+    void itShouldExpireKeysAfterTtl() {
+        AtomicLong now = new AtomicLong();
+        IdempotencyTable<Integer> table = new IdempotencyTable<>(10, Duration.ofSeconds(5), now::get);
+        AtomicInteger executions = new AtomicInteger();
+        table.execute("key", "request", executions::incrementAndGet);
+        now.addAndGet(Duration.ofSeconds(4).toNanos());
+        assertThat(table.execute("key", "request", executions::incrementAndGet)).isEqualTo(1);
+        now.addAndGet(Duration.ofSeconds(1).toNanos());
+        assertThat(table.execute("key", "request", executions::incrementAndGet)).isEqualTo(2);
+        assertThat(table.getEvictions()).isEqualTo(1);
+        assertThat(table.size()).isEqualTo(1);
+    }
+
+    @Test
+    void itShouldExecuteEveryRequestWhenDisabledOrWithoutAKey() {
+        IdempotencyTable<Integer> disabled = IdempotencyTable.disabled();
+        AtomicInteger executions = new AtomicInteger();
+        disabled.execute("key", "request", executions::incrementAndGet);
+        disabled.execute("key", "request", executions::incrementAndGet);
+        IdempotencyTable<Integer> table = new IdempotencyTable<>(10, Duration.ofMinutes(1));
+        table.execute(null, "request", executions::incrementAndGet);
+        table.execute(null, "request", executions::incrementAndGet);
+        assertThat(executions.get()).isEqualTo(4);
+        assertThat(disabled.isEnabled()).isFalse();
+        assertThat(table.size()).isZero();
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException interruptedException) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package com.pay.subscription.cache;
+
+import com.pay.subscription.enums.Day;
+import com.pay.subscription.enums.SubscriptionType;
+import com.pay.subscription.request.SubscriptionRequest;
+import com.pay.subscription.response.SubscriptionResponse;
+import com.pay.subscription.service.SubscriptionService;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ScheduleCacheTest {
+
+    private static ScheduleKey key(String startDate) {
+        return new ScheduleKey(SubscriptionType.DAILY, startDate, "31/01/2021", null, null, null, null, null);
+    }
+
+    @Test
+    void itShouldEvictLeastRecentlyUsedEntries() {
+        ScheduleCache cache = new ScheduleCache(1, Duration.ofMinutes(1));
+        cache.put(key("01/01/2021"), Collections.singleton("01/01/2021"));
+        cache.put(key("02/01/2021"), Collections.singleton("02/01/2021"));
+        assertThat(cache.size()).isEqualTo(1);
+        assertThat(cache.get(key("01/01/2021"))).isNull();
+        assertThat(cache.get(key("02/01/2021"))).containsExactly("02/01/2021");
+        assertThat(cache.getEvictions()).isEqualTo(1);
+        assertThat(cache.getHits()).isEqualTo(1);
+        assertThat(cache.getMisses()).isEqualTo(1);
+    }
+
+    @Test
+    void itShouldExpireEntriesAfterTtl() {
+        AtomicLong now = new AtomicLong();
+        ScheduleCache cache = new ScheduleCache(10, Duration.ofSeconds(5), now::get);
+        cache.put(key("01/01/2021"), Collections.singleton("01/01/2021"));
+        now.addAndGet(Duration.ofSeconds(4).toNanos());
+        assertThat(cache.get(key("01/01/2021"))).isNotNull();
+        now.addAndGet(Duration.ofSeconds(1).toNanos());
+        assertThat(cache.get(key("01/01/2021"))).isNull();
+        assertThat(cache.size()).isZero();
+        assertThat(cache.getEvictions()).isEqualTo(1);
+    }
+
+    @Test
+    void itShouldIgnoreInvoiceDaysThatDoNotBelongToTheType() {
+        SubscriptionRequest daily = new SubscriptionRequest(BigDecimal.ONE, SubscriptionType.DAILY, "01/01/2021", "02/01/2021", 5, Day.MONDAY);
+        SubscriptionRequest plainDaily = new SubscriptionRequest(BigDecimal.TEN, SubscriptionType.DAILY, "01/01/2021", "02/01/2021", null, null);
+        assertThat(ScheduleKey.of(daily)).isEqualTo(ScheduleKey.of(plainDaily));
+    }
+
+    @Test
+    void itShouldShareCachedSchedulesAcrossAmounts() {
+        ScheduleCache cache = new ScheduleCache(10, Duration.ofMinutes(1));
+        SubscriptionService subscriptionService = new SubscriptionService(cache);
+        SubscriptionResponse first = subscriptionService.subscribe(
+                new SubscriptionRequest(BigDecimal.ONE, SubscriptionType.WEEKLY, "01/01/2021", "31/01/2021", null, Day.MONDAY)
+        );
+        SubscriptionResponse second = subscriptionService.subscribe(
+                new SubscriptionRequest(BigDecimal.TEN, SubscriptionType.WEEKLY, "01/01/2021", "31/01/2021", null, Day.MONDAY)
+        );
+        Set<String> invoiceDates = second.getInvoiceDates();
+        assertThat(invoiceDates).isSameAs(first.getInvoiceDates());
+        assertThat(second.getAmountPerInvoice()).isEqualTo(BigDecimal.TEN);
+        assertThat(cache.getHits()).isEqualTo(1);
+        assertThat(cache.getMisses()).isEqualTo(1);
+        assertThatThrownBy(() -> invoiceDates.add("01/02/2021")).isInstanceOf(UnsupportedOperationException.class);
+        assertThatThrownBy(() -> subscriptionService.subscribe(
+                new SubscriptionRequest(null, SubscriptionType.WEEKLY, "01/01/2021", "31/01/2021", null, Day.MONDAY)
+        )).isInstanceOf(IllegalArgumentException.class).hasMessageContaining("Please input amount field.");
+    }
+}
@@ -0,0 +1,239 @@
+package com.pay.subscription.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import com.pay.subscription.enums.Day;
+import com.pay.subscription.enums.SubscriptionType;
+import com.pay.subscription.request.SubscriptionRequest;
+import com.pay.subscription.response.StoredSubscriptionResponse;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.reactive.AutoConfigureWebTestClient;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.CacheControl;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.Arrays;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = "spring.main.web-application-type=reactive")
+@AutoConfigureWebTestClient
+@ActiveProfiles("test")
+class ReactiveSubscriptionControllerTest {
+    @Autowired
+    private WebTestClient webTestClient;
+
+    @Test
+    void itShouldServeTheSameContractOnTheReactiveStack() {
+        SubscriptionRequest request = new SubscriptionRequest(
+                BigDecimal.TEN,
+                SubscriptionType.WEEKLY,
+                "01/01/2021",
+                "15/01/2021",
+                null,
+                Day.TUESDAY
+        );
+        this.webTestClient.post().uri("/api/v1/subscription")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(request)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.type").isEqualTo(SubscriptionType.WEEKLY.name())
+                .jsonPath("$.invoiceDates.length()").isEqualTo(2)
+                .jsonPath("$.invoiceDates[0]").isEqualTo("05/01/2021");
+        this.webTestClient.post().uri("/api/v1/subscription?offset=1&limit=5")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(request)
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().valueEquals("X-Total-Count", "2")
+                .expectBody()
+                .jsonPath("$.invoiceDates[0]").isEqualTo("12/01/2021");
+    }
+
+    @Test
+    void itShouldNegotiateBinaryFormats() throws Exception {
+        SubscriptionRequest request = new SubscriptionRequest(
+                BigDecimal.TEN,
+                SubscriptionType.DAILY,
+                "25/01/2021",
+                "27/01/2021",
+                null,
+                null
+        );
+        CBORMapper cborMapper = new CBORMapper();
+        byte[] body = this.webTestClient.post().uri("/api/v1/subscription")
+                .contentType(MediaType.APPLICATION_CBOR)
+                .accept(MediaType.APPLICATION_CBOR)
+                .bodyValue(cborMapper.writeValueAsBytes(request))
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentType(MediaType.APPLICATION_CBOR)
+                .expectBody(byte[].class).returnResult().getResponseBody();
+        JsonNode response = cborMapper.readTree(body);
+        assertThat(response.get("invoiceDates").get("start").asLong()).isEqualTo(LocalDate.of(2021, 1, 25).toEpochDay());
+        assertThat(response.get("invoiceDates").get("count").asInt()).isEqualTo(3);
+    }
+
+    @Test
+    void itShouldReturnBadRequestMessages() {
+        SubscriptionRequest request = new SubscriptionRequest(
+                BigDecimal.TEN,
+                SubscriptionType.DAILY,
+                "2021-01-25",
+                "27/01/2021",
+                null,
+                null
+        );
+        this.webTestClient.post().uri("/api/v1/subscription")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(request)
+                .exchange()
+                .expectStatus().isBadRequest()
+                .expectBody(String.class).isEqualTo("2021-01-25 does not have dd/MM/yyyy format.");
+        this.webTestClient.post().uri("/api/v1/subscription/batch")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue("[]")
+                .exchange()
+                .expectStatus().isBadRequest()
+                .expectBody(String.class).isEqualTo("Please input at least one subscription request.");
+    }
+
+    @Test
+    void itShouldKeepBatchOrderWithPerItemErrors() {
+        SubscriptionRequest daily = new SubscriptionRequest(
+                BigDecimal.TEN,
+                SubscriptionType.DAILY,
+                "25/01/2021",
+                "27/01/2021",
+                null,
+                null
+        );
+        SubscriptionRequest untyped = new SubscriptionRequest(
+                BigDecimal.TEN,
+                null,
+                "25/01/2021",
+                "27/01/2021",
+                null,
+                null
+        );
+        this.webTestClient.post().uri("/api/v1/subscription/batch")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(Arrays.asList(daily, untyped, daily, untyped, daily, untyped))
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.length()").isEqualTo(6)
+                .jsonPath("$[4].index").isEqualTo(4)
+                .jsonPath("$[4].response.invoiceDates.length()").isEqualTo(3)
+                .jsonPath("$[5].error").isEqualTo("Subscription type is mandatory - DAILY, WEEKLY or MONTHLY.");
+    }
+
+    @Test
+    void itShouldStreamNdjsonResponsesLineByLine() {
+        String daily = "{\"amount\":10,\"type\":\"DAILY\",\"startDate\":\"25/01/2021\",\"endDate\":\"27/01/2021\"}";
+        String content = this.webTestClient.post().uri("/api/v1/subscription/stream")
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .accept(MediaType.APPLICATION_NDJSON)
+                .bodyValue(daily + "\n\n{not json}\n" + daily + "\n")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(String.class)
+                .returnResult()
+                .getResponseBody();
+        String[] lines = content.split("\n");
+        assertThat(lines).hasSize(3);
+        assertThat(lines[0]).contains("\"index\":0", "\"25/01/2021\"", "\"27/01/2021\"");
+        assertThat(lines[1]).contains("\"index\":1", "Line 3 is not a valid subscription request.");
+        assertThat(lines[2]).contains("\"index\":2", "\"26/01/2021\"");
+    }
+
+    @Test
+    void itShouldReportNdjsonLinesLongerThanTheLimitAndKeepStreaming() {
+        String daily = "{\"amount\":10,\"type\":\"DAILY\",\"startDate\":\"25/01/2021\",\"endDate\":\"27/01/2021\"}";
+        String body = daily + "\r\n" + "x".repeat(65537) + "\n" + "é".repeat(65536) + "\n"
+                + "x".repeat(300_000) + "\n" + daily;
+        String content = this.webTestClient.post().uri("/api/v1/subscription/stream")
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .accept(MediaType.APPLICATION_NDJSON)
+                .bodyValue(body)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(String.class)
+                .returnResult()
+                .getResponseBody();
+        String[] lines = content.split("\n");
+        assertThat(lines).hasSize(5);
+        assertThat(lines[0]).contains("\"index\":0", "\"26/01/2021\"");
+        assertThat(lines[1]).contains("\"index\":1", "Line 2 is longer than 65536 characters.");
+        assertThat(lines[2]).contains("\"index\":2", "Line 3 is not a valid subscription request.");
+        assertThat(lines[3]).contains("\"index\":3", "Line 4 is longer than 65536 characters.");
+        assertThat(lines[4]).contains("\"index\":4", "\"26/01/2021\"");
+    }
+
+    @Test
+    void itShouldStoreSubscriptionsAndStreamTheInvoiceRun() {
+        SubscriptionRequest request = new SubscriptionRequest(
+                BigDecimal.ONE,
+                SubscriptionType.WEEKLY,
+                "01/01/2031",
+                "31/01/2031",
+                null,
+                Day.FRIDAY
+        );
+        Long id = this.webTestClient.post().uri("/api/v1/subscription")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(request)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(StoredSubscriptionResponse.class)
+                .returnResult()
+                .getResponseBody()
+                .getId();
+        String content = this.webTestClient.get().uri("/api/v1/subscription/invoice-run?date=10/01/2031")
+                .accept(MediaType.APPLICATION_NDJSON)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(String.class)
+                .returnResult()
+                .getResponseBody();
+        assertThat(content.split("\n")).anySatisfy(line -> assertThat(line)
+                .contains("\"subscriptionId\":" + id + ",", "\"invoiceDate\":\"10/01/2031\""));
+        String storedETag = this.webTestClient.get().uri("/api/v1/subscription/" + id)
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().cacheControl(CacheControl.maxAge(Duration.ofMinutes(1)).cachePrivate())
+                .returnResult(String.class)
+                .getResponseHeaders().getETag();
+        this.webTestClient.get().uri("/api/v1/subscription/" + id)
+                .ifNoneMatch(storedETag)
+                .exchange()
+                .expectStatus().isNotModified();
+        String lookupETag = this.webTestClient.post().uri("/api/v1/subscription?descriptor=true")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(request)
+                .exchange()
+                .expectStatus().isOk()
+                .returnResult(String.class)
+                .getResponseHeaders().getETag();
+        this.webTestClient.post().uri("/api/v1/subscription?descriptor=true")
+                .contentType(MediaType.APPLICATION_JSON)
+                .ifNoneMatch(lookupETag)
+                .bodyValue(request)
+                .exchange()
+                .expectStatus().isNotModified();
+        this.webTestClient.delete().uri("/api/v1/subscription/" + id)
+                .exchange()
+                .expectStatus().isNoContent();
+        this.webTestClient.get().uri("/api/v1/subscription/" + id)
+                .exchange()
+                .expectStatus().isNotFound();
+    }
+}
@@ -1,7 +1,10 @@
 package com.pay.subscription.controller;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import com.fasterxml.jackson.dataformat.smile.databind.SmileMapper;
 import com.pay.subscription.enums.Day;
 import com.pay.subscription.enums.SubscriptionType;
 import com.pay.subscription.request.SubscriptionRequest;
@@ -10,21 +13,34 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.http.MediaType;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.ResultActions;
 
 import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDate;
 import java.time.format.DateTimeParseException;
+import java.util.Arrays;
 import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Set;
+import java.util.UUID;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.hamcrest.Matchers.hasItem;
 import static org.hamcrest.Matchers.hasSize;
 import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @SpringBootTest
@@ -34,6 +50,9 @@ class SubscriptionControllerTest {
     @Autowired
     private MockMvc mockMvc;
 
+    @Autowired
+    private ThreadPoolTaskExecutor subscriptionAsyncExecutor;
+
     private String objectToJson(Object object) {
         try {
             return new ObjectMapper().writeValueAsString(object);
@@ -140,4 +159,339 @@ class SubscriptionControllerTest {
         String content = resultActions.andExpect(status().isBadRequest()).andReturn().getResponse().getContentAsString();
         assertThat(content).isEqualTo(request.getStartDate() + " does not have dd/MM/yyyy format.");
     }
-}
\ No newline at end of file
+
+    @Test
+    void itShouldReturnEveryErrorAsProblemDetails() throws Exception {
+        SubscriptionRequest request = new SubscriptionRequest(
+                null,
+                null,
+                "1/01/2021",
+                "01/03/2021",
+                null,
+                null
+        );
+        request.setZoneId("Europe/Nowhere");
+        this.mockMvc.perform(post("/api/v1/subscription")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .accept(MediaType.APPLICATION_JSON, MediaType.APPLICATION_PROBLEM_JSON)
+                        .content(this.objectToJson(request)))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.status").value(400))
+                .andExpect(jsonPath("$.errors", hasSize(4)))
+                .andExpect(jsonPath("$.errors[0].code").value("AMOUNT_REQUIRED"))
+                .andExpect(jsonPath("$.errors[0].field").value("amount"))
+                .andExpect(jsonPath("$.errors[1].code").value("INVALID_DATE_FORMAT"))
+                .andExpect(jsonPath("$.errors[1].field").value("startDate"))
+                .andExpect(jsonPath("$.errors[1].message").value("1/01/2021 does not have dd/MM/yyyy format."))
+                .andExpect(jsonPath("$.errors[2].code").value("TYPE_REQUIRED"))
+                .andExpect(jsonPath("$.errors[3].field").value("zoneId"));
+    }
+
+    @Test
+    void itShouldNegotiateBinaryFormats() throws Exception {
+        SubscriptionRequest request = new SubscriptionRequest(
+                BigDecimal.TEN,
+                SubscriptionType.WEEKLY,
+                "01/01/2021",
+                "22/01/2021",
+                null,
+                Day.TUESDAY
+        );
+        CBORMapper cborMapper = new CBORMapper();
+        MvcResult result = this.mockMvc.perform(post("/api/v1/subscription?countOnly=false&limit=10")
+                        .contentType(MediaType.APPLICATION_CBOR)
+                        .accept(MediaType.APPLICATION_CBOR)
+                        .content(cborMapper.writeValueAsBytes(request)))
+                .andExpect(status().isOk())
+                .andReturn();
+        assertThat(result.getResponse().getContentType()).isEqualTo(MediaType.APPLICATION_CBOR_VALUE);
+        JsonNode response = cborMapper.readTree(result.getResponse().getContentAsByteArray());
+        assertThat(response.get("type").asText()).isEqualTo("WEEKLY");
+        assertThat(response.get("invoiceDates")).hasSize(3);
+        assertThat(response.get("invoiceDates").get(0).asLong()).isEqualTo(LocalDate.of(2021, 1, 5).toEpochDay());
+
+        SmileMapper smileMapper = new SmileMapper();
+        result = this.mockMvc.perform(post("/api/v1/subscription")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .accept("application/x-jackson-smile")
+                        .content(this.objectToJson(request)))
+                .andExpect(status().isOk())
+                .andReturn();
+        response = smileMapper.readTree(result.getResponse().getContentAsByteArray());
+        assertThat(response.get("invoiceDates").get("start").asLong()).isEqualTo(LocalDate.of(2021, 1, 5).toEpochDay());
+        assertThat(response.get("invoiceDates").get("step").asInt()).isEqualTo(7);
+        assertThat(response.get("invoiceDates").get("count").asInt()).isEqualTo(3);
+    }
+
+    @Test
+    void itShouldSucceedForBatchWithPerItemErrors() throws Exception {
+        List<SubscriptionRequest> requests = Arrays.asList(
+                new SubscriptionRequest(
+                        BigDecimal.TEN,
+                        SubscriptionType.DAILY,
+                        "25/01/2021",
+                        "27/01/2021",
+                        null,
+                        null
+                ),
+                new SubscriptionRequest(
+                        BigDecimal.TEN,
+                        null,
+                        "01/01/2021",
+                        "01/03/2021",
+                        null,
+                        null
+                )
+        );
+        ResultActions resultActions = this.mockMvc.perform(post("/api/v1/subscription/batch")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(this.objectToJson(requests)));
+        resultActions.andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(2)))
+                .andExpect(jsonPath("$[0].index").value(0))
+                .andExpect(jsonPath("$[0].response.invoiceDates", hasSize(3)))
+                .andExpect(jsonPath("$[1].index").value(1))
+                .andExpect(jsonPath("$[1].error").value("Subscription type is mandatory - DAILY, WEEKLY or MONTHLY."));
+    }
+
+    @Test
+    void itShouldStreamNdjsonResponsesLineByLine() throws Exception {
+        SubscriptionRequest daily = new SubscriptionRequest(
+                BigDecimal.TEN,
+                SubscriptionType.DAILY,
+                "25/01/2021",
+                "27/01/2021",
+                null,
+                null
+        );
+        String body = this.objectToJson(daily) + "\n\n" + "{not json}\n" + this.objectToJson(daily) + "\r\n"
+                + "x".repeat(65537) + "\n" + this.objectToJson(daily);
+        String content = this.mockMvc.perform(post("/api/v1/subscription/stream")
+                        .contentType(MediaType.APPLICATION_NDJSON)
+                        .content(body))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        String[] lines = content.split("\n");
+        assertThat(lines).hasSize(5);
+        assertThat(lines[0]).contains("\"index\":0", "\"25/01/2021\"", "\"27/01/2021\"");
+        assertThat(lines[1]).contains("\"index\":1", "Line 3 is not a valid subscription request.");
+        assertThat(lines[2]).contains("\"index\":2", "\"26/01/2021\"");
+        assertThat(lines[3]).contains("\"index\":3", "Line 5 is longer than 65536 characters.");
+        assertThat(lines[4]).contains("\"index\":4", "\"26/01/2021\"");
+    }
+
+    @Test
+    void itShouldAnswerScheduleQueries() throws Exception {
+        SubscriptionRequest request = new SubscriptionRequest(
+                BigDecimal.TEN,
+                SubscriptionType.DAILY,
+                "01/01/2021",
+                "31/03/2021",
+                null,
+                null
+        );
+        this.mockMvc.perform(post("/api/v1/subscription?countOnly=true")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(this.objectToJson(request)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.invoiceCount").value(90));
+        this.mockMvc.perform(post("/api/v1/subscription?nextInvoiceAfter=14/02/2021")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(this.objectToJson(request)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.nextInvoiceDate").value("15/02/2021"));
+        this.mockMvc.perform(post("/api/v1/subscription?offset=31&limit=2")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(this.objectToJson(request)))
+                .andExpect(status().isOk())
+                .andExpect(header().string("X-Total-Count", "90"))
+                .andExpect(jsonPath("$.invoiceDates", hasSize(2)))
+                .andExpect(jsonPath("$.invoiceDates[0]").value("01/02/2021"))
+                .andExpect(jsonPath("$.invoiceDates[1]").value("02/02/2021"));
+        this.mockMvc.perform(post("/api/v1/subscription?descriptor=true")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(this.objectToJson(request)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.invoiceDates").doesNotExist())
+                .andExpect(jsonPath("$.schedule.firstDate").value("01/01/2021"))
+                .andExpect(jsonPath("$.schedule.lastDate").value("31/03/2021"))
+                .andExpect(jsonPath("$.schedule.count").value(90))
+                .andExpect(jsonPath("$.schedule.stepDays").value(1))
+                .andExpect(jsonPath("$.schedule.dates").doesNotExist());
+    }
+
+    @Test
+    void itShouldAnswerRepeatLookupsAndStoredGetsWithNotModified() throws Exception {
+        SubscriptionRequest request = new SubscriptionRequest(
+                BigDecimal.TEN,
+                SubscriptionType.DAILY,
+                "01/01/2021",
+                "31/03/2021",
+                null,
+                null
+        );
+        String eTag = this.mockMvc.perform(post("/api/v1/subscription?countOnly=true")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(this.objectToJson(request)))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Vary", "Accept"))
+                .andReturn().getResponse().getHeader("ETag");
+        assertThat(eTag).startsWith("W/\"");
+        request.setMonthlyInvoiceDay(15);
+        this.mockMvc.perform(post("/api/v1/subscription?countOnly=true")
+                        .header("If-None-Match", eTag)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(this.objectToJson(request)))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string("ETag", eTag));
+        request.setEndDate("30/03/2021");
+        this.mockMvc.perform(post("/api/v1/subscription?countOnly=true")
+                        .header("If-None-Match", eTag)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(this.objectToJson(request)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.invoiceCount").value(89));
+        this.mockMvc.perform(post("/api/v1/subscription?descriptor=true")
+                        .header("If-None-Match", eTag)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(this.objectToJson(request)))
+                .andExpect(status().isOk());
+
+        String created = this.mockMvc.perform(post("/api/v1/subscription")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(this.objectToJson(request)))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist("ETag"))
+                .andReturn().getResponse().getContentAsString();
+        long id = new ObjectMapper().readTree(created).get("id").asLong();
+        String storedETag = this.mockMvc.perform(get("/api/v1/subscription/" + id))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Cache-Control", "max-age=60, private"))
+                .andReturn().getResponse().getHeader("ETag");
+        this.mockMvc.perform(get("/api/v1/subscription/" + id).header("If-None-Match", storedETag))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string("Cache-Control", "max-age=60, private"));
+        this.mockMvc.perform(delete("/api/v1/subscription/" + id))
+                .andExpect(status().isNoContent());
+        this.mockMvc.perform(get("/api/v1/subscription/" + id).header("If-None-Match", storedETag))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void itShouldStoreSubscriptionsAndIndexTheirInvoices() throws Exception {
+        SubscriptionRequest request = new SubscriptionRequest(
+                BigDecimal.TEN,
+                SubscriptionType.MONTHLY,
+                "01/01/2021",
+                "31/03/2021",
+                20,
+                null
+        );
+        String created = this.mockMvc.perform(post("/api/v1/subscription")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(this.objectToJson(request)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.id").isNumber())
+                .andExpect(jsonPath("$.invoiceDates", hasSize(3)))
+                .andReturn().getResponse().getContentAsString();
+        long id = new ObjectMapper().readTree(created).get("id").asLong();
+
+        this.mockMvc.perform(get("/api/v1/subscription/" + id))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.id").value(id))
+                .andExpect(jsonPath("$.type").value(SubscriptionType.MONTHLY.name()))
+                .andExpect(jsonPath("$.invoiceDates[1]").value("20/02/2021"));
+        this.mockMvc.perform(get("/api/v1/subscription/invoices?date=20/02/2021"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[?(@.subscriptionId == " + id + ")].invoiceDate").value("20/02/2021"));
+        this.mockMvc.perform(get("/api/v1/subscription/invoices?from=01/01/2021&to=28/02/2021"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[?(@.subscriptionId == " + id + ")]", hasSize(2)));
+        this.mockMvc.perform(get("/api/v1/subscription/invoices?from=01/03/2021&to=28/02/2021"))
+                .andExpect(status().isBadRequest());
+
+        this.mockMvc.perform(delete("/api/v1/subscription/" + id))
+                .andExpect(status().isNoContent());
+        this.mockMvc.perform(get("/api/v1/subscription/" + id))
+                .andExpect(status().isNotFound());
+        this.mockMvc.perform(delete("/api/v1/subscription/" + id))
+                .andExpect(status().isNotFound());
+        this.mockMvc.perform(get("/api/v1/subscription/invoices?date=20/02/2021"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[?(@.subscriptionId == " + id + ")]", hasSize(0)));
+    }
+
+    @Test
+    void itShouldAnswerRetriesWithTheSameIdempotencyKeyWithTheFirstSubscription() throws Exception {
+        SubscriptionRequest request = new SubscriptionRequest(
+                BigDecimal.TEN,
+                SubscriptionType.WEEKLY,
+                "01/01/2021",
+                "31/01/2021",
+                null,
+                Day.FRIDAY
+        );
+        String idempotencyKey = UUID.randomUUID().toString();
+        String created = this.mockMvc.perform(post("/api/v1/subscription")
+                        .header("Idempotency-Key", idempotencyKey)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(this.objectToJson(request)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.id").isNumber())
+                .andReturn().getResponse().getContentAsString();
+        long id = new ObjectMapper().readTree(created).get("id").asLong();
+
+        this.mockMvc.perform(post("/api/v1/subscription")
+                        .header("Idempotency-Key", idempotencyKey)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(this.objectToJson(request)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.id").value(id));
+        request.setAmount(BigDecimal.ONE);
+        this.mockMvc.perform(post("/api/v1/subscription")
+                        .header("Idempotency-Key", idempotencyKey)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(this.objectToJson(request)))
+                .andExpect(status().isUnprocessableEntity())
+                .andExpect(content().string("Idempotency-Key " + idempotencyKey + " was already used for a different request."));
+        String withoutKey = this.mockMvc.perform(post("/api/v1/subscription")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(this.objectToJson(request)))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        assertNotEquals(id, new ObjectMapper().readTree(withoutKey).get("id").asLong());
+    }
+
+    @Test
+    void itShouldStreamTheInvoiceRunForADate() throws Exception {
+        SubscriptionRequest request = new SubscriptionRequest(
+                BigDecimal.ONE,
+                SubscriptionType.MONTHLY,
+                "01/01/2030",
+                "31/03/2030",
+                31,
+                null
+        );
+        String created = this.mockMvc.perform(post("/api/v1/subscription")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(this.objectToJson(request)))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        long id = new ObjectMapper().readTree(created).get("id").asLong();
+
+        long tasks = this.subscriptionAsyncExecutor.getThreadPoolExecutor().getTaskCount();
+        MvcResult result = this.mockMvc.perform(get("/api/v1/subscription/invoice-run?date=28/02/2030"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        assertThat(this.subscriptionAsyncExecutor.getThreadPoolExecutor().getTaskCount()).isGreaterThan(tasks);
+        assertEquals(Duration.ofMinutes(10).toMillis(), result.getRequest().getAsyncContext().getTimeout());
+        String content = this.mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        assertThat(content.split("\n")).anySatisfy(line -> assertThat(line)
+                .contains("\"subscriptionId\":" + id + ",", "\"invoiceDate\":\"28/02/2030\""));
+
+        this.mockMvc.perform(get("/api/v1/subscription/invoice-run?date=2030-02-28"))
+                .andExpect(status().isBadRequest());
+    }
+}
@@ -0,0 +1,70 @@
+package com.pay.subscription.metrics;
+
+import com.pay.subscription.cache.ScheduleCache;
+import com.pay.subscription.enums.ErrorCode;
+import com.pay.subscription.enums.SubscriptionType;
+import com.pay.subscription.request.SubscriptionRequest;
+import com.pay.subscription.service.SubscriptionService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class SubscriptionMetricsTest {
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private SubscriptionService subscriptionService;
+
+    @BeforeEach
+    void setUp() {
+        this.meterRegistry = new SimpleMeterRegistry();
+        this.subscriptionService = new SubscriptionService(
+                ScheduleCache.disabled(),
+                new SubscriptionMetrics(this.meterRegistry)
+        );
+    }
+
+    @Test
+    void itShouldRecordValidationGenerationAndInvoiceCountPerType() {
+        this.subscriptionService.subscribe(
+                new SubscriptionRequest(BigDecimal.TEN, SubscriptionType.DAILY, "01/01/2021", "31/01/2021", null, null)
+        );
+        assertThat(this.meterRegistry.get("subscription.requests").tag("type", "DAILY").timer().count()).isEqualTo(1);
+        assertThat(this.meterRegistry.get("subscription.validation").tag("type", "DAILY").timer().count()).isEqualTo(1);
+        assertThat(this.meterRegistry.get("subscription.generation").tag("type", "DAILY").timer().count()).isEqualTo(1);
+        assertThat(this.meterRegistry.get("subscription.invoice.dates").tag("type", "DAILY").summary().totalAmount())
+                .isEqualTo(31);
+        assertThat(this.meterRegistry.get("subscription.requests").tag("type", "WEEKLY").timer().count()).isZero();
+    }
+
+    @Test
+    void itShouldCountErrorsByReason() {
+        assertThatThrownBy(() -> this.subscriptionService.subscribe(
+                new SubscriptionRequest(BigDecimal.TEN, SubscriptionType.MONTHLY, "1/01/2021", "31/03/2021", 1, null)
+        ));
+        assertThatThrownBy(() -> this.subscriptionService.subscribe(
+                new SubscriptionRequest(BigDecimal.TEN, null, "01/01/2021", "31/01/2021", null, null)
+        ));
+        assertThat(this.meterRegistry.get("subscription.errors")
+                .tag("type", "MONTHLY")
+                .tag("reason", ErrorCode.INVALID_DATE_FORMAT.name())
+                .counter().count()).isEqualTo(1);
+        assertThat(this.meterRegistry.get("subscription.errors")
+                .tag("type", "NONE")
+                .tag("reason", ErrorCode.TYPE_REQUIRED.name())
+                .counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void itShouldDoNothingWhenDisabled() {
+        assertThat(SubscriptionMetrics.NOOP.isEnabled()).isFalse();
+        assertThat(SubscriptionMetrics.NOOP.startTimer()).isZero();
+        SubscriptionMetrics.NOOP.recordError(SubscriptionType.DAILY, ErrorCode.AMOUNT_REQUIRED);
+        SubscriptionMetrics.NOOP.recordRequest(null, 0L, 1);
+    }
+}
@@ -0,0 +1,107 @@
+package com.pay.subscription.recurrence;
+
+import com.pay.subscription.enums.Day;
+import com.pay.subscription.enums.ErrorCode;
+import com.pay.subscription.enums.RecurrenceUnit;
+import com.pay.subscription.enums.SubscriptionType;
+import com.pay.subscription.request.RecurrenceRequest;
+import com.pay.subscription.util.DateCodec;
+import com.pay.subscription.util.InvoiceDates;
+import com.pay.subscription.validation.ValidationError;
+import com.pay.subscription.validation.ValidationResult;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RecurrenceRulesTest {
+
+    private static InvoiceDates invoiceDates(RecurrenceRequest recurrence, String startDate, String endDate) {
+        return RecurrenceRules.compile(recurrence, RecurrenceRules.MAX_INTERVAL).getValue()
+                .invoiceDates(DateCodec.parseEpochDay(startDate), DateCodec.parseEpochDay(endDate));
+    }
+
+    @Test
+    void itShouldInvoiceEveryOtherWeekOnSeveralDays() {
+        RecurrenceRequest recurrence = new RecurrenceRequest(
+                RecurrenceUnit.WEEK, 2, Arrays.asList(Day.THURSDAY, Day.MONDAY), null, null
+        );
+        InvoiceDates invoiceDates = invoiceDates(recurrence, "01/01/2021", "28/02/2021");
+        assertThat(invoiceDates).containsExactly(
+                "04/01/2021", "07/01/2021", "18/01/2021", "21/01/2021",
+                "01/02/2021", "04/02/2021", "15/02/2021", "18/02/2021"
+        );
+        assertThat(invoiceDates.indexOfFirstOnOrAfter(DateCodec.parseEpochDay("08/01/2021"))).isEqualTo(2);
+        assertThat(invoiceDates.containsEpochDay(DateCodec.parseEpochDay("11/01/2021"))).isFalse();
+
+        RecurrenceRule rule = RecurrenceRules.compile(recurrence, RecurrenceRules.MAX_INTERVAL).getValue();
+        long startEpochDay = DateCodec.parseEpochDay("01/01/2021");
+        assertThat(DateCodec.format(rule.previous(startEpochDay, DateCodec.parseEpochDay("04/01/2021")))).isEqualTo("24/12/2020");
+        assertThat(DateCodec.format(rule.next(startEpochDay, DateCodec.parseEpochDay("07/01/2021")))).isEqualTo("18/01/2021");
+    }
+
+    @Test
+    void itShouldInvoiceQuarterlyAndYearly() {
+        RecurrenceRequest quarterly = new RecurrenceRequest(RecurrenceUnit.QUARTER, null, null, 31, null);
+        assertThat(invoiceDates(quarterly, "01/01/2021", "31/12/2021"))
+                .containsExactly("31/01/2021", "30/04/2021", "31/07/2021", "31/10/2021");
+
+        RecurrenceRequest yearly = new RecurrenceRequest(RecurrenceUnit.YEAR, null, null, null, true);
+        assertThat(invoiceDates(yearly, "01/01/2021", "31/12/2023"))
+                .containsExactly("29/01/2021", "31/01/2022", "31/01/2023");
+    }
+
+    @Test
+    void itShouldInvoiceOnTheLastBusinessDayOfTheMonth() {
+        RecurrenceRequest recurrence = new RecurrenceRequest(RecurrenceUnit.MONTH, null, null, null, true);
+        assertThat(invoiceDates(recurrence, "01/01/2021", "31/03/2021"))
+                .containsExactly("29/01/2021", "26/02/2021", "31/03/2021");
+    }
+
+    @Test
+    void itShouldMatchTheLegacyTypes() {
+        assertThat(invoiceDates(new RecurrenceRequest(RecurrenceUnit.WEEK, 1, Collections.singletonList(Day.FRIDAY), null, null), "02/01/2021", "31/01/2021"))
+                .containsExactlyElementsOf(RecurrenceRules.of(SubscriptionType.WEEKLY, null, Day.FRIDAY)
+                        .invoiceDates(DateCodec.parseEpochDay("02/01/2021"), DateCodec.parseEpochDay("31/01/2021")));
+        assertThat(invoiceDates(new RecurrenceRequest(RecurrenceUnit.DAY, 3, null, null, null), "01/01/2021", "10/01/2021"))
+                .containsExactly("01/01/2021", "04/01/2021", "07/01/2021", "10/01/2021");
+    }
+
+    @Test
+    void itShouldRoundTripThroughTheStoredCode() {
+        RecurrenceRequest recurrence = new RecurrenceRequest(
+                RecurrenceUnit.WEEK, 3, Arrays.asList(Day.MONDAY, Day.SUNDAY), null, null
+        );
+        int code = RecurrenceRules.encode(recurrence);
+        assertThat(RecurrenceRules.decode(code)).isEqualTo(recurrence);
+        assertThat(RecurrenceRules.ofCode(code).invoiceDates(0, 100))
+                .containsExactlyElementsOf(RecurrenceRules.compile(recurrence, RecurrenceRules.MAX_INTERVAL).getValue().invoiceDates(0, 100));
+
+        RecurrenceRequest yearly = new RecurrenceRequest(RecurrenceUnit.YEAR, RecurrenceRules.MAX_INTERVAL, null, 29, null);
+        assertThat(RecurrenceRules.decode(RecurrenceRules.encode(yearly))).isEqualTo(yearly);
+        assertThat(RecurrenceRules.encode(null)).isZero();
+        assertThat(RecurrenceRules.decode(0)).isNull();
+    }
+
+    @Test
+    void itShouldRejectInvalidRecurrences() {
+        for (RecurrenceRequest recurrence : Arrays.asList(
+                new RecurrenceRequest(null, null, null, 1, null),
+                new RecurrenceRequest(RecurrenceUnit.WEEK, null, null, null, null),
+                new RecurrenceRequest(RecurrenceUnit.MONTH, null, null, null, null),
+                new RecurrenceRequest(RecurrenceUnit.MONTH, null, null, 15, true),
+                new RecurrenceRequest(RecurrenceUnit.MONTH, null, null, 32, null),
+                new RecurrenceRequest(RecurrenceUnit.DAY, 0, null, null, null),
+                new RecurrenceRequest(RecurrenceUnit.DAY, 53, null, null, null)
+        )) {
+            ValidationResult<RecurrenceRule> compiled = RecurrenceRules.compile(recurrence, 52);
+            assertThat(compiled.isValid()).as(recurrence.toString()).isFalse();
+            assertThat(compiled.getErrors())
+                    .as(recurrence.toString())
+                    .extracting(ValidationError::getCode)
+                    .containsExactly(ErrorCode.RECURRENCE_INVALID);
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package com.pay.subscription.serializer;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import com.fasterxml.jackson.dataformat.smile.databind.SmileMapper;
+import com.pay.subscription.enums.SubscriptionType;
+import com.pay.subscription.response.SubscriptionResponse;
+import com.pay.subscription.util.DateUtil;
+import com.pay.subscription.util.InvoiceDates;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class InvoiceDatesSerializerTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    void itShouldSpliceIdenticalBytesForPreSerializedDates() throws Exception {
+        InvoiceDates dates = (InvoiceDates) DateUtil.datesWithSameDayFromStartToEnd(
+                LocalDate.of(2021, 1, 1),
+                LocalDate.of(2021, 4, 1),
+                31
+        );
+        PreSerializedInvoiceDates preSerialized = new PreSerializedInvoiceDates(dates);
+        String expected = this.objectMapper.writeValueAsString(
+                new SubscriptionResponse(BigDecimal.TEN, SubscriptionType.MONTHLY, new LinkedHashSet<>(new ArrayList<>(dates)))
+        );
+        SubscriptionResponse response = new SubscriptionResponse(BigDecimal.TEN, SubscriptionType.MONTHLY, preSerialized);
+        assertThat(new String(this.objectMapper.writeValueAsBytes(response), StandardCharsets.UTF_8)).isEqualTo(expected);
+        assertThat(this.objectMapper.writeValueAsString(response)).isEqualTo(expected);
+        assertThat(this.objectMapper.writeValueAsString(new SubscriptionResponse(BigDecimal.TEN, SubscriptionType.MONTHLY, dates)))
+                .isEqualTo(expected);
+        assertThat(expected).contains("[\"31/01/2021\",\"28/02/2021\",\"31/03/2021\"]");
+        assertThat(preSerialized.fragment()).isSameAs(preSerialized.fragment());
+    }
+
+    @Test
+    void itShouldSerializeEmptyAndOutOfTableSchedules() throws Exception {
+        InvoiceDates empty = (InvoiceDates) DateUtil.datesFromStartToEnd(LocalDate.of(2021, 1, 2), LocalDate.of(2021, 1, 1), 1);
+        assertThat(new String(new PreSerializedInvoiceDates(empty).fragment().asUnquotedUTF8(), StandardCharsets.UTF_8))
+                .isEqualTo("[]");
+        InvoiceDates distant = (InvoiceDates) DateUtil.datesFromStartToEnd(LocalDate.of(2500, 1, 1), LocalDate.of(2500, 1, 2), 1);
+        assertThat(new PreSerializedInvoiceDates(distant).fragment().getValue())
+                .isEqualTo("[\"01/01/2500\",\"02/01/2500\"]");
+    }
+
+    @Test
+    void itShouldWriteLargeFragmentsWithoutCopyingAndQuoteThemOnRequest() throws Exception {
+        InvoiceDates daily = (InvoiceDates) DateUtil.datesFromStartToEnd(LocalDate.of(2021, 1, 1), LocalDate.of(2030, 12, 31), 1);
+        RawJsonFragment fragment = new PreSerializedInvoiceDates(daily).fragment();
+        assertThat(fragment.length()).isGreaterThan(8000);
+        assertThat(fragment.asUnquotedUTF8()).isSameAs(fragment.asUnquotedUTF8());
+        assertThat(this.objectMapper.readTree(this.objectMapper.writeValueAsBytes(
+                new SubscriptionResponse(BigDecimal.TEN, SubscriptionType.DAILY, new PreSerializedInvoiceDates(daily))
+        )).get("invoiceDates")).hasSize(daily.size());
+
+        RawJsonFragment small = new RawJsonFragment("[\"01/01/2021\"]".getBytes(StandardCharsets.UTF_8));
+        assertThat(new String(small.asQuotedUTF8(), StandardCharsets.UTF_8)).isEqualTo("[\\\"01/01/2021\\\"]");
+        assertThat(new String(small.asQuotedChars())).isEqualTo("[\\\"01/01/2021\\\"]");
+        ByteArrayOutputStream quoted = new ByteArrayOutputStream();
+        try (JsonGenerator generator = this.objectMapper.getFactory().createGenerator(quoted)) {
+            generator.writeString(small);
+        }
+        assertThat(quoted.toString(StandardCharsets.UTF_8)).isEqualTo("\"[\\\"01/01/2021\\\"]\"");
+    }
+
+    @Test
+    void itShouldWriteEpochDaysInBinaryFormats() throws Exception {
+        InvoiceDates daily = (InvoiceDates) DateUtil.datesFromStartToEnd(LocalDate.of(2021, 1, 25), LocalDate.of(2021, 1, 27), 1);
+        InvoiceDates monthly = (InvoiceDates) DateUtil.datesWithSameDayFromStartToEnd(
+                LocalDate.of(2021, 1, 1),
+                LocalDate.of(2021, 4, 1),
+                31
+        );
+        for (ObjectMapper binaryMapper : new ObjectMapper[]{new CBORMapper(), new SmileMapper()}) {
+            JsonNode stepped = binaryMapper.readTree(binaryMapper.writeValueAsBytes(
+                    new SubscriptionResponse(BigDecimal.TEN, SubscriptionType.DAILY, new PreSerializedInvoiceDates(daily))
+            ));
+            assertThat(stepped.get("invoiceDates").get("start").asLong()).isEqualTo(LocalDate.of(2021, 1, 25).toEpochDay());
+            assertThat(stepped.get("invoiceDates").get("step").asInt()).isEqualTo(1);
+            assertThat(stepped.get("invoiceDates").get("count").asInt()).isEqualTo(3);
+            JsonNode listed = binaryMapper.readTree(binaryMapper.writeValueAsBytes(
+                    new SubscriptionResponse(BigDecimal.TEN, SubscriptionType.MONTHLY, new LinkedHashSet<>(monthly))
+            ));
+            assertThat(listed.get("invoiceDates")).hasSize(3);
+            assertThat(listed.get("invoiceDates").get(1).asLong()).isEqualTo(LocalDate.of(2021, 2, 28).toEpochDay());
+        }
+    }
+}
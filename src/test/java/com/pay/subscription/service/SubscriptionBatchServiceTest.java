@@ -0,0 +1,92 @@
+package com.pay.subscription.service;
+
+import com.pay.subscription.config.BatchProperties;
+import com.pay.subscription.enums.SubscriptionType;
+import com.pay.subscription.request.SubscriptionRequest;
+import com.pay.subscription.response.SubscriptionBatchItemResponse;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class SubscriptionBatchServiceTest {
+
+    private ExecutorService executor;
+
+    private SubscriptionBatchService subscriptionBatchService;
+
+    @BeforeEach
+    void setUp() {
+        BatchProperties batchProperties = new BatchProperties();
+        batchProperties.setMaxSize(100);
+        batchProperties.setParallelism(3);
+        this.executor = Executors.newFixedThreadPool(3);
+        this.subscriptionBatchService = new SubscriptionBatchService(
+                new SubscriptionService(),
+                batchProperties,
+                this.executor
+        );
+    }
+
+    @AfterEach
+    void tearDown() {
+        this.executor.shutdownNow();
+    }
+
+    @Test
+    void itShouldReturnResultsInInputOrderWithPerItemErrors() {
+        List<SubscriptionRequest> requests = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            String day = String.format("%02d", i + 1);
+            requests.add(new SubscriptionRequest(
+                    BigDecimal.valueOf(i),
+                    SubscriptionType.DAILY,
+                    day + "/01/2021",
+                    "20/01/2021",
+                    null,
+                    null
+            ));
+        }
+        requests.set(4, new SubscriptionRequest(BigDecimal.ONE, null, "01/01/2021", "02/01/2021", null, null));
+        requests.set(7, new SubscriptionRequest(BigDecimal.ONE, SubscriptionType.DAILY, "1/01/2021", "02/01/2021", null, null));
+
+        List<SubscriptionBatchItemResponse> responses = this.subscriptionBatchService.subscribeAll(requests);
+
+        assertThat(responses).hasSize(10);
+        for (int i = 0; i < 10; i++) {
+            assertThat(responses.get(i).getIndex()).isEqualTo((long) i);
+        }
+        assertThat(responses.get(0).getResponse().getInvoiceDates()).hasSize(20);
+        assertThat(responses.get(9).getResponse().getAmountPerInvoice()).isEqualTo(BigDecimal.valueOf(9));
+        assertThat(responses.get(4).getResponse()).isNull();
+        assertThat(responses.get(4).getError()).isEqualTo("Subscription type is mandatory - DAILY, WEEKLY or MONTHLY.");
+        assertThat(responses.get(7).getError()).isEqualTo("1/01/2021 does not have dd/MM/yyyy format.");
+    }
+
+    @Test
+    void itShouldThrowIllegalArgumentExceptionWhenBatchIsTooLarge() {
+        List<SubscriptionRequest> requests = Collections.nCopies(
+                101,
+                new SubscriptionRequest(BigDecimal.ONE, SubscriptionType.DAILY, "01/01/2021", "02/01/2021", null, null)
+        );
+        assertThatThrownBy(() -> this.subscriptionBatchService.subscribeAll(requests))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("Batch size cannot be more than 100 requests.");
+    }
+
+    @Test
+    void itShouldThrowIllegalArgumentExceptionWhenBatchIsEmpty() {
+        assertThatThrownBy(() -> this.subscriptionBatchService.subscribeAll(Collections.emptyList()))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("Please input at least one subscription request.");
+    }
+}
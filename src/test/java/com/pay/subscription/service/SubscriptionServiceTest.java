@@ -1,22 +1,26 @@
 package com.pay.subscription.service;
 
+import com.pay.subscription.enums.AmountMode;
+import com.pay.subscription.enums.BusinessDayAdjustment;
 import com.pay.subscription.enums.Day;
+import com.pay.subscription.enums.ErrorCode;
+import com.pay.subscription.enums.RecurrenceUnit;
 import com.pay.subscription.enums.SubscriptionType;
+import com.pay.subscription.exception.SubscriptionValidationException;
+import com.pay.subscription.request.RecurrenceRequest;
 import com.pay.subscription.request.SubscriptionRequest;
 import com.pay.subscription.response.SubscriptionResponse;
-import com.pay.subscription.util.DateUtil;
+import com.pay.subscription.validation.ValidationError;
+import com.pay.subscription.validation.ValidationResult;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
-import org.mockito.MockedStatic;
-import org.mockito.Mockito;
 
 import java.math.BigDecimal;
-import java.time.LocalDate;
-import java.util.LinkedHashSet;
-import java.util.Set;
+import java.math.RoundingMode;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
 import static org.junit.jupiter.api.Assertions.*;
 
 class SubscriptionServiceTest {
@@ -83,17 +87,11 @@ class SubscriptionServiceTest {
                 null,
                 Day.TUESDAY
         );
-        try (MockedStatic<DateUtil> mock = Mockito.mockStatic(DateUtil.class)) {
-            mock.when(() -> DateUtil.numberOfWeeksBetween("25/12/2021", "26/12/2021"))
-                    .thenReturn(0L);
-            mock.when(() -> DateUtil.numberOfMonthsBetween("25/12/2021", "26/12/2021"))
-                    .thenReturn(0L);
-            assertThatThrownBy(() -> this.subscriptionService.subscribe(request))
-                    .isInstanceOf(IllegalArgumentException.class)
-                    .hasMessageContaining(
-                            "Weekly subscription period must be at least 1 week(s)."
-                    );
-        }
+        assertThatThrownBy(() -> this.subscriptionService.subscribe(request))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining(
+                        "Weekly subscription period must be at least 1 week(s)."
+                );
     }
 
     @Test
@@ -106,15 +104,11 @@ class SubscriptionServiceTest {
                 20,
                 null
         );
-        try (MockedStatic<DateUtil> mock = Mockito.mockStatic(DateUtil.class)) {
-            mock.when(() -> DateUtil.numberOfMonthsBetween("25/12/2021", "26/12/2021"))
-                    .thenReturn(0L);
-            assertThatThrownBy(() -> this.subscriptionService.subscribe(request))
-                    .isInstanceOf(IllegalArgumentException.class)
-                    .hasMessageContaining(
-                            "Monthly subscription period must be at least 1 month(s)."
-                    );
-        }
+        assertThatThrownBy(() -> this.subscriptionService.subscribe(request))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining(
+                        "Monthly subscription period must be at least 1 month(s)."
+                );
     }
 
     @Test
@@ -127,15 +121,11 @@ class SubscriptionServiceTest {
                 null,
                 null
         );
-        try (MockedStatic<DateUtil> mock = Mockito.mockStatic(DateUtil.class)) {
-            mock.when(() -> DateUtil.numberOfMonthsBetween("25/01/2021", "25/12/2021"))
-                    .thenReturn(11L);
-            assertThatThrownBy(() -> this.subscriptionService.subscribe(request))
-                    .isInstanceOf(IllegalArgumentException.class)
-                    .hasMessageContaining(
-                            "Subscription period cannot be more than 3 months."
-                    );
-        }
+        assertThatThrownBy(() -> this.subscriptionService.subscribe(request))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining(
+                        "Subscription period cannot be more than 3 months."
+                );
     }
 
     @Test
@@ -148,29 +138,11 @@ class SubscriptionServiceTest {
                 null,
                 null
         );
-        try (MockedStatic<DateUtil> mock = Mockito.mockStatic(DateUtil.class)) {
-            LocalDate start = LocalDate.of(2021, 1, 25);
-            LocalDate end = LocalDate.of(2021, 1, 27);
-            Set<String> dates = new LinkedHashSet<>();
-            dates.add("25/01/2021");
-            dates.add("26/01/2021");
-            dates.add("27/01/2021");
-            mock.when(() -> DateUtil.stringToDate(request.getStartDate()))
-                    .thenReturn(start);
-            mock.when(() -> DateUtil.stringToDate(request.getEndDate()))
-                    .thenReturn(end);
-            mock.when(() -> DateUtil.startDateIsAfterEndDate(start, end))
-                    .thenReturn(false);
-            mock.when(() -> DateUtil.numberOfMonthsBetween("25/01/2021", "27/12/2021"))
-                    .thenReturn(0L);
-            mock.when(() -> DateUtil.datesFromStartToEnd(start, end, 1))
-                    .thenReturn(dates);
-            SubscriptionResponse response = this.subscriptionService.subscribe(request);
-            assertThat(response.getAmountPerInvoice()).isEqualTo(BigDecimal.TEN);
-            assertThat(response.getType()).isEqualTo(SubscriptionType.DAILY);
-            assertThat(response.getInvoiceDates()).contains("25/01/2021", "26/01/2021", "27/01/2021");
-            assertThat(response.getInvoiceDates().size()).isEqualTo(3);
-        }
+        SubscriptionResponse response = this.subscriptionService.subscribe(request);
+        assertThat(response.getAmountPerInvoice()).isEqualTo(BigDecimal.TEN);
+        assertThat(response.getType()).isEqualTo(SubscriptionType.DAILY);
+        assertThat(response.getInvoiceDates()).contains("25/01/2021", "26/01/2021", "27/01/2021");
+        assertThat(response.getInvoiceDates().size()).isEqualTo(3);
     }
 
     @Test
@@ -183,25 +155,11 @@ class SubscriptionServiceTest {
                 null,
                 null
         );
-        try (MockedStatic<DateUtil> mock = Mockito.mockStatic(DateUtil.class)) {
-            LocalDate start = LocalDate.of(2021, 1, 1);
-            LocalDate end = LocalDate.of(2021, 1, 22);
-            mock.when(() -> DateUtil.stringToDate(request.getStartDate()))
-                    .thenReturn(start);
-            mock.when(() -> DateUtil.stringToDate(request.getEndDate()))
-                    .thenReturn(end);
-            mock.when(() -> DateUtil.startDateIsAfterEndDate(start, end))
-                    .thenReturn(false);
-            mock.when(() -> DateUtil.numberOfMonthsBetween(request.getStartDate(), request.getEndDate()))
-                    .thenReturn(0L);
-            mock.when(() -> DateUtil.numberOfWeeksBetween(request.getStartDate(), request.getEndDate()))
-                    .thenReturn(3L);
-            assertThatThrownBy(() -> this.subscriptionService.subscribe(request))
-                    .isInstanceOf(IllegalArgumentException.class)
-                    .hasMessageContaining(
-                            "Please input a valid value for weeklyInvoiceDay, e.g. MONDAY or TUESDAY."
-                    );
-        }
+        assertThatThrownBy(() -> this.subscriptionService.subscribe(request))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining(
+                        "Please input a valid value for weeklyInvoiceDay, e.g. MONDAY or TUESDAY."
+                );
     }
 
     @Test
@@ -212,36 +170,13 @@ class SubscriptionServiceTest {
                 "01/01/2021",
                 "22/01/2021",
                 null,
-                Day.MONDAY
+                Day.TUESDAY
         );
-        try (MockedStatic<DateUtil> mock = Mockito.mockStatic(DateUtil.class)) {
-            LocalDate start = LocalDate.of(2021, 1, 1);
-            LocalDate end = LocalDate.of(2021, 1, 22);
-            LocalDate firstInvoiceDate = LocalDate.of(2021, 1, 5);
-            Set<String> invoiceDates = new LinkedHashSet<>();
-            invoiceDates.add("05/01/2021");
-            invoiceDates.add("12/01/2021");
-            invoiceDates.add("19/01/2021");
-            mock.when(() -> DateUtil.stringToDate(request.getStartDate()))
-                    .thenReturn(start);
-            mock.when(() -> DateUtil.stringToDate(request.getEndDate()))
-                    .thenReturn(end);
-            mock.when(() -> DateUtil.startDateIsAfterEndDate(start, end))
-                    .thenReturn(false);
-            mock.when(() -> DateUtil.numberOfMonthsBetween(request.getStartDate(), request.getEndDate()))
-                    .thenReturn(0L);
-            mock.when(() -> DateUtil.numberOfWeeksBetween(request.getStartDate(), request.getEndDate()))
-                    .thenReturn(3L);
-            mock.when(() -> DateUtil.closestDateForDayOfWeek(start, request.getWeeklyInvoiceDay()))
-                    .thenReturn(firstInvoiceDate);
-            mock.when(() -> DateUtil.datesFromStartToEnd(firstInvoiceDate, end, 7))
-                    .thenReturn(invoiceDates);
-            SubscriptionResponse response = this.subscriptionService.subscribe(request);
-            assertThat(response.getAmountPerInvoice()).isEqualTo(BigDecimal.TEN);
-            assertThat(response.getType()).isEqualTo(SubscriptionType.WEEKLY);
-            assertThat(response.getInvoiceDates()).contains("05/01/2021", "12/01/2021", "19/01/2021");
-            assertThat(response.getInvoiceDates().size()).isEqualTo(3);
-        }
+        SubscriptionResponse response = this.subscriptionService.subscribe(request);
+        assertThat(response.getAmountPerInvoice()).isEqualTo(BigDecimal.TEN);
+        assertThat(response.getType()).isEqualTo(SubscriptionType.WEEKLY);
+        assertThat(response.getInvoiceDates()).contains("05/01/2021", "12/01/2021", "19/01/2021");
+        assertThat(response.getInvoiceDates().size()).isEqualTo(3);
     }
 
     @Test
@@ -254,23 +189,11 @@ class SubscriptionServiceTest {
                 0,
                 null
         );
-        try (MockedStatic<DateUtil> mock = Mockito.mockStatic(DateUtil.class)) {
-            LocalDate start = LocalDate.of(2021, 1, 1);
-            LocalDate end = LocalDate.of(2021, 3, 1);
-            mock.when(() -> DateUtil.stringToDate(request.getStartDate()))
-                    .thenReturn(start);
-            mock.when(() -> DateUtil.stringToDate(request.getEndDate()))
-                    .thenReturn(end);
-            mock.when(() -> DateUtil.startDateIsAfterEndDate(start, end))
-                    .thenReturn(false);
-            mock.when(() -> DateUtil.numberOfMonthsBetween(request.getStartDate(), request.getEndDate()))
-                    .thenReturn(2L);
-            assertThatThrownBy(() -> this.subscriptionService.subscribe(request))
-                    .isInstanceOf(IllegalArgumentException.class)
-                    .hasMessageContaining(
-                            "Please input a proper value for the monthlyInvoiceDay field (1 to 31)."
-                    );
-        }
+        assertThatThrownBy(() -> this.subscriptionService.subscribe(request))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining(
+                        "Please input a proper value for the monthlyInvoiceDay field (1 to 31)."
+                );
     }
 
     @Test
@@ -283,29 +206,11 @@ class SubscriptionServiceTest {
                 1,
                 null
         );
-        try (MockedStatic<DateUtil> mock = Mockito.mockStatic(DateUtil.class)) {
-            LocalDate start = LocalDate.of(2021, 1, 1);
-            LocalDate end = LocalDate.of(2021, 3, 1);
-            Set<String> invoiceDates = new LinkedHashSet<>();
-            invoiceDates.add("01/01/2021");
-            invoiceDates.add("01/02/2021");
-            invoiceDates.add("01/03/2021");
-            mock.when(() -> DateUtil.stringToDate(request.getStartDate()))
-                    .thenReturn(start);
-            mock.when(() -> DateUtil.stringToDate(request.getEndDate()))
-                    .thenReturn(end);
-            mock.when(() -> DateUtil.startDateIsAfterEndDate(start, end))
-                    .thenReturn(false);
-            mock.when(() -> DateUtil.numberOfMonthsBetween(request.getStartDate(), request.getEndDate()))
-                    .thenReturn(2L);
-            mock.when(() -> DateUtil.datesWithSameDayFromStartToEnd(start, end, request.getMonthlyInvoiceDay()))
-                    .thenReturn(invoiceDates);
-            SubscriptionResponse response = this.subscriptionService.subscribe(request);
-            assertThat(response.getAmountPerInvoice()).isEqualTo(BigDecimal.TEN);
-            assertThat(response.getType()).isEqualTo(SubscriptionType.MONTHLY);
-            assertThat(response.getInvoiceDates()).contains("01/01/2021", "01/02/2021", "01/03/2021");
-            assertThat(response.getInvoiceDates().size()).isEqualTo(3);
-        }
+        SubscriptionResponse response = this.subscriptionService.subscribe(request);
+        assertThat(response.getAmountPerInvoice()).isEqualTo(BigDecimal.TEN);
+        assertThat(response.getType()).isEqualTo(SubscriptionType.MONTHLY);
+        assertThat(response.getInvoiceDates()).contains("01/01/2021", "01/02/2021", "01/03/2021");
+        assertThat(response.getInvoiceDates().size()).isEqualTo(3);
     }
 
     @Test
@@ -318,22 +223,194 @@ class SubscriptionServiceTest {
                 null,
                 null
         );
-        try (MockedStatic<DateUtil> mock = Mockito.mockStatic(DateUtil.class)) {
-            LocalDate start = LocalDate.of(2021, 1, 1);
-            LocalDate end = LocalDate.of(2021, 1, 1);
-            mock.when(() -> DateUtil.stringToDate(request.getStartDate()))
-                    .thenReturn(start);
-            mock.when(() -> DateUtil.stringToDate(request.getEndDate()))
-                    .thenReturn(end);
-            mock.when(() -> DateUtil.startDateIsAfterEndDate(start, end))
-                    .thenReturn(false);
-            mock.when(() -> DateUtil.numberOfMonthsBetween(request.getStartDate(), request.getEndDate()))
-                    .thenReturn(0L);
-            assertThatThrownBy(() -> this.subscriptionService.subscribe(request))
-                    .isInstanceOf(IllegalArgumentException.class)
-                    .hasMessageContaining(
-                            "Subscription type is mandatory - DAILY, WEEKLY or MONTHLY."
-                    );
-        }
+        assertThatThrownBy(() -> this.subscriptionService.subscribe(request))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining(
+                        "Subscription type is mandatory - DAILY, WEEKLY or MONTHLY."
+                );
+    }
+
+    @Test
+    void itShouldGenerateACustomRecurrence() {
+        SubscriptionRequest request = new SubscriptionRequest(
+                new BigDecimal("10"),
+                null,
+                "01/01/2021",
+                "31/03/2021",
+                null,
+                null
+        );
+        request.setRecurrence(new RecurrenceRequest(RecurrenceUnit.MONTH, null, null, null, true));
+        SubscriptionResponse response = this.subscriptionService.subscribe(request);
+        assertThat(response.getType()).isEqualTo(SubscriptionType.MONTHLY);
+        assertThat(response.getInvoiceDates()).containsExactly("29/01/2021", "26/02/2021", "31/03/2021");
+
+        request.setType(SubscriptionType.WEEKLY);
+        assertThatThrownBy(() -> this.subscriptionService.subscribe(request))
+                .isInstanceOf(SubscriptionValidationException.class)
+                .hasFieldOrPropertyWithValue("errorCode", ErrorCode.RECURRENCE_INVALID);
+
+        request.setType(null);
+        request.setRecurrence(new RecurrenceRequest(RecurrenceUnit.DAY, 60, null, null, null));
+        assertThatThrownBy(() -> this.subscriptionService.subscribe(request))
+                .isInstanceOf(SubscriptionValidationException.class)
+                .hasMessageContaining("recurrence.interval must be within 1 and 52.");
+    }
+
+    @Test
+    void itShouldMoveInvoicesOntoBusinessDays() {
+        SubscriptionRequest request = new SubscriptionRequest(
+                new BigDecimal("7"),
+                SubscriptionType.DAILY,
+                "01/01/2021",
+                "10/01/2021",
+                null,
+                null
+        );
+        request.setBusinessDayAdjustment(BusinessDayAdjustment.PRECEDING);
+        request.setAmountMode(AmountMode.SPLIT);
+        SubscriptionResponse response = this.subscriptionService.subscribe(request);
+        assertThat(response.getInvoiceDates()).containsExactly(
+                "01/01/2021", "04/01/2021", "05/01/2021", "06/01/2021", "07/01/2021", "08/01/2021"
+        );
+        assertThat(response.getInvoiceAmounts()).containsExactly(
+                new BigDecimal("2.10"), new BigDecimal("0.70"), new BigDecimal("0.70"),
+                new BigDecimal("0.70"), new BigDecimal("0.70"), new BigDecimal("2.10")
+        );
+
+        request.setHolidayCalendar("XX");
+        assertThatThrownBy(() -> this.subscriptionService.subscribe(request))
+                .isInstanceOf(SubscriptionValidationException.class)
+                .hasFieldOrPropertyWithValue("errorCode", ErrorCode.HOLIDAY_CALENDAR_UNKNOWN);
+    }
+
+    @Test
+    void itShouldReturnInvoiceInstantsInTheZoneOfTheRequest() {
+        SubscriptionRequest request = new SubscriptionRequest(
+                new BigDecimal("10"),
+                SubscriptionType.WEEKLY,
+                "20/03/2021",
+                "05/04/2021",
+                null,
+                Day.SUNDAY
+        );
+        assertThat(this.subscriptionService.subscribe(request).getInvoiceInstants()).isNull();
+
+        request.setZoneId("Europe/London");
+        request.setInvoiceTime("09:30");
+        SubscriptionResponse response = this.subscriptionService.subscribe(request);
+        assertThat(response.getInvoiceDates()).containsExactly("21/03/2021", "28/03/2021", "04/04/2021");
+        assertThat(response.getInvoiceInstants()).containsExactly(
+                "2021-03-21T09:30:00Z",
+                "2021-03-28T09:30:00+01:00",
+                "2021-04-04T09:30:00+01:00"
+        );
+
+        request.setZoneId("Europe/Nowhere");
+        assertThatThrownBy(() -> this.subscriptionService.subscribe(request))
+                .isInstanceOf(SubscriptionValidationException.class)
+                .hasFieldOrPropertyWithValue("errorCode", ErrorCode.ZONE_ID_INVALID);
+        request.setZoneId(null);
+        request.setInvoiceTime("9h30");
+        assertThatThrownBy(() -> this.subscriptionService.subscribe(request))
+                .isInstanceOf(SubscriptionValidationException.class)
+                .hasFieldOrPropertyWithValue("errorCode", ErrorCode.INVOICE_TIME_INVALID);
+    }
+
+    @Test
+    void itShouldRejectAmountsAndDatesThatCannotBeStored() {
+        SubscriptionRequest request = new SubscriptionRequest(
+                new BigDecimal("1E+30"),
+                SubscriptionType.DAILY,
+                "01/01/2021",
+                "01/01/+999999999",
+                null,
+                null
+        );
+        ValidationResult<SubscriptionResponse> result = this.subscriptionService.trySubscribe(request);
+        assertThat(result.getErrors())
+                .extracting(ValidationError::getCode, ValidationError::getField)
+                .containsExactly(
+                        tuple(ErrorCode.AMOUNT_NOT_STORABLE, "amount"),
+                        tuple(ErrorCode.DATE_OUT_OF_RANGE, "endDate")
+                );
+
+        request.setAmount(new BigDecimal("1E-200"));
+        request.setEndDate("31/01/2021");
+        assertThat(this.subscriptionService.trySubscribe(request).getErrors())
+                .extracting(ValidationError::getCode, ValidationError::getMessage)
+                .containsExactly(tuple(ErrorCode.AMOUNT_NOT_STORABLE, "Amount has too many decimal places to be stored."));
+    }
+
+    @Test
+    void itShouldCollectEveryErrorWithoutThrowing() {
+        SubscriptionRequest request = new SubscriptionRequest(
+                null,
+                SubscriptionType.MONTHLY,
+                "01/01/2021",
+                "31/12/2021",
+                32,
+                null
+        );
+        request.setInvoiceTime("25:00");
+        ValidationResult<SubscriptionResponse> result = this.subscriptionService.trySubscribe(request);
+        assertThat(result.isValid()).isFalse();
+        assertThat(result.getErrors())
+                .extracting(ValidationError::getCode, ValidationError::getField)
+                .containsExactly(
+                        tuple(ErrorCode.AMOUNT_REQUIRED, "amount"),
+                        tuple(ErrorCode.PERIOD_TOO_LONG, "endDate"),
+                        tuple(ErrorCode.MONTHLY_INVOICE_DAY_INVALID, "monthlyInvoiceDay"),
+                        tuple(ErrorCode.INVOICE_TIME_INVALID, "invoiceTime")
+                );
+        assertThatThrownBy(() -> this.subscriptionService.subscribe(request))
+                .isInstanceOf(SubscriptionValidationException.class)
+                .hasFieldOrPropertyWithValue("errorCode", ErrorCode.AMOUNT_REQUIRED);
+
+        request.setAmount(BigDecimal.TEN);
+        request.setEndDate("31/03/2021");
+        request.setMonthlyInvoiceDay(31);
+        request.setInvoiceTime("23:00");
+        assertThat(this.subscriptionService.trySubscribe(request).getValue().getInvoiceDates())
+                .containsExactly("31/01/2021", "28/02/2021", "31/03/2021");
+    }
+
+    @Test
+    void itShouldSplitTheTotalAcrossInvoices() {
+        SubscriptionRequest request = new SubscriptionRequest(
+                new BigDecimal("100"),
+                SubscriptionType.MONTHLY,
+                "01/01/2021",
+                "31/03/2021",
+                15,
+                null
+        );
+        request.setAmountMode(AmountMode.SPLIT);
+        SubscriptionResponse response = this.subscriptionService.subscribe(request);
+        assertThat(response.getInvoiceDates()).containsExactly("15/01/2021", "15/02/2021", "15/03/2021");
+        assertThat(response.getInvoiceAmounts()).containsExactly(
+                new BigDecimal("33.33"),
+                new BigDecimal("33.33"),
+                new BigDecimal("33.34")
+        );
+        request.setAmountMode(null);
+        assertThat(this.subscriptionService.subscribe(request).getInvoiceAmounts()).isNull();
+    }
+
+    @Test
+    void itShouldRejectRoundingModeUnnecessary() {
+        SubscriptionRequest request = new SubscriptionRequest(
+                new BigDecimal("100"),
+                SubscriptionType.MONTHLY,
+                "01/01/2021",
+                "31/03/2021",
+                15,
+                null
+        );
+        request.setAmountMode(AmountMode.PRORATE);
+        request.setRoundingMode(RoundingMode.UNNECESSARY);
+        assertThatThrownBy(() -> this.subscriptionService.subscribe(request))
+                .isInstanceOf(SubscriptionValidationException.class)
+                .hasMessageContaining("roundingMode cannot be UNNECESSARY");
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,92 @@
+package com.pay.subscription.store;
+
+import com.pay.subscription.enums.AmountMode;
+import com.pay.subscription.enums.Day;
+import com.pay.subscription.enums.RemainderAllocation;
+import com.pay.subscription.enums.SubscriptionType;
+import com.pay.subscription.util.DateCodec;
+import com.pay.subscription.util.DateUtil;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class SubscriptionColumnsTest {
+
+    @Test
+    void itShouldKeepAmountsExactly() {
+        SubscriptionColumns columns = new SubscriptionColumns();
+        int cents = columns.append(SubscriptionType.DAILY, 0, 0, 10, new BigDecimal("12.34"));
+        int whole = columns.append(SubscriptionType.DAILY, 0, 0, 10, new BigDecimal("1E+3"));
+        assertThat(columns.amountUnscaledValue(cents)).isEqualTo(1234L);
+        assertThat(columns.amountScale(cents)).isEqualTo(2);
+        assertThat(columns.amount(cents)).isEqualTo(new BigDecimal("12.34"));
+        assertThat(columns.amount(whole)).isEqualByComparingTo(new BigDecimal("1000"));
+        assertThatThrownBy(() -> columns.append(SubscriptionType.DAILY, 0, 0, 10, new BigDecimal("1E+30")))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Amount is too large to be stored.");
+    }
+
+    @Test
+    void itShouldKeepAmountOptions() {
+        SubscriptionColumns columns = new SubscriptionColumns();
+        int plain = columns.append(SubscriptionType.DAILY, 0, 0, 10, BigDecimal.TEN);
+        int split = columns.append(SubscriptionType.DAILY, 0, 0, 10, BigDecimal.TEN,
+                AmountMode.SPLIT, RoundingMode.HALF_DOWN, RemainderAllocation.SPREAD);
+        int prorated = columns.append(SubscriptionType.DAILY, 0, 0, 10, BigDecimal.TEN,
+                AmountMode.PRORATE, RoundingMode.UNNECESSARY, null);
+        assertThat(columns.amountMode(plain)).isNull();
+        assertThat(columns.roundingMode(plain)).isNull();
+        assertThat(columns.remainderAllocation(plain)).isNull();
+        assertThat(columns.amountMode(split)).isEqualTo(AmountMode.SPLIT);
+        assertThat(columns.roundingMode(split)).isEqualTo(RoundingMode.HALF_DOWN);
+        assertThat(columns.remainderAllocation(split)).isEqualTo(RemainderAllocation.SPREAD);
+        assertThat(columns.amountMode(prorated)).isEqualTo(AmountMode.PRORATE);
+        assertThat(columns.roundingMode(prorated)).isEqualTo(RoundingMode.UNNECESSARY);
+        assertThat(columns.remainderAllocation(prorated)).isNull();
+    }
+
+    @Test
+    void itShouldGrowAndFilterRows() {
+        SubscriptionColumns columns = new SubscriptionColumns();
+        long startDay = DateCodec.parseEpochDay("01/01/2021");
+        for (int index = 0; index < 5000; index++) {
+            columns.append(SubscriptionType.MONTHLY, 1 + index % 31, startDay + index, startDay + index + 60, BigDecimal.ONE);
+        }
+        columns.delete(30);
+        assertThat(columns.rows()).isEqualTo(5000);
+        assertThat(columns.liveRows()).isEqualTo(4999);
+        assertThat(columns.invoiceDay(4999)).isEqualTo(1 + 4999 % 31);
+        assertThat(columns.startEpochDay(4999)).isEqualTo(startDay + 4999);
+
+        List<Integer> rows = new ArrayList<>();
+        columns.forEach(row -> columns.invoiceDay(row) == 31, rows::add);
+        assertThat(rows).hasSize(160).doesNotContain(30).startsWith(61);
+    }
+
+    @Test
+    void itShouldGenerateTheSameSchedulesAsDateUtil() {
+        SubscriptionColumns columns = new SubscriptionColumns();
+        LocalDate startDate = LocalDate.of(2021, 1, 30);
+        LocalDate endDate = LocalDate.of(2021, 4, 29);
+        int daily = columns.append(SubscriptionType.DAILY, 0, startDate.toEpochDay(), endDate.toEpochDay(), BigDecimal.TEN);
+        int weekly = columns.append(SubscriptionType.WEEKLY, Day.THURSDAY.ordinal(), startDate.toEpochDay(), endDate.toEpochDay(), BigDecimal.TEN);
+        int monthly = columns.append(SubscriptionType.MONTHLY, 30, startDate.toEpochDay(), endDate.toEpochDay(), BigDecimal.TEN);
+        assertThat(columns.invoiceDates(daily))
+                .containsExactlyElementsOf(DateUtil.datesFromStartToEnd(startDate, endDate, 1));
+        assertThat(columns.invoiceDates(weekly)).containsExactlyElementsOf(DateUtil.datesFromStartToEnd(
+                DateUtil.closestDateForDayOfWeek(startDate, Day.THURSDAY),
+                endDate,
+                7
+        ));
+        assertThat(columns.invoiceDates(monthly))
+                .containsExactlyElementsOf(DateUtil.datesWithSameDayFromStartToEnd(startDate, endDate, 30))
+                .contains("28/02/2021");
+    }
+}
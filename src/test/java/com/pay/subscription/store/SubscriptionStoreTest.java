@@ -0,0 +1,533 @@
+package com.pay.subscription.store;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.pay.subscription.enums.AmountMode;
+import com.pay.subscription.enums.BusinessDayAdjustment;
+import com.pay.subscription.enums.Day;
+import com.pay.subscription.enums.RecurrenceUnit;
+import com.pay.subscription.enums.SubscriptionType;
+import com.pay.subscription.request.RecurrenceRequest;
+import com.pay.subscription.request.SubscriptionRequest;
+import com.pay.subscription.service.SubscriptionService;
+import com.pay.subscription.cache.ScheduleCache;
+import com.pay.subscription.metrics.SubscriptionMetrics;
+import com.pay.subscription.service.SubscriptionLimits;
+import com.pay.subscription.util.DateCodec;
+import com.pay.subscription.util.HolidayCalendar;
+import com.pay.subscription.util.HolidayCalendars;
+import com.pay.subscription.util.InvoiceDates;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class SubscriptionStoreTest {
+
+    private final SubscriptionService subscriptionService = new SubscriptionService();
+
+
+    private static SubscriptionRequest weekly(Day day) {
+        return new SubscriptionRequest(BigDecimal.TEN, SubscriptionType.WEEKLY, "01/01/2021", "31/01/2021", null, day);
+    }
+
+    private StoredSubscription add(SubscriptionStore store, SubscriptionRequest request) {
+        this.subscriptionService.subscribe(request);
+        return store.add(request);
+    }
+
+    private static List<Long> ids(List<DueInvoice> dueInvoices) {
+        return dueInvoices.stream().map(dueInvoice -> dueInvoice.getSubscriptionId()).collect(Collectors.toList());
+    }
+
+    private static List<DueInvoice> dueOn(SubscriptionStore store, long epochDay, ExecutorService executor, int parallelism) {
+        List<DueInvoice> dueInvoices = new ArrayList<>();
+        store.dueOn(epochDay, executor, parallelism).forEachRemaining(dueInvoices::addAll);
+        return dueInvoices;
+    }
+
+    @Test
+    void itShouldIndexInvoicesByDate() {
+        SubscriptionStore store = SubscriptionStore.inMemory();
+        StoredSubscription tuesday = this.add(store, weekly(Day.TUESDAY));
+        StoredSubscription wednesday = this.add(store, weekly(Day.WEDNESDAY));
+        assertThat(tuesday.getId()).isEqualTo(1);
+        assertThat(wednesday.getId()).isEqualTo(2);
+        long fifthOfJanuary = DateCodec.parseEpochDay("05/01/2021");
+        assertThat(ids(store.dueBetween(fifthOfJanuary, fifthOfJanuary))).containsExactly(1L);
+        List<DueInvoice> range = store.dueBetween(fifthOfJanuary, DateCodec.parseEpochDay("13/01/2021"));
+        assertThat(ids(range)).containsExactly(1L, 2L, 1L, 2L);
+        assertThat(DateCodec.format(range.get(3).getEpochDay())).isEqualTo("13/01/2021");
+
+        assertThat(store.remove(1)).isTrue();
+        assertThat(store.remove(1)).isFalse();
+        assertThat(store.get(1)).isNull();
+        assertThat(ids(store.dueBetween(fifthOfJanuary, DateCodec.parseEpochDay("13/01/2021")))).containsExactly(2L, 2L);
+    }
+
+    @Test
+    void itShouldBuildDueChunksWhenTheyAreRead() {
+        SubscriptionStore store = SubscriptionStore.inMemory();
+        this.add(store, weekly(Day.TUESDAY));
+        this.add(store, weekly(Day.TUESDAY));
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Iterator<List<DueInvoice>> chunks = store.dueOn(DateCodec.parseEpochDay("05/01/2021"), executor, 1);
+            assertThat(store.remove(1)).isTrue();
+            assertThat(chunks.hasNext()).isTrue();
+            assertThat(ids(chunks.next())).containsExactly(2L);
+            chunks.forEachRemaining(chunk -> assertThat(chunk).isEmpty());
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    void itShouldReplayTheJournal(@TempDir Path directory) throws Exception {
+        Path path = directory.resolve("store").resolve("subscriptions.log");
+        ObjectMapper objectMapper = new ObjectMapper();
+        try (SubscriptionStore store = SubscriptionStore.open(new SubscriptionJournal(path, objectMapper))) {
+            this.add(store, weekly(Day.TUESDAY));
+            this.add(store, weekly(Day.WEDNESDAY));
+            this.add(store, weekly(Day.THURSDAY));
+            store.remove(2);
+        }
+        Files.write(path, "{\"op\":\"PUT\",\"id\":4,\"requ".getBytes(StandardCharsets.UTF_8), StandardOpenOption.APPEND);
+
+        try (SubscriptionStore store = SubscriptionStore.open(new SubscriptionJournal(path, objectMapper))) {
+            assertThat(store.size()).isEqualTo(2);
+            assertThat(store.get(2)).isNull();
+            assertThat(store.get(3).getRequest().getWeeklyInvoiceDay()).isEqualTo(Day.THURSDAY);
+            long seventhOfJanuary = DateCodec.parseEpochDay("07/01/2021");
+            assertThat(ids(store.dueBetween(seventhOfJanuary, seventhOfJanuary))).containsExactly(3L);
+            assertThat(this.add(store, weekly(Day.FRIDAY)).getId()).isEqualTo(4);
+        }
+    }
+
+    @Test
+    void itShouldKeepRejectedRowsOutOfTheJournalAndSkipBadEntriesOnReplay(@TempDir Path directory) throws Exception {
+        Path path = directory.resolve("subscriptions.log");
+        ObjectMapper objectMapper = new ObjectMapper();
+        try (SubscriptionStore store = SubscriptionStore.open(new SubscriptionJournal(path, objectMapper))) {
+            this.add(store, weekly(Day.TUESDAY));
+            SubscriptionRequest tooLarge = weekly(Day.WEDNESDAY);
+            tooLarge.setAmount(new BigDecimal("1E+30"));
+            assertThatThrownBy(() -> store.add(tooLarge))
+                    .isInstanceOf(IllegalArgumentException.class)
+                    .hasMessage("Amount is too large to be stored.");
+        }
+        // The header and the accepted entry.
+        assertThat(Files.readAllLines(path)).hasSize(2);
+        // An entry written before the checks existed is skipped, and its id stays taken.
+        Files.write(
+                path,
+                ("{\"op\":\"PUT\",\"id\":2,\"request\":{\"amount\":1E+30,\"type\":\"DAILY\","
+                        + "\"startDate\":\"01/01/2021\",\"endDate\":\"31/01/2021\"}}\n").getBytes(StandardCharsets.UTF_8),
+                StandardOpenOption.APPEND
+        );
+
+        try (SubscriptionStore store = SubscriptionStore.open(new SubscriptionJournal(path, objectMapper))) {
+            assertThat(store.size()).isEqualTo(1);
+            assertThat(store.get(2)).isNull();
+            assertThat(this.add(store, weekly(Day.FRIDAY)).getId()).isEqualTo(3);
+        }
+        try (SubscriptionStore store = SubscriptionStore.open(new SubscriptionJournal(path, objectMapper))) {
+            assertThat(store.get(3).getRequest().getWeeklyInvoiceDay()).isEqualTo(Day.FRIDAY);
+        }
+    }
+
+    @Test
+    void itShouldLoadTheSnapshotAndReplayTheJournalTail(@TempDir Path directory) throws Exception {
+        Path path = directory.resolve("subscriptions.log");
+        Path snapshotPath = directory.resolve("subscriptions.snapshot");
+        ObjectMapper objectMapper = new ObjectMapper();
+        try (SubscriptionStore store = SubscriptionStore.open(new SubscriptionJournal(path, objectMapper), snapshotPath)) {
+            this.add(store, weekly(Day.TUESDAY));
+            SubscriptionRequest prorated = weekly(Day.WEDNESDAY);
+            prorated.setAmountMode(AmountMode.PRORATE);
+            prorated.setZoneId("Europe/Paris");
+            prorated.setInvoiceTime("09:30");
+            this.add(store, prorated);
+            store.writeSnapshot();
+            SubscriptionRequest zoned = weekly(Day.THURSDAY);
+            zoned.setZoneId("+02:00");
+            zoned.setInvoiceTime("23:15:30");
+            this.add(store, zoned);
+            store.remove(1);
+            assertThat(Files.size(snapshotPath)).isGreaterThan(SubscriptionSnapshot.HEADER_BYTES);
+            Files.copy(snapshotPath, directory.resolve("early.snapshot"));
+            Files.copy(path, directory.resolve("early.log"));
+        }
+        // Goes back to a crash before the next snapshot, which leaves the journal tail to be replayed.
+        Files.move(directory.resolve("early.snapshot"), snapshotPath, StandardCopyOption.REPLACE_EXISTING);
+        Files.move(directory.resolve("early.log"), path, StandardCopyOption.REPLACE_EXISTING);
+
+        try (SubscriptionStore store = SubscriptionStore.open(new SubscriptionJournal(path, objectMapper), snapshotPath)) {
+            assertThat(store.size()).isEqualTo(2);
+            assertThat(store.get(1)).isNull();
+            assertThat(store.get(2).getRequest().getWeeklyInvoiceDay()).isEqualTo(Day.WEDNESDAY);
+            assertThat(store.get(2).getRequest().getAmountMode()).isEqualTo(AmountMode.PRORATE);
+            assertThat(store.get(2).getRequest().getZoneId()).isEqualTo("Europe/Paris");
+            assertThat(store.get(2).getRequest().getInvoiceTime()).isEqualTo("09:30");
+            assertThat(store.get(3).getRequest().getZoneId()).isEqualTo("+02:00");
+            assertThat(store.get(3).getRequest().getInvoiceTime()).isEqualTo("23:15:30");
+            assertThat(store.get(3).getRequest().getWeeklyInvoiceDay()).isEqualTo(Day.THURSDAY);
+            long fifthOfJanuary = DateCodec.parseEpochDay("05/01/2021");
+            assertThat(ids(store.dueBetween(fifthOfJanuary, DateCodec.parseEpochDay("07/01/2021")))).containsExactly(2L, 3L);
+            assertThat(this.add(store, weekly(Day.FRIDAY)).getId()).isEqualTo(4);
+        }
+        try (SubscriptionStore store = SubscriptionStore.open(new SubscriptionJournal(path, objectMapper), snapshotPath)) {
+            assertThat(store.size()).isEqualTo(3);
+            assertThat(store.get(4).getRequest().getWeeklyInvoiceDay()).isEqualTo(Day.FRIDAY);
+            assertThat(store.get(3).getRequest().getZoneId()).isEqualTo("+02:00");
+            assertThat(store.get(2).getRequest().getInvoiceTime()).isEqualTo("09:30");
+            assertThat(store.get(4).getRequest().getZoneId()).isNull();
+        }
+    }
+
+    @Test
+    void itShouldRebuildFromTheJournalWhenTheSnapshotIsUnusable(@TempDir Path directory) throws Exception {
+        Path path = directory.resolve("subscriptions.log");
+        Path snapshotPath = directory.resolve("subscriptions.snapshot");
+        ObjectMapper objectMapper = new ObjectMapper();
+        Path fullJournal = directory.resolve("full.log");
+        try (SubscriptionStore store = SubscriptionStore.open(new SubscriptionJournal(path, objectMapper), snapshotPath)) {
+            this.add(store, weekly(Day.TUESDAY));
+            this.add(store, weekly(Day.WEDNESDAY));
+            Files.copy(path, fullJournal);
+        }
+        // The snapshot written on close compacted the journal, the copy still has every entry.
+        Files.copy(fullJournal, path, StandardCopyOption.REPLACE_EXISTING);
+        byte[] snapshot = Files.readAllBytes(snapshotPath);
+        snapshot[SubscriptionSnapshot.HEADER_BYTES + 1] ^= 1;
+        Files.write(snapshotPath, snapshot);
+
+        try (SubscriptionStore store = SubscriptionStore.open(new SubscriptionJournal(path, objectMapper), snapshotPath)) {
+            assertThat(store.size()).isEqualTo(2);
+            assertThat(store.get(2).getRequest().getWeeklyInvoiceDay()).isEqualTo(Day.WEDNESDAY);
+        }
+
+        // A snapshot that is ahead of the journal describes entries that were lost.
+        List<String> lines = Files.readAllLines(fullJournal);
+        Files.write(path, lines.subList(0, 2));
+        try (SubscriptionStore store = SubscriptionStore.open(new SubscriptionJournal(path, objectMapper), snapshotPath)) {
+            assertThat(store.size()).isEqualTo(1);
+            assertThat(store.get(2)).isNull();
+            assertThat(this.add(store, weekly(Day.FRIDAY)).getId()).isEqualTo(2);
+        }
+
+        // The journal of another store is not the one the snapshot was taken from.
+        Path otherPath = directory.resolve("other.log");
+        try (SubscriptionStore store = SubscriptionStore.open(new SubscriptionJournal(otherPath, objectMapper))) {
+            this.add(store, weekly(Day.TUESDAY));
+            this.add(store, weekly(Day.MONDAY));
+        }
+        Files.copy(otherPath, path, StandardCopyOption.REPLACE_EXISTING);
+        try (SubscriptionStore store = SubscriptionStore.open(new SubscriptionJournal(path, objectMapper), snapshotPath)) {
+            assertThat(store.size()).isEqualTo(2);
+            assertThat(store.get(2).getRequest().getWeeklyInvoiceDay()).isEqualTo(Day.MONDAY);
+        }
+    }
+
+    @Test
+    void itShouldCompactTheJournalOnceTheSnapshotIsWritten(@TempDir Path directory) throws Exception {
+        Path path = directory.resolve("subscriptions.log");
+        Path snapshotPath = directory.resolve("subscriptions.snapshot");
+        ObjectMapper objectMapper = new ObjectMapper();
+        long journalId;
+        try (SubscriptionStore store = SubscriptionStore.open(new SubscriptionJournal(path, objectMapper), snapshotPath)) {
+            this.add(store, weekly(Day.TUESDAY));
+            this.add(store, weekly(Day.WEDNESDAY));
+            store.writeSnapshot();
+            assertThat(Files.size(path)).isEqualTo(SubscriptionJournal.HEADER_BYTES);
+            this.add(store, weekly(Day.THURSDAY));
+            assertThat(Files.readAllLines(path)).hasSize(2);
+        }
+        try (SubscriptionJournal journal = new SubscriptionJournal(path, objectMapper)) {
+            assertThat(journal.isCompacted()).isTrue();
+            journalId = journal.id();
+        }
+
+        // The snapshot is mapped read-only, changing a loaded row copies the columns.
+        try (SubscriptionStore store = SubscriptionStore.open(new SubscriptionJournal(path, objectMapper), snapshotPath)) {
+            assertThat(store.size()).isEqualTo(3);
+            assertThat(store.remove(1)).isTrue();
+            assertThat(this.add(store, weekly(Day.FRIDAY)).getId()).isEqualTo(4);
+            long seventhOfJanuary = DateCodec.parseEpochDay("07/01/2021");
+            assertThat(ids(store.dueBetween(seventhOfJanuary, seventhOfJanuary))).containsExactly(3L);
+        }
+        try (SubscriptionJournal journal = new SubscriptionJournal(path, objectMapper)) {
+            assertThat(journal.id()).isEqualTo(journalId);
+        }
+
+        // The journal no longer has the entries to rebuild the store without the snapshot.
+        byte[] snapshot = Files.readAllBytes(snapshotPath);
+        snapshot[SubscriptionSnapshot.HEADER_BYTES + 1] ^= 1;
+        Files.write(snapshotPath, snapshot);
+        assertThatThrownBy(() -> SubscriptionStore.open(new SubscriptionJournal(path, objectMapper), snapshotPath))
+                .isInstanceOf(IOException.class)
+                .hasMessageContaining("no longer has the entries");
+    }
+
+    @Test
+    void itShouldAddAHeaderToAJournalWrittenWithoutOne(@TempDir Path directory) throws Exception {
+        Path path = directory.resolve("subscriptions.log");
+        ObjectMapper objectMapper = new ObjectMapper();
+        Files.write(
+                path,
+                ("{\"op\":\"PUT\",\"id\":1,\"request\":{\"amount\":10,\"type\":\"DAILY\","
+                        + "\"startDate\":\"01/01/2021\",\"endDate\":\"31/01/2021\"}}\n").getBytes(StandardCharsets.UTF_8)
+        );
+        try (SubscriptionStore store = SubscriptionStore.open(new SubscriptionJournal(path, objectMapper))) {
+            assertThat(store.get(1).getRequest().getType()).isEqualTo(SubscriptionType.DAILY);
+            this.add(store, weekly(Day.FRIDAY));
+        }
+        assertThat(Files.readAllLines(path)).hasSize(3);
+        try (SubscriptionStore store = SubscriptionStore.open(new SubscriptionJournal(path, objectMapper))) {
+            assertThat(store.size()).isEqualTo(2);
+        }
+    }
+
+    @Test
+    void itShouldUseTheHolidayCalendarsItWasOpenedWith(@TempDir Path directory) throws Exception {
+        Path path = directory.resolve("subscriptions.log");
+        Path snapshotPath = directory.resolve("subscriptions.snapshot");
+        ObjectMapper objectMapper = new ObjectMapper();
+        HolidayCalendars holidayCalendars = new HolidayCalendars(Collections.singletonList(new HolidayCalendar(
+                "US",
+                DateCodec.parseEpochDay("01/01/2021"),
+                DateCodec.parseEpochDay("31/12/2021"),
+                new long[]{DateCodec.parseEpochDay("18/01/2021")}
+        )));
+        SubscriptionService subscriptionService = new SubscriptionService(
+                ScheduleCache.disabled(),
+                SubscriptionMetrics.NOOP,
+                SubscriptionLimits.DEFAULT,
+                holidayCalendars
+        );
+        SubscriptionRequest request = weekly(Day.MONDAY);
+        request.setHolidayCalendar("US");
+        subscriptionService.subscribe(request);
+        try (SubscriptionStore store = SubscriptionStore.open(new SubscriptionJournal(path, objectMapper), snapshotPath, holidayCalendars)) {
+            store.add(request);
+            assertThat(store.get(1).getRequest().getHolidayCalendar()).isEqualTo("US");
+            assertThat(store.get(1).getInvoiceDates()).contains("19/01/2021").doesNotContain("18/01/2021");
+        }
+        try (SubscriptionStore store = SubscriptionStore.open(new SubscriptionJournal(path, objectMapper), snapshotPath, holidayCalendars)) {
+            assertThat(store.get(1).getRequest().getHolidayCalendar()).isEqualTo("US");
+            assertThat(ids(store.dueBetween(DateCodec.parseEpochDay("19/01/2021"), DateCodec.parseEpochDay("19/01/2021")))).containsExactly(1L);
+        }
+
+        // Without the region the rows of the snapshot are added again and only skip weekends.
+        try (SubscriptionStore store = SubscriptionStore.open(new SubscriptionJournal(path, objectMapper), snapshotPath)) {
+            assertThat(store.get(1).getRequest().getHolidayCalendar()).isNull();
+            assertThat(ids(store.dueBetween(DateCodec.parseEpochDay("18/01/2021"), DateCodec.parseEpochDay("18/01/2021")))).containsExactly(1L);
+        }
+    }
+
+    @Test
+    void itShouldTakeTheRowOutWhenTheJournalCommitFails(@TempDir Path directory) throws Exception {
+        AtomicBoolean failing = new AtomicBoolean();
+        SubscriptionJournal journal = new SubscriptionJournal(directory.resolve("subscriptions.log"), new ObjectMapper()) {
+            @Override
+            public void awaitDurable(long offset) {
+                if (failing.get()) {
+                    throw new UncheckedIOException(new IOException("fsync failed"));
+                }
+                super.awaitDurable(offset);
+            }
+        };
+        try (SubscriptionStore store = SubscriptionStore.open(journal)) {
+            this.add(store, weekly(Day.TUESDAY));
+            failing.set(true);
+            assertThatThrownBy(() -> store.add(weekly(Day.THURSDAY)))
+                    .isInstanceOf(UncheckedIOException.class)
+                    .hasMessageContaining("fsync failed");
+            assertThat(store.size()).isEqualTo(1);
+            assertThat(store.get(2)).isNull();
+            long seventhOfJanuary = DateCodec.parseEpochDay("07/01/2021");
+            assertThat(store.dueBetween(seventhOfJanuary, seventhOfJanuary)).isEmpty();
+            failing.set(false);
+        }
+    }
+
+    @Test
+    void itShouldShareJournalCommitsBetweenConcurrentWriters(@TempDir Path directory) throws Exception {
+        Path path = directory.resolve("subscriptions.log");
+        ObjectMapper objectMapper = new ObjectMapper();
+        SubscriptionJournal journal = new SubscriptionJournal(path, objectMapper, true, Duration.ofMillis(20));
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try (SubscriptionStore store = SubscriptionStore.open(journal)) {
+            List<Future<StoredSubscription>> writes = new ArrayList<>();
+            for (int index = 0; index < 64; index++) {
+                Day day = Day.values()[index % 7];
+                writes.add(executor.submit(() -> this.add(store, weekly(day))));
+            }
+            for (Future<StoredSubscription> write : writes) {
+                assertThat(write.get().getId()).isBetween(1L, 64L);
+            }
+            assertThat(journal.commits()).isLessThan(64);
+            assertThat(journal.size()).isEqualTo(Files.size(path));
+        } finally {
+            executor.shutdown();
+        }
+
+        try (SubscriptionStore store = SubscriptionStore.open(new SubscriptionJournal(path, objectMapper))) {
+            assertThat(store.size()).isEqualTo(64);
+        }
+    }
+
+    @Test
+    void itShouldKeepIrregularSchedulesAndFindTheirDueInvoices(@TempDir Path directory) throws Exception {
+        Path path = directory.resolve("subscriptions.log");
+        Path snapshotPath = directory.resolve("subscriptions.snapshot");
+        ObjectMapper objectMapper = new ObjectMapper();
+        RecurrenceRequest everyOtherWeek = new RecurrenceRequest(
+                RecurrenceUnit.WEEK, 2, Arrays.asList(Day.MONDAY, Day.THURSDAY), null, null
+        );
+        SubscriptionRequest request = weekly(null);
+        request.setType(null);
+        request.setEndDate("28/02/2021");
+        request.setRecurrence(everyOtherWeek);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            try (SubscriptionStore store = SubscriptionStore.open(new SubscriptionJournal(path, objectMapper), snapshotPath)) {
+                this.add(store, weekly(Day.MONDAY));
+                assertThat(this.add(store, request).getInvoiceDates()).containsExactly(
+                        "04/01/2021", "07/01/2021", "18/01/2021", "21/01/2021",
+                        "01/02/2021", "04/02/2021", "15/02/2021", "18/02/2021"
+                );
+            }
+            try (SubscriptionStore store = SubscriptionStore.open(new SubscriptionJournal(path, objectMapper), snapshotPath)) {
+                StoredSubscription stored = store.get(2);
+                assertThat(stored.getRequest().getType()).isEqualTo(SubscriptionType.WEEKLY);
+                assertThat(stored.getRequest().getWeeklyInvoiceDay()).isNull();
+                assertThat(stored.getRequest().getRecurrence()).isEqualTo(everyOtherWeek);
+                assertThat(ids(store.dueBetween(DateCodec.parseEpochDay("04/01/2021"), DateCodec.parseEpochDay("11/01/2021"))))
+                        .containsExactly(1L, 2L, 2L, 1L);
+                for (String date : Arrays.asList("11/01/2021", "18/01/2021", "21/01/2021")) {
+                    long epochDay = DateCodec.parseEpochDay(date);
+                    List<DueInvoice> dueInvoices = dueOn(store, epochDay, executor, 1);
+                    assertThat(ids(dueInvoices)).as(date).containsExactlyInAnyOrderElementsOf(ids(store.dueBetween(epochDay, epochDay)));
+                }
+                assertThat(ids(store.dueBetween(DateCodec.parseEpochDay("21/01/2021"), DateCodec.parseEpochDay("21/01/2021")))).containsExactly(2L);
+
+                SubscriptionRequest adjusted = new SubscriptionRequest(BigDecimal.TEN, SubscriptionType.DAILY, "01/01/2021", "10/01/2021", null, null);
+                adjusted.setBusinessDayAdjustment(BusinessDayAdjustment.FOLLOWING);
+                assertThat(this.add(store, adjusted).getInvoiceDates())
+                        .containsExactly("01/01/2021", "04/01/2021", "05/01/2021", "06/01/2021", "07/01/2021", "08/01/2021", "11/01/2021");
+                assertThat(store.get(3).getRequest().getBusinessDayAdjustment()).isEqualTo(BusinessDayAdjustment.FOLLOWING);
+                assertThat(ids(store.dueBetween(DateCodec.parseEpochDay("09/01/2021"), DateCodec.parseEpochDay("11/01/2021")))).containsExactly(1L, 3L);
+                assertThat(ids(dueOn(store, DateCodec.parseEpochDay("09/01/2021"), executor, 1))).isEmpty();
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    void itShouldChargeDueInvoicesTheAmountsOfTheResponse() {
+        SubscriptionStore store = SubscriptionStore.inMemory();
+        SubscriptionRequest split = new SubscriptionRequest(new BigDecimal("100"), SubscriptionType.DAILY, "01/01/2021", "03/01/2021", null, null);
+        split.setAmountMode(AmountMode.SPLIT);
+        SubscriptionRequest prorated = weekly(Day.WEDNESDAY);
+        prorated.setAmountMode(AmountMode.PRORATE);
+        prorated.setBusinessDayAdjustment(BusinessDayAdjustment.FOLLOWING);
+        SubscriptionRequest perInvoice = weekly(Day.SUNDAY);
+        List<SubscriptionRequest> requests = Arrays.asList(split, prorated, perInvoice);
+        Map<Long, BigDecimal> expected = new HashMap<>();
+        for (SubscriptionRequest request : requests) {
+            InvoiceDates invoiceDates = InvoiceDates.of(this.subscriptionService.subscribe(request).getInvoiceDates());
+            List<BigDecimal> amounts = this.subscriptionService.invoiceAmounts(request, invoiceDates);
+            long id = this.add(store, request).getId();
+            for (int index = 0; index < invoiceDates.size(); index++) {
+                expected.put(id * 100_000 + invoiceDates.epochDayAt(index), amounts == null ? request.getAmount() : amounts.get(index));
+            }
+        }
+        Map<Long, BigDecimal> actual = new HashMap<>();
+        for (DueInvoice dueInvoice : store.dueBetween(DateCodec.parseEpochDay("01/01/2021"), DateCodec.parseEpochDay("31/01/2021"))) {
+            actual.put(dueInvoice.getSubscriptionId() * 100_000 + dueInvoice.getEpochDay(), dueInvoice.getAmount());
+        }
+        assertThat(actual).isEqualTo(expected);
+        assertThat(actual.get(100_000 + DateCodec.parseEpochDay("03/01/2021"))).isEqualTo(new BigDecimal("33.34"));
+
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            long secondOfJanuary = DateCodec.parseEpochDay("02/01/2021");
+            assertThat(dueOn(store, secondOfJanuary, executor, 2))
+                    .extracting(DueInvoice::getAmount)
+                    .containsExactly(new BigDecimal("33.33"));
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    void itShouldFindTheSameDueInvoicesAsTheGeneratedSchedules() throws Exception {
+        SubscriptionStore store = SubscriptionStore.inMemory();
+        Map<Long, InvoiceDates> schedules = new HashMap<>();
+        Random random = new Random(42);
+        long firstDay = DateCodec.parseEpochDay("01/01/2024");
+        for (int index = 0; index < 2000; index++) {
+            long startDay = firstDay + random.nextInt(120);
+            long endDay = startDay + 35 + random.nextInt(50);
+            SubscriptionType type = SubscriptionType.values()[random.nextInt(3)];
+            SubscriptionRequest request = new SubscriptionRequest(
+                    BigDecimal.valueOf(index),
+                    type,
+                    DateCodec.format(startDay),
+                    DateCodec.format(endDay),
+                    type == SubscriptionType.MONTHLY ? 25 + random.nextInt(7) : null,
+                    type == SubscriptionType.WEEKLY ? Day.values()[random.nextInt(7)] : null
+            );
+            InvoiceDates schedule = InvoiceDates.of(this.subscriptionService.subscribe(request).getInvoiceDates());
+            schedules.put(this.add(store, request).getId(), schedule);
+        }
+        for (long id = 1; id <= 2000; id += 3) {
+            store.remove(id);
+            schedules.remove(id);
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(3);
+        try {
+            for (long epochDay = firstDay - 1; epochDay < firstDay + 210; epochDay++) {
+                long day = epochDay;
+                List<Long> expected = new ArrayList<>();
+                for (Map.Entry<Long, InvoiceDates> schedule : schedules.entrySet()) {
+                    if (schedule.getValue().containsEpochDay(day)) {
+                        expected.add(schedule.getKey());
+                    }
+                }
+                List<Long> actual = dueOn(store, day, executor, 3).stream()
+                        .peek(dueInvoice -> assertThat(dueInvoice.getEpochDay()).isEqualTo(day))
+                        .map(dueInvoice -> dueInvoice.getSubscriptionId())
+                        .collect(Collectors.toList());
+                assertThat(actual).as(DateCodec.format(day)).containsExactlyInAnyOrderElementsOf(expected);
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+}
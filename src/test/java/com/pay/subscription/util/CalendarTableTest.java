@@ -0,0 +1,63 @@
+package com.pay.subscription.util;
+
+import com.pay.subscription.enums.Day;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class CalendarTableTest {
+
+    private final CalendarTable calendarTable = new CalendarTable(1999, 2101);
+
+    @Test
+    void itShouldMatchJavaTimeForEveryCoveredDay() {
+        DateTimeFormatter formatter = DateTimeFormatter.ofPattern("dd/MM/yyyy");
+        char[] chars = new char[DateCodec.FORMATTED_LENGTH];
+        byte[] bytes = new byte[DateCodec.FORMATTED_LENGTH];
+        for (LocalDate date = LocalDate.of(1999, 1, 1); date.getYear() <= 2101; date = date.plusDays(1)) {
+            long epochDay = date.toEpochDay();
+            assertThat(this.calendarTable.covers(epochDay)).isTrue();
+            assertThat(DateUtil.dayOfWeek(epochDay)).isEqualTo(date.getDayOfWeek().ordinal());
+            assertThat(this.calendarTable.prolepticMonth(epochDay)).isEqualTo(date.getYear() * 12L + date.getMonthValue() - 1);
+            this.calendarTable.writeFormatted(epochDay, chars, 0);
+            this.calendarTable.writeFormatted(epochDay, bytes, 0);
+            assertThat(new String(chars)).isEqualTo(formatter.format(date));
+            assertThat(new String(bytes)).isEqualTo(formatter.format(date));
+        }
+        assertThat(this.calendarTable.covers(LocalDate.of(1998, 12, 31).toEpochDay())).isFalse();
+        assertThat(this.calendarTable.covers(LocalDate.of(2102, 1, 1).toEpochDay())).isFalse();
+    }
+
+    @Test
+    void itShouldClampToMonthEnd() {
+        for (YearMonth yearMonth = YearMonth.of(1999, 1); yearMonth.getYear() <= 2101; yearMonth = yearMonth.plusMonths(1)) {
+            long prolepticMonth = yearMonth.getYear() * 12L + yearMonth.getMonthValue() - 1;
+            assertThat(this.calendarTable.lengthOfMonth(prolepticMonth)).isEqualTo(yearMonth.lengthOfMonth());
+            for (int day = 1; day <= 31; day++) {
+                assertThat(this.calendarTable.epochDayOfMonthDay(prolepticMonth, day))
+                        .isEqualTo(yearMonth.atDay(Math.min(day, yearMonth.lengthOfMonth())).toEpochDay());
+            }
+        }
+    }
+
+    @Test
+    void itShouldFallBackToJavaTimeOutsideTheTable() {
+        LocalDate date = LocalDate.of(2250, 3, 6); // Wednesday
+        assertThat(CalendarTable.DEFAULT.covers(date.toEpochDay())).isFalse();
+        assertThat(DateUtil.closestDateForDayOfWeek(date, Day.MONDAY)).isEqualTo(LocalDate.of(2250, 3, 11));
+        assertThat(DateUtil.datesWithSameDayFromStartToEnd(date, LocalDate.of(2250, 5, 1), 31))
+                .containsExactly("31/03/2250", "30/04/2250");
+    }
+
+    @Test
+    void itShouldRejectInvalidRanges() {
+        assertThatThrownBy(() -> new CalendarTable(2000, 1999)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new CalendarTable(999, 2000)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new CalendarTable(1600, 2100)).isInstanceOf(IllegalArgumentException.class);
+    }
+}
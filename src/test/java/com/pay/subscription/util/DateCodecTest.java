@@ -0,0 +1,80 @@
+package com.pay.subscription.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowableOfType;
+
+class DateCodecTest {
+
+    private static final DateTimeFormatter REFERENCE = DateTimeFormatter.ofPattern("dd/MM/yyyy");
+
+    private static final String[] INPUTS = {
+            "31/02/2021", "29/02/2021", "29/02/2020", "31/04/2021", "01/01/20211",
+            "1/01/2021", "32/01/2021", "00/01/2021", "01/13/2021", "01/00/2021",
+            "01/01/0000", "aa/01/2021", "", "01-01-2021", "01/01/21", " 01/01/2021",
+            "31/02/+12345", "30/02/12000", "29/02/2100", "01/01/2021 ", "01/01/-2021"
+    };
+
+    @Test
+    void itShouldFormatAndParseLikeDateTimeFormatter() {
+        char[] buffer = new char[DateCodec.MAX_FORMATTED_LENGTH];
+        for (LocalDate date = LocalDate.of(1899, 1, 1); date.getYear() < 2200; date = date.plusDays(1)) {
+            String expected = REFERENCE.format(date);
+            int length = DateCodec.formatTo(date.toEpochDay(), buffer, 0);
+            assertThat(new String(buffer, 0, length)).isEqualTo(expected);
+            assertThat(DateCodec.parseEpochDay(expected)).isEqualTo(date.toEpochDay());
+        }
+    }
+
+    @Test
+    void itShouldFallBackOutsideFourDigitYears() {
+        for (LocalDate date : new LocalDate[]{LocalDate.of(999, 12, 31), LocalDate.of(10000, 1, 1), LocalDate.of(1, 1, 1)}) {
+            assertThat(DateCodec.format(date.toEpochDay())).isEqualTo(REFERENCE.format(date));
+            assertThat(DateCodec.parse(REFERENCE.format(date))).isEqualTo(date);
+        }
+    }
+
+    @Test
+    void itShouldResolveAndRejectExactlyLikeDateTimeFormatter() {
+        for (String input : INPUTS) {
+            LocalDate expected = null;
+            DateTimeParseException expectedException = null;
+            try {
+                expected = LocalDate.parse(input, REFERENCE);
+            } catch (DateTimeParseException dateTimeParseException) {
+                expectedException = dateTimeParseException;
+            }
+            if (expectedException == null) {
+                assertThat(DateCodec.parse(input)).as(input).isEqualTo(expected);
+            } else {
+                DateTimeParseException actual = catchThrowableOfType(
+                        () -> DateCodec.parse(input),
+                        DateTimeParseException.class
+                );
+                assertThat(actual).as(input).isNotNull();
+                assertThat(actual.getParsedString()).isEqualTo(expectedException.getParsedString());
+                assertThat(actual.getErrorIndex()).isEqualTo(expectedException.getErrorIndex());
+                assertThat(actual.getMessage()).isEqualTo(expectedException.getMessage());
+            }
+        }
+    }
+
+    @Test
+    void itShouldTryParseWithoutThrowing() {
+        for (String input : INPUTS) {
+            long expected;
+            try {
+                expected = LocalDate.parse(input, REFERENCE).toEpochDay();
+            } catch (DateTimeParseException dateTimeParseException) {
+                expected = DateCodec.INVALID_EPOCH_DAY;
+            }
+            assertThat(DateCodec.tryParseEpochDay(input)).as(input).isEqualTo(expected);
+        }
+        assertThat(DateCodec.tryParseEpochDay(null)).isEqualTo(DateCodec.INVALID_EPOCH_DAY);
+    }
+}
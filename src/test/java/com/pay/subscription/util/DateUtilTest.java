@@ -72,4 +72,17 @@ class DateUtilTest {
         LocalDate closestSaturdayDate = LocalDate.of(2021, 12, 25); // Next day (Saturday)
         assertThat(DateUtil.closestDateForDayOfWeek(date, Day.SATURDAY)).isEqualTo(closestSaturdayDate);
     }
-}
\ No newline at end of file
+
+    @Test
+    void itShouldGiveClosestDateForEveryDayOfWeek() {
+        LocalDate start = LocalDate.of(2021, 12, 20);
+        for (int offset = 0; offset < 7; offset++) {
+            LocalDate date = start.plusDays(offset);
+            for (Day day : Day.values()) {
+                LocalDate closest = DateUtil.closestDateForDayOfWeek(date, day);
+                assertThat(closest.getDayOfWeek().name()).isEqualTo(day.name());
+                assertThat(closest).isBetween(date, date.plusDays(6));
+            }
+        }
+    }
+}
@@ -0,0 +1,123 @@
+package com.pay.subscription.util;
+
+import com.pay.subscription.enums.BusinessDayAdjustment;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class HolidayCalendarTest {
+
+    private static final CalendarTable CALENDAR_TABLE = new CalendarTable(2020, 2023);
+
+    private static long day(String date) {
+        return DateCodec.parseEpochDay(date);
+    }
+
+    private static HolidayCalendars load(Path directory) throws IOException {
+        Files.write(directory.resolve("gb.txt"), Arrays.asList(
+                "# England and Wales",
+                "27/12/2021",
+                "28/12/2021",
+                "",
+                "03/01/2022",
+                "02/05/2022"
+        ));
+        Files.write(directory.resolve("US.txt"), Arrays.asList("24/12/2021", "31/12/2021"));
+        return HolidayCalendars.load(directory, CALENDAR_TABLE);
+    }
+
+    @Test
+    void itShouldLoadOneCalendarPerRegion(@TempDir Path directory) throws IOException {
+        HolidayCalendars holidayCalendars = load(directory);
+        assertThat(holidayCalendars.size()).isEqualTo(3);
+        assertThat(holidayCalendars.get(0)).isSameAs(HolidayCalendar.WEEKENDS);
+        assertThat(holidayCalendars.indexOf("GB")).isEqualTo(1);
+        assertThat(holidayCalendars.indexOf("us")).isEqualTo(2);
+        assertThat(holidayCalendars.get("Gb")).isSameAs(holidayCalendars.get(1));
+        assertThat(holidayCalendars.get("FR")).isNull();
+        assertThat(holidayCalendars.fingerprint()).isEqualTo(load(directory).fingerprint());
+
+        Files.write(directory.resolve("US.txt"), Arrays.asList("24/12/2021"));
+        assertThat(HolidayCalendars.load(directory, CALENDAR_TABLE).fingerprint()).isNotEqualTo(holidayCalendars.fingerprint());
+
+        Files.write(directory.resolve("FR.txt"), Arrays.asList("2021-12-25"));
+        assertThatThrownBy(() -> HolidayCalendars.load(directory, CALENDAR_TABLE))
+                .isInstanceOf(IOException.class)
+                .hasMessageContaining("FR.txt:1");
+    }
+
+    @Test
+    void itShouldAdjustOntoBusinessDays(@TempDir Path directory) throws IOException {
+        HolidayCalendar calendar = load(directory).get("GB");
+        assertThat(calendar.isBusinessDay(day("24/12/2021"))).isTrue();
+        assertThat(calendar.isBusinessDay(day("25/12/2021"))).isFalse();
+        assertThat(calendar.isBusinessDay(day("27/12/2021"))).isFalse();
+        // Outside of the covered years only weekends are skipped.
+        assertThat(calendar.isBusinessDay(day("27/12/2024"))).isTrue();
+        assertThat(calendar.isBusinessDay(day("28/12/2024"))).isFalse();
+
+        assertThat(DateCodec.format(calendar.adjust(day("25/12/2021"), BusinessDayAdjustment.FOLLOWING))).isEqualTo("29/12/2021");
+        assertThat(DateCodec.format(calendar.adjust(day("25/12/2021"), BusinessDayAdjustment.PRECEDING))).isEqualTo("24/12/2021");
+        assertThat(DateCodec.format(calendar.adjust(day("25/12/2021"), BusinessDayAdjustment.MODIFIED_FOLLOWING))).isEqualTo("29/12/2021");
+        assertThat(DateCodec.format(calendar.adjust(day("30/04/2022"), BusinessDayAdjustment.MODIFIED_FOLLOWING))).isEqualTo("29/04/2022");
+        assertThat(DateCodec.format(calendar.adjust(day("30/04/2022"), BusinessDayAdjustment.FOLLOWING))).isEqualTo("03/05/2022");
+        assertThat(DateCodec.format(HolidayCalendar.WEEKENDS.adjust(day("25/12/2021"), BusinessDayAdjustment.FOLLOWING))).isEqualTo("27/12/2021");
+    }
+
+    @Test
+    void itShouldMergeInvoicesMovedOntoTheSameDay(@TempDir Path directory) throws IOException {
+        HolidayCalendar calendar = load(directory).get("GB");
+        InvoiceDates daily = DateUtil.datesFromStartToEnd(day("24/12/2021"), day("04/01/2022"), 1);
+        AdjustedInvoiceDates adjusted = new AdjustedInvoiceDates(daily, calendar, BusinessDayAdjustment.FOLLOWING);
+        assertThat(adjusted).containsExactly("24/12/2021", "29/12/2021", "30/12/2021", "31/12/2021", "04/01/2022");
+        assertThat(adjusted.indexOfFirstOnOrAfter(day("25/12/2021"))).isEqualTo(1);
+
+        List<BigDecimal> amounts = new ArrayList<>();
+        for (int index = 1; index <= daily.size(); index++) {
+            amounts.add(BigDecimal.valueOf(index));
+        }
+        assertThat(adjusted.mergeAmounts(amounts)).containsExactly(
+                BigDecimal.valueOf(1), BigDecimal.valueOf(20), BigDecimal.valueOf(7), BigDecimal.valueOf(8), BigDecimal.valueOf(42)
+        );
+    }
+
+    @Test
+    void itShouldFindAdjustedDatesWithoutMaterializingThem(@TempDir Path directory) throws IOException {
+        HolidayCalendar calendar = load(directory).get("GB");
+        long from = day("01/12/2021");
+        long to = day("31/05/2022");
+        List<InvoiceDates> schedules = Arrays.asList(
+                DateUtil.datesFromStartToEnd(from, to, 1),
+                DateUtil.datesFromStartToEnd(from, to, 3),
+                DateUtil.datesWithSameDayFromStartToEnd(from, to, 30)
+        );
+        for (InvoiceDates schedule : schedules) {
+            for (BusinessDayAdjustment adjustment : BusinessDayAdjustment.values()) {
+                AdjustedInvoiceDates materialized = new AdjustedInvoiceDates(schedule, calendar, adjustment);
+                List<Long> expected = schedule.epochDays()
+                        .map(epochDay -> calendar.adjust(epochDay, adjustment))
+                        .distinct()
+                        .boxed()
+                        .collect(Collectors.toList());
+                assertThat(materialized.epochDays().boxed().collect(Collectors.toList())).isEqualTo(expected);
+                for (long epochDay = from - 7; epochDay <= to + 7; epochDay++) {
+                    AdjustedInvoiceDates lazy = new AdjustedInvoiceDates(schedule, calendar, adjustment);
+                    assertThat(lazy.containsEpochDay(epochDay))
+                            .as("%s %s", adjustment, DateCodec.format(epochDay))
+                            .isEqualTo(expected.contains(epochDay));
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,270 @@
+package com.pay.subscription.util;
+
+import com.pay.subscription.enums.AmountMode;
+import com.pay.subscription.enums.Day;
+import com.pay.subscription.enums.RemainderAllocation;
+import com.pay.subscription.enums.SubscriptionType;
+import com.pay.subscription.recurrence.RecurrenceRules;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class InvoiceAmountsTest {
+
+    private static final List<RoundingMode> ROUNDING_MODES = Arrays.asList(
+            RoundingMode.UP,
+            RoundingMode.DOWN,
+            RoundingMode.CEILING,
+            RoundingMode.FLOOR,
+            RoundingMode.HALF_UP,
+            RoundingMode.HALF_DOWN,
+            RoundingMode.HALF_EVEN
+    );
+
+    // Reference split: the rounded share, with the k-th leftover unit going to the
+    // invoice its allocation names.
+    private static List<BigDecimal> referenceSplit(
+            BigDecimal total,
+            int invoices,
+            RoundingMode roundingMode,
+            RemainderAllocation remainderAllocation
+    ) {
+        BigDecimal share = total.divide(BigDecimal.valueOf(invoices), total.scale(), roundingMode);
+        BigDecimal remainder = total.subtract(share.multiply(BigDecimal.valueOf(invoices)));
+        int units = remainder.unscaledValue().abs().intValueExact();
+        BigDecimal unit = BigDecimal.valueOf(remainder.signum(), total.scale());
+        List<BigDecimal> amounts = new ArrayList<>();
+        for (int index = 0; index < invoices; index++) {
+            amounts.add(share);
+        }
+        for (int k = 0; k < units; k++) {
+            int index;
+            if (remainderAllocation == RemainderAllocation.FIRST) {
+                index = k;
+            } else if (remainderAllocation == RemainderAllocation.LAST) {
+                index = invoices - 1 - k;
+            } else {
+                index = (int) ((((long) k + 1) * invoices + units - 1) / units) - 1;
+            }
+            amounts.set(index, amounts.get(index).add(unit));
+        }
+        return amounts;
+    }
+
+    // Reference proration: walks the regular invoice dates with LocalDate and rounds the
+    // exact share of the amount with BigDecimal.
+    private static List<BigDecimal> referenceProrate(
+            BigDecimal amount,
+            RoundingMode roundingMode,
+            SubscriptionType type,
+            int monthlyInvoiceDay,
+            LocalDate startDate,
+            LocalDate endDate,
+            InvoiceDates invoiceDates
+    ) {
+        List<BigDecimal> amounts = new ArrayList<>();
+        for (int index = 0; index < invoiceDates.size(); index++) {
+            LocalDate invoiceDate = LocalDate.ofEpochDay(invoiceDates.epochDayAt(index));
+            LocalDate nextDate = shift(type, monthlyInvoiceDay, invoiceDate, 1);
+            BigDecimal numerator = BigDecimal.ONE;
+            BigDecimal denominator = BigDecimal.ONE;
+            if (index == invoiceDates.size() - 1) {
+                LocalDate coveredUntil = endDate.plusDays(1).isBefore(nextDate) ? endDate.plusDays(1) : nextDate;
+                numerator = BigDecimal.valueOf(coveredUntil.toEpochDay() - invoiceDate.toEpochDay());
+                denominator = BigDecimal.valueOf(nextDate.toEpochDay() - invoiceDate.toEpochDay());
+            }
+            if (index == 0 && startDate.isBefore(invoiceDate)) {
+                LocalDate previousDate = shift(type, monthlyInvoiceDay, invoiceDate, -1);
+                BigDecimal stubDays = BigDecimal.valueOf(invoiceDate.toEpochDay() - startDate.toEpochDay());
+                BigDecimal stubPeriodDays = BigDecimal.valueOf(invoiceDate.toEpochDay() - previousDate.toEpochDay());
+                numerator = numerator.multiply(stubPeriodDays).add(stubDays.multiply(denominator));
+                denominator = denominator.multiply(stubPeriodDays);
+            }
+            amounts.add(amount.multiply(numerator).divide(denominator, amount.scale(), roundingMode));
+        }
+        return amounts;
+    }
+
+    private static LocalDate shift(SubscriptionType type, int monthlyInvoiceDay, LocalDate date, int periods) {
+        switch (type) {
+            case DAILY:
+                return date.plusDays(periods);
+            case WEEKLY:
+                return date.plusWeeks(periods);
+            default:
+                LocalDate month = date.withDayOfMonth(1).plusMonths(periods);
+                return month.withDayOfMonth(Math.min(monthlyInvoiceDay, month.lengthOfMonth()));
+        }
+    }
+
+    @Test
+    void itShouldRoundLikeBigDecimal() {
+        Random random = new Random(7);
+        for (int attempt = 0; attempt < 20000; attempt++) {
+            long dividend = attempt % 2 == 0 ? random.nextInt(2000) - 1000 : random.nextLong() / 4;
+            long divisor = 1 + (attempt % 3 == 0 ? random.nextInt(12) : random.nextInt(Integer.MAX_VALUE));
+            for (RoundingMode roundingMode : ROUNDING_MODES) {
+                long expected = BigDecimal.valueOf(dividend)
+                        .divide(BigDecimal.valueOf(divisor), 0, roundingMode)
+                        .longValueExact();
+                assertThat(InvoiceAmounts.divide(dividend, divisor, roundingMode))
+                        .as("%d / %d %s", dividend, divisor, roundingMode)
+                        .isEqualTo(expected);
+            }
+        }
+        assertThatThrownBy(() -> InvoiceAmounts.divide(10, 3, RoundingMode.UNNECESSARY))
+                .isInstanceOf(ArithmeticException.class);
+    }
+
+    @Test
+    void itShouldSplitLikeTheBigDecimalReference() {
+        Random random = new Random(11);
+        for (int attempt = 0; attempt < 3000; attempt++) {
+            BigDecimal total = BigDecimal.valueOf(random.nextInt(10_000_000) - 1_000_000, 2);
+            int invoices = 1 + random.nextInt(400);
+            for (RoundingMode roundingMode : ROUNDING_MODES) {
+                for (RemainderAllocation remainderAllocation : RemainderAllocation.values()) {
+                    long[] parts = InvoiceAmounts.split(total.unscaledValue().longValueExact(), invoices, roundingMode, remainderAllocation);
+                    List<BigDecimal> amounts = new ArrayList<>();
+                    long sum = 0;
+                    for (long part : parts) {
+                        amounts.add(BigDecimal.valueOf(part, 2));
+                        sum += part;
+                    }
+                    assertThat(amounts).isEqualTo(referenceSplit(total, invoices, roundingMode, remainderAllocation));
+                    assertThat(sum).isEqualTo(total.unscaledValue().longValueExact());
+                }
+            }
+        }
+    }
+
+    @Test
+    void itShouldSpreadTheRemainderEvenly() {
+        long[] parts = InvoiceAmounts.split(1004, 10, RoundingMode.DOWN, RemainderAllocation.SPREAD);
+        assertThat(parts).containsExactly(100, 100, 101, 100, 101, 100, 100, 101, 100, 101);
+        assertThat(InvoiceAmounts.split(1004, 10, RoundingMode.DOWN, RemainderAllocation.FIRST))
+                .containsExactly(101, 101, 101, 101, 100, 100, 100, 100, 100, 100);
+        assertThat(InvoiceAmounts.split(1004, 10, RoundingMode.UP, RemainderAllocation.LAST))
+                .containsExactly(101, 101, 101, 101, 100, 100, 100, 100, 100, 100);
+    }
+
+    @Test
+    void itShouldProrateTheFirstWeeklyInvoiceMovedForward() {
+        LocalDate startDate = LocalDate.of(2021, 1, 1);
+        LocalDate endDate = LocalDate.of(2021, 1, 31);
+        InvoiceDates invoiceDates = DateUtil.datesFromStartToEnd(
+                DateUtil.closestDateForDayOfWeek(startDate.toEpochDay(), Day.MONDAY),
+                endDate.toEpochDay(),
+                7
+        );
+        List<BigDecimal> amounts = InvoiceAmounts.of(
+                AmountMode.PRORATE,
+                RoundingMode.HALF_EVEN,
+                RemainderAllocation.LAST,
+                new BigDecimal("70"),
+                RecurrenceRules.of(SubscriptionType.WEEKLY, null, Day.MONDAY),
+                startDate.toEpochDay(),
+                endDate.toEpochDay(),
+                invoiceDates
+        );
+        assertThat(amounts).containsExactly(
+                new BigDecimal("100.00"),
+                new BigDecimal("70.00"),
+                new BigDecimal("70.00"),
+                new BigDecimal("70.00")
+        );
+    }
+
+    @Test
+    void itShouldProrateBothEndsOfAMonthlySchedule() {
+        LocalDate startDate = LocalDate.of(2021, 1, 15);
+        LocalDate endDate = LocalDate.of(2021, 3, 20);
+        List<BigDecimal> amounts = InvoiceAmounts.of(
+                AmountMode.PRORATE,
+                RoundingMode.HALF_EVEN,
+                RemainderAllocation.LAST,
+                new BigDecimal("31.00"),
+                RecurrenceRules.of(SubscriptionType.MONTHLY, 1, null),
+                startDate.toEpochDay(),
+                endDate.toEpochDay(),
+                DateUtil.datesWithSameDayFromStartToEnd(startDate.toEpochDay(), endDate.toEpochDay(), 1)
+        );
+        assertThat(amounts).containsExactly(new BigDecimal("48.00"), new BigDecimal("20.00"));
+    }
+
+    @Test
+    void itShouldProrateLikeTheBigDecimalReference() {
+        Random random = new Random(13);
+        long firstDay = LocalDate.of(2024, 1, 1).toEpochDay();
+        for (int attempt = 0; attempt < 3000; attempt++) {
+            LocalDate startDate = LocalDate.ofEpochDay(firstDay + random.nextInt(400));
+            LocalDate endDate = startDate.plusDays(35 + random.nextInt(60));
+            SubscriptionType type = SubscriptionType.values()[random.nextInt(3)];
+            int monthlyInvoiceDay = 1 + random.nextInt(31);
+            Day day = null;
+            InvoiceDates invoiceDates;
+            if (type == SubscriptionType.DAILY) {
+                invoiceDates = DateUtil.datesFromStartToEnd(startDate.toEpochDay(), endDate.toEpochDay(), 1);
+            } else if (type == SubscriptionType.WEEKLY) {
+                day = Day.values()[random.nextInt(7)];
+                invoiceDates = DateUtil.datesFromStartToEnd(
+                        DateUtil.closestDateForDayOfWeek(startDate.toEpochDay(), day),
+                        endDate.toEpochDay(),
+                        7
+                );
+            } else {
+                invoiceDates = DateUtil.datesWithSameDayFromStartToEnd(startDate.toEpochDay(), endDate.toEpochDay(), monthlyInvoiceDay);
+            }
+            BigDecimal amount = BigDecimal.valueOf(random.nextInt(100_000_000), random.nextInt(4));
+            RoundingMode roundingMode = ROUNDING_MODES.get(random.nextInt(ROUNDING_MODES.size()));
+            List<BigDecimal> amounts = InvoiceAmounts.of(
+                    AmountMode.PRORATE,
+                    roundingMode,
+                    RemainderAllocation.LAST,
+                    amount,
+                    RecurrenceRules.of(type, monthlyInvoiceDay, day),
+                    startDate.toEpochDay(),
+                    endDate.toEpochDay(),
+                    invoiceDates
+            );
+            BigDecimal scaledAmount = amount.setScale(Math.max(amount.scale(), InvoiceAmounts.MIN_SCALE));
+            assertThat(amounts)
+                    .as("%s %s %s - %s", type, amount, startDate, endDate)
+                    .isEqualTo(referenceProrate(scaledAmount, roundingMode, type, monthlyInvoiceDay, startDate, endDate, invoiceDates));
+        }
+    }
+
+    @Test
+    void itShouldFallBackToBigDecimalWhenLongsOverflow() {
+        LocalDate startDate = LocalDate.of(2021, 1, 1);
+        LocalDate endDate = LocalDate.of(2021, 1, 31);
+        InvoiceDates invoiceDates = DateUtil.datesFromStartToEnd(
+                DateUtil.closestDateForDayOfWeek(startDate.toEpochDay(), Day.MONDAY),
+                endDate.toEpochDay(),
+                7
+        );
+        // The first fits a long but overflows when multiplied, the second does not fit at all.
+        for (BigDecimal amount : Arrays.asList(new BigDecimal("90000000000000000.01"), new BigDecimal("1E+30"))) {
+            BigDecimal scaledAmount = amount.setScale(2);
+            assertThat(InvoiceAmounts.of(
+                    AmountMode.PRORATE, RoundingMode.HALF_UP, RemainderAllocation.LAST, amount,
+                    RecurrenceRules.of(SubscriptionType.WEEKLY, null, Day.MONDAY), startDate.toEpochDay(), endDate.toEpochDay(), invoiceDates
+            )).isEqualTo(referenceProrate(
+                    scaledAmount, RoundingMode.HALF_UP, SubscriptionType.WEEKLY, 1, startDate, endDate, invoiceDates
+            ));
+            assertThat(InvoiceAmounts.of(
+                    AmountMode.SPLIT, RoundingMode.HALF_UP, RemainderAllocation.SPREAD, amount,
+                    RecurrenceRules.of(SubscriptionType.WEEKLY, null, Day.MONDAY), startDate.toEpochDay(), endDate.toEpochDay(), invoiceDates
+            )).isEqualTo(referenceSplit(scaledAmount, invoiceDates.size(), RoundingMode.HALF_UP, RemainderAllocation.SPREAD));
+        }
+    }
+}
@@ -0,0 +1,133 @@
+package com.pay.subscription.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class InvoiceDatesTest {
+
+    private static Set<String> referenceStepped(LocalDate startDate, LocalDate endDate, long step) {
+        Set<String> dates = new LinkedHashSet<>();
+        while (!startDate.isAfter(endDate)) {
+            dates.add(DateUtil.dateToString(startDate));
+            startDate = startDate.plusDays(step);
+        }
+        return dates;
+    }
+
+    private static Set<String> referenceMonthly(LocalDate startDate, LocalDate endDate, int day) {
+        Set<String> dates = new LinkedHashSet<>();
+        LocalDate newDate = DateUtil.getDateWithSameDayOrGetLastDateOfMonth(startDate, day);
+        while (!newDate.isAfter(endDate)) {
+            if (!newDate.isBefore(startDate)) {
+                dates.add(DateUtil.dateToString(newDate));
+            }
+            newDate = DateUtil.getDateWithSameDayOrGetLastDateOfMonth(newDate.plusMonths(1), day);
+        }
+        return dates;
+    }
+
+    @Test
+    void itShouldMatchReferenceForSteppedDates() {
+        LocalDate start = LocalDate.of(2023, 12, 1);
+        for (int offset = 0; offset < 40; offset++) {
+            for (int length = 0; length < 120; length += 7) {
+                for (long step : new long[]{1, 7}) {
+                    LocalDate startDate = start.plusDays(offset);
+                    LocalDate endDate = startDate.plusDays(length);
+                    Set<String> dates = DateUtil.datesFromStartToEnd(startDate, endDate, step);
+                    assertThat(new ArrayList<>(dates))
+                            .containsExactlyElementsOf(referenceStepped(startDate, endDate, step));
+                    assertThat(dates).hasSize(referenceStepped(startDate, endDate, step).size());
+                }
+            }
+        }
+    }
+
+    @Test
+    void itShouldMatchReferenceForMonthlyDates() {
+        LocalDate start = LocalDate.of(2023, 12, 1);
+        for (int offset = 0; offset < 400; offset += 3) {
+            for (int day = 1; day <= 31; day++) {
+                LocalDate startDate = start.plusDays(offset);
+                LocalDate endDate = startDate.plusMonths(3).plusDays(offset % 5);
+                Set<String> dates = DateUtil.datesWithSameDayFromStartToEnd(startDate, endDate, day);
+                assertThat(new ArrayList<>(dates))
+                        .containsExactlyElementsOf(referenceMonthly(startDate, endDate, day));
+                assertThat(dates).hasSize(referenceMonthly(startDate, endDate, day).size());
+            }
+        }
+    }
+
+    @Test
+    void itShouldExposeEpochDaysWithoutFormatting() {
+        LocalDate start = LocalDate.of(2021, 1, 25);
+        InvoiceDates dates = (InvoiceDates) DateUtil.datesFromStartToEnd(start, LocalDate.of(2021, 1, 27), 1);
+        List<Long> epochDays = dates.epochDays().boxed().collect(Collectors.toList());
+        assertThat(epochDays).containsExactly(start.toEpochDay(), start.toEpochDay() + 1, start.toEpochDay() + 2);
+        assertThat(dates.epochDaySpliterator().getExactSizeIfKnown()).isEqualTo(3);
+    }
+
+    @Test
+    void itShouldAnswerCountNthContainsAndNextArithmetically() {
+        LocalDate start = LocalDate.of(2023, 12, 1);
+        for (int offset = 0; offset < 400; offset += 7) {
+            for (int day = 1; day <= 31; day += 3) {
+                LocalDate startDate = start.plusDays(offset);
+                LocalDate endDate = startDate.plusMonths(3);
+                InvoiceDates dates = (InvoiceDates) DateUtil.datesWithSameDayFromStartToEnd(startDate, endDate, day);
+                List<String> reference = new ArrayList<>(referenceMonthly(startDate, endDate, day));
+                assertThat(dates.size()).isEqualTo(reference.size());
+                for (int index = 0; index < reference.size(); index++) {
+                    assertThat(DateUtil.dateToString(LocalDate.ofEpochDay(dates.epochDayAt(index))))
+                            .isEqualTo(reference.get(index));
+                }
+                for (LocalDate date = startDate.minusDays(3); !date.isAfter(endDate.plusDays(3)); date = date.plusDays(1)) {
+                    String dateString = DateUtil.dateToString(date);
+                    assertThat(dates.contains(dateString)).isEqualTo(reference.contains(dateString));
+                    LocalDate probe = date;
+                    String expectedNext = reference.stream()
+                            .filter(candidate -> DateUtil.stringToDate(candidate).isAfter(probe))
+                            .findFirst()
+                            .orElse(null);
+                    String actualNext = dates.nextEpochDayAfter(date.toEpochDay()).isPresent()
+                            ? DateUtil.dateToString(LocalDate.ofEpochDay(dates.nextEpochDayAfter(date.toEpochDay()).getAsLong()))
+                            : null;
+                    assertThat(actualNext).isEqualTo(expectedNext);
+                }
+            }
+        }
+    }
+
+    @Test
+    void itShouldSliceInvoiceDates() {
+        InvoiceDates dates = (InvoiceDates) DateUtil.datesFromStartToEnd(
+                LocalDate.of(2021, 1, 1),
+                LocalDate.of(2021, 1, 31),
+                1
+        );
+        assertThat(dates.slice(10, 3)).containsExactly("11/01/2021", "12/01/2021", "13/01/2021");
+        assertThat(dates.slice(29, 10)).containsExactly("30/01/2021", "31/01/2021");
+        assertThat(dates.slice(40, 10)).isEmpty();
+        assertThat(dates.slice(10, 3).contains("14/01/2021")).isFalse();
+    }
+
+    @Test
+    void itShouldViewExplicitSetsAsInvoiceDates() {
+        Set<String> explicit = new LinkedHashSet<>();
+        explicit.add("05/01/2021");
+        explicit.add("12/01/2021");
+        InvoiceDates dates = InvoiceDates.of(explicit);
+        assertThat(dates.size()).isEqualTo(2);
+        assertThat(dates.containsEpochDay(LocalDate.of(2021, 1, 12).toEpochDay())).isTrue();
+        assertThat(dates.nextEpochDayAfter(LocalDate.of(2021, 1, 5).toEpochDay()).getAsLong())
+                .isEqualTo(LocalDate.of(2021, 1, 12).toEpochDay());
+    }
+}
@@ -0,0 +1,102 @@
+package com.pay.subscription.util;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.pay.subscription.enums.Day;
+import com.pay.subscription.enums.RecurrenceUnit;
+import com.pay.subscription.recurrence.RecurrenceRules;
+import com.pay.subscription.request.RecurrenceRequest;
+import com.pay.subscription.response.ScheduleDescriptor;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ScheduleDescriptorsTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    // Describes the dates, sends the descriptor through JSON as a client would get it,
+    // and expands it again.
+    private List<String> roundTrip(Set<String> invoiceDates) throws Exception {
+        ScheduleDescriptor descriptor = ScheduleDescriptors.describe(InvoiceDates.of(invoiceDates));
+        String json = this.objectMapper.writeValueAsString(descriptor);
+        return ScheduleDescriptors.expand(this.objectMapper.readValue(json, ScheduleDescriptor.class));
+    }
+
+    @Test
+    void itShouldExpandSteppedSchedulesToTheDatesOfDateUtil() throws Exception {
+        for (LocalDate start = LocalDate.of(2019, 12, 25); start.getYear() < 2021; start = start.plusDays(23)) {
+            for (long step : new long[]{1, 7, 14}) {
+                for (int days = 0; days <= 400; days += 19) {
+                    Set<String> invoiceDates = DateUtil.datesFromStartToEnd(start, start.plusDays(days), step);
+                    assertThat(this.roundTrip(invoiceDates)).containsExactlyElementsOf(new ArrayList<>(invoiceDates));
+                }
+            }
+        }
+    }
+
+    @Test
+    void itShouldExpandMonthlySchedulesToTheDatesOfDateUtil() throws Exception {
+        for (LocalDate start = LocalDate.of(2019, 1, 1); start.getYear() < 2025; start = start.plusDays(41)) {
+            for (int day = 1; day <= 31; day++) {
+                for (int months = 0; months <= 50; months += 7) {
+                    Set<String> invoiceDates = DateUtil.datesWithSameDayFromStartToEnd(start, start.plusMonths(months), day);
+                    assertThat(this.roundTrip(invoiceDates)).containsExactlyElementsOf(new ArrayList<>(invoiceDates));
+                }
+            }
+        }
+    }
+
+    @Test
+    void itShouldListMonthEndClampsAsExceptions() {
+        ScheduleDescriptor descriptor = ScheduleDescriptors.describe(
+                DateUtil.datesWithSameDayFromStartToEnd(DateCodec.parseEpochDay("20/01/2024"), DateCodec.parseEpochDay("20/06/2024"), 31)
+        );
+        assertThat(descriptor.getFirstDate()).isEqualTo("31/01/2024");
+        assertThat(descriptor.getLastDate()).isEqualTo("31/05/2024");
+        assertThat(descriptor.getCount()).isEqualTo(5);
+        assertThat(descriptor.getStepMonths()).isEqualTo(1);
+        assertThat(descriptor.getDayOfMonth()).isEqualTo(31);
+        assertThat(descriptor.getExceptions()).containsExactly("29/02/2024", "30/04/2024");
+        assertThat(descriptor.getDates()).isNull();
+    }
+
+    @Test
+    void itShouldDescribeRecurrenceSchedules() {
+        List<RecurrenceRequest> recurrences = Arrays.asList(
+                new RecurrenceRequest(RecurrenceUnit.DAY, 3, null, null, null),
+                new RecurrenceRequest(RecurrenceUnit.WEEK, 2, Collections.singletonList(Day.FRIDAY), null, null),
+                new RecurrenceRequest(RecurrenceUnit.WEEK, 2, Arrays.asList(Day.MONDAY, Day.THURSDAY), null, null),
+                new RecurrenceRequest(RecurrenceUnit.QUARTER, null, null, 31, null),
+                new RecurrenceRequest(RecurrenceUnit.MONTH, null, null, null, true)
+        );
+        long startEpochDay = DateCodec.parseEpochDay("15/01/2021");
+        long endEpochDay = DateCodec.parseEpochDay("15/01/2024");
+        for (RecurrenceRequest recurrence : recurrences) {
+            InvoiceDates invoiceDates = RecurrenceRules.compile(recurrence, RecurrenceRules.MAX_INTERVAL).getValue()
+                    .invoiceDates(startEpochDay, endEpochDay);
+            assertThat(ScheduleDescriptors.expand(ScheduleDescriptors.describe(invoiceDates)))
+                    .containsExactlyElementsOf(new ArrayList<>(invoiceDates));
+        }
+        assertThat(ScheduleDescriptors.describe(DateUtil.datesFromStartToEnd(startEpochDay, startEpochDay - 1, 1)).getCount()).isZero();
+    }
+
+    @Test
+    void itShouldRejectADescriptorThatDoesNotAddUp() {
+        ScheduleDescriptor wrongEnd = new ScheduleDescriptor("01/01/2021", "08/01/2021", 3, 7, null, null, null, null);
+        assertThatThrownBy(() -> ScheduleDescriptors.expand(wrongEnd))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("The schedule ends on 15/01/2021, not 08/01/2021.");
+        ScheduleDescriptor missingException = new ScheduleDescriptor("31/01/2021", "31/03/2021", 3, null, 1, 31, null, null);
+        assertThatThrownBy(() -> ScheduleDescriptors.expand(missingException))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("There is no exception for 2021-02.");
+    }
+}
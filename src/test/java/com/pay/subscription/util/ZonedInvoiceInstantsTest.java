@@ -0,0 +1,61 @@
+package com.pay.subscription.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ZonedInvoiceInstantsTest {
+
+    private static long day(String date) {
+        return DateCodec.parseEpochDay(date);
+    }
+
+    @Test
+    void itShouldResolveLocalTimesLikeZonedDateTime() {
+        List<String> zones = Arrays.asList("Europe/London", "America/New_York", "Australia/Lord_Howe", "Asia/Kolkata", "+05:30", "UTC");
+        List<LocalTime> times = Arrays.asList(LocalTime.MIDNIGHT, LocalTime.of(1, 30), LocalTime.of(2, 30), LocalTime.of(23, 59, 59));
+        InvoiceDates invoiceDates = DateUtil.datesFromStartToEnd(day("01/01/1965"), day("31/12/2030"), 1);
+        for (String zone : zones) {
+            for (LocalTime time : times) {
+                ZonedInvoiceInstants instants = new ZonedInvoiceInstants(invoiceDates, ZoneTransitions.of(zone), time);
+                assertThat(instants).hasSize(invoiceDates.size());
+                for (int index = 0; index < instants.size(); index++) {
+                    ZonedDateTime expected = ZonedDateTime.of(LocalDate.ofEpochDay(invoiceDates.epochDayAt(index)), time, ZoneId.of(zone));
+                    assertThat(instants.epochSecondAt(index)).isEqualTo(expected.toEpochSecond());
+                    assertThat(instants.get(index)).isEqualTo(DateTimeFormatter.ISO_OFFSET_DATE_TIME.format(expected));
+                }
+            }
+        }
+    }
+
+    @Test
+    void itShouldMoveTimesInAGapAndTakeTheEarlierOffsetInAnOverlap() {
+        InvoiceDates invoiceDates = DateUtil.datesFromStartToEnd(day("28/03/2021"), day("31/10/2021"), 217);
+        List<String> instants = new ZonedInvoiceInstants(invoiceDates, ZoneTransitions.of("Europe/Paris"), LocalTime.of(2, 30));
+        assertThat(instants).containsExactly("2021-03-28T03:30:00+02:00", "2021-10-31T02:30:00+02:00");
+    }
+
+    @Test
+    void itShouldResolveBeyondThePrecomputedTransitions() {
+        InvoiceDates invoiceDates = DateUtil.datesFromStartToEnd(day("30/06/2099"), day("01/07/2100"), 366);
+        List<String> instants = new ZonedInvoiceInstants(invoiceDates, ZoneTransitions.of("Europe/Paris"), LocalTime.NOON);
+        assertThat(instants).containsExactly("2099-06-30T12:00:00+02:00", "2100-07-01T12:00:00+02:00");
+    }
+
+    @Test
+    void itShouldCacheTransitionsPerZone() {
+        assertThat(ZoneTransitions.of("Europe/Paris")).isSameAs(ZoneTransitions.of("Europe/Paris"));
+        assertThat(ZoneTransitions.of("+02:00").transitionCount()).isZero();
+        assertThatThrownBy(() -> ZoneTransitions.of("Mars/Olympus")).isInstanceOf(DateTimeException.class);
+    }
+}